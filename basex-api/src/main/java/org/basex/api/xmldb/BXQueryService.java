@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.value.*;
@@ -133,6 +134,8 @@ final class BXQueryService implements XPathQueryService, BXXMLDBText {
       }
     } catch(final QueryException ex) {
       throw new XMLDBException(ErrorCodes.VENDOR_ERROR, ex.getMessage());
+    } catch(final BaseXException ex) {
+      throw new XMLDBException(ErrorCodes.VENDOR_ERROR, ex.getMessage());
     }
   }
 }
@@ -6,10 +6,12 @@ import static org.basex.util.Token.*;
 import java.io.*;
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.http.*;
 import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
+import org.basex.util.*;
 
 /**
  * This class caches information on a single XQuery module with RESTXQ annotations.
@@ -24,6 +26,12 @@ final class RestXqModule {
   private final IOFile file;
   /** Parsing timestamp. */
   private long time;
+  /** Compiled instances of the module that are currently not in use, indexed by users. */
+  private final HashMap<String, ArrayList<QueryContext>> pools = new HashMap<>();
+  /** Indicates if compiled instances of the module can be reused. */
+  private boolean reuse = true;
+  /** Version of the module (incremented whenever the module is parsed or closed). */
+  private int version;
 
   /**
    * Constructor.
@@ -42,9 +50,10 @@ final class RestXqModule {
    */
   boolean parse(final HTTPContext http) throws Exception {
     functions.clear();
+    close();
 
     // loop through all functions
-    final QueryContext qc = parseModule(http);
+    final QueryContext qc = parseModule(http.context());
     try {
       // loop through all functions
       for(final StaticFunc uf : qc.funcs.funcs()) {
@@ -74,6 +83,18 @@ final class RestXqModule {
     time = file.timeStamp();
   }
 
+  /**
+   * Discards all compiled instances of the module.
+   */
+  synchronized void close() {
+    for(final ArrayList<QueryContext> pool : pools.values()) {
+      for(final QueryContext lib : pool) lib.close();
+    }
+    pools.clear();
+    reuse = true;
+    version++;
+  }
+
   /**
    * Returns all functions.
    * @return functions
@@ -92,8 +113,26 @@ final class RestXqModule {
   void process(final HTTPContext http, final RestXqFunction func, final QueryException error)
       throws Exception {
 
+    // reuse compiled module of the current user or parse module again
+    final Context ctx = http.context();
+    final String user = ctx.user.name;
+    final int v;
+    QueryContext lib;
+    synchronized(this) {
+      v = version;
+      final ArrayList<QueryContext> pool = pools.get(user);
+      lib = pool == null || pool.isEmpty() ? null : pool.remove(pool.size() - 1);
+    }
+    if(lib == null) lib = compile(ctx);
+
     // create new XQuery instance
-    final QueryContext qc = parseModule(http);
+    final QueryContext qc;
+    if(lib != null) {
+      qc = new QueryContext(ctx);
+      qc.adopt(lib);
+    } else {
+      qc = parseModule(ctx);
+    }
     try {
       // loop through all functions
       for(final StaticFunc uf : qc.funcs.funcs()) {
@@ -107,19 +146,68 @@ final class RestXqModule {
       }
     } finally {
       qc.close();
+      if(lib != null) release(lib, user, v);
     }
   }
 
   // PRIVATE METHODS ====================================================================
 
+  /**
+   * Parses the module and compiles its declarations. The declarations will only be shared
+   * by requests of the same user, as permissions are checked during compilation.
+   * @param ctx database context of the current request
+   * @return query context with compiled declarations, or {@code null} if the declarations
+   *   depend on a single request and cannot be reused
+   */
+  private QueryContext compile(final Context ctx) {
+    synchronized(this) {
+      if(!reuse) return null;
+    }
+    QueryContext lib = null;
+    boolean ok = false;
+    try {
+      lib = parseModule(ctx);
+      ok = lib.compileDecls();
+    } catch(final QueryException ex) {
+      // errors will be raised when the module is parsed again
+      Util.debug(ex);
+    } finally {
+      if(!ok && lib != null) lib.close();
+    }
+    if(ok) return lib;
+    synchronized(this) {
+      reuse = false;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a compiled module to the pool of the specified user.
+   * @param lib query context with compiled declarations
+   * @param user name of the user
+   * @param v version of the module at the time the instance was requested
+   */
+  private synchronized void release(final QueryContext lib, final String user, final int v) {
+    if(v == version) {
+      ArrayList<QueryContext> pool = pools.get(user);
+      if(pool == null) {
+        pool = new ArrayList<>();
+        pools.put(user, pool);
+      }
+      pool.add(lib);
+    } else {
+      lib.close();
+    }
+  }
+
   /**
    * Parses the module and returns the query context.
-   * @param http http context
+   * @param ctx database context
    * @return query context
    * @throws QueryException query exception
    */
-  private QueryContext parseModule(final HTTPContext http) throws QueryException {
-    final QueryContext qc = new QueryContext(http.context());
+  private QueryContext parseModule(final Context ctx) throws QueryException {
+    final QueryContext qc = new QueryContext(ctx);
     try {
       qc.parse(string(file.read()), file.path(), null);
       return qc;
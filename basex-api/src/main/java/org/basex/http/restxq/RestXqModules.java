@@ -25,6 +25,8 @@ public final class RestXqModules {
   private HashMap<String, RestXqModule> modules = new HashMap<>();
   /** RESTXQ path. */
   private IOFile restxq;
+  /** Time of the last check for changed modules ({@code 0}: not checked yet). */
+  private long checked;
   /** Private constructor. */
   private RestXqModules() { }
 
@@ -92,16 +94,25 @@ public final class RestXqModules {
    * @throws Exception exception (including unexpected ones)
    */
   private synchronized void cache(final HTTPContext http) throws Exception {
+    final GlobalOptions gopts = http.context().globalopts;
     // initialize RESTXQ directory (may be relative against WEBPATH)
     if(restxq == null) {
-      final GlobalOptions gopts = http.context().globalopts;
       restxq = new IOFile(gopts.get(GlobalOptions.WEBPATH)).resolve(
           gopts.get(GlobalOptions.RESTXQPATH));
     }
-    // create new cache
+    // skip check if the modules have been checked recently
+    final long time = System.currentTimeMillis();
+    final int interval = gopts.get(GlobalOptions.PARSERESTXQ);
+    if(checked != 0 && (interval < 0 || time - checked < interval * 1000L)) return;
+
+    // create new cache, discard obsolete modules
     final HashMap<String, RestXqModule> cache = new HashMap<>();
     cache(http, restxq, cache);
+    for(final Map.Entry<String, RestXqModule> entry : modules.entrySet()) {
+      if(cache.get(entry.getKey()) != entry.getValue()) entry.getValue().close();
+    }
     modules = cache;
+    checked = time;
   }
 
   /**
@@ -55,6 +55,7 @@ public abstract class SandboxTest {
     ctx.globalopts.set(GlobalOptions.DBPATH, sb.path() + "/data");
     ctx.globalopts.set(GlobalOptions.WEBPATH, sb.path() + "/webapp");
     ctx.globalopts.set(GlobalOptions.RESTXQPATH, sb.path() + "/webapp");
+    ctx.globalopts.set(GlobalOptions.PARSERESTXQ, 0);
     ctx.globalopts.set(GlobalOptions.REPOPATH, sb.path() + "/repo");
   }
 
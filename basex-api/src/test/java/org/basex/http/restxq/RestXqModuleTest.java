@@ -0,0 +1,48 @@
+package org.basex.http.restxq;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.http.*;
+import org.junit.*;
+
+/**
+ * This test contains RESTXQ module caching.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class RestXqModuleTest extends RestXqTest {
+  /**
+   * Checks that compiled declarations are reused by subsequent requests.
+   * @throws Exception exception
+   */
+  @Test
+  public void reuse() throws Exception {
+    // static variable is only evaluated once
+    install("declare variable $m:v := <a/>;" +
+        "declare %R:path('') function m:f() { generate-id($m:v) };");
+    assertEquals(get(""), get(""));
+    // declarations depending on the current time are compiled for each request
+    install("declare variable $m:v := (<a/>, current-dateTime())[1];" +
+        "declare %R:path('') function m:f() { generate-id($m:v) };");
+    assertFalse(get("").equals(get("")));
+  }
+
+  /**
+   * Checks that modules are not parsed again before the specified interval has passed.
+   * @throws Exception exception
+   */
+  @Test
+  public void interval() throws Exception {
+    final GlobalOptions gopts = HTTPContext.init().globalopts;
+    get("declare %R:path('') function m:f() { 'a' };", "", "a");
+    gopts.set(GlobalOptions.PARSERESTXQ, 3600);
+    try {
+      get("declare %R:path('') function m:f() { 'b' };", "", "a");
+    } finally {
+      gopts.set(GlobalOptions.PARSERESTXQ, 0);
+    }
+    assertEquals("b", get(""));
+  }
+}
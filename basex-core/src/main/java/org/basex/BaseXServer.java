@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.api.client.*;
@@ -40,6 +41,10 @@ public final class BaseXServer extends CLI implements Runnable {
   private StringList commands;
   /** Server socket. */
   private ServerSocket socket;
+  /** Selector for idle client sessions. */
+  private ClientSelector selector;
+  /** Timer for authentication timeouts. */
+  private Timer timer;
   /** Start as daemon. */
   private boolean service;
 
@@ -102,7 +107,8 @@ public final class BaseXServer extends CLI implements Runnable {
       // execute initial command-line arguments
       for(final String c : commands) execute(c);
 
-      socket = new ServerSocket();
+      // server socket is created via a channel to allow for non-blocking client sessions
+      socket = ServerSocketChannel.open().socket();
       // reuse address (on non-Windows machines: !Prop.WIN);
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
@@ -134,6 +140,16 @@ public final class BaseXServer extends CLI implements Runnable {
 
   @Override
   public void run() {
+    try {
+      selector = new ClientSelector(context.globalopts);
+    } catch(final IOException ex) {
+      Util.errln(ex);
+      context.log.writeError(ex);
+      return;
+    }
+    selector.start();
+    timer = new Timer(true);
+
     running = true;
     while(running) {
       try {
@@ -152,17 +168,20 @@ public final class BaseXServer extends CLI implements Runnable {
               if(ms - cs.last > ka) cs.quit();
             }
           }
-          final ClientListener cl = new ClientListener(s, context, this);
+          final ClientListener cl = new ClientListener(s, context, this, selector);
           // start authentication timeout
           final long to = context.globalopts.get(GlobalOptions.KEEPALIVE) * 1000L;
           if(to > 0) {
-            cl.auth.schedule(new TimerTask() {
+            cl.auth = new TimerTask() {
               @Override
               public void run() {
                 cl.quitAuth();
               }
-            }, to);
-            auth.add(cl);
+            };
+            synchronized(auth) {
+              timer.schedule(cl.auth, to);
+              auth.add(cl);
+            }
           }
           cl.start();
         }
@@ -193,13 +212,15 @@ public final class BaseXServer extends CLI implements Runnable {
     if(!running) return;
     running = false;
 
-    for(final ClientListener cs : auth) {
+    for(final ClientListener cs : new ArrayList<>(auth)) {
       remove(cs);
       cs.quitAuth();
     }
     for(final ClientListener cs : context.sessions) {
       cs.quit();
     }
+    selector.close();
+    timer.cancel();
 
     try {
       // close interactive input if server was stopped by another process
@@ -334,7 +355,7 @@ public final class BaseXServer extends CLI implements Runnable {
   public void remove(final ClientListener client) {
     synchronized(auth) {
       auth.remove(client);
-      client.auth.cancel();
+      if(client.auth != null) client.auth.cancel();
     }
   }
 
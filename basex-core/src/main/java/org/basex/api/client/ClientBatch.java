@@ -0,0 +1,290 @@
+package org.basex.api.client;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.io.out.*;
+import org.basex.server.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class collects database commands, document updates and queries, which are sent
+ * to the server in a single request. The server processes all requests in the given order
+ * while they are received, and returns their responses in the same order. This way, only
+ * a single round trip is required for a whole batch of requests:
+ * <ul>
+ * <li> A batch is created via {@link ClientSession#batch()}.</li>
+ * <li> Requests are added via {@link #execute(String)}, {@link #add}, {@link #replace},
+ * {@link #store}, {@link #create} and {@link #query}. External variables of the most
+ * recently added query can be bound via {@link #bind(String, Object)}.</li>
+ * <li> {@link #run} sends the batch to the server and returns the results.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientBatch {
+  /** Response type: result, info and success flag. */
+  private static final int RESULT = 0;
+  /** Response type: info and success flag. */
+  private static final int INFO = 1;
+  /** Response type: query result. */
+  private static final int EXEC = 2;
+
+  /** Client session. */
+  private final ClientSession cs;
+  /** Encoded requests. */
+  private final ArrayOutput requests = new ArrayOutput();
+  /** Request output. */
+  private final EncodingOutput out = new EncodingOutput(requests);
+  /** Response types. */
+  private final IntList types = new IntList();
+  /** Indicates if the last request is a query whose bindings have not been completed yet. */
+  private boolean query;
+
+  /**
+   * Constructor.
+   * @param session client session
+   */
+  ClientBatch(final ClientSession session) {
+    cs = session;
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command to be executed
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch execute(final String command) throws IOException {
+    request(RESULT);
+    send(command);
+    return this;
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command to be executed
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch execute(final Command command) throws IOException {
+    return execute(command.toString());
+  }
+
+  /**
+   * Adds a request for creating a database.
+   * @param name name of database
+   * @param input xml input
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch create(final String name, final InputStream input) throws IOException {
+    return send(ServerCmd.CREATE, name, input);
+  }
+
+  /**
+   * Adds a request for adding a document to the opened database.
+   * @param path target path
+   * @param input xml input
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch add(final String path, final InputStream input) throws IOException {
+    return send(ServerCmd.ADD, path, input);
+  }
+
+  /**
+   * Adds a request for replacing a document in the opened database.
+   * @param path document(s) to replace
+   * @param input new content
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch replace(final String path, final InputStream input) throws IOException {
+    return send(ServerCmd.REPLACE, path, input);
+  }
+
+  /**
+   * Adds a request for storing raw data in the opened database.
+   * @param path target path
+   * @param input binary input
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch store(final String path, final InputStream input) throws IOException {
+    return send(ServerCmd.STORE, path, input);
+  }
+
+  /**
+   * Adds a query, which will be evaluated and closed on the server.
+   * @param qu query string
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch query(final String qu) throws IOException {
+    request(EXEC);
+    out.write(ServerCmd.EVAL.code);
+    send(qu);
+    query = true;
+    return this;
+  }
+
+  /**
+   * Binds a value to an external variable of the most recently added query.
+   * @param name name of variable
+   * @param value value to be bound
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch bind(final String name, final Object value) throws IOException {
+    return bind(name, value, "");
+  }
+
+  /**
+   * Binds a value with the specified type to an external variable of the most recently
+   * added query.
+   * @param name name of variable
+   * @param value value to be bound
+   * @param type type
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch bind(final String name, final Object value, final String type)
+      throws IOException {
+
+    if(!query) throw new BaseXException("No query has been added to the batch.");
+    send(name);
+    send(ClientQuery.binding(value, type));
+    return this;
+  }
+
+  /**
+   * Returns the number of requests.
+   * @return number of requests
+   */
+  public int size() {
+    return types.size();
+  }
+
+  /**
+   * Sends all requests to the server and returns their results. If requests have failed,
+   * an exception with the error message of the first failed request is raised after all
+   * responses have been received. The batch is empty afterwards.
+   * @return results of database commands and queries, and info strings of all other requests
+   * @throws IOException I/O exception
+   */
+  public String[] run() throws IOException {
+    complete();
+
+    // send requests in a separate thread: the server returns responses while it is
+    // still receiving the batch, so they must be consumed in the meantime
+    final PrintOutput sout = cs.sout;
+    final IOException[] failed = new IOException[1];
+    final Thread sender = new Thread() {
+      @Override
+      public void run() {
+        try {
+          sout.write(ServerCmd.BATCH.code);
+          sout.write(requests.buffer(), 0, (int) requests.size());
+          sout.write(0);
+          sout.flush();
+        } catch(final IOException ex) {
+          failed[0] = ex;
+        }
+      }
+    };
+    sender.start();
+
+    // receive responses
+    final BufferInput bi = new BufferInput(cs.sin);
+    final int rs = types.size();
+    final String[] results = new String[rs];
+    String error = null;
+    for(int r = 0; r < rs; r++) {
+      final int type = types.get(r);
+      final ArrayOutput ao = new ArrayOutput();
+      if(type != INFO) ClientSession.receive(bi, ao);
+      String result = ao.toString(), msg = null;
+      if(type == RESULT || type == INFO) {
+        result = bi.readString();
+        if(!ClientSession.ok(bi)) msg = result;
+        else if(type == RESULT) result = ao.toString();
+      } else if(!ClientSession.ok(bi)) {
+        msg = bi.readString();
+      }
+      if(msg != null) {
+        if(error == null) error = Util.info("Request %: %", r + 1, msg);
+        result = null;
+      }
+      results[r] = result;
+    }
+    try {
+      sender.join();
+    } catch(final InterruptedException ex) {
+      throw new BaseXException(ex);
+    }
+
+    // reset batch
+    requests.reset();
+    types.reset();
+
+    if(failed[0] != null) throw failed[0];
+    if(error != null) throw new BaseXException(error);
+    return results;
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Adds a request with input.
+   * @param cmd server command
+   * @param path path or name
+   * @param input input stream
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  private ClientBatch send(final ServerCmd cmd, final String path, final InputStream input)
+      throws IOException {
+
+    request(INFO);
+    out.write(cmd.code);
+    send(path);
+    final EncodingOutput eo = new EncodingOutput(out);
+    for(int b; (b = input.read()) != -1;) eo.write(b);
+    out.write(0);
+    return this;
+  }
+
+  /**
+   * Registers a new request and completes the previous one.
+   * @param type type of response
+   * @throws IOException I/O exception
+   */
+  private void request(final int type) throws IOException {
+    complete();
+    types.add(type);
+  }
+
+  /**
+   * Completes a query by terminating its bindings.
+   * @throws IOException I/O exception
+   */
+  private void complete() throws IOException {
+    if(!query) return;
+    query = false;
+    out.write(0);
+  }
+
+  /**
+   * Writes a string.
+   * @param string string to be sent
+   * @throws IOException I/O exception
+   */
+  private void send(final String string) throws IOException {
+    for(final byte b : Token.token(string)) out.write(b);
+    out.write(0);
+  }
+}
@@ -2,9 +2,9 @@ package org.basex.build;
 
 import java.io.*;
 
-import org.basex.build.xml.*;
 import org.basex.core.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.parse.csv.*;
 
 /**
@@ -14,18 +14,42 @@ import org.basex.io.parse.csv.*;
  * <p>The parser provides some options, which can be specified via the
  * {@link MainOptions#CSVPARSER} option.</p>
  *
+ * <p>Records are streamed: parse events are directly passed on to the builder.</p>
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
-public final class CsvParser extends XMLParser {
+public final class CsvParser extends SingleParser {
+  /** Parser options. */
+  private final CsvParserOptions copts;
+  /** Input (assigned while parsing). */
+  private TextInput input;
+
   /**
    * Constructor.
    * @param source document source
    * @param opts database options
-   * @throws IOException I/O exception
    */
-  public CsvParser(final IO source, final MainOptions opts) throws IOException {
-    super(toXML(source, opts.get(MainOptions.CSVPARSER)), opts);
+  public CsvParser(final IO source, final MainOptions opts) {
+    super(source, opts);
+    copts = opts.get(MainOptions.CSVPARSER);
+  }
+
+  @Override
+  protected void parse() throws IOException {
+    try(final NewlineInput nli = new NewlineInput(src)) {
+      input = nli;
+      new CsvBuilderConverter(copts, builder).convert(nli);
+    } finally {
+      input = null;
+    }
+  }
+
+  @Override
+  protected double prog() {
+    final TextInput in = input;
+    final double l = in == null ? 0 : in.length();
+    return l <= 0 ? 0 : in.size() / l;
   }
 
   /**
@@ -4,14 +4,18 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -19,12 +23,20 @@ import org.basex.util.list.*;
  * This class recursively scans files and directories and parses all
  * relevant files.
  *
+ * If {@link MainOptions#PARSETHREADS} is assigned a positive value, the documents of
+ * directories and archives are parsed by worker threads into main-memory instances.
+ * The resulting instances are appended to the builder in the original order by the calling
+ * thread. Single inputs, and documents that are larger than {@link #MAXSIZE} or of
+ * unknown size, are streamed into the builder.
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
 public final class DirParser extends Parser {
   /** Number of skipped files to log. */
   private static final int SKIPLOG = 10;
+  /** Maximum size of documents that are parsed in parallel. */
+  static final int MAXSIZE = 1 << 20;
   /** Skipped files. */
   private final StringList skipped = new StringList();
   /** File pattern. */
@@ -42,6 +54,8 @@ public final class DirParser extends Parser {
   private final boolean dtd;
   /** Raw parsing. */
   private final boolean rawParser;
+  /** Number of parsing threads. */
+  private final int threads;
   /** Database path for storing binary files. */
   private IOFile rawPath;
 
@@ -52,6 +66,13 @@ public final class DirParser extends Parser {
   /** Element counter. */
   private int c;
 
+  /** Parsing threads (only assigned in parallel mode). */
+  private ExecutorService pool;
+  /** Documents that are currently parsed (only assigned in parallel mode). */
+  private ArrayDeque<ParsedDoc> docs;
+  /** Serializer for parsed documents (only assigned in parallel mode). */
+  private BuilderSerializer ser;
+
   /**
    * Constructor.
    * @param source source path
@@ -67,6 +88,7 @@ public final class DirParser extends Parser {
     addRaw = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     rawParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    threads = options.get(MainOptions.PARSETHREADS);
     filter = !source.isDir() && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(options.get(MainOptions.CREATEFILTER)));
   }
@@ -86,7 +108,31 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.filesize = 0;
     build.meta.original = src.path();
-    parse(build, src);
+    if(threads <= 0 || rawParser || !src.isDir() && !(archives && src.isArchive())) {
+      parse(build, src);
+      return;
+    }
+
+    // parallel mode
+    pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable r) {
+        final Thread t = new Thread(r, Util.className(DirParser.class));
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    docs = new ArrayDeque<>();
+    ser = new BuilderSerializer(build);
+    try {
+      parse(build, src);
+      while(!docs.isEmpty()) write();
+    } finally {
+      pool.shutdownNow();
+      pool = null;
+      docs = null;
+      ser = null;
+    }
   }
 
   /**
@@ -179,7 +225,19 @@ public final class DirParser extends Parser {
         if(rawPath != null) {
           Store.store(src.inputSource(), new IOFile(rawPath, targ + name));
         }
+      } else if(pool != null && l != -1 && l <= MAXSIZE) {
+        // parse input in parallel; limit the number of pending documents
+        IO in = src;
+        if(src instanceof IOStream) {
+          in = new IOContent(src.read());
+          in.name(src.name());
+        }
+        docs.add(new ParsedDoc(src.path(), pool.submit(parseTask(in, targ))));
+        while(docs.size() > threads << 2) write();
       } else {
+        // add pending documents of parallel mode
+        if(pool != null) while(!docs.isEmpty()) write();
+
         // store input as XML
         boolean ok = true;
         IO in = src;
@@ -206,12 +264,63 @@ public final class DirParser extends Parser {
           parser.parse(b);
         }
         parser = null;
-        // dump debug data
-        if(Prop.debug && (++c & 0x3FF) == 0) Util.err(";");
+        debug();
       }
     }
   }
 
+  /**
+   * Returns a task for parsing the specified input to a main-memory instance.
+   * @param in input
+   * @param targ target path
+   * @return task, returning {@code null} if the input is corrupt and is to be skipped
+   */
+  private Callable<MemData> parseTask(final IO in, final String targ) {
+    return new Callable<MemData>() {
+      @Override
+      public MemData call() throws IOException {
+        try {
+          return MemBuilder.build("", Parser.singleParser(in, options, targ));
+        } catch(final IOException ex) {
+          if(!skipCorrupt) throw ex;
+          Util.debug(ex);
+          return null;
+        }
+      }
+    };
+  }
+
+  /**
+   * Waits until the first pending document has been parsed, and adds it to the builder.
+   * @throws IOException I/O exception
+   */
+  private void write() throws IOException {
+    final ParsedDoc doc = docs.poll();
+    final MemData data;
+    try {
+      data = doc.data.get();
+    } catch(final InterruptedException ex) {
+      throw new BuildException(ex.toString());
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof IOException) throw (IOException) th;
+      throw th instanceof RuntimeException ? (RuntimeException) th : new RuntimeException(th);
+    }
+    if(data == null) {
+      skipped.add(doc.path);
+    } else {
+      ser.serialize(new DBNode(data, 0));
+      debug();
+    }
+  }
+
+  /**
+   * Dumps debug data.
+   */
+  private void debug() {
+    if(Prop.debug && (++c & 0x3FF) == 0) Util.err(";");
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -244,5 +353,25 @@ public final class DirParser extends Parser {
   @Override
   public void close() throws IOException {
     if(parser != null) parser.close();
+    final ExecutorService ps = pool;
+    if(ps != null) ps.shutdownNow();
+  }
+
+  /** Document that is parsed by a worker thread. */
+  private static final class ParsedDoc {
+    /** Path to the original input. */
+    final String path;
+    /** Main-memory instance. */
+    final Future<MemData> data;
+
+    /**
+     * Constructor.
+     * @param path path to the original input
+     * @param data main-memory instance
+     */
+    ParsedDoc(final String path, final Future<MemData> data) {
+      this.path = path;
+      this.data = data;
+    }
   }
 }
@@ -1,11 +1,17 @@
 package org.basex.build;
 
+import static org.basex.query.util.Err.*;
+
 import java.io.*;
 
-import org.basex.build.xml.*;
 import org.basex.core.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.parse.json.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
 
 /**
  * This class parses files in the JSON format
@@ -14,17 +20,25 @@ import org.basex.io.parse.json.*;
  * <p>The parser provides some options, which can be specified via the
  * {@link MainOptions#JSONPARSER} option.</p>
  *
+ * <p>The input is streamed: parse events are directly passed on to the builder.
+ * An intermediate tree will only be created if the chosen options require it
+ * (JsonML format, merged types).</p>
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
-public final class JsonParser extends XMLParser {
+public final class JsonParser extends SingleParser {
+  /** Parser options. */
+  private final JsonParserOptions jopts;
+  /** Input (assigned while parsing). */
+  private TextInput input;
+
   /**
    * Constructor.
    * @param source document source
    * @param opts database options
-   * @throws IOException I/O exception
    */
-  public JsonParser(final IO source, final MainOptions opts) throws IOException {
+  public JsonParser(final IO source, final MainOptions opts) {
     this(source, opts, opts.get(MainOptions.JSONPARSER));
   }
 
@@ -33,11 +47,36 @@ public final class JsonParser extends XMLParser {
    * @param source document source
    * @param opts database options
    * @param jopts parser options
-   * @throws IOException I/O exception
    */
-  public JsonParser(final IO source, final MainOptions opts, final JsonParserOptions jopts)
-      throws IOException {
-    super(toXML(source, jopts), opts);
+  public JsonParser(final IO source, final MainOptions opts, final JsonParserOptions jopts) {
+    super(source, opts);
+    this.jopts = jopts;
+  }
+
+  @Override
+  protected void parse() throws IOException {
+    try(final NewlineInput nli = new NewlineInput(src)) {
+      input = nli;
+      final JsonConverter conv = JsonBuilderConverter.get(jopts, builder);
+      if(conv != null) {
+        conv.convert(nli, src.path());
+      } else {
+        final JsonConverter tree = JsonConverter.get(jopts);
+        tree.convert(nli, src.path());
+        final Item item = tree.finish();
+        if(!(item instanceof ANode)) throw SERFUNC.getIO(item.type);
+        add((ANode) item);
+      }
+    } finally {
+      input = null;
+    }
+  }
+
+  @Override
+  protected double prog() {
+    final TextInput in = input;
+    final double l = in == null ? 0 : in.length();
+    return l <= 0 ? 0 : in.size() / l;
   }
 
   /**
@@ -54,4 +93,27 @@ public final class JsonParser extends XMLParser {
     xml.name(io.name());
     return xml;
   }
+
+  /**
+   * Passes on the specified node and its descendants to the builder.
+   * @param node node
+   * @throws IOException I/O exception
+   */
+  private void add(final ANode node) throws IOException {
+    final Type type = node.type;
+    if(type == NodeType.TXT) {
+      builder.text(node.string());
+    } else if(type == NodeType.ELM) {
+      atts.clear();
+      final AxisIter ai = node.attributes();
+      for(ANode a; (a = ai.next()) != null;) atts.add(a.name(), a.string());
+      builder.openElem(node.name(), atts, nsp);
+      final AxisIter ci = node.children();
+      for(ANode c; (c = ci.next()) != null;) add(c);
+      builder.closeElem();
+    } else {
+      final AxisIter ci = node.children();
+      for(ANode c; (c = ci.next()) != null;) add(c);
+    }
+  }
 }
@@ -2,8 +2,11 @@ package org.basex.core;
 
 import static org.basex.core.Text.*;
 
+import java.io.*;
+
 import org.basex.data.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.server.*;
 import org.basex.util.*;
@@ -34,6 +37,8 @@ public final class Context {
   public final Events events;
   /** Opened databases. */
   public final Datas dbs;
+  /** Cached queries. */
+  public final QueryCache queries;
   /** Users. */
   public final Users users;
   /** Package repository. */
@@ -93,6 +98,7 @@ public final class Context {
     blocker = ctx.blocker;
     locks = ctx.locks;
     users = ctx.users;
+    queries = ctx.queries;
     repo = ctx.repo;
     log = ctx.log;
   }
@@ -110,6 +116,7 @@ public final class Context {
     databases = new Databases(this);
     locks = gopts.get(GlobalOptions.GLOBALLOCK) ? new ProcLocking(this) : new DBLocking(gopts);
     users = new Users(this);
+    queries = new QueryCache(gopts);
     repo = new Repo(this);
     log = new Log(this);
     user = users.get(S_ADMIN);
@@ -122,6 +129,7 @@ public final class Context {
    */
   public synchronized void close() {
     while(!sessions.isEmpty()) sessions.get(0).quit();
+    queries.close();
     dbs.close();
     log.close();
   }
@@ -239,17 +247,27 @@ public final class Context {
     final StringList read = prepareLock(lr.read, lr.readAll);
     final StringList write = prepareLock(lr.write, lr.writeAll);
     locks.acquire(pr, read, write);
+    // synchronize update journals after the locks have been released
+    Journal.defer();
   }
 
   /**
-   * Unlocks the process and stops the timeout.
+   * Unlocks the process and stops the timeout. Afterwards, the update journals with
+   * deferred commits are synchronized.
    * @param pr process
+   * @throws BaseXException if the updates of the process could not be finished or synchronized
    */
-  public void unregister(final Proc pr) {
+  public void unregister(final Proc pr) throws BaseXException {
     assert pr.registered() : "Not registered:" + pr;
     pr.registered(false);
     locks.release(pr);
     pr.stopTimeout();
+    try {
+      Journal.sync();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      throw new BaseXException(ex);
+    }
   }
 
   /**
@@ -5,6 +5,7 @@ import static org.basex.util.Prop.*;
 import java.util.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
 
@@ -36,6 +37,10 @@ public final class GlobalOptions extends Options {
   public static final BooleanOption LANGKEYS = new BooleanOption("LANGKEYS", false);
   /** Applied locking algorithm: local (database) vs. global (process) locking. */
   public static final BooleanOption GLOBALLOCK = new BooleanOption("GLOBALLOCK", false);
+  /** Size of the page cache, which is shared by all opened databases (megabytes). */
+  public static final NumberOption CACHESIZE = new NumberOption("CACHESIZE", 32);
+  /** Maximum number of compiled queries that are cached (0: no caching). */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -66,6 +71,8 @@ public final class GlobalOptions extends Options {
   public static final NumberOption TIMEOUT = new NumberOption("TIMEOUT", 30);
   /** Keep alive time of clients; deactivated if set to 0. */
   public static final NumberOption KEEPALIVE = new NumberOption("KEEPALIVE", 600);
+  /** Maximum number of threads for processing client requests. */
+  public static final NumberOption SERVERTHREADS = new NumberOption("SERVERTHREADS", 64);
   /** Defines the number of parallel readers. */
   public static final NumberOption PARALLEL = new NumberOption("PARALLEL", 8);
   /** Logging flag. */
@@ -81,6 +88,8 @@ public final class GlobalOptions extends Options {
     HOME + (USERHOME ? NAME + "Web" : "webapp"));
   /** RESTXQ path (relative to web path). */
   public static final StringOption RESTXQPATH = new StringOption("RESTXQPATH", "");
+  /** Interval (seconds) for checking RESTXQ modules for changes (0: always, -1: never). */
+  public static final NumberOption PARSERESTXQ = new NumberOption("PARSERESTXQ", 3);
   /** Local (embedded) mode. */
   public static final BooleanOption HTTPLOCAL = new BooleanOption("HTTPLOCAL", false);
   /** Port for stopping the web server. */
@@ -98,6 +107,7 @@ public final class GlobalOptions extends Options {
     language = get(LANG);
     langkeys = get(LANGKEYS);
     debug = get(DEBUG);
+    PageCache.get().size(get(CACHESIZE));
     final String ph = get(PROXYHOST);
     final String pp = Integer.toString(get(PROXYPORT));
     setSystem("http.proxyHost", ph);
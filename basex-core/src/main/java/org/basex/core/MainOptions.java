@@ -19,6 +19,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption MAINMEM = new BooleanOption("MAINMEM", false);
   /** Flag for opening a database after creating it. */
   public static final BooleanOption CREATEONLY = new BooleanOption("CREATEONLY", false);
+  /** Flag for reading opened databases via memory-mapped files. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
 
   // Parsing
 
@@ -32,6 +34,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption ADDRAW = new BooleanOption("ADDRAW", false);
   /** Cache new documents before adding them to a database. */
   public static final BooleanOption ADDCACHE = new BooleanOption("ADDCACHE", false);
+  /** Number of threads for parsing documents in parallel (0: sequential). */
+  public static final NumberOption PARSETHREADS = new NumberOption("PARSETHREADS", 0);
   /** Define CSV parser options. */
   public static final OptionsOption<CsvParserOptions> CSVPARSER =
       new OptionsOption<>("CSVPARSER", new CsvParserOptions());
@@ -69,12 +73,21 @@ public final class MainOptions extends Options {
   public static final BooleanOption ATTRINDEX = new BooleanOption("ATTRINDEX", true);
   /** Flag for creating a full-text index. */
   public static final BooleanOption FTINDEX = new BooleanOption("FTINDEX", false);
+  /** Flag for creating a trigram index. */
+  public static final BooleanOption TRIGRAMINDEX = new BooleanOption("TRIGRAMINDEX", false);
 
   /** Maximum number of text/attribute index entries
    *  to keep in memory during index creation. */
   public static final NumberOption INDEXSPLITSIZE = new NumberOption("INDEXSPLITSIZE", 0);
   /** Maximum number of fulltext index entries to keep in memory during index creation. */
   public static final NumberOption FTINDEXSPLITSIZE = new NumberOption("FTINDEXSPLITSIZE", 0);
+  /** Maximum number of threads for building index structures (1: sequential). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
+
+  /** Names of the elements whose texts will be indexed (comma-separated; empty: all). */
+  public static final StringOption TEXTINCLUDE = new StringOption("TEXTINCLUDE", "");
+  /** Names of the attributes whose values will be indexed (comma-separated; empty: all). */
+  public static final StringOption ATTRINCLUDE = new StringOption("ATTRINCLUDE", "");
 
   /** Maximum length of index entries. */
   public static final NumberOption MAXLEN = new NumberOption("MAXLEN", 96);
@@ -112,6 +125,11 @@ public final class MainOptions extends Options {
   public static final NumberOption INLINELIMIT = new NumberOption("INLINELIMIT", 100);
   /** Flag for tail-call optimization. */
   public static final NumberOption TAILCALLS = new NumberOption("TAILCALLS", 256);
+  /** Number of parallel tasks for evaluating FLWOR for clauses (0: sequential). */
+  public static final NumberOption PARALLELFOR = new NumberOption("PARALLELFOR", 0);
+  /** Estimated main memory for sorted tuples and groups before they are spilled to disk
+   * (kilobytes; 0: unlimited). */
+  public static final NumberOption SPILLSIZE = new NumberOption("SPILLSIZE", 0);
   /** Favor global database when opening resources. */
   public static final BooleanOption DEFAULTDB = new BooleanOption("DEFAULTDB", false);
   /** Caches the query results. */
@@ -149,6 +167,8 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Journals updates in a write-ahead log. */
+  public static final BooleanOption JOURNAL = new BooleanOption("JOURNAL", false);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
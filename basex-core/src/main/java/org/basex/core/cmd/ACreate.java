@@ -4,11 +4,13 @@ import static org.basex.core.Text.*;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.ft.*;
+import org.basex.index.trigram.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.util.*;
@@ -82,17 +84,55 @@ public abstract class ACreate extends Command {
    * @throws IOException I/O exception
    */
   static void create(final IndexType index, final Data data, final ACreate cmd) throws IOException {
-    if(data.inMemory()) return;
+    create(data, cmd, index);
+  }
 
-    final IndexBuilder ib;
-    switch(index) {
-      case TEXT:      ib = new ValueIndexBuilder(data, true); break;
-      case ATTRIBUTE: ib = new ValueIndexBuilder(data, false); break;
-      case FULLTEXT:  ib = new FTBuilder(data); break;
-      default:        throw Util.notExpected();
+  /**
+   * Builds the value and full-text indexes that are enabled in the specified meta data.
+   * @param meta meta data
+   * @param data data reference
+   * @param cmd calling command (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void create(final MetaData meta, final Data data, final ACreate cmd)
+      throws IOException {
+
+    final ArrayList<IndexType> indexes = new ArrayList<>();
+    if(meta.createtext) indexes.add(IndexType.TEXT);
+    if(meta.createattr) indexes.add(IndexType.ATTRIBUTE);
+    if(meta.createftxt) indexes.add(IndexType.FULLTEXT);
+    if(meta.createtrgm) indexes.add(IndexType.TRIGRAM);
+    create(data, cmd, indexes.toArray(new IndexType[indexes.size()]));
+  }
+
+  /**
+   * Builds the specified indexes. The indexes will be built in parallel if
+   * {@link MainOptions#INDEXTHREADS} is larger than 1.
+   * @param data data reference
+   * @param cmd calling command (can be {@code null})
+   * @param indexes indexes to be built
+   * @throws IOException I/O exception
+   */
+  static void create(final Data data, final ACreate cmd, final IndexType... indexes)
+      throws IOException {
+
+    if(data.inMemory() || indexes.length == 0) return;
+
+    final int il = indexes.length;
+    final IndexBuilder[] ib = new IndexBuilder[il];
+    for(int i = 0; i < il; i++) {
+      switch(indexes[i]) {
+        case TEXT:      ib[i] = new ValueIndexBuilder(data, true); break;
+        case ATTRIBUTE: ib[i] = new ValueIndexBuilder(data, false); break;
+        case FULLTEXT:  ib[i] = new FTBuilder(data); break;
+        case TRIGRAM:   ib[i] = new TrigramBuilder(data); break;
+        default:        throw Util.notExpected();
+      }
+      data.closeIndex(indexes[i]);
     }
-    data.closeIndex(index);
-    data.setIndex(index, (cmd == null ? ib : cmd.proc(ib)).build());
+    final IndexBuilders ibs = new IndexBuilders(ib);
+    final Index[] index = (cmd == null ? ibs : cmd.proc(ibs)).build();
+    for(int i = 0; i < il; i++) data.setIndex(indexes[i], index[i]);
   }
 
   /**
@@ -116,6 +156,10 @@ public abstract class ACreate extends Command {
         data.meta.ftxtindex = false;
         pat = DATAFTX;
         break;
+      case TRIGRAM:
+        data.meta.trgmindex = false;
+        pat = DATATRG;
+        break;
       default:
     }
     data.closeIndex(index);
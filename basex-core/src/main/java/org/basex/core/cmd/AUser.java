@@ -65,6 +65,8 @@ abstract class AUser extends Command {
         for(final String db : dbs) ok &= run(user, db);
       }
     }
+    // release cached queries, which were compiled with the old permissions
+    context.queries.close();
     return ok;
   }
 
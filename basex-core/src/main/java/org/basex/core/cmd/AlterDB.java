@@ -39,7 +39,8 @@ public final class AlterDB extends ACreate {
     // target database already exists
     if(goptions.dbexists(trg)) return error(DB_EXISTS_X, trg);
 
-    // close database if it's currently opened and not opened by others
+    // release cached queries, close database if it's currently opened and not opened by others
+    context.queries.close(src);
     if(!closed) closed = close(context, src);
     // check if source database is still opened
     if(context.pinned(src)) return error(DB_PINNED_X, src);
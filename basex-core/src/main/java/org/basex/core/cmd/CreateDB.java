@@ -10,9 +10,6 @@ import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.Cmd;
 import org.basex.core.parse.Commands.CmdCreate;
 import org.basex.data.*;
-import org.basex.index.*;
-import org.basex.index.ft.*;
-import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.util.*;
@@ -88,6 +85,7 @@ public final class CreateDB extends ACreate {
         context.openDB(data);
         context.dbs.add(data);
       } else {
+        context.queries.close(name);
         if(context.pinned(name)) return error(DB_PINNED_X, name);
 
         // create disk-based instance
@@ -98,9 +96,7 @@ public final class CreateDB extends ACreate {
         if(!open.run(context)) return error(open.info());
         final Data data = context.data();
         try {
-          if(data.meta.createtext) create(IndexType.TEXT,      data, this);
-          if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, this);
-          if(data.meta.createftxt) create(IndexType.FULLTEXT,  data, this);
+          create(data.meta, data, this);
         } finally {
           data.finishUpdate();
         }
@@ -160,6 +156,7 @@ public final class CreateDB extends ACreate {
     if(mem) return MemBuilder.build(name, parser);
 
     // database is currently locked by another process
+    ctx.queries.close(name);
     if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
 
     // create disk builder, set database path
@@ -168,12 +165,7 @@ public final class CreateDB extends ACreate {
     // build database and index structures
     try {
       final Data data = builder.build();
-      if(data.meta.createtext) data.setIndex(IndexType.TEXT,
-        new ValueIndexBuilder(data, true).build());
-      if(data.meta.createattr) data.setIndex(IndexType.ATTRIBUTE,
-        new ValueIndexBuilder(data, false).build());
-      if(data.meta.createftxt) data.setIndex(IndexType.FULLTEXT,
-        new FTBuilder(data).build());
+      create(data.meta, data, null);
       data.close();
     } finally {
       builder.close();
@@ -38,10 +38,12 @@ public final class CreateIndex extends ACreate {
     switch(ci) {
       case TEXT:
         data.meta.createtext = true;
+        data.meta.textinclude = options.get(MainOptions.TEXTINCLUDE);
         index = IndexType.TEXT;
         break;
       case ATTRIBUTE:
         data.meta.createattr = true;
+        data.meta.attrinclude = options.get(MainOptions.ATTRINCLUDE);
         index = IndexType.ATTRIBUTE;
         break;
       case FULLTEXT:
@@ -53,6 +55,10 @@ public final class CreateIndex extends ACreate {
         data.meta.stopwords = options.get(MainOptions.STOPWORDS);
         index = IndexType.FULLTEXT;
         break;
+      case TRIGRAM:
+        data.meta.createtrgm = true;
+        index = IndexType.TRIGRAM;
+        break;
       default:
         return error(UNKNOWN_CMD_X, this);
     }
@@ -35,7 +35,8 @@ public final class DropDB extends ACreate {
     // loop through all databases
     boolean ok = true;
     for(final String db : dbs) {
-      // close database if it's currently opened
+      // release cached queries, close database if it's currently opened
+      context.queries.close(db);
       close(context, db);
       // check if database is still pinned
       if(context.pinned(db)) {
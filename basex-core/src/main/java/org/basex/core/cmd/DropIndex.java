@@ -45,6 +45,10 @@ public final class DropIndex extends ACreate {
         data.meta.createftxt = false;
         it = IndexType.FULLTEXT;
         break;
+      case TRIGRAM:
+        data.meta.createtrgm = false;
+        it = IndexType.TRIGRAM;
+        break;
       default:
         return error(UNKNOWN_CMD_X, this);
     }
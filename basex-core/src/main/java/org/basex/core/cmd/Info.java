@@ -5,6 +5,7 @@ import static org.basex.core.Text.*;
 import java.io.*;
 
 import org.basex.core.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
 
@@ -45,6 +46,7 @@ public final class Info extends AInfo {
     if(context.user.has(Perm.CREATE)) {
       Performance.gc(1);
       info(tb, USED_MEM, Performance.getMemory());
+      info(tb, PAGE_CACHE, PageCache.get());
     }
     if(context.user.has(Perm.ADMIN)) {
       final GlobalOptions gopts = context.globalopts;
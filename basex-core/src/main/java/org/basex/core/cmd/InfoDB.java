@@ -78,6 +78,9 @@ public final class InfoDB extends AInfo {
         info(tb, MainOptions.TEXTINDEX.name(), meta.textindex);
         info(tb, MainOptions.ATTRINDEX.name(), meta.attrindex);
         info(tb, MainOptions.FTINDEX.name(), meta.ftxtindex);
+        info(tb, MainOptions.TRIGRAMINDEX.name(), meta.trgmindex);
+        info(tb, MainOptions.TEXTINCLUDE.name(), meta.textinclude);
+        info(tb, MainOptions.ATTRINCLUDE.name(), meta.attrinclude);
         info(tb, MainOptions.LANGUAGE.name(), meta.language);
         info(tb, MainOptions.STEMMING.name(), meta.stemming);
         info(tb, MainOptions.CASESENS.name(), meta.casesens);
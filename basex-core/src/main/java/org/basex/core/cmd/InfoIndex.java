@@ -51,6 +51,7 @@ public final class InfoIndex extends AInfo {
     tb.add(info(CmdIndexInfo.TEXT, data));
     tb.add(info(CmdIndexInfo.ATTRIBUTE, data));
     tb.add(info(CmdIndexInfo.FULLTEXT, data));
+    tb.add(info(CmdIndexInfo.TRIGRAM, data));
     tb.add(info(CmdIndexInfo.PATH, data));
     out.print(tb.finish());
     return true;
@@ -75,6 +76,7 @@ public final class InfoIndex extends AInfo {
       case TEXT:      return info(TEXT_INDEX, IndexType.TEXT, data, data.meta.textindex);
       case ATTRIBUTE: return info(ATTRIBUTE_INDEX, IndexType.ATTRIBUTE, data, data.meta.attrindex);
       case FULLTEXT:  return info(FULLTEXT_INDEX, IndexType.FULLTEXT, data, data.meta.ftxtindex);
+      case TRIGRAM:   return info(TRIGRAM_INDEX, IndexType.TRIGRAM, data, data.meta.trgmindex);
       default:        return Token.token(LI + NOT_AVAILABLE);
     }
   }
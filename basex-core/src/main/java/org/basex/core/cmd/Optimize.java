@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -133,9 +134,13 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, rebuild, cmd);
-    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, rebuild, cmd);
-    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, rebuild || rebuildFT, cmd);
+    final ArrayList<IndexType> indexes = new ArrayList<>();
+    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, rebuild, indexes);
+    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, rebuild, indexes);
+    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, rebuild || rebuildFT,
+        indexes);
+    optimize(IndexType.TRIGRAM,   data, md.createtrgm, md.trgmindex, rebuild, indexes);
+    create(data, cmd, indexes.toArray(new IndexType[indexes.size()]));
   }
 
   /**
@@ -145,17 +150,16 @@ public final class Optimize extends ACreate {
    * @param create create flag
    * @param old old flag
    * @param rebuild rebuild all index structures
-   * @param cmd calling command instance
-   * @throws IOException I/O exception
+   * @param indexes indexes to be created
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean old, final boolean rebuild, final Optimize cmd) throws IOException {
+      final boolean old, final boolean rebuild, final ArrayList<IndexType> indexes) {
 
     // check if flags are nothing has changed
     if(!rebuild && create == old) return;
 
     // create or drop index
-    if(create) create(type, data, cmd);
+    if(create) indexes.add(type);
     else drop(type, data);
   }
 }
@@ -9,7 +9,6 @@ import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
-import org.basex.index.*;
 import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.query.value.node.*;
@@ -20,6 +19,8 @@ import org.basex.util.list.*;
  * Evaluates the 'optimize all' command and rebuilds all data structures of
  * the currently opened database. This effectively eliminates all fragmentation
  * and can lead to significant space savings after updates.
+ * While the optimized database is being built, the database can still be read by other
+ * processes. An exclusive lock is only acquired to replace the original database.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Leo Woerteler
@@ -29,6 +30,8 @@ public final class OptimizeAll extends ACreate {
   private int pre;
   /** Data size. */
   private int size;
+  /** Indicates if the exclusive lock is requested. */
+  private boolean swap;
 
   /**
    * Default constructor.
@@ -41,7 +44,11 @@ public final class OptimizeAll extends ACreate {
   protected boolean run() {
     final Data data = context.data();
     try {
-      optimizeAll(data, context, this);
+      if(registered()) {
+        optimizeOnline(data);
+      } else {
+        optimizeAll(data, context, this);
+      }
     } catch(final IOException ex) {
       return error(Util.message(ex));
     } finally {
@@ -60,7 +67,9 @@ public final class OptimizeAll extends ACreate {
 
   @Override
   public void databases(final LockResult lr) {
-    lr.write.add(DBLocking.CTX);
+    // the optimized database is built while other processes may read the database
+    if(swap) lr.write.add(DBLocking.CTX);
+    else lr.read.add(DBLocking.CTX);
   }
 
   @Override
@@ -95,14 +104,76 @@ public final class OptimizeAll extends ACreate {
   public static void optimizeAll(final Data data, final Context ctx, final OptimizeAll cmd)
       throws IOException {
 
-    if(data.inMemory()) throw new BaseXException(NO_MAINMEM);
+    final DiskData old = diskData(data);
+    pinned(old.meta, ctx);
+    swap(old, build(old, ctx, cmd), ctx);
+  }
+
+  // PRIVATE METHODS ==============================================================================
 
-    final DiskData old = (DiskData) data;
+  /**
+   * Optimizes all data structures and closes the database. The optimized database is
+   * built while other processes can still read the original database. The read lock is then
+   * replaced by an exclusive lock, and the database instances are swapped. If the database
+   * has been updated in the meantime, it will be rebuilt with the exclusive lock.
+   * @param data disk data
+   * @throws IOException I/O Exception during index rebuild
+   */
+  private void optimizeOnline(final Data data) throws IOException {
+    final DiskData old = diskData(data);
     final MetaData m = old.meta;
-    if(cmd != null) cmd.size = m.size;
+    final long changes = m.changes;
+    String tname = build(old, context, this);
+
+    // replace read lock with exclusive lock
+    context.unregister(this);
+    swap = true;
+    context.register(this);
+
+    // database has been updated in the meantime: rebuild optimized database
+    if(m.changes != changes) {
+      drop(tname, context);
+      pre = 0;
+      tname = build(old, context, this);
+    }
+    swap(old, tname, context);
+  }
 
-    // check if database is also pinned by other users
+  /**
+   * Returns the disk data reference.
+   * @param data data reference
+   * @return disk data
+   * @throws BaseXException database exception
+   */
+  private static DiskData diskData(final Data data) throws BaseXException {
+    if(data.inMemory()) throw new BaseXException(NO_MAINMEM);
+    return (DiskData) data;
+  }
+
+  /**
+   * Checks if the database is also pinned by other users.
+   * @param m meta data
+   * @param ctx database context
+   * @throws BaseXException database exception
+   */
+  private static void pinned(final MetaData m, final Context ctx) throws BaseXException {
+    ctx.queries.close(m.name);
     if(ctx.dbs.pins(m.name) > 1) throw new BaseXException(DB_PINNED_X, m.name);
+  }
+
+  /**
+   * Builds an optimized copy of the specified database in a temporary database directory.
+   * @param old original database
+   * @param ctx database context
+   * @param cmd command reference, or {@code null}
+   * @return name of the temporary database
+   * @throws IOException I/O Exception during index rebuild
+   */
+  private static String build(final DiskData old, final Context ctx, final OptimizeAll cmd)
+      throws IOException {
+
+    final MetaData m = old.meta;
+    if(cmd != null) cmd.size = m.size;
 
     // find unique temporary database name
     final String tname = ctx.globalopts.random(m.name);
@@ -113,6 +184,8 @@ public final class OptimizeAll extends ACreate {
     ctx.options.set(MainOptions.UPDINDEX, m.updindex);
     ctx.options.set(MainOptions.MAXCATS,  m.maxcats);
     ctx.options.set(MainOptions.MAXLEN,   m.maxlen);
+    ctx.options.set(MainOptions.TEXTINCLUDE, m.textinclude);
+    ctx.options.set(MainOptions.ATTRINCLUDE, m.attrinclude);
     // adopt original full-text index options
     ctx.options.set(MainOptions.STEMMING,   m.stemming);
     ctx.options.set(MainOptions.CASESENS,   m.casesens);
@@ -124,20 +197,15 @@ public final class OptimizeAll extends ACreate {
     final DiskBuilder builder = new DiskBuilder(tname, new DBParser(old, cmd), ctx);
     try {
       final DiskData d = builder.build();
-      if(m.createtext) create(IndexType.TEXT, d, cmd);
-      if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
-      if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
+      create(m, d, cmd);
       // adopt original meta data
       d.meta.createtext = m.createtext;
       d.meta.createattr = m.createattr;
       d.meta.createftxt = m.createftxt;
+      d.meta.createtrgm = m.createtrgm;
       d.meta.filesize   = m.filesize;
       d.meta.users      = m.users;
       d.meta.dirty      = true;
-
-      // move binary files
-      final IOFile bin = data.meta.binaries();
-      if(bin.exists()) bin.rename(d.meta.binaries());
       final IOFile upd = old.updateFile();
       if(upd.exists()) upd.copyTo(d.updateFile());
       d.close();
@@ -148,7 +216,31 @@ public final class OptimizeAll extends ACreate {
         Util.debug(ex);
       }
     }
-    Close.close(data, ctx);
+    return tname;
+  }
+
+  /**
+   * Replaces the original database with the optimized database and closes it.
+   * @param old original database
+   * @param tname name of the temporary database
+   * @param ctx database context
+   * @throws IOException I/O exception
+   */
+  private static void swap(final DiskData old, final String tname, final Context ctx)
+      throws IOException {
+
+    final MetaData m = old.meta;
+    try {
+      pinned(m, ctx);
+    } catch(final BaseXException ex) {
+      drop(tname, ctx);
+      throw ex;
+    }
+
+    // move binary files
+    final IOFile bin = m.binaries();
+    if(bin.exists()) bin.rename(new IOFile(ctx.globalopts.dbpath(tname), IO.RAW));
+    Close.close(old, ctx);
 
     // drop old database and rename temporary to final name
     if(!DropDB.drop(m.name, ctx))
@@ -157,6 +249,15 @@ public final class OptimizeAll extends ACreate {
       throw new BaseXException(DB_NOT_RENAMED_X, tname);
   }
 
+  /**
+   * Drops a temporary database.
+   * @param tname name of the temporary database
+   * @param ctx database context
+   */
+  private static void drop(final String tname, final Context ctx) {
+    if(!DropDB.drop(tname, ctx)) Util.debug(DB_NOT_DROPPED_X, tname);
+  }
+
   /**
    * Parser for rebuilding existing databases.
    *
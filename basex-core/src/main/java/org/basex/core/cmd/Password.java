@@ -23,6 +23,7 @@ public final class Password extends AUser {
   protected boolean run() {
     final String user = context.user.name;
     final String pass = args[0];
+    context.queries.close();
     return isMD5(pass) && context.users.alter(user, pass) ?
         info(PW_CHANGED_X, user) : error(PW_NOT_VALID);
   }
@@ -50,7 +50,7 @@ public final class Replace extends ACreate {
     final Data data = context.data();
     final IntList pre = data.resources.docs(path, true);
 
-    if(!data.startUpdate()) return error(DB_PINNED_X, data.meta.name);
+    if(!data.startUpdate(true)) return error(DB_PINNED_X, data.meta.name);
     try {
       final boolean ok;
       final IOFile file = data.meta.binary(path);
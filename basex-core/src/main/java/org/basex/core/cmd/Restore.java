@@ -39,7 +39,8 @@ public class Restore extends ABackup {
     final String backup = backups.get(0);
     final String db = Databases.name(backup);
 
-    // close database if it's currently opened and not opened by others
+    // release cached queries, close database if it's currently opened and not opened by others
+    context.queries.close(db);
     if(!closed) closed = close(context, db);
     // check if database is still pinned
     if(context.pinned(db)) return error(DB_PINNED_X, db);
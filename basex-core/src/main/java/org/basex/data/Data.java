@@ -98,13 +98,17 @@ public abstract class Data {
   public Index atvindex;
   /** Full-text index instance. */
   public Index ftxindex;
+  /** Trigram index instance. */
+  public Index trgindex;
   /** Number of current database users. */
   public int pins = 1;
 
   /** Table access file. */
   TableAccess table;
-  /** ID->PRE mapping. */
+  /** ID->PRE mapping (only maintained if {@link MetaData#updindex} is enabled). */
   IdPreMap idmap;
+  /** PRE values of all IDs (created on demand if no ID->PRE mapping is maintained). */
+  private int[] idpres;
   /** States if distance caching is active. */
   public boolean cache;
 
@@ -131,7 +135,19 @@ public abstract class Data {
    * going on, and exclusively locks the table file.
    * @return success flag
    */
-  public abstract boolean startUpdate();
+  public final boolean startUpdate() {
+    return startUpdate(false);
+  }
+
+  /**
+   * Starts an update operation. If the update is journaled, changes will be written to the
+   * update journal when the update is finished (see {@link org.basex.core.MainOptions#JOURNAL}).
+   * Otherwise, a file is written to disk to indicate that an update is going on.
+   * The table file is exclusively locked.
+   * @param journal journal the update (only possible for node updates)
+   * @return success flag
+   */
+  public abstract boolean startUpdate(boolean journal);
 
   /**
    * Finishes an update operation: removes the update file and the exclusive lock.
@@ -178,6 +194,7 @@ public abstract class Data {
       case TEXT:      return txtindex;
       case ATTRIBUTE: return atvindex;
       case FULLTEXT:  return ftxindex;
+      case TRIGRAM:   return trgindex;
       case PATH:      return paths;
       default:         throw Util.notExpected();
     }
@@ -230,12 +247,25 @@ public abstract class Data {
    * @return pre value or -1 if id was not found
    */
   private int preold(final int id) {
-    // find pre value in table
-    for(int p = Math.max(0, id); p < meta.size; ++p) if(id == id(p)) return p;
-    final int ps = Math.min(meta.size, id);
-    for(int p = 0; p < ps; ++p) if(id == id(p)) return p;
-    // id not found
-    return -1;
+    // node has not been moved by updates
+    if(id >= 0 && id < meta.size && id(id) == id) return id;
+    final int[] pres = idpres();
+    return id >= 0 && id < pres.length ? pres[id] : -1;
+  }
+
+  /**
+   * Returns the PRE values of all IDs. The table is scanned once after each update.
+   * @return pre values, or {@code -1} for ids that do not exist
+   */
+  private synchronized int[] idpres() {
+    if(idpres == null) {
+      final int[] pres = new int[meta.lastid + 1];
+      Arrays.fill(pres, -1);
+      final int size = meta.size;
+      for(int p = 0; p < size; ++p) pres[id(p)] = p;
+      idpres = pres;
+    }
+    return idpres;
   }
 
   /**
@@ -244,7 +274,10 @@ public abstract class Data {
    * @return pre value or {@code -1} if id was not found
    */
   public final int pre(final int id) {
-    return meta.updindex ? idmap.pre(id) : preold(id);
+    if(!meta.updindex) return preold(id);
+    // ids of deleted nodes may be mapped to other nodes
+    final int pre = idmap.pre(id);
+    return pre >= 0 && pre < meta.size && id(pre) == id ? pre : -1;
   }
 
   /**
@@ -472,6 +505,8 @@ public abstract class Data {
       final int npre = kind == ATTR ? parent(pre, kind) : pre;
       final int nuri = ne ? nspaces.add(npre, npre, prefix(name), uri, this) :
         ouri != 0 && eq(nspaces.uri(ouri), uri) ? ouri : 0;
+      // update value indexes that are restricted to specific names
+      if(meta.updindex) indexRename(pre, kind, name);
 
       // write namespace uri reference
       table.write1(pre, kind == ELEM ? 3 : 11, nuri);
@@ -527,9 +562,8 @@ public abstract class Data {
     int sTopPre = source.start;
     for(int spre = sTopPre; spre < source.end; ++spre) {
       final int kind = data.kind(spre);
-      // size and parent value of source node
+      // size of source node
       final int ssize = data.size(spre, kind);
-      final int spar = data.parent(spre, kind);
       final int pre = tpre + spre - source.start;
 
       // calculate new distance value
@@ -540,7 +574,7 @@ public abstract class Data {
         // calculate pre value of next top level entry
         sTopPre += ssize;
       } else {
-        dist = spre - spar;
+        dist = data.dist(spre, kind);
       }
 
       switch(kind) {
@@ -571,15 +605,17 @@ public abstract class Data {
     }
 
     if(meta.updindex) {
-      indexEnd();
       // update ID -> PRE map:
       idmap.delete(tpre, id(tpre), -tsize);
       idmap.insert(tpre, meta.lastid - size + 1, size);
     }
+    idpres = null;
 
     // update table:
     table.replace(tpre, buffer(), tsize);
     buffer(1);
+    // update indexes (the names of the new nodes can now be accessed)
+    if(meta.updindex) indexEnd();
 
     // no distance/size update if the two subtrees are of equal size
     if(diff == 0) return;
@@ -649,6 +685,7 @@ public abstract class Data {
       // delete node and descendants from ID -> PRE map:
       idmap.delete(pre, id(pre), -s);
     }
+    idpres = null;
 
     // delete node from table structure and reduce document size
     table.delete(pre, s);
@@ -707,9 +744,8 @@ public abstract class Data {
 
       final int pre = tpre + c;
       final int kind = data.kind(spre);
-      // size and parent value of source node
+      // size of source node
       final int ssize = data.size(spre, kind);
-      final int spar = data.parent(spre, kind);
 
       // calculate new distance value
       final int dist;
@@ -720,7 +756,9 @@ public abstract class Data {
         sTopPre += ssize;
       } else {
         // handle descendant node: calculate distance based on source database
-        dist = spre - spar;
+        // (skipped for top level entries: the distance of a parentless attribute
+        // is computed by scanning all preceding attributes)
+        dist = data.dist(spre, kind);
       }
 
       // documents: use -1 as namespace root
@@ -809,6 +847,7 @@ public abstract class Data {
       idmap.insert(tpre, id(tpre), size);
       indexEnd();
     }
+    idpres = null;
 
     if(!cache) updateDist(tpre + size, size);
   }
@@ -1047,6 +1086,14 @@ public abstract class Data {
   /** Notify the index structures that an update operation is finished. */
   void indexEnd() { }
 
+  /**
+   * Notify the index structures that an element or attribute will be renamed.
+   * @param pre pre value
+   * @param kind node kind
+   * @param name new name
+   */
+  void indexRename(final int pre, final int kind, final byte[] name) { }
+
   /**
    * Delete a node and its descendants from the corresponding indexes.
    * @param pre pre value of the node to delete
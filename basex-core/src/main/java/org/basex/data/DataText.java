@@ -44,6 +44,12 @@ public interface DataText {
   String DBATVIDX = "ATVINDEX";
   /** Full-text indexing. */
   String DBFTXIDX = "FTXINDEX";
+  /** Trigram indexing. */
+  String DBTRGIDX = "TRGINDEX";
+  /** Indexed element names. */
+  String DBTXTINC = "TXTINCLUDE";
+  /** Indexed attribute names. */
+  String DBATVINC = "ATVINCLUDE";
   /** Full-text stemming. */
   String DBFTST = "FTSTEM";
   /** Full-text language. */
@@ -72,6 +78,8 @@ public interface DataText {
   String DBCRTATV = "CRTATV";
   /** Full-text indexing. */
   String DBCRTFTX = "CRTFTX";
+  /** Trigram indexing. */
+  String DBCRTTRG = "CRTTRG";
 
   /** Full-text wildcards indexing (legacy, obsolete). */
   String DBWCIDX = "WCINDEX";
@@ -101,10 +109,14 @@ public interface DataText {
   String DATAATV = "atv";
   /** Database - Full-text index. */
   String DATAFTX = "ftx";
+  /** Database - Trigram index. */
+  String DATATRG = "trg";
   /** Database - Stopword list. */
   String DATASWL = "swl";
   /** Database - Updating flag. */
   String DATAUPD = "upd";
+  /** Database - Update journal. */
+  String DATAJNL = "jnl";
 
   // XML SERIALIZATION ============================================================================
 
@@ -12,9 +12,11 @@ import org.basex.index.*;
 import org.basex.index.ft.*;
 import org.basex.index.name.*;
 import org.basex.index.path.*;
+import org.basex.index.trigram.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -39,14 +41,22 @@ public final class DiskData extends Data {
     }
   };
 
-  /** Texts access file. */
+  /** Texts access file (not assigned if the database is read via memory-mapped files). */
   private DataAccess texts;
-  /** Values access file. */
+  /** Values access file (not assigned if the database is read via memory-mapped files). */
   private DataAccess values;
+  /** Mapped texts (only assigned if the database is read via memory-mapped files). */
+  private DataMappedAccess mtexts;
+  /** Mapped values (only assigned if the database is read via memory-mapped files). */
+  private DataMappedAccess mvalues;
   /** Texts buffered for subsequent index updates. */
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
   private TokenObjMap<IntList> atvs;
+  /** Pre values of the nodes whose names are checked before their values are indexed. */
+  private IntList pres;
+  /** Update journal. */
+  private final Journal journal;
   /** Closed flag. */
   private boolean closed;
 
@@ -61,6 +71,8 @@ public final class DiskData extends Data {
 
     // don't open databases marked as updating
     if(updateFile().exists()) throw new BaseXException(Text.DB_UPDATED_X, meta.name);
+    // replay journaled updates
+    journal = new Journal(meta);
 
     try(final DataInput in = new DataInput(meta.dbfile(DATAINF))) {
       // read meta data and indexes
@@ -86,7 +98,8 @@ public final class DiskData extends Data {
       if(meta.attrindex) atvindex = new DiskValues(this, false);
     }
     if(meta.ftxtindex) ftxindex = new FTIndex(this);
-    init();
+    if(meta.trgmindex) trgindex = new TrigramIndex(this);
+    init(meta.options.get(MainOptions.MMAP));
   }
 
   /**
@@ -108,17 +121,40 @@ public final class DiskData extends Data {
     paths.data(this);
     nspaces = n;
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
-    init();
+    journal = new Journal(meta);
+    init(false);
   }
 
   /**
    * Initializes the database.
+   * @param mapped read table and texts via memory-mapped files
    * @throws IOException I/O exception
    */
-  private void init() throws IOException {
-    table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+  private void init(final boolean mapped) throws IOException {
+    if(mapped) {
+      table = new TableMappedAccess(meta);
+      mtexts = new DataMappedAccess(meta.dbfile(DATATXT));
+      mvalues = new DataMappedAccess(meta.dbfile(DATAATV));
+    } else {
+      table = new TableDiskAccess(meta, false, journal);
+      texts = new DataAccess(meta.dbfile(DATATXT), journal);
+      values = new DataAccess(meta.dbfile(DATAATV), journal);
+    }
+  }
+
+  /**
+   * Switches from memory-mapped to buffered file access, which is required for updates.
+   * @throws IOException I/O exception
+   */
+  private void unmap() throws IOException {
+    if(mtexts == null) return;
+    final DataMappedAccess mt = mtexts, mv = mvalues;
+    mtexts = null;
+    mvalues = null;
+    mt.close();
+    mv.close();
+    table.close();
+    init(false);
   }
 
   /**
@@ -127,7 +163,8 @@ public final class DiskData extends Data {
    */
   private void write() throws IOException {
     if(meta.dirty) {
-      try(final DataOutput out = new DataOutput(meta.dbfile(DATAINF))) {
+      ArrayOutput ao = new ArrayOutput();
+      try(final DataOutput out = new DataOutput(ao)) {
         meta.write(out);
         out.writeToken(token(DBTAGS));
         elmindex.write(out);
@@ -141,25 +178,49 @@ public final class DiskData extends Data {
         resources.write(out);
         out.write(0);
       }
-      if(idmap != null) idmap.write(meta.dbfile(DATAIDP));
+      write(meta.dbfile(DATAINF), ao.finish());
+      if(idmap != null) {
+        ao = new ArrayOutput();
+        try(final DataOutput out = new DataOutput(ao)) {
+          idmap.write(out);
+        }
+        write(meta.dbfile(DATAIDP), ao.finish());
+      }
       meta.dirty = false;
     }
     // in all cases, remove updating file
     updateFile().delete();
   }
 
+  /**
+   * Writes the specified file, or adds it to the journal.
+   * @param file file
+   * @param contents file contents
+   * @throws IOException I/O exception
+   */
+  private void write(final IOFile file, final byte[] contents) throws IOException {
+    if(!journal.file(file.name(), contents)) file.write(contents);
+  }
+
   @Override
   public synchronized void close() {
     if(closed) return;
     closed = true;
     try {
+      journal.close();
       write();
       table.close();
-      texts.close();
-      values.close();
+      if(mtexts != null) {
+        mtexts.close();
+        mvalues.close();
+      } else {
+        texts.close();
+        values.close();
+      }
       closeIndex(IndexType.TEXT);
       closeIndex(IndexType.ATTRIBUTE);
       closeIndex(IndexType.FULLTEXT);
+      closeIndex(IndexType.TRIGRAM);
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -170,6 +231,12 @@ public final class DiskData extends Data {
     // close existing index
     final Index index = index(type);
     if(index == null) return;
+    // index files will be replaced or dropped: continue journaled update in place
+    try {
+      journal.direct();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
     index.close();
 
     // invalidate index reference
@@ -178,6 +245,7 @@ public final class DiskData extends Data {
       case TEXT:      txtindex = null; break;
       case ATTRIBUTE: atvindex = null; break;
       case FULLTEXT:  ftxindex = null; break;
+      case TRIGRAM:   trgindex = null; break;
       default:        break;
     }
   }
@@ -189,35 +257,66 @@ public final class DiskData extends Data {
       case TEXT:      txtindex = index; break;
       case ATTRIBUTE: atvindex = index; break;
       case FULLTEXT:  ftxindex = index; break;
+      case TRIGRAM:   trgindex = index; break;
       default:        break;
     }
   }
 
   @Override
-  public boolean startUpdate() {
+  public boolean startUpdate(final boolean jnl) {
     final IOFile uf = updateFile();
-    return (uf.exists() || uf.touch()) && table.lock(true);
+    // full-text index of a previous version cannot be updated
+    if(meta.ftxtindex && meta.updindex && ftxindex != null && !((FTIndex) ftxindex).updatable()) {
+      meta.ftxtindex = false;
+      meta.dirty = true;
+    }
+    try {
+      if(jnl && meta.options.get(MainOptions.JOURNAL) && !uf.exists()) {
+        journal.start();
+      } else {
+        // write journaled changes to disk before updating files in place
+        journal.direct();
+        if(!uf.exists() && !uf.touch()) return false;
+      }
+      unmap();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return false;
+    }
+    return table.lock(true);
   }
 
   @Override
   public synchronized void finishUpdate() {
-    // skip all flush operations if auto flush is off, or file has already been closed
-    if(!meta.options.get(MainOptions.AUTOFLUSH) || closed) return;
+    // skip all flush operations if auto flush is off, if file has already been closed,
+    // or if the database has not been updated (mapped files are only read)
+    if(!meta.options.get(MainOptions.AUTOFLUSH) || closed || mtexts != null) return;
 
     try {
+      if(ftxindex != null) ((FTIndex) ftxindex).flush();
       write();
       table.flush();
       texts.flush();
       values.flush();
       if(txtindex != null) ((DiskValues) txtindex).flush();
       if(atvindex != null) ((DiskValues) atvindex).flush();
+      journal.commit();
     } catch(final IOException ex) {
-      Util.stack(ex);
+      // error will be raised when the process is unregistered
+      if(!Journal.failed(ex)) Util.stack(ex);
     } finally {
       table.lock(false);
     }
   }
 
+  /**
+   * Returns the update journal.
+   * @return journal
+   */
+  public Journal journal() {
+    return journal;
+  }
+
   /**
    * Returns a file that indicates ongoing updates.
    * @return updating file
@@ -248,10 +347,18 @@ public final class DiskData extends Data {
   public int textLen(final int pre, final boolean text) {
     final long o = textOff(pre);
     if(num(o)) return numDigits((int) o);
+    if(mtexts != null) {
+      final DataMappedAccess ma = text ? mtexts : mvalues;
+      final long p = o & IO.OFFCOMP - 1;
+      final int l = ma.readNum(p);
+      // compressed: next number contains number of compressed bytes
+      return cpr(o) ? ma.readNum(p + Num.length(l)) : l;
+    }
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(o & IO.OFFCOMP - 1);
+    final long p = o & IO.OFFCOMP - 1;
+    final int l = da.peekNum(p);
     // compressed: next number contains number of compressed bytes
-    return cpr(o) ? da.readNum() : l;
+    return cpr(o) ? da.peekNum(p + Num.length(l)) : l;
   }
 
   /**
@@ -261,7 +368,9 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long off, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(off & IO.OFFCOMP - 1);
+    final long o = off & IO.OFFCOMP - 1;
+    final byte[] txt = mtexts != null ? (text ? mtexts : mvalues).readToken(o) :
+      (text ? texts : values).peekToken(o);
     return cpr(off) ? COMP.get().unpack(txt) : txt;
   }
 
@@ -302,8 +411,16 @@ public final class DiskData extends Data {
       final int id = id(pre);
       final byte[] oldval = text(pre, text);
       final DiskValues index = (DiskValues) (text ? txtindex : atvindex);
-      // don't index document names
-      if(index != null && kind != DOC) index.replace(oldval, value, id);
+      // don't index document names; skip indexes that have been invalidated
+      if(index != null && kind != DOC && (text ? meta.textindex : meta.attrindex) &&
+          indexed(pre, kind)) {
+        index.replace(oldval, value, id);
+      }
+      final FTIndex ft = ftindex(kind);
+      if(ft != null) {
+        ft.delete(id, oldval);
+        ft.add(id, value);
+      }
     }
 
     // reference to text store
@@ -345,10 +462,17 @@ public final class DiskData extends Data {
   protected void indexBegin() {
     txts = new TokenObjMap<>();
     atvs = new TokenObjMap<>();
+    pres = new IntList();
   }
 
   @Override
   protected void indexEnd() {
+    // add values of nodes with restricted names: the nodes have been written to the table
+    final int ps = pres.size();
+    for(int p = 0; p < ps; p++) {
+      final int pre = pres.get(p), kind = kind(pre);
+      if(indexed(pre, kind)) add(kind == ATTR ? atvs : txts, text(pre, kind != ATTR), id(pre));
+    }
     if(!txts.isEmpty()) ((DiskValues) txtindex).index(txts);
     if(!atvs.isEmpty()) ((DiskValues) atvindex).index(atvs);
   }
@@ -367,14 +491,15 @@ public final class DiskData extends Data {
       m = meta.textindex && kind != DOC ? txts : null;
     }
 
-    // add text to map to index later
-    if(meta.updindex && m != null && value.length <= meta.maxlen) {
-      IntList ids = m.get(value);
-      if(ids == null) {
-        ids = new IntList(1);
-        m.put(value, ids);
+    if(meta.updindex) {
+      // add text to map to index later
+      if(m != null && value.length <= meta.maxlen) {
+        // the names of new nodes are checked when the update operation is finished
+        if(meta.names(kind != ATTR).all()) add(m, value, id);
+        else pres.add(pre);
       }
-      ids.add(id);
+      final FTIndex ft = ftindex(kind);
+      if(ft != null) ft.add(id, value);
     }
 
     // add text to text file
@@ -391,7 +516,8 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexDelete(final int pre, final int size) {
-    if(!(meta.textindex || meta.attrindex)) return;
+    final FTIndex ft = ftindex(TEXT);
+    if(!(meta.textindex || meta.attrindex || ft != null)) return;
 
     // collect all keys and ids
     txts = new TokenObjMap<>();
@@ -400,25 +526,83 @@ public final class DiskData extends Data {
     for(int p = pre; p < l; ++p) {
       final int k = kind(p);
       final boolean isAttr = k == ATTR;
+      if(ft != null && k == TEXT) ft.delete(id(p), text(p, true));
       // consider nodes which are attribute, text, comment, or proc. instruction
-      if(meta.attrindex && isAttr ||
-         meta.textindex && (k == TEXT || k == COMM || k == PI)) {
+      if((meta.attrindex && isAttr ||
+         meta.textindex && (k == TEXT || k == COMM || k == PI)) && indexed(p, k)) {
         final byte[] key = text(p, !isAttr);
-        if(key.length <= meta.maxlen) {
-          final TokenObjMap<IntList> m = isAttr ? atvs : txts;
-          IntList ids = m.get(key);
-          if(ids == null) {
-            ids = new IntList(1);
-            m.put(key, ids);
-          }
-          ids.add(id(p));
-        }
+        if(key.length <= meta.maxlen) add(isAttr ? atvs : txts, key, id(p));
       }
     }
     if(!txts.isEmpty()) ((DiskValues) txtindex).delete(txts);
     if(!atvs.isEmpty()) ((DiskValues) atvindex).delete(atvs);
   }
 
+  @Override
+  protected void indexRename(final int pre, final int kind, final byte[] name) {
+    final boolean text = kind == ELEM;
+    if(!(text ? meta.textindex : meta.attrindex)) return;
+    final IndexNames in = meta.names(text);
+    final boolean indexed = in.contains(name);
+    if(in.contains(name(pre, kind)) == indexed) return;
+
+    // collect the value of the attribute or the text children of the element
+    final TokenObjMap<IntList> m = new TokenObjMap<>();
+    if(text) {
+      final int l = pre + size(pre, kind);
+      for(int p = pre + attSize(pre, kind); p < l; p += size(p, kind(p))) {
+        if(kind(p) == TEXT && textLen(p, true) <= meta.maxlen) add(m, text(p, true), id(p));
+      }
+    } else if(textLen(pre, false) <= meta.maxlen) {
+      add(m, text(pre, false), id(pre));
+    }
+    if(m.isEmpty()) return;
+
+    // add or delete the values, depending on the new name
+    final DiskValues index = (DiskValues) (text ? txtindex : atvindex);
+    if(indexed) index.index(m);
+    else index.delete(m);
+  }
+
+  /**
+   * Checks if the value of the specified node belongs to an indexed name.
+   * Text nodes are checked by the names of their parent elements.
+   * @param pre pre value
+   * @param kind node kind
+   * @return result of check
+   */
+  private boolean indexed(final int pre, final int kind) {
+    final IndexNames in = meta.names(kind != ATTR);
+    if(in.all()) return true;
+    if(kind == ATTR) return in.contains(name(pre, kind));
+    final int par = parent(pre, kind);
+    return par != -1 && kind(par) == ELEM && in.contains(name(par, ELEM));
+  }
+
+  /**
+   * Adds an id to the specified index map.
+   * @param map index map
+   * @param key key
+   * @param id id
+   */
+  private static void add(final TokenObjMap<IntList> map, final byte[] key, final int id) {
+    IntList ids = map.get(key);
+    if(ids == null) {
+      ids = new IntList(1);
+      map.put(key, ids);
+    }
+    ids.add(id);
+  }
+
+  /**
+   * Returns the full-text index if it exists and the specified node kind is indexed.
+   * @param kind node kind
+   * @return index or {@code null}
+   */
+  private FTIndex ftindex(final int kind) {
+    return kind == TEXT && meta.ftxtindex ? (FTIndex) ftxindex : null;
+  }
+
   @Override
   public boolean inMemory() {
     return false;
@@ -84,7 +84,7 @@ public final class MemData extends Data {
   public void setIndex(final IndexType type, final Index index) { }
 
   @Override
-  public boolean startUpdate() { return true; }
+  public boolean startUpdate(final boolean journal) { return true; }
 
   @Override
   public void finishUpdate() { }
@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.index.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
@@ -53,12 +54,25 @@ public final class MetaData {
   public volatile boolean attrindex;
   /** Indicates if a full-text index exists. */
   public volatile boolean ftxtindex;
+  /** Indicates if a trigram index exists. */
+  public volatile boolean trgmindex;
   /** Indicates if text index is to be recreated. */
   public volatile boolean createtext;
   /** Indicates if attribute index is to be recreated. */
   public volatile boolean createattr;
   /** Indicates if full-text index is to be recreated. */
   public volatile boolean createftxt;
+  /** Indicates if trigram index is to be recreated. */
+  public volatile boolean createtrgm;
+
+  /** Names of the elements whose texts are indexed (empty: all). */
+  public volatile String textinclude = "";
+  /** Names of the attributes whose values are indexed (empty: all). */
+  public volatile String attrinclude = "";
+  /** Parsed names of the elements whose texts are indexed ({@code null}: not parsed yet). */
+  private IndexNames textnames;
+  /** Parsed names of the attributes whose values are indexed ({@code null}: not parsed yet). */
+  private IndexNames attrnames;
 
   /** Flag for full-text stemming. */
   public volatile boolean stemming;
@@ -84,6 +98,8 @@ public final class MetaData {
   public volatile boolean corrupt;
   /** Dirty flag. */
   public volatile boolean dirty;
+  /** Number of updates since the database was opened (not stored on disk). */
+  public volatile long changes;
 
   /** Table size. */
   public volatile int size;
@@ -128,11 +144,14 @@ public final class MetaData {
     createtext = options.get(MainOptions.TEXTINDEX);
     createattr = options.get(MainOptions.ATTRINDEX);
     createftxt = options.get(MainOptions.FTINDEX);
+    createtrgm = options.get(MainOptions.TRIGRAMINDEX);
     diacritics = options.get(MainOptions.DIACRITICS);
     stemming = options.get(MainOptions.STEMMING);
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     maxlen = options.get(MainOptions.MAXLEN);
+    textinclude = options.get(MainOptions.TEXTINCLUDE);
+    attrinclude = options.get(MainOptions.ATTRINCLUDE);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
     language = Language.get(options);
@@ -286,6 +305,8 @@ public final class MetaData {
         else if(k.equals(DBFNAME))    original   = v;
         else if(k.equals(DBENC))      encoding   = v;
         else if(k.equals(DBFTSW))     stopwords  = v;
+        else if(k.equals(DBTXTINC))   textinclude = v;
+        else if(k.equals(DBATVINC))   attrinclude = v;
         else if(k.equals(DBFTLN))     language   = Language.get(v);
         else if(k.equals(DBSIZE))     size       = toInt(v);
         else if(k.equals(DBNDOCS))    ndocs      = toInt(v);
@@ -301,9 +322,11 @@ public final class MetaData {
         else if(k.equals(DBTXTIDX))   textindex  = toBool(v);
         else if(k.equals(DBATVIDX))   attrindex  = toBool(v);
         else if(k.equals(DBFTXIDX))   ftxtindex  = toBool(v);
+        else if(k.equals(DBTRGIDX))   trgmindex  = toBool(v);
         else if(k.equals(DBCRTTXT))   createtext = toBool(v);
         else if(k.equals(DBCRTATV))   createattr = toBool(v);
         else if(k.equals(DBCRTFTX))   createftxt = toBool(v);
+        else if(k.equals(DBCRTTRG))   createtrgm = toBool(v);
         else if(k.equals(DBWCIDX))    wcindex    = toBool(v);
         else if(k.equals(DBFTST))     stemming   = toBool(v);
         else if(k.equals(DBFTCS))     casesens   = toBool(v);
@@ -343,9 +366,13 @@ public final class MetaData {
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBFTXIDX,   ftxtindex);
+    writeInfo(out, DBTRGIDX,   trgmindex);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTFTX,   createftxt);
+    writeInfo(out, DBCRTTRG,   createtrgm);
+    writeInfo(out, DBTXTINC,   textinclude);
+    writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBFTST,     stemming);
     writeInfo(out, DBFTCS,     casesens);
     writeInfo(out, DBFTDC,     diacritics);
@@ -360,19 +387,39 @@ public final class MetaData {
     out.write(0);
   }
 
+  /**
+   * Returns the names of the elements or attributes whose values are indexed.
+   * The names are only parsed again if the include option has been changed.
+   * @param text text or attribute index
+   * @return index names
+   */
+  public IndexNames names(final boolean text) {
+    final String include = text ? textinclude : attrinclude;
+    IndexNames names = text ? textnames : attrnames;
+    if(names == null || !names.include.equals(include)) {
+      names = new IndexNames(include);
+      if(text) textnames = names;
+      else attrnames = names;
+    }
+    return names;
+  }
+
   /**
    * Notifies the meta structures of an update and invalidates the indexes.
    */
   public void update() {
     // update database timestamp
     time = System.currentTimeMillis();
+    changes++;
     uptodate = false;
     dirty = true;
+    // the trigram index is not updated incrementally
+    trgmindex = false;
     if(!updindex) {
       textindex = false;
       attrindex = false;
+      ftxtindex = false;
     }
-    ftxtindex = false;
   }
 
   // PRIVATE METHODS ==========================================================
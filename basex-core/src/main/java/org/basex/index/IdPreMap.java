@@ -33,6 +33,8 @@ public class IdPreMap {
 
   /** Number of records in the table. */
   private int rows;
+  /** Indexes of the records with inserted IDs, sorted by first ID (created on demand). */
+  private int[] order;
 
   /**
    * Constructor.
@@ -71,16 +73,25 @@ public class IdPreMap {
    */
   public void write(final IOFile f) throws IOException {
     try(final DataOutput out = new DataOutput(f)) {
-      out.writeNum(baseid);
-      out.writeNum(rows);
-      out.writeNums(pres);
-      out.writeNums(fids);
-      out.writeNums(nids);
-      out.writeNums(incs);
-      out.writeNums(oids);
+      write(out);
     }
   }
 
+  /**
+   * Write the map to the specified output.
+   * @param out output stream
+   * @throws IOException I/O error while writing to the output
+   */
+  public void write(final DataOutput out) throws IOException {
+    out.writeNum(baseid);
+    out.writeNum(rows);
+    out.writeNums(pres);
+    out.writeNums(fids);
+    out.writeNums(nids);
+    out.writeNums(incs);
+    out.writeNums(oids);
+  }
+
   /**
    * Find the PRE value of a given ID.
    * @param id ID
@@ -92,10 +103,8 @@ public class IdPreMap {
 
     if(id > baseid) {
       // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        // if(fids[i] == id) return pres[i]; // is this optimization?
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
-      }
+      final int i = inserted(id);
+      if(i != -1) return pres[i] + id - fids[i];
     } else {
       // id is affected by updates
       final int i = sortedLastIndexOf(oids, id);
@@ -124,6 +133,7 @@ public class IdPreMap {
    * @param c number of inserted records
    */
   public void insert(final int pre, final int id, final int c) {
+    order = null;
     if(rows == 0 && pre == id && id == baseid + 1) {
       // no mapping and we append at the end => nothing to do
       baseid += c;
@@ -182,6 +192,7 @@ public class IdPreMap {
    * @param c number of deleted records
    */
   public void delete(final int pre, final int id, final int c) {
+    order = null;
     if(rows == 0 && pre == id && id - c == baseid + 1) {
       // no mapping and we delete at the end => nothing to do
       baseid += c;
@@ -309,6 +320,36 @@ public class IdPreMap {
     return rows;
   }
 
+  /**
+   * Returns the index of the record containing the specified inserted ID.
+   * @param id inserted ID
+   * @return index of the record, or {@code -1}
+   */
+  private int inserted(final int id) {
+    if(order == null) {
+      // sort records by their first IDs (ID intervals of different records are disjoint)
+      final long[] keys = new long[rows];
+      int n = 0;
+      for(int i = 0; i < rows; ++i) {
+        if(fids[i] != INV && fids[i] <= nids[i]) keys[n++] = (long) fids[i] << 32 | i;
+      }
+      Arrays.sort(keys, 0, n);
+      order = new int[n];
+      for(int o = 0; o < n; ++o) order[o] = (int) keys[o];
+    }
+
+    // find last record with a first ID smaller than or equal to the specified ID
+    int low = 0, high = order.length - 1;
+    while(low <= high) {
+      final int mid = low + high >>> 1;
+      if(fids[order[mid]] <= id) low = mid + 1;
+      else high = mid - 1;
+    }
+    if(high < 0) return -1;
+    final int i = order[high];
+    return id <= nids[i] ? i : -1;
+  }
+
   /**
    * Search for a given pre value.
    * @param pre pre value
@@ -3,25 +3,40 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.io.*;
 import org.basex.util.*;
 
 /**
  * This interface defines the functions which are needed for building
  * new index structures.
  *
+ * If {@link MainOptions#INDEXTHREADS} is larger than 1, the nodes of large databases
+ * are split into PRE ranges, which are indexed in parallel. The resulting partial index
+ * structures are merged afterwards.
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Proc {
+  /** Minimum number of nodes of a partition. */
+  private static final int MINPART = 1 << 14;
+
   /** Data reference. */
   protected final Data data;
   /** Total parsing value. */
   protected final int size;
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
+  /** Partition id ({@code -1}, if all nodes are indexed by this builder). */
+  protected final int part;
+  /** First pre value to be indexed. */
+  protected final int start;
+  /** Pre value after the last node to be indexed. */
+  protected final int end;
 
   /** Maximum memory to consume. */
   private final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
@@ -34,6 +49,12 @@ public abstract class IndexBuilder extends Proc {
   protected int splits;
   /** Threshold for freeing memory when estimating main memory consumption. */
   private int gcCount;
+  /** Maximum number of threads. */
+  int threads;
+  /** Memory-driven splits (shared by all builders that run in parallel). */
+  AtomicInteger flushes = new AtomicInteger();
+  /** Number of memory-driven splits at the time of the last split. */
+  private int flushed;
 
   /**
    * Constructor.
@@ -41,9 +62,24 @@ public abstract class IndexBuilder extends Proc {
    * @param max maximum number of operations per partial index
    */
   protected IndexBuilder(final Data data, final int max) {
+    this(data, max, -1, 0);
+  }
+
+  /**
+   * Constructor for a builder that indexes a single partition.
+   * @param data reference
+   * @param max maximum number of operations per partial index
+   * @param part partition id ({@code -1}: no partition)
+   * @param parts number of partitions
+   */
+  protected IndexBuilder(final Data data, final int max, final int part, final int parts) {
     this.data = data;
+    this.part = part;
     size = data.meta.size;
+    start = part == -1 ? 0 : (int) ((long) size * part / parts);
+    end = part == -1 ? size : (int) ((long) size * (part + 1) / parts);
     splitSize = max;
+    threads = data.meta.options.get(MainOptions.INDEXTHREADS);
     if(Performance.memory() >= maxMem) Performance.gc(1);
   }
 
@@ -70,19 +106,27 @@ public abstract class IndexBuilder extends Proc {
    */
   protected final boolean split() throws IOException {
     // checks if a fixed split size has been specified
-    final boolean split;
+    boolean split;
     if(splitSize > 0) {
       split = count >= (splits + 1L) * splitSize;
     } else {
       // if not, estimate how much main memory is left
       split = Performance.memory() >= maxMem;
-      // stop operation if index splitting degenerates
+      // splits of other builders that are running in parallel
+      final int f = flushes.get();
       int gc = gcCount;
       if(split) {
-        if(gc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+        // stop operation if index splitting degenerates
+        if(gc >= 0 && f == flushed) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
         gc = 30;
+        flushed = flushes.incrementAndGet();
       } else {
         gc = Math.max(-1, gc - 1);
+        // flush structures if another builder ran out of memory
+        if(f != flushed) {
+          flushed = f;
+          split = true;
+        }
       }
       gcCount = gc;
     }
@@ -90,6 +134,56 @@ public abstract class IndexBuilder extends Proc {
     return split;
   }
 
+  /**
+   * Returns the number of partitions that will be indexed in parallel.
+   * @return number of partitions (1 if all nodes are to be indexed by this builder)
+   */
+  protected final int partitions() {
+    return part == -1 ? Math.max(1, Math.min(threads, size / MINPART)) : 1;
+  }
+
+  /**
+   * Builds partial index structures for the specified partitions in parallel.
+   * The resulting files are renamed in the order of the partitions, so they can be merged
+   * as if they had been created by this builder.
+   * @param parts partition builders
+   * @param name name of the index files
+   * @param suffixes suffixes of the index files
+   * @throws IOException I/O exception
+   */
+  protected final void partitions(final IndexBuilder[] parts, final String name,
+      final String suffixes) throws IOException {
+
+    for(final IndexBuilder ib : parts) ib.flushes = flushes;
+    try {
+      proc(new IndexBuilders(parts)).build();
+    } finally {
+      proc(null);
+    }
+    pre = end;
+    for(final IndexBuilder ib : parts) {
+      for(int s = 0; s < ib.splits; s++) {
+        for(final char c : suffixes.toCharArray()) {
+          final IOFile source = data.meta.dbfile(ib.partial(name, s) + c);
+          if(!source.rename(data.meta.dbfile(name + splits + c)))
+            throw new BaseXException(FILE_NOT_SAVED_X, source);
+        }
+        splits++;
+      }
+      count += ib.count;
+    }
+  }
+
+  /**
+   * Returns the name of a partial index structure.
+   * @param name name of the index files
+   * @param split split id
+   * @return name
+   */
+  protected final String partial(final String name, final int split) {
+    return part == -1 ? name + split : name + 'p' + part + '_' + split;
+  }
+
   /**
    * Performs memory cleanup after writing partial memory, if necessary.
    */
@@ -118,6 +212,7 @@ public abstract class IndexBuilder extends Proc {
 
   @Override
   public final double prog() {
-    return (double) pre / (size + (splits > 0 ? size / 50 : 0));
+    final int sz = end - start;
+    return (double) (pre - start) / (sz + (splits > 0 ? sz / 50 : 0));
   }
 }
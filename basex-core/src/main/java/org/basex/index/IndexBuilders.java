@@ -0,0 +1,155 @@
+package org.basex.index;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class runs several index builders. If {@link MainOptions#INDEXTHREADS} is larger
+ * than 1, the builders are run in parallel, and the available threads are distributed
+ * among the builders. If a builder fails, or if the process is stopped, all other
+ * builders will be stopped as well.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuilders extends Proc {
+  /** Milliseconds to wait before the running builders are checked again. */
+  private static final int WAIT = 50;
+  /** Index builders. */
+  private final IndexBuilder[] builders;
+  /** Number of threads. */
+  private final int threads;
+
+  /**
+   * Constructor.
+   * @param builders index builders
+   */
+  public IndexBuilders(final IndexBuilder... builders) {
+    this.builders = builders;
+    final int bs = builders.length;
+    threads = bs == 0 ? 1 : Math.max(1, Math.min(builders[0].threads, bs));
+    // distribute remaining threads among builders
+    for(final IndexBuilder ib : builders) {
+      ib.threads = Math.max(1, (ib.threads + bs - 1) / bs);
+      ib.flushes = builders[0].flushes;
+    }
+  }
+
+  /**
+   * Runs all builders and returns the resulting index instances.
+   * @return index instances
+   * @throws IOException I/O exception
+   */
+  public Index[] build() throws IOException {
+    final int bs = builders.length;
+    final Index[] indexes = new Index[bs];
+    if(threads == 1) {
+      try {
+        for(int b = 0; b < bs; b++) indexes[b] = proc(builders[b]).build();
+      } finally {
+        proc(null);
+      }
+      return indexes;
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable r) {
+        final Thread t = new Thread(r, Util.className(IndexBuilders.class));
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    final ArrayList<Future<Index>> futures = new ArrayList<>(bs);
+    for(final IndexBuilder ib : builders) {
+      futures.add(pool.submit(new Callable<Index>() {
+        @Override
+        public Index call() throws IOException {
+          return ib.build();
+        }
+      }));
+    }
+    pool.shutdown();
+
+    try {
+      while(!pool.awaitTermination(WAIT, TimeUnit.MILLISECONDS)) {
+        checkStop();
+        for(final Future<Index> f : futures) {
+          if(f.isDone()) get(f);
+        }
+      }
+      for(int b = 0; b < bs; b++) indexes[b] = get(futures.get(b));
+      return indexes;
+    } catch(final InterruptedException ex) {
+      stop(pool, futures);
+      throw new BaseXException(ex);
+    } catch(final IOException | RuntimeException | Error ex) {
+      stop(pool, futures);
+      throw ex;
+    }
+  }
+
+  @Override
+  protected String tit() {
+    return CREATING_INDEXES;
+  }
+
+  @Override
+  protected String det() {
+    // return detail of the builder with the least progress
+    IndexBuilder min = null;
+    for(final IndexBuilder ib : builders) {
+      if(min == null || ib.progress() < min.progress()) min = ib;
+    }
+    return min == null ? super.det() : min.detail();
+  }
+
+  @Override
+  protected double prog() {
+    double p = 0;
+    for(final IndexBuilder ib : builders) p += Math.min(1, ib.progress());
+    return builders.length == 0 ? 0 : p / builders.length;
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Returns the result of a finished builder.
+   * @param f future
+   * @return index
+   * @throws IOException I/O exception
+   * @throws InterruptedException interrupted exception
+   */
+  private static Index get(final Future<Index> f) throws IOException, InterruptedException {
+    try {
+      return f.get();
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof IOException) throw (IOException) th;
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw Util.notExpected(th);
+    }
+  }
+
+  /**
+   * Stops all builders and waits until they have terminated.
+   * @param pool thread pool
+   * @param futures futures
+   */
+  private void stop(final ExecutorService pool, final ArrayList<Future<Index>> futures) {
+    for(final Future<Index> f : futures) f.cancel(false);
+    for(final IndexBuilder ib : builders) ib.stop();
+    try {
+      while(!pool.awaitTermination(WAIT, TimeUnit.MILLISECONDS));
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.basex.index;
+
+import static org.basex.util.Token.*;
+
+import org.basex.util.hash.*;
+
+/**
+ * This class contains the names of the elements or attributes whose values are indexed.
+ * Names are compared by their local names. If no names are specified, all values
+ * are indexed.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexNames {
+  /** Comma-separated list of names. */
+  public final String include;
+  /** Local names ({@code null}: all names). */
+  private final TokenSet names;
+
+  /**
+   * Constructor.
+   * @param include comma-separated list of names (empty: all names)
+   */
+  public IndexNames(final String include) {
+    this.include = include;
+    final TokenSet set = new TokenSet();
+    for(final byte[] name : split(token(include), ',')) {
+      final byte[] nm = trim(name);
+      if(nm.length != 0) set.add(local(nm));
+    }
+    names = set.isEmpty() ? null : set;
+  }
+
+  /**
+   * Checks if the values of all elements or attributes are indexed.
+   * @return result of check
+   */
+  public boolean all() {
+    return names == null;
+  }
+
+  /**
+   * Checks if the values of the specified element or attribute are indexed.
+   * @param name name (may be prefixed)
+   * @return result of check
+   */
+  public boolean contains(final byte[] name) {
+    return names == null || names.contains(local(name));
+  }
+}
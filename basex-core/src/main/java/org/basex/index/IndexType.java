@@ -17,6 +17,8 @@ public enum IndexType {
   ATTRIBUTE,
   /** Full-text index. */
   FULLTEXT,
+  /** Trigram index. */
+  TRIGRAM,
   /** Path index. */
   PATH
 }
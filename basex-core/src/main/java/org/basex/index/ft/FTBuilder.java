@@ -34,7 +34,18 @@ public final class FTBuilder extends IndexBuilder {
    * @throws IOException IOException
    */
   public FTBuilder(final Data d) throws IOException {
-    super(d, d.meta.options.get(MainOptions.FTINDEXSPLITSIZE));
+    this(d, -1, 0);
+  }
+
+  /**
+   * Constructor.
+   * @param d data reference
+   * @param part partition id ({@code -1}: no partition)
+   * @param parts number of partitions
+   * @throws IOException IOException
+   */
+  private FTBuilder(final Data d, final int part, final int parts) throws IOException {
+    super(d, d.meta.options.get(MainOptions.FTINDEXSPLITSIZE), part, parts);
     tree = new FTIndexTrees(d.meta.maxlen);
 
     final MainOptions opts = d.meta.options;
@@ -64,7 +75,36 @@ public final class FTBuilder extends IndexBuilder {
     final Performance perf = Prop.debug ? new Performance() : null;
     Util.debug(det());
 
-    for(pre = 0; pre < size; ++pre) {
+    final int parts = partitions();
+    if(parts > 1) {
+      // index partitions in parallel
+      final FTBuilder[] ftb = new FTBuilder[parts];
+      for(int p = 0; p < parts; p++) ftb[p] = new FTBuilder(data, p, parts);
+      partitions(ftb, DATAFTX, "xyz");
+      write(true, false);
+    } else {
+      words();
+      // finalize partial or all index structures
+      write(splits > 0, true);
+    }
+
+    // updatable index: create empty list of updates
+    if(data.meta.updindex) {
+      try(final DataOutput out = new DataOutput(data.meta.dbfile(DATAFTX + 'd'))) {
+        new FTDelta().write(out);
+      }
+    }
+    data.meta.ftxtindex = true;
+    finishIndex(perf);
+  }
+
+  /**
+   * Extracts and indexes words from the assigned nodes.
+   * @throws IOException I/O Exception
+   */
+  private void words() throws IOException {
+    final boolean ids = data.meta.updindex;
+    for(pre = start; pre < end; ++pre) {
       if((pre & 0xFFFF) == 0) check();
 
       final int k = data.kind(pre);
@@ -73,6 +113,7 @@ public final class FTBuilder extends IndexBuilder {
       /* Current lexer position. */
       final StopWords sw = lex.ftOpt().sw;
       lex.init(data.text(pre, true));
+      final int id = ids ? data.id(pre) : pre;
       int pos = -1;
       while(lex.hasNext()) {
         final byte[] tok = lex.nextToken();
@@ -84,21 +125,21 @@ public final class FTBuilder extends IndexBuilder {
             writeIndex(true);
             finishSplit();
           }
-          tree.index(tok, pre, pos, splits);
+          tree.index(tok, id, pos, splits);
           count++;
         }
       }
     }
-
-    // finalize partial or all index structures
-    write(splits > 0);
-
-    data.meta.ftxtindex = true;
-    finishIndex(perf);
   }
 
   @Override
   public FTIndex build() throws IOException {
+    // partition: write partial index structures
+    if(part != -1) {
+      words();
+      writeIndex(true);
+      return null;
+    }
     index();
     return new FTIndex(data);
   }
@@ -106,10 +147,11 @@ public final class FTBuilder extends IndexBuilder {
   /**
    * Writes the index data to disk.
    * @param partial write partial index
+   * @param current write current index structures
    * @throws IOException I/O exception
    */
-  private void write(final boolean partial) throws IOException {
-    writeIndex(partial);
+  private void write(final boolean partial, final boolean current) throws IOException {
+    if(current) writeIndex(partial);
     if(!partial) return;
 
     // merges temporary index files
@@ -166,7 +208,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il,
+  static void writeInd(final DataOutput outX, final IntList il,
       final int ls, final int lp) throws IOException {
 
     final int is = il.size();
@@ -185,7 +227,7 @@ public final class FTBuilder extends IndexBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
-    final String name = DATAFTX + (partial ? splits : "");
+    final String name = partial ? partial(DATAFTX, splits) : DATAFTX;
     try(final DataOutput outX = new DataOutput(data.meta.dbfile(name + 'x'));
         final DataOutput outY = new DataOutput(data.meta.dbfile(name + 'y'));
         final DataOutput outZ = new DataOutput(data.meta.dbfile(name + 'z'))) {
@@ -0,0 +1,184 @@
+package org.basex.index.ft;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class contains the updates of a full-text index that have not been merged into
+ * the main index structure yet. It stores the ids and token positions of inserted text
+ * nodes, and the ids of text nodes whose entries in the main index are obsolete.
+ * The updates are stored in the database file {@code ftxd}, which has the following
+ * format:
+ *
+ * <ul>
+ * <li>{@code [r, id1, ... idr, t, (token, n, id1, pos1, ... idn, posn)*t]}</li>
+ * <li>{@code r} is the number of obsolete ids, and {@code t} is the number of tokens.
+ *   All values except for the tokens are stored as {@link org.basex.util.Num}.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+final class FTDelta {
+  /** Comparator for tokens (sorted by length and lexicographically). */
+  static final Comparator<byte[]> ORDER = new Comparator<byte[]>() {
+    @Override
+    public int compare(final byte[] t1, final byte[] t2) {
+      final int d = t1.length - t2.length;
+      return d != 0 ? d : diff(t1, t2);
+    }
+  };
+
+  /** Ids and positions of the inserted tokens. */
+  private final TokenObjMap<IntList> tokens = new TokenObjMap<>();
+  /** Ids of text nodes whose entries in the main index are obsolete. */
+  private final IntSet removed = new IntSet();
+  /** Number of inserted entries. */
+  private int size;
+
+  /**
+   * Constructor.
+   */
+  FTDelta() { }
+
+  /**
+   * Constructor, reading the updates from disk.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  FTDelta(final DataInput in) throws IOException {
+    for(final int id : in.readNums()) removed.add(id);
+    for(int t = in.readNum(); t > 0; t--) {
+      final byte[] token = in.readToken();
+      final int n = in.readNum() << 1;
+      final IntList list = new IntList(n);
+      for(int i = 0; i < n; i++) list.add(in.readNum());
+      tokens.put(token, list);
+      size += n >>> 1;
+    }
+  }
+
+  /**
+   * Writes the updates to the specified output stream.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  void write(final DataOutput out) throws IOException {
+    out.writeNums(removed.toArray());
+    final byte[][] toks = tokens(EMPTY);
+    out.writeNum(toks.length);
+    for(final byte[] token : toks) {
+      final IntList list = tokens.get(token);
+      final int n = list.size();
+      out.writeToken(token);
+      out.writeNum(n >>> 1);
+      for(int i = 0; i < n; i++) out.writeNum(list.get(i));
+    }
+  }
+
+  /**
+   * Adds an entry for an inserted token.
+   * @param token token
+   * @param id id of the text node
+   * @param pos position of the token
+   */
+  void add(final byte[] token, final int id, final int pos) {
+    IntList list = tokens.get(token);
+    if(list == null) {
+      list = new IntList(2);
+      tokens.put(token, list);
+    }
+    list.add(id);
+    list.add(pos);
+    size++;
+  }
+
+  /**
+   * Removes the entries of a text node, and marks its main index entries as obsolete.
+   * @param token token of the text node
+   * @param id id of the text node
+   */
+  void delete(final byte[] token, final int id) {
+    removed.add(id);
+    final IntList list = tokens.get(token);
+    if(list == null) return;
+    final int n = list.size();
+    int c = 0;
+    for(int i = 0; i < n; i += 2) {
+      final int d = list.get(i);
+      if(d == id) continue;
+      list.set(c++, d);
+      list.set(c++, list.get(i + 1));
+    }
+    size -= n - c >>> 1;
+    list.size(c);
+  }
+
+  /**
+   * Checks if the entries of the specified text node in the main index are obsolete.
+   * @param id id of the text node
+   * @return result of check
+   */
+  boolean removed(final int id) {
+    return removed.contains(id);
+  }
+
+  /**
+   * Indicates if entries of the main index have been marked as obsolete.
+   * @return result of check
+   */
+  boolean removals() {
+    return !removed.isEmpty();
+  }
+
+  /**
+   * Returns the ids and positions of an inserted token.
+   * @param token token
+   * @return list with alternating ids and positions, or {@code null}
+   */
+  IntList get(final byte[] token) {
+    return tokens.get(token);
+  }
+
+  /**
+   * Returns the number of entries of an inserted token.
+   * @param token token
+   * @return number of entries
+   */
+  int size(final byte[] token) {
+    final IntList list = tokens.get(token);
+    return list == null ? 0 : list.size() >>> 1;
+  }
+
+  /**
+   * Returns all inserted tokens with the specified prefix in the order of the index.
+   * @param prefix prefix
+   * @return tokens
+   */
+  byte[][] tokens(final byte[] prefix) {
+    final ArrayList<byte[]> list = new ArrayList<>();
+    for(final byte[] token : tokens) {
+      if(token != null && startsWith(token, prefix) && !tokens.get(token).isEmpty()) {
+        list.add(token);
+      }
+    }
+    final byte[][] toks = list.toArray(new byte[list.size()][]);
+    Arrays.sort(toks, ORDER);
+    return toks;
+  }
+
+  /**
+   * Returns the number of updates.
+   * @return number of inserted entries and obsolete ids
+   */
+  int changes() {
+    return size + removed.size();
+  }
+}
@@ -12,6 +12,10 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.query.ft.*;
 import org.basex.util.*;
@@ -43,32 +47,52 @@ import org.basex.util.list.*;
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
  * </ul>
  *
+ * <p>If {@link MainOptions#UPDINDEX} is enabled, ids are stored instead of pre values,
+ * and the index is kept up-to-date: inserted tokens and obsolete entries are recorded
+ * in a {@link FTDelta} structure, which is consulted by all index requests. As soon as
+ * the number of updates exceeds a certain threshold, the updates are merged into the
+ * main index files when the next update is finished.</p>
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex implements Index {
   /** Entry size. */
   private static final int ENTRY = 9;
+  /** Minimum number of updates that triggers a merge. */
+  private static final int MINMERGE = 1 << 12;
+  /** Maximum number of updates that will be kept in main memory. */
+  private static final int MAXMERGE = 1 << 21;
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
-  private final IntObjMap<byte[]> ctext = new IntObjMap<>();
+  private IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Levenshtein reference. */
   private final Levenshtein ls = new Levenshtein();
   /** Data reference. */
   private final Data data;
 
+  /** Journal ({@code null} if the database is not journaled). */
+  private final Journal journal;
+
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess inX;
+  private DataAccess inX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess inY;
+  private DataAccess inY;
   /** Storing pre and pos values for each token. */
-  private final DataAccess inZ;
+  private DataAccess inZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache = new IndexCache();
   /** Token positions. */
-  private final int[] tp;
+  private int[] tp;
+
+  /** Updates that have not been merged yet ({@code null} if index is not updatable). */
+  private FTDelta delta;
+  /** Lexer for updated texts (will be created with the first update). */
+  private FTLexer lexer;
+  /** Indicates if the updates have been changed since they were written to disk. */
+  private boolean dirty;
 
   /**
    * Constructor, initializing the index structure.
@@ -77,12 +101,28 @@ public final class FTIndex implements Index {
    */
   public FTIndex(final Data d) throws IOException {
     data = d;
+    journal = d instanceof DiskData ? ((DiskData) d).journal() : null;
+    open();
+
+    // updatable index: read updates
+    final IOFile file = d.meta.dbfile(DATAFTX + 'd');
+    if(d.meta.updindex && file.exists()) {
+      try(final DataInput in = new DataInput(file)) {
+        delta = new FTDelta(in);
+      }
+    }
+  }
 
-    // cache token length index
-    inY = new DataAccess(d.meta.dbfile(DATAFTX + 'y'));
-    inZ = new DataAccess(d.meta.dbfile(DATAFTX + 'z'));
-    inX = new DataAccess(d.meta.dbfile(DATAFTX + 'x'));
-    tp = new int[d.meta.maxlen + 3];
+  /**
+   * Opens the index files and caches the token length index.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
+    final MetaData md = data.meta;
+    inY = new DataAccess(md.dbfile(DATAFTX + 'y'));
+    inZ = new DataAccess(md.dbfile(DATAFTX + 'z'));
+    inX = new DataAccess(md.dbfile(DATAFTX + 'x'));
+    tp = new int[md.maxlen + 3];
     for(int i = 0; i < tp.length; ++i) tp[i] = -1;
     int is = inX.readNum();
     while(--is >= 0) {
@@ -113,7 +153,7 @@ public final class FTIndex implements Index {
     final FTOpt opt = ((FTLexer) it).ftOpt();
     if(opt.is(FZ) || opt.is(WC)) return Math.max(1, data.meta.size >> 4);
 
-    return entry(tok).size;
+    return entry(tok).size + (delta == null ? 0 : delta.size(tok));
   }
 
   @Override
@@ -132,7 +172,12 @@ public final class FTIndex implements Index {
 
     // return cached or new result
     final IndexEntry e = entry(tok);
-    return e.size > 0 ? iter(e.pointer, e.size, inZ, tok) : FTIndexIterator.FTEMPTY;
+    if(delta == null) return e.size > 0 ? iter(e.pointer, e.size, tok) : FTIndexIterator.FTEMPTY;
+
+    final IntList pr = new IntList(), ps = new IntList();
+    fill(e.pointer, e.size, pr, ps);
+    fill(tok, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps), tok);
   }
 
   /**
@@ -152,6 +197,45 @@ public final class FTIndex implements Index {
   @Override
   public EntryIterator entries(final IndexEntries entries) {
     final byte[] prefix = entries.get();
+    final EntryIterator main = tokens(prefix);
+    if(delta == null || delta.changes() == 0) return main;
+
+    // merge entries of main index and updates
+    final byte[][] toks = delta.tokens(prefix);
+    return new EntryIterator() {
+      byte[] mt = main.next();
+      int mc = main.count(), d, nr;
+
+      @Override
+      public synchronized byte[] next() {
+        while(mt != null || d < toks.length) {
+          final int c = mt == null ? 1 : d == toks.length ? -1 :
+            FTDelta.ORDER.compare(mt, toks[d]);
+          final byte[] token = c <= 0 ? mt : toks[d];
+          nr = 0;
+          if(c <= 0) {
+            nr = valid(mt, mc);
+            mt = main.next();
+            mc = main.count();
+          }
+          if(c >= 0) nr += delta.size(toks[d++]);
+          if(nr > 0) return token;
+        }
+        return null;
+      }
+      @Override
+      public int count() {
+        return nr;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for all tokens of the main index with the specified prefix.
+   * @param prefix prefix
+   * @return iterator
+   */
+  private EntryIterator tokens(final byte[] prefix) {
     return new EntryIterator() {
       int ti = prefix.length - 1, i, e, nr;
       boolean inner;
@@ -219,6 +303,25 @@ public final class FTIndex implements Index {
     return start + l * tl;
   }
 
+  /**
+   * Returns the position of the first token that does not start with the specified prefix.
+   * @param prefix prefix of the token at the start position
+   * @param start start position
+   * @param end end position
+   * @param ti entry length
+   * @return position
+   */
+  private int skip(final byte[] prefix, final int start, final int end, final int ti) {
+    final int tl = ti + ENTRY, pl = prefix.length;
+    int l = 1, h = (end - start) / tl - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(startsWith(inY.readBytes(start + m * tl, pl), prefix)) l = m + 1;
+      else h = m - 1;
+    }
+    return start + l * tl;
+  }
+
   @Override
   public synchronized byte[] info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -233,11 +336,54 @@ public final class FTIndex implements Index {
 
   @Override
   public synchronized void close() {
+    try {
+      write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
     inX.close();
     inY.close();
     inZ.close();
   }
 
+  /**
+   * Indicates if the index can be updated incrementally.
+   * @return result of check
+   */
+  public boolean updatable() {
+    return delta != null;
+  }
+
+  /**
+   * Adds the tokens of an inserted text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  public synchronized void add(final int id, final byte[] text) {
+    update(id, text, true);
+  }
+
+  /**
+   * Removes the tokens of a deleted text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  public synchronized void delete(final int id, final byte[] text) {
+    update(id, text, false);
+  }
+
+  /**
+   * Writes the updates to disk. If the number of updates exceeds a threshold, they are
+   * merged into the main index files.
+   * @throws IOException I/O exception
+   */
+  public synchronized void flush() throws IOException {
+    if(delta == null) return;
+    final int c = delta.changes();
+    if(c > MAXMERGE || c > MINMERGE && c > inZ.length() >>> 4) merge();
+    write();
+  }
+
   /**
    * Determines the pointer on a token.
    * @param token token looking for
@@ -316,7 +462,7 @@ public final class FTIndex implements Index {
    * @return iterator
    */
   private synchronized IndexIterator fuzzy(final byte[] token, final int k) {
-    FTIndexIterator it = FTIndexIterator.FTEMPTY;
+    final IntList pr = new IntList(), ps = new IntList();
     final int tl = token.length;
     final int e = Math.min(tp.length - 1, tl + k);
     int s = Math.max(1, tl - k) - 1;
@@ -328,13 +474,24 @@ public final class FTIndex implements Index {
       int r = -1;
       while(i < tp.length && r == -1) r = tp[i++];
       while(p < r) {
-        if(ls.similar(inY.readBytes(p, s), token, k)) {
-          it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ, token), it);
+        final byte[] t = inY.readBytes(p, s);
+        final int pl = ls.prefix(t, token, k);
+        if(pl == -1) {
+          fill(pointer(p, s), size(p, s), pr, ps);
+          if(delta != null) fill(t, pr, ps);
         }
-        p += s + ENTRY;
+        // skip all tokens that start with a prefix that cannot be similar
+        p = pl != -1 && pl < s ? skip(subtoken(t, 0, pl), p, r, s) : p + s + ENTRY;
+      }
+    }
+    if(delta != null) {
+      for(final byte[] t : delta.tokens(EMPTY)) {
+        // skip tokens that have already been found in the main index
+        if(t.length >= tl - k && t.length <= tl + k && ls.similar(t, token, k) &&
+            token(t) == -1) fill(t, pr, ps);
       }
     }
-    return it;
+    return iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -362,17 +519,15 @@ public final class FTIndex implements Index {
       while(i < e) {
         final byte[] t = inY.readBytes(i, ti);
         if(!startsWith(t, pref)) break;
-        if(wc.match(t)) {
-          inZ.cursor(pointer(i, ti));
-          final int s = size(i, ti);
-          for(int d = 0; d < s; d++) {
-            pr.add(inZ.readNum());
-            ps.add(inZ.readNum());
-          }
-        }
+        if(wc.match(t)) fill(pointer(i, ti), size(i, ti), pr, ps);
         i += ti + ENTRY;
       }
     }
+    if(delta != null) {
+      for(final byte[] t : delta.tokens(pref)) {
+        if(wc.match(t)) fill(t, pr, ps);
+      }
+    }
     return iter(new FTCache(pr, ps), token);
   }
 
@@ -380,20 +535,225 @@ public final class FTIndex implements Index {
    * Returns an iterator for an index entry.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size);
-    final IntList ps = new IntList(size);
+  private FTIndexIterator iter(final long off, final int size, final byte[] token) {
+    final IntList pr = new IntList(size), ps = new IntList(size);
+    fill(off, size, pr, ps);
+    return iter(new FTCache(pr, ps), token);
+  }
+
+  /**
+   * Adds the pre values and positions of an entry of the main index to the specified lists.
+   * If the index is updatable, obsolete entries are skipped, and ids are replaced
+   * with pre values.
+   * @param off offset on entries
+   * @param size number of id/pos entries
+   * @param pr pre values
+   * @param ps positions
+   */
+  private void fill(final long off, final int size, final IntList pr, final IntList ps) {
+    if(size == 0) return;
+    inZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int id = inZ.readNum(), pos = inZ.readNum();
+      if(delta == null) {
+        pr.add(id);
+        ps.add(pos);
+      } else if(!delta.removed(id)) {
+        pr.add(data.pre(id));
+        ps.add(pos);
+      }
     }
-    return iter(new FTCache(pr, ps), token);
+  }
+
+  /**
+   * Adds the pre values and positions of an inserted token to the specified lists.
+   * @param token token
+   * @param pr pre values
+   * @param ps positions
+   */
+  private void fill(final byte[] token, final IntList pr, final IntList ps) {
+    if(delta == null) return;
+    final IntList list = delta.get(token);
+    if(list == null) return;
+    final int s = list.size();
+    for(int i = 0; i < s; i += 2) {
+      pr.add(data.pre(list.get(i)));
+      ps.add(list.get(i + 1));
+    }
+  }
+
+  /**
+   * Returns the number of entries of a token in the main index that are not obsolete.
+   * @param token token
+   * @param size number of entries
+   * @return number of valid entries
+   */
+  private int valid(final byte[] token, final int size) {
+    if(!delta.removals()) return size;
+    inZ.cursor(entry(token).pointer);
+    int c = 0;
+    for(int i = 0; i < size; i++) {
+      if(!delta.removed(inZ.readNum())) c++;
+      inZ.readNum();
+    }
+    return c;
+  }
+
+  /**
+   * Adds or removes the tokens of a text node.
+   * @param id id of the text node
+   * @param text text
+   * @param add add or remove tokens
+   */
+  private void update(final int id, final byte[] text, final boolean add) {
+    if(lexer == null) {
+      final MetaData md = data.meta;
+      final FTOpt fto = new FTOpt();
+      fto.set(DC, md.diacritics);
+      fto.set(ST, md.stemming);
+      fto.cs = md.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
+      fto.ln = md.language;
+      fto.sw = new StopWords();
+      fto.sw.comp(data);
+      lexer = new FTLexer(fto);
+    }
+
+    final StopWords sw = lexer.ftOpt().sw;
+    final int ml = data.meta.maxlen;
+    lexer.init(text);
+    int pos = -1;
+    while(lexer.hasNext()) {
+      final byte[] tok = lexer.nextToken();
+      ++pos;
+      // skip too long and stopword tokens
+      if(tok.length <= ml && (sw.isEmpty() || !sw.contains(tok))) {
+        if(add) delta.add(tok, id, pos);
+        else delta.delete(tok, id);
+      }
+    }
+    dirty = true;
+  }
+
+  /**
+   * Writes the updates to disk, or adds them to the journal.
+   * @throws IOException I/O exception
+   */
+  private void write() throws IOException {
+    if(!dirty) return;
+    final ArrayOutput ao = new ArrayOutput();
+    try(final DataOutput out = new DataOutput(ao)) {
+      delta.write(out);
+    }
+    final IOFile file = data.meta.dbfile(DATAFTX + 'd');
+    final byte[] bytes = ao.finish();
+    if(journal == null || !journal.file(file.name(), bytes)) file.write(bytes);
+    dirty = false;
+  }
+
+  /**
+   * Merges the updates into the main index files. The merged index is written to
+   * temporary files, which replace the original files afterwards.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    // index files will be replaced: continue journaled update in place
+    if(journal != null) journal.direct();
+
+    final String name = DATAFTX + 'm';
+    final MetaData md = data.meta;
+    final byte[][] toks = delta.tokens(EMPTY);
+    try(final DataOutput outX = new DataOutput(md.dbfile(name + 'x'));
+        final DataOutput outY = new DataOutput(md.dbfile(name + 'y'));
+        final DataOutput outZ = new DataOutput(md.dbfile(name + 'z'))) {
+
+      final IntList ind = new IntList(), ids = new IntList(), poss = new IntList();
+      int d = 0;
+      for(int ti = 0; ti < tp.length - 1; ti++) {
+        int p = tp[ti];
+        if(p == -1) continue;
+        int n = ti + 1;
+        while(tp[n] == -1) n++;
+        for(final int e = tp[n]; p < e; p += ti + ENTRY) {
+          final byte[] t = inY.readBytes(p, ti);
+          // write inserted tokens that precede the current token
+          while(d < toks.length && FTDelta.ORDER.compare(toks[d], t) < 0) {
+            write(toks[d++], ids, poss, ind, outY, outZ);
+          }
+          // write valid entries of the current token and inserted entries
+          inZ.cursor(pointer(p, ti));
+          for(int s = size(p, ti); s > 0; s--) {
+            final int id = inZ.readNum(), pos = inZ.readNum();
+            if(delta.removed(id)) continue;
+            ids.add(id);
+            poss.add(pos);
+          }
+          if(d < toks.length && eq(toks[d], t)) d++;
+          write(t, ids, poss, ind, outY, outZ);
+        }
+      }
+      while(d < toks.length) write(toks[d++], ids, poss, ind, outY, outZ);
+      FTBuilder.writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1,
+          (int) outY.size());
+    }
+
+    // replace index files and reopen index
+    inX.close();
+    inY.close();
+    inZ.close();
+    for(final char c : "xyz".toCharArray()) {
+      final IOFile source = md.dbfile(name + c), target = md.dbfile(DATAFTX + c);
+      if(!target.delete() || !source.rename(target))
+        throw new BaseXException(FILE_NOT_SAVED_X, target);
+    }
+    open();
+    cache = new IndexCache();
+    ctext = new IntObjMap<>();
+    delta = new FTDelta();
+    dirty = true;
+  }
+
+  /**
+   * Writes the entries of a token to the merged index files.
+   * Inserted entries of the token are added to the specified lists.
+   * @param token token
+   * @param ids ids (will be reset)
+   * @param poss positions (will be reset)
+   * @param ind token lengths and offsets
+   * @param outY output for tokens
+   * @param outZ output for entries
+   * @throws IOException I/O exception
+   */
+  private void write(final byte[] token, final IntList ids, final IntList poss,
+      final IntList ind, final DataOutput outY, final DataOutput outZ) throws IOException {
+
+    final IntList list = delta.get(token);
+    if(list != null) {
+      final int s = list.size();
+      for(int i = 0; i < s; i += 2) {
+        ids.add(list.get(i));
+        poss.add(list.get(i + 1));
+      }
+    }
+    final int s = ids.size();
+    if(s == 0) return;
+
+    final int tl = token.length;
+    if(ind.isEmpty() || ind.get(ind.size() - 2) < tl) {
+      ind.add(tl);
+      ind.add((int) outY.size());
+    }
+    outY.writeBytes(token);
+    outY.write5(outZ.size());
+    outY.write4(s);
+    for(int i = 0; i < s; i++) {
+      outZ.writeNum(ids.get(i));
+      outZ.writeNum(poss.get(i));
+    }
+    ids.reset();
+    poss.reset();
   }
 
   /**
@@ -1,10 +1,12 @@
 package org.basex.index.query;
 
 import org.basex.index.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 
 /**
- * This class stores a numeric range for index access.
+ * This class stores a numeric range for index access. Besides numbers, ranges of
+ * dates and dateTimes can be specified, which are represented by their seconds.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
@@ -16,17 +18,32 @@ public final class NumericRange implements IndexToken {
   public final double min;
   /** Maximum value. */
   public final double max;
+  /** Type of the values ({@link AtomType#DBL}, {@link AtomType#DAT}, {@link AtomType#DTM}). */
+  public final AtomType type;
 
   /**
-   * Constructor.
+   * Constructor for numeric ranges.
    * @param text text/attribute index
    * @param min minimum value
    * @param max maximum value
    */
   public NumericRange(final boolean text, final double min, final double max) {
+    this(text, min, max, AtomType.DBL);
+  }
+
+  /**
+   * Constructor.
+   * @param text text/attribute index
+   * @param min minimum value
+   * @param max maximum value
+   * @param type type of the values
+   */
+  public NumericRange(final boolean text, final double min, final double max,
+      final AtomType type) {
     this.text = text;
     this.min = min;
     this.max = max;
+    this.type = type;
   }
 
   @Override
@@ -0,0 +1,33 @@
+package org.basex.index.query;
+
+import org.basex.index.*;
+import org.basex.util.*;
+
+/**
+ * This class stores substrings that must all occur in the texts to be found.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class SubstringToken implements IndexToken {
+  /** Substrings. */
+  public final byte[][] tokens;
+
+  /**
+   * Constructor.
+   * @param tokens substrings
+   */
+  public SubstringToken(final byte[]... tokens) {
+    this.tokens = tokens;
+  }
+
+  @Override
+  public IndexType type() {
+    return IndexType.TRIGRAM;
+  }
+
+  @Override
+  public byte[] get() {
+    return tokens.length == 0 ? Token.EMPTY : tokens[0];
+  }
+}
@@ -0,0 +1,282 @@
+package org.basex.index.trigram;
+
+import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class builds a trigram index for text nodes and stores the result to disk.
+ * For each distinct trigram (three consecutive bytes of a UTF-8 encoded text), the
+ * index references all text nodes in which the trigram occurs. Texts of any length
+ * are indexed.</p>
+ *
+ * <p>The data is stored on disk in the following format:</p>
+ * <ul>
+ * <li> {@code DATATRG + 'r'}: the number of trigrams, followed by all trigrams in
+ *   ascending order. Each trigram is stored as 4-byte integer, followed by a 5-byte
+ *   reference to its pre list.</li>
+ * <li> {@code DATATRG + 'l'}: contains the pre lists, which are stored in the
+ *   {@link Num} format: [size, pre1, pre2 - pre1, ...].</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramBuilder extends IndexBuilder {
+  /** Pre values of the indexed text nodes, indexed by trigrams. */
+  private IntObjMap<IntList> index = new IntObjMap<>();
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public TrigramBuilder(final Data data) {
+    this(data, -1, 0);
+  }
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param part partition id ({@code -1}: no partition)
+   * @param parts number of partitions
+   */
+  private TrigramBuilder(final Data data, final int part, final int parts) {
+    super(data, data.meta.options.get(MainOptions.INDEXSPLITSIZE), part, parts);
+  }
+
+  @Override
+  public TrigramIndex build() throws IOException {
+    // partition: write partial index structures
+    if(part != -1) {
+      index();
+      writePartial();
+      return null;
+    }
+
+    // delete old index
+    abort();
+
+    final Performance perf = Prop.debug ? new Performance() : null;
+    Util.debug(det());
+
+    final int parts = partitions();
+    if(parts > 1) {
+      // index partitions in parallel
+      index = null;
+      final TrigramBuilder[] tb = new TrigramBuilder[parts];
+      for(int p = 0; p < parts; p++) tb[p] = new TrigramBuilder(data, p, parts);
+      partitions(tb, DATATRG, "l");
+    } else {
+      index();
+      if(splits > 0) writePartial();
+      else writeIndex();
+    }
+
+    // merge partial index structures
+    if(splits > 0) {
+      index = null;
+      Performance.gc(1);
+      merge();
+    }
+
+    data.meta.trgmindex = true;
+    finishIndex(perf);
+    return new TrigramIndex(data);
+  }
+
+  /**
+   * Indexes the trigrams of all assigned text nodes.
+   * @throws IOException I/O exception
+   */
+  private void index() throws IOException {
+    for(pre = start; pre < end; ++pre) {
+      if((pre & 0x0FFF) == 0) {
+        check();
+        // check if main memory is exhausted
+        if(split()) {
+          writePartial();
+          index = new IntObjMap<>();
+          finishSplit();
+        }
+      }
+      if(data.kind(pre) != Data.TEXT) continue;
+
+      final byte[] text = data.text(pre, true);
+      final int tl = text.length - 2;
+      for(int t = 0; t < tl; t++) {
+        final int key = key(text, t);
+        IntList list = index.get(key);
+        if(list == null) {
+          list = new IntList(1);
+          index.put(key, list);
+        } else if(list.get(list.size() - 1) == pre) {
+          // trigram occurs repeatedly in the same text
+          continue;
+        }
+        list.add(pre);
+        count++;
+      }
+    }
+  }
+
+  /**
+   * Writes the current index to disk.
+   * @throws IOException I/O exception
+   */
+  private void writeIndex() throws IOException {
+    final int[] keys = keys();
+    try(final DataOutput outL = new DataOutput(data.meta.dbfile(DATATRG + 'l'));
+        final DataOutput outR = new DataOutput(data.meta.dbfile(DATATRG + 'r'))) {
+      outR.write4(keys.length);
+      for(final int key : keys) write(outL, outR, key, index.get(key));
+    }
+  }
+
+  /**
+   * Writes the current index as partial structure to disk. All trigrams are written
+   * in ascending order, followed by the number of pre values and the absolute values.
+   * @throws IOException I/O exception
+   */
+  private void writePartial() throws IOException {
+    final int[] keys = keys();
+    final String name = partial(DATATRG, splits);
+    try(final DataOutput out = new DataOutput(data.meta.dbfile(name + 'l'))) {
+      out.writeNum(keys.length);
+      for(final int key : keys) {
+        out.writeNum(key);
+        out.writeNums(index.get(key).toArray());
+      }
+    }
+    splits++;
+  }
+
+  /**
+   * Merges partial index structures. As the partial structures were created in the order
+   * of the pre values, the pre lists of a trigram can simply be concatenated.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final DataInput[] in = new DataInput[splits];
+    // number of remaining trigrams, current trigram of each partial structure
+    final int[] rest = new int[splits], keys = new int[splits];
+    int size = 0;
+    try(final DataOutput outL = new DataOutput(data.meta.dbfile(DATATRG + 'l'));
+        final DataOutput outR = new DataOutput(data.meta.dbfile(DATATRG + 'r'))) {
+      outR.write4(0);
+      for(int s = 0; s < splits; s++) {
+        in[s] = new DataInput(data.meta.dbfile(partial(DATATRG, s) + 'l'));
+        rest[s] = in[s].readNum();
+        keys[s] = next(in[s], rest, s);
+      }
+
+      final IntList pres = new IntList();
+      while(true) {
+        checkStop();
+        // find smallest trigram
+        int min = Integer.MAX_VALUE;
+        for(final int key : keys) {
+          if(key != -1 && key < min) min = key;
+        }
+        if(min == Integer.MAX_VALUE) break;
+
+        // concatenate pre lists
+        for(int s = 0; s < splits; s++) {
+          if(keys[s] != min) continue;
+          for(final int p : in[s].readNums()) pres.add(p);
+          keys[s] = next(in[s], rest, s);
+        }
+        write(outL, outR, min, pres);
+        pres.reset();
+        size++;
+      }
+    } finally {
+      for(final DataInput di : in) {
+        if(di != null) di.close();
+      }
+    }
+
+    // write number of trigrams to first position, delete partial structures
+    try(final DataAccess da = new DataAccess(data.meta.dbfile(DATATRG + 'r'))) {
+      da.write4(size);
+    }
+    for(int s = 0; s < splits; s++) data.meta.dbfile(partial(DATATRG, s) + 'l').delete();
+  }
+
+  /**
+   * Returns the next trigram of a partial index structure.
+   * @param in input stream
+   * @param rest number of remaining trigrams
+   * @param s index of the partial structure
+   * @return trigram, or {@code -1} if all trigrams have been parsed
+   * @throws IOException I/O exception
+   */
+  private static int next(final DataInput in, final int[] rest, final int s)
+      throws IOException {
+    return rest[s]-- > 0 ? in.readNum() : -1;
+  }
+
+  /**
+   * Writes the pre list of a trigram to disk.
+   * @param outL pre lists
+   * @param outR trigrams and references
+   * @param key trigram
+   * @param pres sorted pre values
+   * @throws IOException I/O exception
+   */
+  private static void write(final DataOutput outL, final DataOutput outR, final int key,
+      final IntList pres) throws IOException {
+
+    outR.write4(key);
+    outR.write5(outL.size());
+    final int ps = pres.size();
+    outL.writeNum(ps);
+    for(int p = 0, o = 0; p < ps; p++) {
+      final int v = pres.get(p);
+      outL.writeNum(v - o);
+      o = v;
+    }
+  }
+
+  /**
+   * Returns the sorted trigrams of the current index.
+   * @return trigrams
+   */
+  private int[] keys() {
+    final int[] keys = index.toArray();
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  /**
+   * Returns the trigram at the specified position.
+   * @param text text
+   * @param pos position
+   * @return trigram
+   */
+  static int key(final byte[] text, final int pos) {
+    return (text[pos] & 0xFF) << 16 | (text[pos + 1] & 0xFF) << 8 | text[pos + 2] & 0xFF;
+  }
+
+  @Override
+  protected void abort() {
+    data.meta.drop(DATATRG + ".+");
+    data.meta.trgmindex = false;
+  }
+
+  @Override
+  protected String det() {
+    return INDEX_TRIGRAM_D;
+  }
+}
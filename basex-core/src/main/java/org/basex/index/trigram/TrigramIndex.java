@@ -0,0 +1,221 @@
+package org.basex.index.trigram;
+
+import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to the trigram index. The trigrams and the references
+ * to their pre lists are kept in main memory. The data structure is described in the
+ * {@link TrigramBuilder} class.
+ *
+ * The index returns all text nodes that contain the trigrams of the requested
+ * substrings. As the order of the trigrams is not checked, the results are candidates
+ * that must be verified by the caller.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramIndex implements Index {
+  /** Pre lists. */
+  private final DataAccess idxl;
+  /** Trigrams (sorted). */
+  private final int[] keys;
+  /** References to the pre lists. */
+  private final long[] refs;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O Exception
+   */
+  public TrigramIndex(final Data data) throws IOException {
+    try(final DataAccess in = new DataAccess(data.meta.dbfile(DATATRG + 'r'))) {
+      final int s = in.read4();
+      keys = new int[s];
+      refs = new long[s];
+      for(int k = 0; k < s; k++) {
+        keys[k] = in.read4();
+        refs[k] = in.read5();
+      }
+    }
+    idxl = new DataAccess(data.meta.dbfile(DATATRG + 'l'));
+  }
+
+  @Override
+  public void init() { }
+
+  @Override
+  public synchronized byte[] info() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE + SORTED_LIST + NL);
+    tb.add(LI_SIZE + Performance.format(idxl.length() + keys.length * 9L, true) + NL);
+    tb.add(LI_ENTRIES + keys.length + NL);
+    return tb.finish();
+  }
+
+  @Override
+  public synchronized int costs(final IndexToken token) {
+    final int[] tri = trigrams(token);
+    if(tri == null) return Integer.MAX_VALUE;
+    // the smallest pre list is an upper bound for the number of results
+    int min = Integer.MAX_VALUE;
+    for(final int t : tri) min = Math.min(min, size(t));
+    return min;
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexToken token) {
+    final int[] tri = trigrams(token);
+    if(tri == null) throw Util.notExpected(token);
+
+    // sort trigrams by the size of their pre lists, start with the smallest list
+    final int tl = tri.length;
+    final long[] order = new long[tl];
+    for(int t = 0; t < tl; t++) {
+      final int i = Arrays.binarySearch(keys, tri[t]);
+      if(i < 0) return IndexIterator.EMPTY;
+      order[t] = (long) idxl.readNum(refs[i]) << 32 | i;
+    }
+    Arrays.sort(order);
+
+    IntList pres = null;
+    for(final long o : order) {
+      pres = pres == null ? pres((int) o) : intersect(pres, (int) o);
+      if(pres.isEmpty()) return IndexIterator.EMPTY;
+    }
+    return iter(pres);
+  }
+
+  @Override
+  public synchronized EntryIterator entries(final IndexEntries entries) {
+    final byte[] prefix = entries.get();
+    return new EntryIterator() {
+      int k = -1, count;
+
+      @Override
+      public byte[] next() {
+        synchronized(TrigramIndex.this) {
+          while(++k < keys.length) {
+            final int key = keys[k];
+            final byte[] token = { (byte) (key >>> 16), (byte) (key >>> 8), (byte) key };
+            if(!Token.startsWith(token, prefix)) continue;
+            count = idxl.readNum(refs[k]);
+            return token;
+          }
+          return null;
+        }
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
+  @Override
+  public synchronized void close() {
+    idxl.close();
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Returns the distinct trigrams of the requested substrings.
+   * @param token index token
+   * @return trigrams, or {@code null} if the substrings contain no trigrams
+   */
+  private static int[] trigrams(final IndexToken token) {
+    final IntSet set = new IntSet();
+    for(final byte[] tok : ((SubstringToken) token).tokens) {
+      final int tl = tok.length - 2;
+      for(int t = 0; t < tl; t++) set.add(TrigramBuilder.key(tok, t));
+    }
+    return set.isEmpty() ? null : set.toArray();
+  }
+
+  /**
+   * Returns the size of the pre list of the specified trigram.
+   * @param trigram trigram
+   * @return number of pre values
+   */
+  private int size(final int trigram) {
+    final int i = Arrays.binarySearch(keys, trigram);
+    return i < 0 ? 0 : idxl.readNum(refs[i]);
+  }
+
+  /**
+   * Returns the pre values of the trigram at the specified position.
+   * @param i index of the trigram
+   * @return pre values
+   */
+  private IntList pres(final int i) {
+    final int s = idxl.readNum(refs[i]);
+    final IntList pres = new IntList(s);
+    for(int p = 0, pre = 0; p < s; p++) {
+      pre += idxl.readNum();
+      pres.add(pre);
+    }
+    return pres;
+  }
+
+  /**
+   * Returns the pre values that also occur in the pre list of the specified trigram.
+   * @param pres sorted pre values
+   * @param i index of the trigram
+   * @return pre values
+   */
+  private IntList intersect(final IntList pres, final int i) {
+    final int s = idxl.readNum(refs[i]), ps = pres.size();
+    int c = 0, n = 0, p = 0, pre = idxl.readNum();
+    while(n < ps && p < s) {
+      final int v = pres.get(n);
+      if(v <= pre) {
+        // keep value if it occurs in both lists
+        if(v == pre) pres.set(c++, v);
+        n++;
+      }
+      if(v >= pre && ++p < s) pre += idxl.readNum();
+    }
+    pres.size(c);
+    return pres;
+  }
+
+  /**
+   * Returns an iterator for the specified pre values.
+   * @param pres pre values
+   * @return iterator
+   */
+  private static IndexIterator iter(final IntList pres) {
+    return new IndexIterator() {
+      final int s = pres.size();
+      int p = -1;
+
+      @Override
+      public boolean more() {
+        return ++p < s;
+      }
+
+      @Override
+      public int pre() {
+        return pres.get(p);
+      }
+
+      @Override
+      public int size() {
+        return s;
+      }
+    };
+  }
+}
@@ -13,6 +13,7 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.io.random.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
@@ -37,6 +38,8 @@ public class DiskValues implements Index {
   final IndexCache cache = new IndexCache();
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
+  /** Typed keys for range lookups ({@code null} if not available). */
+  private TypedKeys typed;
 
   /** Synchronization object. */
   private final Object monitor = new Object();
@@ -51,6 +54,7 @@ public class DiskValues implements Index {
    */
   public DiskValues(final Data data, final boolean text) throws IOException {
     this(data, text, text ? DATATXT : DATAATV);
+    typed = TypedKeys.read(data.meta.dbfile((text ? DATATXT : DATAATV) + 'k'));
   }
 
   /**
@@ -63,8 +67,9 @@ public class DiskValues implements Index {
   DiskValues(final Data data, final boolean text, final String pref) throws IOException {
     this.data = data;
     this.text = text;
-    idxl = new DataAccess(data.meta.dbfile(pref + 'l'));
-    idxr = new DataAccess(data.meta.dbfile(pref + 'r'));
+    final Journal jnl = data instanceof DiskData ? ((DiskData) data).journal() : null;
+    idxl = new DataAccess(data.meta.dbfile(pref + 'l'), jnl);
+    idxr = new DataAccess(data.meta.dbfile(pref + 'r'), jnl);
     size.set(idxl.read4());
   }
 
@@ -95,7 +100,11 @@ public class DiskValues implements Index {
   @Override
   public int costs(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it).size();
-    if(it instanceof NumericRange) return idRange((NumericRange) it).size();
+    if(it instanceof NumericRange) {
+      // date ranges can only be evaluated with typed keys
+      final NumericRange nr = (NumericRange) it;
+      return typed == null && nr.type != AtomType.DBL ? Integer.MAX_VALUE : idRange(nr).size();
+    }
     final byte[] key = it.get();
     return key.length <= data.meta.maxlen ? entry(key).size : Integer.MAX_VALUE;
   }
@@ -338,7 +347,8 @@ public class DiskValues implements Index {
   }
 
   /**
-   * Performs a range query. All index values must be numeric.
+   * Performs a numeric range query. If typed keys are available, the matching keys are
+   * found via binary search. Otherwise, all index values are parsed.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param tok index term
    * @return results
@@ -347,6 +357,23 @@ public class DiskValues implements Index {
     final double min = tok.min;
     final double max = tok.max;
 
+    if(typed != null) {
+      final IntList pres = new IntList();
+      final IntList keys = typed.keys(tok.type, min, max);
+      synchronized(monitor) {
+        final int ks = keys.size();
+        for(int k = 0; k < ks; k++) {
+          final int ds = idxl.readNum(idxr.read5(keys.get(k) * 5L));
+          for(int d = 0, id = 0; d < ds; ++d) {
+            id += idxl.readNum();
+            pres.add(pre(id));
+          }
+        }
+      }
+      return iter(pres.sort());
+    }
+    if(tok.type != AtomType.DBL) return IndexIterator.EMPTY;
+
     // check if min and max are positive integers with the same number of digits
     final int len = max > 0 && (long) max == max ? token(max).length : 0;
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
@@ -10,6 +10,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 
@@ -66,6 +67,9 @@ public class MemValues extends TokenSet implements Index {
 
   @Override
   public int costs(final IndexToken it) {
+    // date ranges can only be evaluated with typed keys
+    if(it instanceof NumericRange && ((NumericRange) it).type != AtomType.DBL)
+      return Integer.MAX_VALUE;
     final int i = id(it.get());
     return i == 0 ? 0 : len[i];
   }
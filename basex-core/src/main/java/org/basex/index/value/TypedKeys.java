@@ -0,0 +1,174 @@
+package org.basex.index.value;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class stores the typed representations of the keys of a value index.
+ * Keys can be numbers, dates or dateTimes. Dates and dateTimes are represented by
+ * their seconds ({@link ADate#utcSeconds()}).
+ *
+ * For each type, the values are sorted in ascending order and stored together with
+ * the positions of their keys in the value index. Range lookups are performed by
+ * a binary search for the smallest value, followed by a sequential scan.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+final class TypedKeys {
+  /** Supported types. */
+  private static final AtomType[] TYPES = { AtomType.DBL, AtomType.DAT, AtomType.DTM };
+
+  /** Values of the keys (sorted after the index has been built). */
+  private final double[][] values = new double[TYPES.length][];
+  /** Positions of the keys. */
+  private final int[][] keys = new int[TYPES.length][];
+  /** Number of keys. */
+  private final int[] sizes = new int[TYPES.length];
+
+  /**
+   * Constructor for building typed keys.
+   */
+  TypedKeys() {
+    for(int t = 0; t < TYPES.length; t++) {
+      values[t] = new double[Array.CAPACITY];
+      keys[t] = new int[Array.CAPACITY];
+    }
+  }
+
+  /**
+   * Constructor, reading the typed keys from disk.
+   * @param file input file
+   * @throws IOException I/O exception
+   */
+  private TypedKeys(final IOFile file) throws IOException {
+    try(final DataInput in = new DataInput(file)) {
+      for(int t = 0; t < TYPES.length; t++) {
+        final int s = in.readNum();
+        final long[] bits = in.readLongs(s);
+        final double[] vals = new double[s];
+        for(int v = 0; v < s; v++) vals[v] = Double.longBitsToDouble(bits[v]);
+        values[t] = vals;
+        keys[t] = in.readNums();
+        sizes[t] = s;
+      }
+    }
+  }
+
+  /**
+   * Returns the typed keys stored in the specified file.
+   * @param file input file
+   * @return typed keys, or {@code null} if the file does not exist
+   * @throws IOException I/O exception
+   */
+  static TypedKeys read(final IOFile file) throws IOException {
+    return file.exists() ? new TypedKeys(file) : null;
+  }
+
+  /**
+   * Adds the typed representation of a key, if it is a number, a date or a dateTime.
+   * @param key key
+   * @param pos position of the key in the value index
+   */
+  void add(final byte[] key, final int pos) {
+    final double d = Token.toDouble(key);
+    if(!Double.isNaN(d)) {
+      add(0, d, pos);
+    } else if(date(key)) {
+      try {
+        if(Token.contains(key, 'T')) add(2, new Dtm(key, null).utcSeconds(), pos);
+        else add(1, new Dat(key, null).utcSeconds(), pos);
+      } catch(final QueryException ex) {
+        // no valid date or dateTime: ignore key
+        Util.debug(ex);
+      }
+    }
+  }
+
+  /**
+   * Sorts the values and writes them to disk.
+   * @param file output file
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file) throws IOException {
+    try(final DataOutput out = new DataOutput(file)) {
+      for(int t = 0; t < TYPES.length; t++) {
+        final int s = sizes[t];
+        final IntList il = new IntList(Arrays.copyOf(keys[t], s));
+        final double[] vals = values[t];
+        il.sort(vals, true);
+        final long[] bits = new long[s];
+        for(int v = 0; v < s; v++) bits[v] = Double.doubleToRawLongBits(vals[v]);
+        out.writeLongs(bits);
+        out.writeNums(il.toArray());
+      }
+    }
+  }
+
+  /**
+   * Returns the positions of all keys of the specified type within the given range.
+   * @param type type of the values
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @return positions of the keys
+   */
+  IntList keys(final AtomType type, final double min, final double max) {
+    int t = TYPES.length;
+    while(--t > 0 && TYPES[t] != type);
+    final double[] vals = values[t];
+    final int[] ks = keys[t];
+    final int s = sizes[t];
+
+    // find first value that is greater than or equal to the minimum
+    int l = 0, h = s;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(vals[m] < min) l = m + 1;
+      else h = m;
+    }
+    final IntList il = new IntList();
+    for(int v = l; v < s && vals[v] <= max; v++) il.add(ks[v]);
+    return il;
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Adds a value.
+   * @param t index of the type
+   * @param value value
+   * @param pos position of the key
+   */
+  private void add(final int t, final double value, final int pos) {
+    final int s = sizes[t];
+    if(s == values[t].length) {
+      final int ns = Array.newSize(s);
+      values[t] = Arrays.copyOf(values[t], ns);
+      keys[t] = Arrays.copyOf(keys[t], ns);
+    }
+    values[t][s] = value;
+    keys[t][s] = pos;
+    sizes[t] = s + 1;
+  }
+
+  /**
+   * Checks if the specified key may be a date or dateTime. This cheap test avoids
+   * the costs of parsing and raising exceptions for most other strings.
+   * @param key key
+   * @return result of check
+   */
+  private static boolean date(final byte[] key) {
+    final byte[] k = Token.trim(key);
+    final int kl = k.length, s = kl > 0 && k[0] == '-' ? 1 : 0;
+    return kl - s >= 10 && Token.digit(k[s]) && Token.contains(k, '-');
+  }
+}
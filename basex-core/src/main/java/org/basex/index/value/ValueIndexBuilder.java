@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -29,8 +30,16 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'k'}: contains the numeric, date and dateTime representations
+ *   of the keys in ascending order, along with the positions of the keys. The file is used
+ *   for range lookups and described in the {@link TypedKeys} class. It is not created if
+ *   the index is updatable.
+ * </li>
  * </ul>
  *
+ * <p>If the {@link MainOptions#TEXTINCLUDE} or {@link MainOptions#ATTRINCLUDE} option is
+ * assigned, only the values of the specified elements or attributes are indexed.</p>
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
@@ -39,6 +48,8 @@ public final class ValueIndexBuilder extends IndexBuilder {
   private IndexTree index = new IndexTree();
   /** Index type (attributes/texts). */
   private final boolean text;
+  /** Flags for the ids of the indexed names ({@code null}: all names are indexed). */
+  private final boolean[] names;
 
   /**
    * Constructor.
@@ -46,38 +57,59 @@ public final class ValueIndexBuilder extends IndexBuilder {
    * @param text value type (text/attribute)
    */
   public ValueIndexBuilder(final Data data, final boolean text) {
-    super(data, data.meta.options.get(MainOptions.INDEXSPLITSIZE));
+    this(data, text, -1, 0);
+  }
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param text value type (text/attribute)
+   * @param part partition id ({@code -1}: no partition)
+   * @param parts number of partitions
+   */
+  private ValueIndexBuilder(final Data data, final boolean text, final int part,
+      final int parts) {
+    super(data, data.meta.options.get(MainOptions.INDEXSPLITSIZE), part, parts);
     this.text = text;
+
+    final IndexNames in = data.meta.names(text);
+    if(in.all()) {
+      names = null;
+    } else {
+      final Names nm = text ? data.elmindex : data.atnindex;
+      final int ns = nm.size();
+      names = new boolean[ns + 1];
+      for(int n = 1; n <= ns; n++) names[n] = in.contains(nm.key(n));
+    }
   }
 
   @Override
   public DiskValues build() throws IOException {
+    // partition: write partial index structures
+    if(part != -1) {
+      index();
+      writeIndex(true);
+      return null;
+    }
+
     // delete old index
     abort();
 
     final Performance perf = Prop.debug ? new Performance() : null;
     Util.debug(det());
 
-    final int k = text ? Data.TEXT : Data.ATTR;
-
-    for(pre = 0; pre < size; ++pre) {
-      if((pre & 0x0FFF) == 0) {
-        check();
-        // check if main memory is exhausted
-        if(split()) {
-          writeIndex(true);
-          index = new IndexTree();
-          finishSplit();
-        }
-      }
-      // skip too long values
-      if(data.kind(pre) == k && data.textLen(pre, text) <= data.meta.maxlen) {
-        index.index(data.text(pre, text), data.meta.updindex ? data.id(pre) : pre);
-        count++;
-      }
+    final int parts = partitions();
+    if(parts > 1) {
+      // index partitions in parallel
+      index = null;
+      final ValueIndexBuilder[] vib = new ValueIndexBuilder[parts];
+      for(int p = 0; p < parts; p++) vib[p] = new ValueIndexBuilder(data, text, p, parts);
+      partitions(vib, text ? DATATXT : DATAATV, "lrt");
+    } else {
+      index();
+      writeIndex(splits > 0);
     }
 
-    writeIndex(splits > 0);
     // merge partial index structures
     if(splits > 1) {
       index = null;
@@ -93,12 +125,48 @@ public final class ValueIndexBuilder extends IndexBuilder {
         new UpdatableDiskValues(data, text) : new DiskValues(data, text);
   }
 
+  /**
+   * Indexes all values of the assigned nodes.
+   * @throws IOException I/O exception
+   */
+  private void index() throws IOException {
+    final int k = text ? Data.TEXT : Data.ATTR;
+    for(pre = start; pre < end; ++pre) {
+      if((pre & 0x0FFF) == 0) {
+        check();
+        // check if main memory is exhausted
+        if(split()) {
+          writeIndex(true);
+          index = new IndexTree();
+          finishSplit();
+        }
+      }
+      // skip too long values and values of names that are not indexed
+      if(data.kind(pre) == k && data.textLen(pre, text) <= data.meta.maxlen && indexed()) {
+        index.index(data.text(pre, text), data.meta.updindex ? data.id(pre) : pre);
+        count++;
+      }
+    }
+  }
+
+  /**
+   * Checks if the value of the current node belongs to an indexed name.
+   * @return result of check
+   */
+  private boolean indexed() {
+    if(names == null) return true;
+    if(!text) return names[data.name(pre)];
+    final int par = data.parent(pre, Data.TEXT);
+    return data.kind(par) == Data.ELEM && names[data.name(par)];
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
    */
   private void merge() throws IOException {
     final String f = text ? DATATXT : DATAATV;
+    final TypedKeys typed = data.meta.updindex ? null : new TypedKeys();
     int sz = 0;
     try(final DataOutput outL = new DataOutput(data.meta.dbfile(f + 'l'));
         final DataOutput outR = new DataOutput(data.meta.dbfile(f + 'r'))) {
@@ -132,6 +200,8 @@ public final class ValueIndexBuilder extends IndexBuilder {
           ml.add(i);
         }
 
+        if(typed != null) typed.add(vm[min].key, sz);
+
         // parse through all values, cache and sort id values
         final int ms = ml.size();
         for(int m = 0; m < ms; ++m) {
@@ -153,6 +223,7 @@ public final class ValueIndexBuilder extends IndexBuilder {
     try(final DataAccess da = new DataAccess(data.meta.dbfile(f + 'l'))) {
       da.write4(sz);
     }
+    if(typed != null) typed.write(data.meta.dbfile(f + 'k'));
   }
 
   /**
@@ -162,16 +233,20 @@ public final class ValueIndexBuilder extends IndexBuilder {
    */
   private void writeIndex(final boolean partial) throws IOException {
     // write id arrays and references
-    final String name = (text ? DATATXT : DATAATV) + (partial ? splits : "");
+    final String file = text ? DATATXT : DATAATV;
+    final String name = partial ? partial(file, splits) : file;
+    final TypedKeys typed = partial || data.meta.updindex ? null : new TypedKeys();
     try(final DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
         final DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'))) {
       outL.write4(index.size());
 
       final IntList il = new IntList();
       index.init();
-      while(index.more()) {
-        final byte[] values = index.values.get(index.next());
+      for(int k = 0; index.more(); k++) {
+        final int i = index.next();
+        final byte[] values = index.values.get(i);
         final int vs = Num.size(values);
+        if(typed != null) typed.add(index.keys.get(i), k);
 
         if(partial) {
           // write temporary structure to disk: number of entries, absolute values
@@ -188,6 +263,8 @@ public final class ValueIndexBuilder extends IndexBuilder {
       }
     }
 
+    if(typed != null) typed.write(data.meta.dbfile(file + 'k'));
+
     // temporarily write texts
     if(partial) {
       try(final DataOutput outT = new DataOutput(data.meta.dbfile(name + 't'))) {
@@ -116,6 +116,14 @@ public class BufferInput extends InputStream {
     return buf[bpos++] & 0xFF;
   }
 
+  /**
+   * Checks if the buffer contains bytes that have not been read yet.
+   * @return result of check
+   */
+  public final boolean buffered() {
+    return bpos < bsize;
+  }
+
   /**
    * Reads a string from the input stream, suffixed by a {@code 0} byte.
    * @return string
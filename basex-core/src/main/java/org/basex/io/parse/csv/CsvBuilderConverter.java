@@ -0,0 +1,70 @@
+package org.basex.io.parse.csv;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.io.in.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * This class converts CSV data to XML, using direct or attributes conversion, and passes on
+ * the resulting nodes to a database builder. Records are streamed: memory consumption does not
+ * depend on the size of the input.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class CsvBuilderConverter extends CsvXmlConverter {
+  /** Builder. */
+  private final Builder builder;
+  /** Attributes. */
+  private final Atts attributes = new Atts();
+  /** Namespaces. */
+  private final Atts nsp = new Atts();
+  /** Record. */
+  private boolean record;
+
+  /**
+   * Constructor.
+   * @param opts CSV options
+   * @param build builder
+   */
+  public CsvBuilderConverter(final CsvParserOptions opts, final Builder build) {
+    super(opts);
+    builder = build;
+  }
+
+  @Override
+  public void convert(final TextInput input) throws IOException {
+    builder.openElem(CSV, attributes, nsp);
+    super.convert(input);
+    if(record) builder.closeElem();
+    builder.closeElem();
+  }
+
+  @Override
+  void addRecord() throws IOException {
+    if(record) builder.closeElem();
+    builder.openElem(RECORD, attributes, nsp);
+    record = true;
+  }
+
+  @Override
+  void addEntry(final byte[] elem, final byte[] name, final byte[] value) throws IOException {
+    if(name != null) attributes.add(NAME, name);
+    builder.openElem(elem, attributes, nsp);
+    attributes.clear();
+    builder.text(value);
+    builder.closeElem();
+  }
+
+  /**
+   * Returns {@code null}, as all nodes are passed on to the builder.
+   * @return {@code null}
+   */
+  @Override
+  public Item finish() {
+    return null;
+  }
+}
@@ -32,9 +32,18 @@ public abstract class CsvConverter {
    * @throws IOException I/O exception
    */
   public void convert(final IO input) throws IOException {
-    final String encoding = copts.get(CsvParserOptions.ENCODING);
-    final String csv = new NewlineInput(input).encoding(encoding).cache().toString();
-    CsvParser.parse(csv, copts, this);
+    try(final NewlineInput nli = new NewlineInput(input)) {
+      convert(nli);
+    }
+  }
+
+  /**
+   * Converts the specified input stream to XML. The input will not be materialized.
+   * @param input input
+   * @throws IOException I/O exception
+   */
+  public void convert(final TextInput input) throws IOException {
+    CsvParser.parse(input.encoding(copts.get(CsvParserOptions.ENCODING)), copts, this);
   }
 
   /**
@@ -57,15 +66,16 @@ public abstract class CsvConverter {
 
   /**
    * Adds a new record.
+   * @throws IOException I/O exception
    */
-  abstract void record();
+  abstract void record() throws IOException;
 
   /**
    * Called when an entry is encountered.
    * @param value string
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void entry(final byte[] value) throws QueryIOException;
+  abstract void entry(final byte[] value) throws IOException;
 
   /**
    * Returns the resulting XQuery value.
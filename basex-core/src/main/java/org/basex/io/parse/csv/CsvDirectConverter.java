@@ -1,12 +1,7 @@
 package org.basex.io.parse.csv;
 
-import static org.basex.util.Token.*;
-
 import org.basex.build.*;
-import org.basex.build.CsvOptions.*;
 import org.basex.query.value.node.*;
-import org.basex.util.*;
-import org.basex.util.list.*;
 
 /**
  * This class converts CSV data to XML, using direct or attributes conversion.
@@ -14,29 +9,11 @@ import org.basex.util.list.*;
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
-final class CsvDirectConverter extends CsvConverter {
-  /** CSV token. */
-  private static final byte[] CSV = token("csv");
-  /** CSV token. */
-  private static final byte[] RECORD = token("record");
-  /** CSV token. */
-  private static final byte[] ENTRY = token("entry");
-  /** CSV token. */
-  private static final byte[] NAME = token("name");
-
-  /** Headers. */
-  private final TokenList headers = new TokenList();
-  /** Attributes format. */
-  private final boolean atts;
-  /** Lax QName conversion. */
-  private final boolean lax;
-
+final class CsvDirectConverter extends CsvXmlConverter {
   /** Root node. */
   private final FElem root = new FElem(CSV);
   /** Record. */
   private FElem record;
-  /** Current column. */
-  private int col;
 
   /**
    * Constructor.
@@ -44,33 +21,19 @@ final class CsvDirectConverter extends CsvConverter {
    */
   CsvDirectConverter(final CsvParserOptions opts) {
     super(opts);
-    lax = opts.get(CsvOptions.LAX);
-    atts = opts.get(CsvOptions.FORMAT) == CsvFormat.ATTRIBUTES;
   }
 
   @Override
-  public void record() {
+  void addRecord() {
     record = new FElem(RECORD);
     root.add(record);
-    col = 0;
-  }
-
-  @Override
-  public void header(final byte[] value) {
-    headers.add(atts ? value : XMLToken.encode(value, lax));
   }
 
   @Override
-  public void entry(final byte[] entry) {
-    final byte[] name = headers.get(col++);
-    final FElem e;
-    if(atts) {
-      e = new FElem(ENTRY);
-      if(name != null) e.add(NAME, name);
-    } else {
-      e = new FElem(name == null ? ENTRY : name);
-    }
-    record.add(e.add(entry));
+  void addEntry(final byte[] elem, final byte[] name, final byte[] value) {
+    final FElem e = new FElem(elem);
+    if(name != null) e.add(NAME, name);
+    record.add(e.add(value));
   }
 
   @Override
@@ -1,16 +1,21 @@
 package org.basex.io.parse.csv;
 
+import java.io.*;
+
 import org.basex.build.*;
-import org.basex.query.*;
+import org.basex.io.in.*;
 import org.basex.util.*;
 
 /**
  * A CSV parser generating parse events similar to a SAX XML parser.
+ * The input is consumed as a stream of characters.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
-final class CsvParser extends InputParser {
+final class CsvParser {
+  /** Input. */
+  private final TextInput input;
   /** Converter. */
   private final CsvConverter conv;
   /** Header flag. */
@@ -26,6 +31,8 @@ final class CsvParser extends InputParser {
   private boolean quoted;
   /** Data mode. */
   private boolean data;
+  /** Next character ({@code -2} if it has not been read yet). */
+  private int next = -2;
 
   /**
    * Constructor.
@@ -33,8 +40,8 @@ final class CsvParser extends InputParser {
    * @param opts options
    * @param cnv converter
    */
-  private CsvParser(final String in, final CsvParserOptions opts, final CsvConverter cnv) {
-    super(in);
+  private CsvParser(final TextInput in, final CsvParserOptions opts, final CsvConverter cnv) {
+    input = in;
     header = opts.get(CsvOptions.HEADER);
     separator = opts.separator();
     quotes = opts.get(CsvOptions.QUOTES);
@@ -42,34 +49,35 @@ final class CsvParser extends InputParser {
   }
 
   /**
-   * Parses the input string, directs the parse events to the given handler and returns
-   * the resulting value.
-   * @param input input string
+   * Parses the input, and directs the parse events to the given handler.
+   * @param input input
    * @param opts options
    * @param conv converter
-   * @throws QueryIOException parse exception
+   * @throws IOException I/O exception
    */
-  static void parse(final String input, final CsvParserOptions opts, final CsvConverter conv)
-      throws QueryIOException {
+  static void parse(final TextInput input, final CsvParserOptions opts, final CsvConverter conv)
+      throws IOException {
     new CsvParser(input, opts, conv).parse();
   }
 
   /**
    * Parses a CSV expression.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void parse() throws QueryIOException {
+  private void parse() throws IOException {
     final TokenBuilder entry = new TokenBuilder();
     data = !header;
 
-    for(char ch; (ch = consume()) != 0;) {
+    for(int ch; (ch = read()) != -1;) {
       if(quoted) {
         // quoted state
         if(ch == '"') {
-          if(!consume('"')) {
+          next = input.read();
+          if(next != '"') {
             quoted = false;
             continue;
           }
+          next = -2;
         }
         entry.add(XMLToken.valid(ch) ? ch : '?');
       } else if(quotes && ch == '"') {
@@ -96,9 +104,9 @@ final class CsvParser extends InputParser {
    * Adds a new record and entry.
    * @param entry entry to be added
    * @param record add new record
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void record(final TokenBuilder entry, final boolean record) throws QueryIOException {
+  private void record(final TokenBuilder entry, final boolean record) throws IOException {
     if(record && first && data) conv.record();
     if(record || !first) {
       if(data) {
@@ -108,4 +116,16 @@ final class CsvParser extends InputParser {
       }
     }
   }
+
+  /**
+   * Returns the next character.
+   * @return next character, or {@code -1} if the end of the input has been reached
+   * @throws IOException I/O exception
+   */
+  private int read() throws IOException {
+    final int ch = next;
+    if(ch == -2) return input.read();
+    next = -2;
+    return ch;
+  }
 }
@@ -0,0 +1,84 @@
+package org.basex.io.parse.csv;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.build.CsvOptions.CsvFormat;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class converts CSV data to XML, using direct or attributes conversion.
+ * The resulting elements are created by the subclasses.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+abstract class CsvXmlConverter extends CsvConverter {
+  /** CSV token. */
+  static final byte[] CSV = token("csv");
+  /** CSV token. */
+  static final byte[] RECORD = token("record");
+  /** CSV token. */
+  static final byte[] ENTRY = token("entry");
+  /** CSV token. */
+  static final byte[] NAME = token("name");
+
+  /** Headers. */
+  private final TokenList headers = new TokenList();
+  /** Attributes format. */
+  private final boolean atts;
+  /** Lax QName conversion. */
+  private final boolean lax;
+  /** Current column. */
+  private int col;
+
+  /**
+   * Constructor.
+   * @param opts CSV options
+   */
+  CsvXmlConverter(final CsvParserOptions opts) {
+    super(opts);
+    lax = opts.get(CsvOptions.LAX);
+    atts = opts.get(CsvOptions.FORMAT) == CsvFormat.ATTRIBUTES;
+  }
+
+  @Override
+  final void record() throws IOException {
+    addRecord();
+    col = 0;
+  }
+
+  @Override
+  final void header(final byte[] value) {
+    headers.add(atts ? value : XMLToken.encode(value, lax));
+  }
+
+  @Override
+  final void entry(final byte[] value) throws IOException {
+    final byte[] name = headers.get(col++);
+    if(atts) {
+      addEntry(ENTRY, name, value);
+    } else {
+      addEntry(name == null ? ENTRY : name, null, value);
+    }
+  }
+
+  /**
+   * Adds a new record element.
+   * @throws IOException I/O exception
+   */
+  abstract void addRecord() throws IOException;
+
+  /**
+   * Adds a new entry element.
+   * @param elem element name
+   * @param name value of the name attribute (may be {@code null})
+   * @param value string value
+   * @throws IOException I/O exception
+   */
+  abstract void addEntry(final byte[] elem, final byte[] name, final byte[] value)
+      throws IOException;
+}
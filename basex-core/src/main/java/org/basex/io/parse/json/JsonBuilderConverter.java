@@ -0,0 +1,213 @@
+package org.basex.io.parse.json;
+
+import static org.basex.io.parse.json.JsonConstants.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.build.JsonOptions.JsonFormat;
+import org.basex.io.in.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * This class converts a JSON document to XML and passes on the resulting nodes to a
+ * database builder. No intermediate tree will be created, and the size of the input is only
+ * limited by the builder. The resulting nodes are identical to the ones that are created by
+ * the {@link JsonDirectConverter} and the {@link JsonAttsConverter}.
+ *
+ * The converter can only be used if the {@link JsonOptions#MERGE} option is disabled,
+ * as merged types are only known after the whole input has been parsed.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class JsonBuilderConverter extends JsonConverter {
+  /** Builder. */
+  private final Builder builder;
+  /** Attributes format. */
+  private final boolean attributes;
+  /** Lax QName conversion. */
+  private final boolean lax;
+  /** Include string type. */
+  private final boolean strings;
+  /** Attributes. */
+  private final Atts atts = new Atts();
+  /** Namespaces. */
+  private final Atts nsp = new Atts();
+
+  /** Name of next element. */
+  private byte[] name = JSON;
+  /** Key of the next pair (attributes format). */
+  private byte[] key;
+
+  /**
+   * Constructor.
+   * @param opts json options
+   * @param build builder
+   */
+  JsonBuilderConverter(final JsonParserOptions opts, final Builder build) {
+    super(opts);
+    builder = build;
+    attributes = jopts.get(JsonOptions.FORMAT) == JsonFormat.ATTRIBUTES;
+    lax = jopts.get(JsonOptions.LAX);
+    strings = jopts.get(JsonOptions.STRINGS);
+  }
+
+  /**
+   * Returns a streaming converter for the given configuration, or {@code null} if the
+   * options require an intermediate tree representation.
+   * @param jopts options
+   * @param build builder
+   * @return converter or {@code null}
+   */
+  public static JsonBuilderConverter get(final JsonParserOptions jopts, final Builder build) {
+    final JsonFormat format = jopts.get(JsonOptions.FORMAT);
+    return jopts.get(JsonOptions.MERGE) ||
+        format != JsonFormat.DIRECT && format != JsonFormat.ATTRIBUTES ? null :
+        new JsonBuilderConverter(jopts, build);
+  }
+
+  @Override
+  public void convert(final TextInput input, final String path) throws IOException {
+    super.convert(input, path);
+    // attributes format: close root element
+    if(attributes) builder.closeElem();
+  }
+
+  @Override
+  void openObject() throws IOException {
+    open(OBJECT);
+  }
+
+  @Override
+  void openPair(final byte[] k) {
+    if(attributes) {
+      name = PAIR;
+      key = k;
+    } else {
+      name = XMLToken.encode(k, lax);
+    }
+  }
+
+  @Override
+  void closePair() throws IOException {
+    if(attributes) close();
+  }
+
+  @Override
+  void closeObject() throws IOException {
+    if(!attributes) close();
+  }
+
+  @Override
+  void openArray() throws IOException {
+    open(ARRAY);
+  }
+
+  @Override
+  void openItem() {
+    name = attributes ? ITEM : VALUE;
+    key = null;
+  }
+
+  @Override
+  void closeItem() throws IOException {
+    if(attributes) close();
+  }
+
+  @Override
+  void closeArray() throws IOException {
+    closeObject();
+  }
+
+  @Override
+  void openConstr(final byte[] nm) throws IOException {
+    openObject();
+    openPair(nm);
+    openArray();
+  }
+
+  @Override
+  void openArg() {
+    openItem();
+  }
+
+  @Override
+  void closeArg() throws IOException {
+    closeItem();
+  }
+
+  @Override
+  void closeConstr() throws IOException {
+    closeArray();
+    closePair();
+    closeObject();
+  }
+
+  @Override
+  void numberLit(final byte[] value) throws IOException {
+    literal(NUMBER, value);
+  }
+
+  @Override
+  void stringLit(final byte[] value) throws IOException {
+    literal(STRING, value);
+  }
+
+  @Override
+  void nullLit() throws IOException {
+    literal(NULL, EMPTY);
+  }
+
+  @Override
+  void booleanLit(final byte[] value) throws IOException {
+    literal(BOOLEAN, value);
+  }
+
+  /**
+   * Returns {@code null}, as all nodes are passed on to the builder.
+   * @return {@code null}
+   */
+  @Override
+  public Item finish() {
+    return null;
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Adds a literal.
+   * @param type JSON type
+   * @param value value
+   * @throws IOException I/O exception
+   */
+  private void literal(final byte[] type, final byte[] value) throws IOException {
+    open(type);
+    builder.text(value);
+    if(!attributes) close();
+  }
+
+  /**
+   * Opens a new element with the given type.
+   * @param type JSON type
+   * @throws IOException I/O exception
+   */
+  private void open(final byte[] type) throws IOException {
+    atts.clear();
+    if(key != null) atts.add(NAME, key);
+    if(strings || type != STRING) atts.add(TYPE, type);
+    builder.openElem(name, atts, nsp);
+    name = null;
+    key = null;
+  }
+
+  /**
+   * Closes the current element.
+   * @throws IOException I/O exception
+   */
+  private void close() throws IOException {
+    builder.closeElem();
+  }
+}
@@ -33,8 +33,22 @@ public abstract class JsonConverter {
    * @throws IOException I/O exception
    */
   public void convert(final IO input) throws IOException {
-    final String encoding = jopts.get(JsonParserOptions.ENCODING);
-    convert(new NewlineInput(input).encoding(encoding).content(), input.path());
+    final NewlineInput ni = new NewlineInput(input);
+    try {
+      convert(ni, input.path());
+    } finally {
+      ni.close();
+    }
+  }
+
+  /**
+   * Converts the specified input stream. The stream will not be materialized.
+   * @param input input stream
+   * @param path input path (may be {@code null)}
+   * @throws IOException I/O exception
+   */
+  public void convert(final TextInput input, final String path) throws IOException {
+    JsonParser.parse(input.encoding(jopts.get(JsonParserOptions.ENCODING)), path, jopts, this);
   }
 
   /**
@@ -44,7 +58,7 @@ public abstract class JsonConverter {
    * @throws QueryIOException query I/O exception
    */
   public void convert(final byte[] input, final String path) throws QueryIOException {
-    JsonParser.parse(Token.string(input), path, jopts, this);
+    JsonParser.parse(input, path, jopts, this);
   }
 
   /**
@@ -63,33 +77,34 @@ public abstract class JsonConverter {
 
   /**
    * Called when a JSON object is opened.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openObject() throws QueryIOException;
+  abstract void openObject() throws IOException;
 
   /**
    * Called when a pair of a JSON object is opened.
    * @param key the key of the entry
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openPair(byte[] key) throws QueryIOException;
+  abstract void openPair(byte[] key) throws IOException;
 
   /**
    * Called when a pair of a JSON object is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closePair() throws QueryIOException;
+  abstract void closePair() throws IOException;
 
   /**
    * Called when a JSON object is closed.
+   * @throws IOException I/O exception
    */
-  abstract void closeObject();
+  abstract void closeObject() throws IOException;
 
   /**
    * Called when a JSON array is opened.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openArray() throws QueryIOException;
+  abstract void openArray() throws IOException;
 
   /**
    * Called when an item of a JSON array is opened.
@@ -98,22 +113,22 @@ public abstract class JsonConverter {
 
   /**
    * Called when an item of a JSON array is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closeItem() throws QueryIOException;
+  abstract void closeItem() throws IOException;
 
   /**
    * Called when a JSON array is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closeArray() throws QueryIOException;
+  abstract void closeArray() throws IOException;
 
   /**
    * Called when a constructor function is opened.
    * @param name name of the constructor
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openConstr(byte[] name) throws QueryIOException;
+  abstract void openConstr(byte[] name) throws IOException;
 
   /**
    * Called when an argument of a constructor function is opened.
@@ -122,42 +137,42 @@ public abstract class JsonConverter {
 
   /**
    * Called when an argument of a constructor function is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closeArg() throws QueryIOException;
+  abstract void closeArg() throws IOException;
 
   /**
    * Called when a constructor function is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closeConstr() throws QueryIOException;
+  abstract void closeConstr() throws IOException;
 
   /**
    * Called when a number literal is encountered.
    * @param value string representation of the number literal
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void numberLit(byte[] value) throws QueryIOException;
+  abstract void numberLit(byte[] value) throws IOException;
 
   /**
    * Called when a string literal is encountered.
    * @param bs the string
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void stringLit(byte[] bs) throws QueryIOException;
+  abstract void stringLit(byte[] bs) throws IOException;
 
   /**
    * Called when a {@code null} literal is encountered.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void nullLit() throws QueryIOException;
+  abstract void nullLit() throws IOException;
 
   /**
    * Called when a boolean literal is encountered.
    * @param b the boolean
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void booleanLit(byte[] b) throws QueryIOException;
+  abstract void booleanLit(byte[] b) throws IOException;
 
   /**
    * Returns the resulting XQuery value.
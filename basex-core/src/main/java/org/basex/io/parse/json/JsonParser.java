@@ -3,18 +3,23 @@ package org.basex.io.parse.json;
 import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
 
+import java.io.*;
+
 import org.basex.build.*;
 import org.basex.build.JsonOptions.JsonSpec;
+import org.basex.core.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.util.*;
 
 /**
  * A JSON parser generating parse events similar to a SAX XML parser.
+ * The input is consumed as a stream of characters. It is never materialized in main memory.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Leo Woerteler
  */
-final class JsonParser extends InputParser {
+final class JsonParser {
   /** Names of control characters not allowed in string literals. */
   private static final String[] CTRL = {
     // U+0000 -- U+001F
@@ -24,6 +29,10 @@ final class JsonParser extends InputParser {
     "CAN", "EM",  "SUB", "ESC", "FS",  "GS",  "RS",  "US",
   };
 
+  /** Input. */
+  private final TextInput input;
+  /** Input path (may be {@code null}). */
+  private final String path;
   /** Converter. */
   private final JsonConverter conv;
   /** Spec. */
@@ -33,17 +42,29 @@ final class JsonParser extends InputParser {
   /** Token builder for string literals. */
   private final TokenBuilder tb = new TokenBuilder();
 
+  /** Current character ({@code -1} if the end of the input has been reached). */
+  private int curr;
+  /** Current line. */
+  private int line = 1;
+  /** Current column. */
+  private int col = 1;
+
   /**
-   * Constructor taking the input string and the spec according to which it is parsed.
-   * @param in input string
+   * Constructor.
+   * @param in input
+   * @param pth input path (may be {@code null)}
    * @param opts options
    * @param cnv converter
+   * @throws IOException I/O exception
    */
-  private JsonParser(final String in, final JsonParserOptions opts, final JsonConverter cnv) {
-    super(in);
+  private JsonParser(final TextInput in, final String pth, final JsonParserOptions opts,
+      final JsonConverter cnv) throws IOException {
+    input = in;
+    path = pth;
     spec = opts.get(JsonOptions.SPEC);
     unescape = opts.get(JsonParserOptions.UNESCAPE);
     conv = cnv;
+    curr = in.read();
   }
 
   /**
@@ -55,20 +76,38 @@ final class JsonParser extends InputParser {
    * @param conv converter
    * @throws QueryIOException parse exception
    */
-  static void parse(final String input, final String path, final JsonParserOptions opts,
+  static void parse(final byte[] input, final String path, final JsonParserOptions opts,
       final JsonConverter conv) throws QueryIOException {
-    final JsonParser parser = new JsonParser(input, opts, conv);
-    parser.file = path;
-    parser.parse();
+    try {
+      parse(new TextInput(new ArrayInput(input)), path, opts, conv);
+    } catch(final QueryIOException ex) {
+      throw ex;
+    } catch(final IOException ex) {
+      // input is a valid token
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Parses the input stream and directs the parse events to the given handler.
+   * @param input input stream
+   * @param path input path (may be {@code null)}
+   * @param opts options
+   * @param conv converter
+   * @throws IOException I/O exception
+   */
+  static void parse(final TextInput input, final String path, final JsonParserOptions opts,
+      final JsonConverter conv) throws IOException {
+    new JsonParser(input, path, opts, conv).parse();
   }
 
   /**
    * Parses a JSON expression.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void parse() throws QueryIOException {
+  private void parse() throws IOException {
     skipWs();
-    if(spec == JsonSpec.RFC4627 && !(curr() == '{' || curr() == '['))
+    if(spec == JsonSpec.RFC4627 && !(curr == '{' || curr == '['))
       throw error("Expected '{' or '[', found %", rest());
     value();
     if(more()) throw error("Unexpected trailing content: %", rest());
@@ -76,11 +115,11 @@ final class JsonParser extends InputParser {
 
   /**
    * Parses a JSON value.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void value() throws QueryIOException {
-    if(pos >= length) throw eof(", expected JSON value.");
-    switch(curr()) {
+  private void value() throws IOException {
+    if(!more()) throw eof(", expected JSON value.");
+    switch(curr) {
       case '[':
         array();
         break;
@@ -105,32 +144,51 @@ final class JsonParser extends InputParser {
         // number
         conv.numberLit(number());
         break;
-      default:
-        // boolean, null or constructor
-        if(consume("true")) conv.booleanLit(TRUE);
-        else if(consume("false")) conv.booleanLit(FALSE);
-        else if(consume("null")) conv.nullLit();
-        else if(spec == JsonSpec.LIBERAL && consume("new") &&
-            Character.isWhitespace(curr())) constr();
-        else throw error("Unexpected JSON value: '%'", rest());
+      case 't':
+        literal("true", 0);
+        conv.booleanLit(TRUE);
+        skipWs();
+        break;
+      case 'f':
+        literal("false", 0);
+        conv.booleanLit(FALSE);
+        skipWs();
+        break;
+      case 'n':
+        // null or constructor
+        consume();
+        if(spec == JsonSpec.LIBERAL && curr == 'e') {
+          literal("new", 1);
+          if(!ws(curr)) {
+            col -= 3;
+            throw error("Unexpected JSON value: 'new%'", rest());
+          }
+          constr();
+        } else {
+          literal("null", 1);
+          conv.nullLit();
+        }
         skipWs();
+        break;
+      default:
+        throw error("Unexpected JSON value: '%'", rest());
     }
   }
 
   /**
    * Parses a JSON object.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void object() throws QueryIOException {
+  private void object() throws IOException {
     consumeWs('{', true);
     conv.openObject();
     if(!consumeWs('}', false)) {
       do {
-        conv.openPair(spec != JsonSpec.LIBERAL || curr() == '"' ? string() : unquoted());
+        conv.openPair(spec != JsonSpec.LIBERAL || curr == '"' ? string() : unquoted());
         consumeWs(':', true);
         value();
         conv.closePair();
-      } while(consumeWs(',', false) && !(spec == JsonSpec.LIBERAL && curr() == '}'));
+      } while(consumeWs(',', false) && !(spec == JsonSpec.LIBERAL && curr == '}'));
       consumeWs('}', true);
     }
     conv.closeObject();
@@ -138,9 +196,9 @@ final class JsonParser extends InputParser {
 
   /**
    * Parses a JSON array.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void array() throws QueryIOException {
+  private void array() throws IOException {
     consumeWs('[', true);
     conv.openArray();
     if(!consumeWs(']', false)) {
@@ -148,7 +206,7 @@ final class JsonParser extends InputParser {
         conv.openItem();
         value();
         conv.closeItem();
-      } while(consumeWs(',', false) && !(spec == JsonSpec.LIBERAL && curr() == ']'));
+      } while(consumeWs(',', false) && !(spec == JsonSpec.LIBERAL && curr == ']'));
       consumeWs(']', true);
     }
     conv.closeArray();
@@ -156,16 +214,17 @@ final class JsonParser extends InputParser {
 
   /**
    * Parses a JSON constructor function.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void constr() throws QueryIOException {
+  private void constr() throws IOException {
     skipWs();
-    if(!input.substring(pos).matches("^[a-zA-Z0-9_-]+\\(.*"))
-      throw error("Wrong constructor syntax: '%'", rest());
+    tb.reset();
+    while(curr >= 'a' && curr <= 'z' || curr >= 'A' && curr <= 'Z' ||
+        curr >= '0' && curr <= '9' || curr == '_' || curr == '-') tb.add(consume());
+    if(tb.isEmpty() || curr != '(') throw error("Wrong constructor syntax: '%%'", tb, rest());
 
-    final int p = input.indexOf('(', pos);
-    conv.openConstr(token(input.substring(pos, p)));
-    pos = p + 1;
+    conv.openConstr(tb.toArray());
+    consume();
     skipWs();
     if(!consumeWs(')', false)) {
       do {
@@ -181,17 +240,13 @@ final class JsonParser extends InputParser {
   /**
    * Reads an unquoted string literal.
    * @return the string
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] unquoted() throws QueryIOException {
-    int cp = more() ? input.codePointAt(pos) : -1;
-    if(cp < 0 || !Character.isJavaIdentifierStart(cp))
+  private byte[] unquoted() throws IOException {
+    if(!more() || !Character.isJavaIdentifierStart(curr))
       throw error("Expected unquoted string, found %", rest());
     tb.reset();
-    do {
-      tb.add(cp);
-      cp = input.codePointAt(pos += cp < 0x10000 ? 1 : 2);
-    } while(Character.isJavaIdentifierPart(cp));
+    do tb.add(consume()); while(more() && Character.isJavaIdentifierPart(curr));
     skipWs();
     return tb.toArray();
   }
@@ -199,9 +254,9 @@ final class JsonParser extends InputParser {
   /**
    * Parses a number literal.
    * @return string representation
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] number() throws QueryIOException {
+  private byte[] number() throws IOException {
     tb.reset();
 
     // integral part
@@ -214,7 +269,7 @@ final class JsonParser extends InputParser {
     }
 
     final boolean zero = ch == '0';
-    ch = curr();
+    ch = curr;
     if(zero && ch >= '0' && ch <= '9') throw error("No digit allowed after '0'");
     loop: while(true) {
       switch(ch) {
@@ -228,9 +283,8 @@ final class JsonParser extends InputParser {
         case '7':
         case '8':
         case '9':
-          tb.addByte((byte) ch);
-          pos++;
-          ch = curr();
+          tb.addByte((byte) consume());
+          ch = curr;
           break;
         case '.':
         case 'e':
@@ -244,12 +298,11 @@ final class JsonParser extends InputParser {
 
     if(consume('.')) {
       tb.addByte((byte) '.');
-      ch = curr();
+      ch = curr;
       if(ch < '0' || ch > '9') throw error("Number expected after '.'");
       do {
-        tb.addByte((byte) ch);
-        pos++;
-        ch = curr();
+        tb.addByte((byte) consume());
+        ch = curr;
       } while(ch >= '0' && ch <= '9');
       if(ch != 'e' && ch != 'E') {
         skipWs();
@@ -259,15 +312,15 @@ final class JsonParser extends InputParser {
 
     // 'e' or 'E'
     tb.addByte((byte) consume());
-    ch = curr();
+    ch = curr;
     if(ch == '-' || ch == '+') {
       tb.addByte((byte) consume());
-      ch = curr();
+      ch = curr;
     }
 
     if(ch < '0' || ch > '9') throw error("Exponent expected");
     do tb.addByte((byte) consume());
-    while((ch = curr()) >= '0' && ch <= '9');
+    while((ch = curr) >= '0' && ch <= '9');
     skipWs();
     return tb.toArray();
   }
@@ -275,13 +328,13 @@ final class JsonParser extends InputParser {
   /**
    * Parses a string literal.
    * @return the string
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] string() throws QueryIOException {
-    if(!consume('"')) throw error("Expected string, found '%'", curr());
+  private byte[] string() throws IOException {
+    if(!consume('"')) throw error("Expected string, found '%'", found());
     tb.reset();
     char hi = 0; // cached high surrogate
-    while(pos < length) {
+    while(more()) {
       int ch = consume();
       if(ch == '"') {
         if(hi != 0) tb.add(hi);
@@ -321,29 +374,27 @@ final class JsonParser extends InputParser {
             ch = unescape ? '\n' : 'n';
             break;
           case 'u':
-            if(pos + 4 >= length) throw eof(", expected four-digit hex value");
             if(unescape) {
               ch = 0;
               for(int i = 0; i < 4; i++) {
-                final char x = consume();
+                final int x = hex();
                 if(x >= '0' && x <= '9')      ch = 16 * ch + x      - '0';
                 else if(x >= 'a' && x <= 'f') ch = 16 * ch + x + 10 - 'a';
-                else if(x >= 'A' && x <= 'F') ch = 16 * ch + x + 10 - 'A';
-                else throw error("Illegal hexadecimal digit: '%'", x);
+                else ch = 16 * ch + x + 10 - 'A';
               }
             } else {
               tb.addByte((byte) 'u');
               for(int i = 0; i < 4; i++) {
-                final char x = consume();
-                if(x >= '0' && x <= '9' || x >= 'a' && x <= 'f' || x >= 'A' && x <= 'F') {
-                  if(i < 3) tb.addByte((byte) x);
-                  else ch = x;
-                } else throw error("Illegal hexadecimal digit: '%'", x);
+                final int x = hex();
+                if(i < 3) tb.addByte((byte) x);
+                else ch = x;
               }
             }
             break;
+          case -1:
+            throw eof(" in string literal");
           default:
-            throw error("Unknown character escape: '\\%'", n);
+            throw error("Unknown character escape: '\\%'", string(n));
         }
       } else if(spec != JsonSpec.LIBERAL && ch <= 0x1F) {
         throw error("Non-escaped control character: '\\%'", CTRL[ch]);
@@ -362,41 +413,141 @@ final class JsonParser extends InputParser {
     throw eof(" in string literal");
   }
 
-  /** Consumes all whitespace characters from the remaining query. */
-  private void skipWs() {
-    while(pos < length) {
-      switch(input.charAt(pos)) {
-        case ' ':
-        case '\t':
-        case '\r':
-        case '\n':
-        case '\u00A0': // non-breaking space
-          pos++;
-          break;
-        default:
-          return;
+  /**
+   * Consumes a hexadecimal digit.
+   * @return digit
+   * @throws IOException I/O exception
+   */
+  private int hex() throws IOException {
+    if(!more()) throw eof(", expected four-digit hex value");
+    final int x = consume();
+    if(x >= '0' && x <= '9' || x >= 'a' && x <= 'f' || x >= 'A' && x <= 'F') return x;
+    throw error("Illegal hexadecimal digit: '%'", string(x));
+  }
+
+  /**
+   * Consumes the remaining characters of the specified literal.
+   * @param literal literal
+   * @param start number of characters that have already been consumed
+   * @throws IOException I/O exception
+   */
+  private void literal(final String literal, final int start) throws IOException {
+    final int ll = literal.length();
+    for(int l = start; l < ll; l++) {
+      if(curr != literal.charAt(l)) {
+        // report position of the first character
+        col -= l;
+        throw error("Unexpected JSON value: '%%'", literal.substring(0, l), rest());
       }
+      consume();
     }
   }
 
+  /**
+   * Consumes all whitespace characters from the remaining input.
+   * @throws IOException I/O exception
+   */
+  private void skipWs() throws IOException {
+    while(ws(curr)) consume();
+  }
+
+  /**
+   * Checks if the specified character is a whitespace.
+   * @param ch character
+   * @return result of check
+   */
+  private static boolean ws(final int ch) {
+    return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n' || ch == '\u00A0';
+  }
+
   /**
    * Tries to consume the given character. If successful, following whitespace is skipped.
    * Otherwise if the error flag is set a parse error is thrown.
    * @param ch character to be consumed
    * @param err error flag
    * @return if the character was consumed
-   * @throws QueryIOException parse error
+   * @throws IOException I/O exception
    */
-  private boolean consumeWs(final char ch, final boolean err) throws QueryIOException {
-    if(consume() != ch) {
-      pos--;
-      if(err) throw error("Expected '%', found '%'", ch, curr());
+  private boolean consumeWs(final char ch, final boolean err) throws IOException {
+    if(!consume(ch)) {
+      if(err) throw error("Expected '%', found '%'", ch, found());
       return false;
     }
     skipWs();
     return true;
   }
 
+  /**
+   * Checks if the end of the input has not been reached yet.
+   * @return result of check
+   */
+  private boolean more() {
+    return curr != -1;
+  }
+
+  /**
+   * Consumes the current character.
+   * @return consumed character, or {@code -1} if the end of the input has been reached
+   * @throws IOException I/O exception
+   */
+  private int consume() throws IOException {
+    final int ch = curr;
+    if(ch == -1) return ch;
+    if(ch == '\n') {
+      line++;
+      col = 1;
+    } else if(ch != '\r') {
+      col++;
+    }
+    curr = input.read();
+    return ch;
+  }
+
+  /**
+   * Consumes the specified character if it is the current one.
+   * @param ch character to be consumed
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  private boolean consume(final int ch) throws IOException {
+    if(curr != ch) return false;
+    consume();
+    return true;
+  }
+
+  /**
+   * Returns the current character as string.
+   * @return string
+   */
+  private String found() {
+    return more() ? string(curr) : "";
+  }
+
+  /**
+   * Returns a string representation of the next characters.
+   * The characters will be consumed, so this function must only be called for error messages.
+   * @return string
+   * @throws IOException I/O exception
+   */
+  private String rest() throws IOException {
+    final int l = line, c = col;
+    final TokenBuilder rest = new TokenBuilder();
+    for(int i = 0; i < 15 && more(); i++) rest.add(consume());
+    if(more()) rest.add(Text.DOTS);
+    line = l;
+    col = c;
+    return rest.toString();
+  }
+
+  /**
+   * Returns the string representation of a codepoint.
+   * @param cp codepoint
+   * @return string
+   */
+  private static String string(final int cp) {
+    return new TokenBuilder(4).add(cp).toString();
+  }
+
   /**
    * Throws an end-of-input error.
    * @param desc description
@@ -415,8 +566,8 @@ final class JsonParser extends InputParser {
    * @throws QueryIOException query I/O exception
    */
   private QueryIOException error(final String msg, final Object... ext) throws QueryIOException {
-    final InputInfo info = new InputInfo(this);
-    final QueryException qe = BXJS_PARSE.get(info, info.line(), info.column(), Util.inf(msg, ext));
+    final InputInfo info = new InputInfo(path, line, col);
+    final QueryException qe = BXJS_PARSE.get(info, line, col, Util.inf(msg, ext));
     throw new QueryIOException(qe);
   }
 }
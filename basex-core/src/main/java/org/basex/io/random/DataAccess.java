@@ -1,6 +1,7 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
@@ -8,14 +9,35 @@ import org.basex.util.*;
 /**
  * This class allows positional read and write access to a database file.
  *
+ * The {@code peek} methods can be called by concurrent threads: each thread reads
+ * data from its own copy of the current block. All other operations must not be
+ * performed in parallel.
+ *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess implements AutoCloseable {
   /** Buffer manager. */
   private final Buffers bm = new Buffers();
+  /** Shared page cache. */
+  private final PageCache cache = PageCache.get();
+  /** File id in the page cache. */
+  private final int id = PageCache.id();
+  /** Thread-local read buffers. */
+  private final ThreadLocal<ReadBuffer> readers = new ThreadLocal<ReadBuffer>() {
+    @Override
+    protected ReadBuffer initialValue() {
+      return new ReadBuffer();
+    }
+  };
+  /** Modification counter (invalidates the read buffers). */
+  private volatile int mods;
   /** Reference to the data input stream. */
   private final RandomAccessFile file;
+  /** Update journal (can be {@code null}). */
+  private final Journal journal;
+  /** Name of the file. */
+  private final String name;
   /** File length. */
   private long len;
   /** Changed flag. */
@@ -29,6 +51,18 @@ public final class DataAccess implements AutoCloseable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile fl) throws IOException {
+    this(fl, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param fl the file to be read
+   * @param jnl update journal (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile fl, final Journal jnl) throws IOException {
+    journal = jnl;
+    name = fl.name();
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(fl.file(), "rw");
@@ -48,7 +82,7 @@ public final class DataAccess implements AutoCloseable {
     try {
       for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
       if(changed) {
-        file.setLength(len);
+        if(journal == null || !journal.length(name, len)) file.setLength(len);
         changed = false;
       }
     } catch(final IOException ex) {
@@ -64,6 +98,7 @@ public final class DataAccess implements AutoCloseable {
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    cache.remove(id);
   }
 
   /**
@@ -79,6 +114,7 @@ public final class DataAccess implements AutoCloseable {
    * @param l file length
    */
   private synchronized void length(final long l) {
+    mods++;
     changed |= l != len;
     len = l;
   }
@@ -227,6 +263,48 @@ public final class DataAccess implements AutoCloseable {
     return b;
   }
 
+  /**
+   * Reads a {@link Num} value from the specified position without changing the cursor.
+   * @param p position
+   * @return read num
+   */
+  public int peekNum(final long p) {
+    final ReadBuffer rb = readers.get();
+    final int v = peek(rb, p);
+    switch(v & 0xC0) {
+    case 0:
+      return v;
+    case 0x40:
+      return (v - 0x40 << 8) + peek(rb, p + 1);
+    case 0x80:
+      return (v - 0x80 << 24) + (peek(rb, p + 1) << 16) + (peek(rb, p + 2) << 8) +
+        peek(rb, p + 3);
+    default:
+      return (peek(rb, p + 1) << 24) + (peek(rb, p + 2) << 16) + (peek(rb, p + 3) << 8) +
+        peek(rb, p + 4);
+    }
+  }
+
+  /**
+   * Reads a token from the specified position without changing the cursor.
+   * @param p position
+   * @return text as byte array
+   */
+  public byte[] peekToken(final long p) {
+    final int l = peekNum(p);
+    final byte[] b = new byte[l];
+    final ReadBuffer rb = readers.get();
+    long q = p + Num.length(l);
+    for(int i = 0; i < l;) {
+      if(!rb.contains(q, mods)) fill(rb, q);
+      final int o = (int) (q - rb.first), n = Math.min(l - i, IO.BLOCKSIZE - o);
+      System.arraycopy(rb.data, o, b, i, n);
+      i += n;
+      q += n;
+    }
+    return b;
+  }
+
   /**
    * Sets the disk cursor.
    * @param p read position
@@ -240,9 +318,18 @@ public final class DataAccess implements AutoCloseable {
     try {
       if(bf.dirty) writeBlock(bf);
       bf.pos = b;
-      file.seek(bf.pos);
-      if(bf.pos < file.length())
-        file.readFully(bf.data, 0, (int) Math.min(len - bf.pos, IO.BLOCKSIZE));
+      if(!cache.read(id, b >>> IO.BLOCKPOWER, bf.data) &&
+          (journal == null || !journal.read(name, b, bf.data))) {
+        final int l = (int) Math.max(0, Math.min(Math.min(len, file.length()) - b,
+            IO.BLOCKSIZE));
+        // zero the bytes after the end of the file, which may still belong to another block
+        Arrays.fill(bf.data, l, IO.BLOCKSIZE, (byte) 0);
+        if(l > 0) {
+          file.seek(b);
+          file.readFully(bf.data, 0, l);
+          cache.write(id, b >>> IO.BLOCKPOWER, bf.data);
+        }
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -271,6 +358,7 @@ public final class DataAccess implements AutoCloseable {
    * @param b byte to be written
    */
   private void write(final int b) {
+    mods++;
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     bf.dirty = true;
     bf.data[off++] = (byte) b;
@@ -363,6 +451,7 @@ public final class DataAccess implements AutoCloseable {
    */
   private void writeToken(final byte[] buf, final int offset, final int length) {
     writeNum(length);
+    mods++;
 
     final int last = offset + length;
     int o = offset;
@@ -445,11 +534,43 @@ public final class DataAccess implements AutoCloseable {
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos);
-    file.write(bf.data);
+    if(journal == null || !journal.write(name, bf.pos, bf.data)) {
+      file.seek(bf.pos);
+      file.write(bf.data);
+    }
+    cache.write(id, bf.pos >>> IO.BLOCKPOWER, bf.data);
     bf.dirty = false;
   }
 
+  /**
+   * Reads the byte at the specified position from the specified read buffer.
+   * @param rb read buffer
+   * @param p position
+   * @return byte
+   */
+  private int peek(final ReadBuffer rb, final long p) {
+    if(!rb.contains(p, mods)) fill(rb, p);
+    return rb.data[(int) (p - rb.first)] & 0xFF;
+  }
+
+  /**
+   * Copies the block containing the specified position to the given read buffer.
+   * The cursor of the file remains unchanged.
+   * @param rb read buffer
+   * @param p position
+   */
+  private synchronized void fill(final ReadBuffer rb, final long p) {
+    final int m = mods;
+    final long c = cursor();
+    final long b = p - (p & IO.BLOCKSIZE - 1);
+    cursor(b);
+    System.arraycopy(bm.current().data, 0, rb.data, 0, IO.BLOCKSIZE);
+    cursor(c);
+    rb.first = b;
+    rb.last = b + IO.BLOCKSIZE;
+    rb.mods = m;
+  }
+
   /**
    * Returns the current or next buffer.
    * @param next next block
@@ -0,0 +1,207 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional read access to a memory-mapped database file.
+ * The file is mapped in segments, so files larger than 2 GB can be accessed as well.
+ * As the class has no cursor state, it can be accessed by concurrent readers.
+ *
+ * NOTE: the file must not be modified as long as it is mapped.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class DataMappedAccess implements AutoCloseable {
+  /** Segment size power (1 GB). */
+  private static final int SEGPOWER = 30;
+  /** Segment mask. */
+  private static final long SEGMASK = (1L << SEGPOWER) - 1;
+  /** Class providing the method for releasing mapped buffers (Java 9 and later). */
+  private static final Class<?> UNSAFE = Reflect.find("sun.misc.Unsafe");
+
+  /** Mapped segments. */
+  private final MappedByteBuffer[] segs;
+  /** File length. */
+  private final long len;
+
+  /**
+   * Constructor, mapping the specified file.
+   * @param fl file to be mapped
+   * @throws IOException I/O Exception
+   */
+  public DataMappedAccess(final IOFile fl) throws IOException {
+    try(final RandomAccessFile file = new RandomAccessFile(fl.file(), "r")) {
+      len = file.length();
+      segs = map(file.getChannel(), len);
+    }
+  }
+
+  /**
+   * Constructor, mapping the file of the specified channel.
+   * @param channel file channel
+   * @throws IOException I/O Exception
+   */
+  DataMappedAccess(final FileChannel channel) throws IOException {
+    len = channel.size();
+    segs = map(channel, len);
+  }
+
+  /**
+   * Unmaps the file. Otherwise, the mapped buffers would only be released by the garbage
+   * collector, and the file could not be modified or deleted on some platforms.
+   * The instance must not be accessed anymore afterwards.
+   */
+  @Override
+  public void close() {
+    for(final MappedByteBuffer seg : segs) unmap(seg);
+  }
+
+  /**
+   * Returns the file length.
+   * @return file length
+   */
+  public long length() {
+    return len;
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param p position
+   * @return byte value
+   */
+  public byte read1(final long p) {
+    return segs[(int) (p >>> SEGPOWER)].get((int) (p & SEGMASK));
+  }
+
+  /**
+   * Reads a short value from the specified position.
+   * @param p position
+   * @return integer value
+   */
+  public int read2(final long p) {
+    return ((read1(p) & 0xFF) << 8) + (read1(p + 1) & 0xFF);
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param p position
+   * @return integer value
+   */
+  public int read4(final long p) {
+    final int s = (int) (p >>> SEGPOWER), o = (int) (p & SEGMASK);
+    // fast path: value does not cross segment boundary
+    if(o + 4 <= segs[s].limit()) return segs[s].getInt(o);
+    return ((read1(p) & 0xFF) << 24) + ((read1(p + 1) & 0xFF) << 16) +
+      ((read1(p + 2) & 0xFF) << 8) + (read1(p + 3) & 0xFF);
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * @param p position
+   * @return long value
+   */
+  public long read5(final long p) {
+    return ((long) (read1(p) & 0xFF) << 32) + (read4(p + 1) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param p position
+   * @return read num
+   */
+  public int readNum(final long p) {
+    final int v = read1(p) & 0xFF;
+    switch(v & 0xC0) {
+    case 0:
+      return v;
+    case 0x40:
+      return (v - 0x40 << 8) + (read1(p + 1) & 0xFF);
+    case 0x80:
+      return (v - 0x80 << 24) + ((read1(p + 1) & 0xFF) << 16) +
+        ((read1(p + 2) & 0xFF) << 8) + (read1(p + 3) & 0xFF);
+    default:
+      return read4(p + 1);
+    }
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param p position
+   * @return token
+   */
+  public byte[] readToken(final long p) {
+    final int l = readNum(p);
+    return readBytes(p + Num.length(l), l);
+  }
+
+  /**
+   * Reads a number of bytes from the specified position.
+   * @param p position
+   * @param l length
+   * @return byte array
+   */
+  public byte[] readBytes(final long p, final int l) {
+    final byte[] b = new byte[l];
+    final int s = (int) (p >>> SEGPOWER), o = (int) (p & SEGMASK);
+    if(o + l <= segs[s].limit()) {
+      // fast path: bytes do not cross segment boundary
+      final ByteBuffer bb = segs[s].duplicate();
+      bb.position(o);
+      bb.get(b);
+    } else {
+      for(int i = 0; i < l; i++) b[i] = read1(p + i);
+    }
+    return b;
+  }
+
+  /**
+   * Releases a mapped buffer.
+   * @param buffer buffer
+   */
+  private static void unmap(final MappedByteBuffer buffer) {
+    try {
+      final Method clean = Reflect.method(UNSAFE, "invokeCleaner", ByteBuffer.class);
+      if(clean != null) {
+        // Java 9 and later
+        final Field field = UNSAFE.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        clean.invoke(field.get(null), buffer);
+      } else {
+        // Java 7 and 8: the buffer class is not public
+        final Method cleaner = buffer.getClass().getMethod("cleaner");
+        cleaner.setAccessible(true);
+        final Object cl = cleaner.invoke(buffer);
+        if(cl != null) cl.getClass().getMethod("clean").invoke(cl);
+      }
+    } catch(final Exception ex) {
+      // buffer will be released by the garbage collector
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Maps the file of the specified channel.
+   * @param channel file channel
+   * @param len file length
+   * @return segments
+   * @throws IOException I/O Exception
+   */
+  private static MappedByteBuffer[] map(final FileChannel channel, final long len)
+      throws IOException {
+    final int ns = (int) (len + SEGMASK >>> SEGPOWER);
+    final MappedByteBuffer[] segs = new MappedByteBuffer[Math.max(1, ns)];
+    for(int s = 0; s < segs.length; s++) {
+      final long p = (long) s << SEGPOWER;
+      segs[s] = channel.map(MapMode.READ_ONLY, p, Math.min(len - p, SEGMASK + 1));
+    }
+    return segs;
+  }
+}
@@ -0,0 +1,538 @@
+package org.basex.io.random;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.zip.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * This class provides a write-ahead journal for updates of disk-based databases.
+ *
+ * While an update is journaled, the blocks, file lengths and small files that are modified
+ * are not written to the database files. Instead, they are kept in main memory until the
+ * update is committed. All changes are then appended to the journal file as a single frame,
+ * which is secured by a checksum. The update is durable as soon as the journal has been
+ * synchronized. Concurrent committers are synchronized by a single call (group commit):
+ * if a thread has registered a process in the database context, synchronization is deferred
+ * until its locks have been released (see {@link #defer} and {@link #sync()}).
+ *
+ * Committed changes are returned by {@link #read}. They are written to the database files
+ * when the journal exceeds a certain size, when the database is closed, or before
+ * data is written in place (checkpoint). If a database is opened after a crash,
+ * all complete frames of the journal will be replayed.
+ *
+ * Updates that exceed a certain size are continued in place. In this case, the
+ * {@link DataText#DATAUPD} file is created, as it is done for non-journaled updates.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class Journal {
+  /** Journal size that triggers a checkpoint. */
+  private static final long CHECKPOINT = 1L << 26;
+  /** Size of pending changes that causes an update to be continued in place. */
+  private static final long MAXPENDING = 1L << 25;
+  /** Size of a frame header (length, checksum). */
+  private static final int HEADER = 12;
+  /** Entry type: block. */
+  private static final int BLOCK = 0;
+  /** Entry type: file length. */
+  private static final int LENGTH = 1;
+  /** Entry type: file contents. */
+  private static final int FILE = 2;
+  /** Journals of the current thread with commits that have not been synchronized yet. */
+  private static final ThreadLocal<HashMap<Journal, Long>> DEFERRED = new ThreadLocal<>();
+  /** First error of the current thread that will be raised by {@link #sync()}. */
+  private static final ThreadLocal<IOException> FAILED = new ThreadLocal<>();
+
+  /** Meta data. */
+  private final MetaData meta;
+  /** Changes of the current update. */
+  private Changes pending = new Changes();
+  /** Committed changes that have not been written to the database files yet. */
+  private Changes committed = new Changes();
+  /** Indicates if changes exist that have not been written to the database files. */
+  private volatile boolean changes;
+  /** Indicates if the current update is journaled. */
+  private boolean active;
+
+  /** Journal file (will be opened with the first commit). */
+  private FileChannel channel;
+  /** Size of the journal file. */
+  private long size;
+  /** Number of bytes that have been appended to the journal. */
+  private long appended;
+  /** Number of bytes that have been synchronized. */
+  private long synced;
+  /** Indicates if the journal is currently being synchronized. */
+  private boolean syncing;
+
+  /**
+   * Constructor. Replays and removes an existing journal.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public Journal(final MetaData meta) throws IOException {
+    this.meta = meta;
+    final IOFile file = meta.dbfile(DATAJNL);
+    if(!file.exists()) return;
+
+    try(final RandomAccessFile raf = new RandomAccessFile(file.file(), "r")) {
+      final long len = raf.length();
+      final byte[] header = new byte[HEADER];
+      for(long pos = 0; pos + HEADER <= len;) {
+        raf.readFully(header);
+        final ByteBuffer bb = ByteBuffer.wrap(header);
+        final int l = bb.getInt();
+        if(l < 0 || pos + HEADER + l > len) break;
+        final byte[] frame = new byte[l];
+        raf.readFully(frame);
+        if(bb.getLong() != checksum(frame)) break;
+        committed.add(frame);
+        pos += HEADER + l;
+      }
+    }
+    committed.write(meta, true);
+    committed = new Changes();
+    if(!file.delete()) throw new BaseXException(Text.FILE_NOT_DELETED_X, file);
+  }
+
+  /**
+   * Starts a journaled update.
+   */
+  public synchronized void start() {
+    active = true;
+  }
+
+  /**
+   * Indicates if the current update is journaled.
+   * @return result of check
+   */
+  public synchronized boolean active() {
+    return active;
+  }
+
+  /**
+   * Reads a block from the changes that have not been written to the database files.
+   * @param name name of the file
+   * @param pos byte position of the block
+   * @param data array for the block
+   * @return success flag
+   */
+  public boolean read(final String name, final long pos, final byte[] data) {
+    if(!changes) return false;
+    synchronized(this) {
+      byte[] block = pending.block(name, pos);
+      if(block == null) block = committed.block(name, pos);
+      if(block == null) return false;
+      System.arraycopy(block, 0, data, 0, block.length);
+      return true;
+    }
+  }
+
+  /**
+   * Journals a block. If the current update is not journaled, the pending changes are
+   * written to the database files, and {@code false} is returned.
+   * @param name name of the file
+   * @param pos byte position of the block
+   * @param data block
+   * @return {@code true} if the block was journaled or has been written
+   * @throws IOException I/O exception
+   */
+  public synchronized boolean write(final String name, final long pos, final byte[] data)
+      throws IOException {
+    if(!journal()) return false;
+    pending.block(name, pos, data.clone());
+    if(pending.size > MAXPENDING) direct();
+    return true;
+  }
+
+  /**
+   * Journals the length of a file.
+   * @param name name of the file
+   * @param len file length
+   * @return {@code true} if the length was journaled
+   * @throws IOException I/O exception
+   */
+  public synchronized boolean length(final String name, final long len) throws IOException {
+    if(!journal()) return false;
+    pending.length(name, len);
+    return true;
+  }
+
+  /**
+   * Journals the contents of a small file.
+   * @param name name of the file
+   * @param data file contents
+   * @return {@code true} if the contents were journaled
+   * @throws IOException I/O exception
+   */
+  public synchronized boolean file(final String name, final byte[] data) throws IOException {
+    if(!journal()) return false;
+    pending.file(name, data);
+    return true;
+  }
+
+  /**
+   * Commits the current update by appending all pending changes to the journal.
+   * The journal is synchronized, or synchronization is deferred if {@link #defer}
+   * has been called by the current thread.
+   * @throws IOException I/O exception
+   */
+  public void commit() throws IOException {
+    final long end;
+    synchronized(this) {
+      if(!active) return;
+      active = false;
+      if(pending.isEmpty()) return;
+
+      final byte[] frame = pending.frame();
+      final ByteBuffer bb = ByteBuffer.allocate(HEADER + frame.length);
+      bb.putInt(frame.length).putLong(checksum(frame)).put(frame).flip();
+      if(channel == null) {
+        channel = new RandomAccessFile(meta.dbfile(DATAJNL).file(), "rw").getChannel();
+      }
+      while(bb.hasRemaining()) size += channel.write(bb, size);
+      appended += bb.capacity();
+      end = appended;
+      committed.add(pending);
+      pending = new Changes();
+    }
+
+    final HashMap<Journal, Long> deferred = DEFERRED.get();
+    if(deferred != null) deferred.put(this, end);
+    else sync(end);
+    if(size > CHECKPOINT) checkpoint();
+  }
+
+  /**
+   * Writes all committed changes to the database files and resets the journal.
+   * @throws IOException I/O exception
+   */
+  public synchronized void checkpoint() throws IOException {
+    while(syncing) {
+      try {
+        wait();
+      } catch(final InterruptedException ex) {
+        throw new BaseXException(ex);
+      }
+    }
+    if(!committed.isEmpty()) {
+      committed.write(meta, true);
+      committed = new Changes();
+    }
+    if(channel != null) {
+      channel.truncate(0);
+      channel.force(false);
+    }
+    size = 0;
+    synced = appended;
+    changes = !pending.isEmpty();
+  }
+
+  /**
+   * Continues the current update in place: writes all committed and pending changes
+   * to the database files and creates the {@link DataText#DATAUPD} file.
+   * @throws IOException I/O exception
+   */
+  public synchronized void direct() throws IOException {
+    checkpoint();
+    if(!active) return;
+    active = false;
+    final IOFile upd = meta.dbfile(DATAUPD);
+    if(!upd.exists() && !upd.touch()) throw new BaseXException(Text.FILE_NOT_SAVED_X, upd);
+    pending.write(meta, false);
+    pending = new Changes();
+    changes = false;
+  }
+
+  /**
+   * Writes all changes to the database files and removes the journal.
+   * @throws IOException I/O exception
+   */
+  public synchronized void close() throws IOException {
+    direct();
+    if(channel != null) {
+      channel.close();
+      channel = null;
+      meta.dbfile(DATAJNL).delete();
+    }
+  }
+
+  /**
+   * Defers the synchronization of journals that are committed by the current thread.
+   */
+  public static void defer() {
+    if(DEFERRED.get() == null) DEFERRED.set(new HashMap<Journal, Long>());
+  }
+
+  /**
+   * Registers an error that occurred while an update of the current thread was finished.
+   * If synchronization has been deferred, the error will be raised by {@link #sync()}.
+   * @param ex exception
+   * @return {@code true} if the error was registered
+   */
+  public static boolean failed(final IOException ex) {
+    if(DEFERRED.get() == null) return false;
+    if(FAILED.get() == null) FAILED.set(ex);
+    return true;
+  }
+
+  /**
+   * Synchronizes all journals with deferred commits of the current thread.
+   * @throws IOException I/O exception, or error registered by {@link #failed}
+   */
+  public static void sync() throws IOException {
+    final HashMap<Journal, Long> deferred = DEFERRED.get();
+    if(deferred == null) return;
+    DEFERRED.remove();
+    final IOException failed = FAILED.get();
+    FAILED.remove();
+    for(final Entry<Journal, Long> entry : deferred.entrySet()) {
+      entry.getKey().sync(entry.getValue());
+    }
+    if(failed != null) throw failed;
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Checks if changes are to be journaled. If the current update is not journaled,
+   * all committed changes will be written to the database files first.
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  private boolean journal() throws IOException {
+    if(active) {
+      changes = true;
+      return true;
+    }
+    if(changes) checkpoint();
+    return false;
+  }
+
+  /**
+   * Synchronizes the journal until the specified position has been reached.
+   * If the journal is currently being synchronized by another thread, the thread waits
+   * for the result, and synchronizes all frames that have been appended in the meantime.
+   * @param end number of appended bytes
+   * @throws IOException I/O exception
+   */
+  private void sync(final long end) throws IOException {
+    final long target;
+    synchronized(this) {
+      while(synced < end && syncing) {
+        try {
+          wait();
+        } catch(final InterruptedException ex) {
+          throw new BaseXException(ex);
+        }
+      }
+      if(synced >= end) return;
+      syncing = true;
+      target = appended;
+    }
+    boolean ok = false;
+    try {
+      channel.force(false);
+      ok = true;
+    } finally {
+      synchronized(this) {
+        if(ok) synced = Math.max(synced, target);
+        syncing = false;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Computes the checksum of a frame.
+   * @param frame frame
+   * @return checksum
+   */
+  private static long checksum(final byte[] frame) {
+    final CRC32 crc = new CRC32();
+    crc.update(frame);
+    return crc.getValue();
+  }
+
+  /**
+   * Changes of database files.
+   */
+  private static final class Changes {
+    /** Blocks, indexed by file names and byte positions. */
+    private final HashMap<String, TreeMap<Long, byte[]>> blocks = new HashMap<>();
+    /** File lengths. */
+    private final HashMap<String, Long> lengths = new HashMap<>();
+    /** File contents. */
+    private final HashMap<String, byte[]> files = new HashMap<>();
+    /** Approximate size of all changes. */
+    private long size;
+
+    /**
+     * Checks if no changes exist.
+     * @return result of check
+     */
+    boolean isEmpty() {
+      return blocks.isEmpty() && lengths.isEmpty() && files.isEmpty();
+    }
+
+    /**
+     * Returns a block.
+     * @param name name of the file
+     * @param pos byte position
+     * @return block or {@code null}
+     */
+    byte[] block(final String name, final long pos) {
+      final TreeMap<Long, byte[]> map = blocks.get(name);
+      return map == null ? null : map.get(pos);
+    }
+
+    /**
+     * Adds a block.
+     * @param name name of the file
+     * @param pos byte position
+     * @param data block
+     */
+    void block(final String name, final long pos, final byte[] data) {
+      TreeMap<Long, byte[]> map = blocks.get(name);
+      if(map == null) {
+        map = new TreeMap<>();
+        blocks.put(name, map);
+      }
+      if(map.put(pos, data) == null) size += data.length;
+    }
+
+    /**
+     * Adds a file length.
+     * @param name name of the file
+     * @param len length
+     */
+    void length(final String name, final long len) {
+      lengths.put(name, len);
+    }
+
+    /**
+     * Adds file contents.
+     * @param name name of the file
+     * @param data contents
+     */
+    void file(final String name, final byte[] data) {
+      final byte[] old = files.put(name, data);
+      size += data.length - (old == null ? 0 : old.length);
+    }
+
+    /**
+     * Adds the specified changes.
+     * @param ch changes
+     */
+    void add(final Changes ch) {
+      for(final Entry<String, TreeMap<Long, byte[]>> entry : ch.blocks.entrySet()) {
+        for(final Entry<Long, byte[]> block : entry.getValue().entrySet()) {
+          block(entry.getKey(), block.getKey(), block.getValue());
+        }
+      }
+      lengths.putAll(ch.lengths);
+      for(final Entry<String, byte[]> entry : ch.files.entrySet()) {
+        file(entry.getKey(), entry.getValue());
+      }
+    }
+
+    /**
+     * Adds the changes of the specified frame.
+     * @param frame frame
+     * @throws IOException I/O exception
+     */
+    void add(final byte[] frame) throws IOException {
+      try(final DataInput in = new DataInput(new IOContent(frame))) {
+        for(int type; (type = in.read()) != -1;) {
+          final String name = Token.string(in.readToken());
+          if(type == BLOCK) {
+            final long pos = (long) in.readNum() << IO.BLOCKPOWER;
+            block(name, pos, in.readToken());
+          } else if(type == LENGTH) {
+            length(name, in.readLongs(in.readNum())[0]);
+          } else {
+            file(name, in.readToken());
+          }
+        }
+      }
+    }
+
+    /**
+     * Serializes all changes.
+     * @return frame
+     * @throws IOException I/O exception
+     */
+    byte[] frame() throws IOException {
+      final ArrayOutput ao = new ArrayOutput();
+      try(final DataOutput out = new DataOutput(ao)) {
+        for(final Entry<String, TreeMap<Long, byte[]>> entry : blocks.entrySet()) {
+          final byte[] name = Token.token(entry.getKey());
+          for(final Entry<Long, byte[]> block : entry.getValue().entrySet()) {
+            out.write(BLOCK);
+            out.writeToken(name);
+            out.writeNum((int) (block.getKey() >>> IO.BLOCKPOWER));
+            out.writeToken(block.getValue());
+          }
+        }
+        for(final Entry<String, Long> entry : lengths.entrySet()) {
+          out.write(LENGTH);
+          out.writeToken(Token.token(entry.getKey()));
+          out.writeLongs(new long[] { entry.getValue() });
+        }
+        for(final Entry<String, byte[]> entry : files.entrySet()) {
+          out.write(FILE);
+          out.writeToken(Token.token(entry.getKey()));
+          out.writeToken(entry.getValue());
+        }
+      }
+      return ao.finish();
+    }
+
+    /**
+     * Writes all changes to the database files.
+     * @param meta meta data
+     * @param force force the changes to be written to the storage device
+     * @throws IOException I/O exception
+     */
+    void write(final MetaData meta, final boolean force) throws IOException {
+      final HashSet<String> names = new HashSet<>(blocks.keySet());
+      names.addAll(lengths.keySet());
+      for(final String name : names) {
+        try(final RandomAccessFile raf = new RandomAccessFile(
+            new IOFile(meta.path, name).file(), "rw")) {
+          final TreeMap<Long, byte[]> map = blocks.get(name);
+          if(map != null) {
+            for(final Entry<Long, byte[]> block : map.entrySet()) {
+              raf.seek(block.getKey());
+              raf.write(block.getValue());
+            }
+          }
+          final Long len = lengths.get(name);
+          if(len != null) raf.setLength(len);
+          if(force) raf.getFD().sync();
+        }
+      }
+      for(final Entry<String, byte[]> entry : files.entrySet()) {
+        try(final FileOutputStream fos = new FileOutputStream(
+            new IOFile(meta.path, entry.getKey()).file())) {
+          fos.write(entry.getValue());
+          if(force) fos.getFD().sync();
+        }
+      }
+    }
+  }
+}
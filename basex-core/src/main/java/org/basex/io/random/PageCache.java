@@ -0,0 +1,252 @@
+package org.basex.io.random;
+
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides a global, size-bounded page cache, which is shared by all
+ * opened database files. It serves as second-level cache for the buffers of
+ * {@link TableDiskAccess} and {@link DataAccess} instances.
+ *
+ * Pages are identified by a file id and a block number. Pages are evicted by a
+ * clock sweep with usage counters: each hit increases the usage counter of a page,
+ * and each pass of the clock hand decreases it. This way, pages that are only
+ * requested once (e.g. by a sequential scan) will be evicted before frequently
+ * accessed pages.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCache {
+  /** Global instance. */
+  private static final PageCache INSTANCE = new PageCache();
+  /** Maximum usage count of a page. */
+  private static final int MAXUSAGE = 5;
+  /** File id counter. */
+  private static final AtomicInteger IDS = new AtomicInteger();
+
+  /** Cached pages (entries are lazily created). */
+  private byte[][] pages;
+  /** Page keys (file id and block). */
+  private long[] keys;
+  /** Usage counters. */
+  private byte[] usage;
+  /** Pointers to the next entries of a hash bucket. */
+  private int[] next;
+  /** Hash buckets, containing pointers to the first entries (offset by 1). */
+  private int[] buckets;
+  /** Number of assigned slots. */
+  private int size;
+  /** Position of the clock hand. */
+  private int hand;
+
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+
+  /**
+   * Private constructor.
+   */
+  private PageCache() {
+    size(32);
+  }
+
+  /**
+   * Returns the global page cache.
+   * @return cache instance
+   */
+  public static PageCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns a new, unique id for a file.
+   * @return file id
+   */
+  static int id() {
+    return IDS.incrementAndGet();
+  }
+
+  /**
+   * Resizes the cache. All cached pages will be discarded if the size changes.
+   * @param mb maximum size of the cache in megabytes (ignored if negative;
+   * {@code 0} disables the cache)
+   */
+  public synchronized void size(final int mb) {
+    if(mb < 0) return;
+    final int cap = (int) Math.min((long) mb << 20 >>> IO.BLOCKPOWER, 1 << 30);
+    if(keys != null && keys.length == cap) return;
+    pages = new byte[cap][];
+    keys = new long[cap];
+    usage = new byte[cap];
+    next = new int[cap];
+    buckets = new int[Integer.highestOneBit(Math.max(1, cap)) << 1];
+    size = 0;
+    hand = 0;
+  }
+
+  /**
+   * Copies the specified page to the given array if it is found in the cache.
+   * @param file file id
+   * @param block block number
+   * @param data data array
+   * @return {@code true} if the page was found
+   */
+  synchronized boolean read(final int file, final long block, final byte[] data) {
+    final int s = find(key(file, block));
+    if(s == -1) {
+      misses++;
+      return false;
+    }
+    hits++;
+    System.arraycopy(pages[s], 0, data, 0, IO.BLOCKSIZE);
+    if(usage[s] < MAXUSAGE) usage[s]++;
+    return true;
+  }
+
+  /**
+   * Stores a copy of the specified page in the cache.
+   * @param file file id
+   * @param block block number
+   * @param data data array
+   */
+  synchronized void write(final int file, final long block, final byte[] data) {
+    if(keys.length == 0) return;
+
+    final long k = key(file, block);
+    int s = find(k);
+    if(s == -1) {
+      s = size < keys.length ? size++ : evict();
+      if(pages[s] == null) pages[s] = new byte[IO.BLOCKSIZE];
+      keys[s] = k;
+      usage[s] = 1;
+      final int b = bucket(k);
+      next[s] = buckets[b];
+      buckets[b] = s + 1;
+    }
+    System.arraycopy(data, 0, pages[s], 0, IO.BLOCKSIZE);
+  }
+
+  /**
+   * Discards all pages of the specified file.
+   * @param file file id
+   */
+  synchronized void remove(final int file) {
+    int s = 0;
+    while(s < size) {
+      if((int) (keys[s] >>> 32) == file) {
+        // fill the gap with the last assigned slot
+        unlink(s);
+        final int l = --size;
+        if(s != l) {
+          unlink(l);
+          final byte[] p = pages[s];
+          pages[s] = pages[l];
+          pages[l] = p;
+          keys[s] = keys[l];
+          usage[s] = usage[l];
+          final int b = bucket(keys[s]);
+          next[s] = buckets[b];
+          buckets[b] = s + 1;
+        }
+      } else {
+        s++;
+      }
+    }
+    if(hand >= size) hand = 0;
+  }
+
+  /**
+   * Returns the number of cache hits.
+   * @return hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of cache misses.
+   * @return misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  @Override
+  public synchronized String toString() {
+    final long all = hits + misses;
+    return Performance.format((long) size << IO.BLOCKPOWER) + " / " +
+        Performance.format((long) keys.length << IO.BLOCKPOWER) + ", " +
+        hits + " hits, " + misses + " misses" +
+        (all == 0 ? "" : " (" + hits * 100 / all + "%)");
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Chooses a slot to be replaced and removes it from the hash index.
+   * @return slot
+   */
+  private int evict() {
+    final int cap = keys.length;
+    while(true) {
+      final int s = hand;
+      hand = hand + 1 == cap ? 0 : hand + 1;
+      if(usage[s] == 0) {
+        unlink(s);
+        return s;
+      }
+      usage[s]--;
+    }
+  }
+
+  /**
+   * Returns the slot of the specified key.
+   * @param key key
+   * @return slot, or {@code -1}
+   */
+  private int find(final long key) {
+    for(int s = buckets[bucket(key)]; s != 0; s = next[s - 1]) {
+      if(keys[s - 1] == key) return s - 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the specified slot from its hash bucket.
+   * @param slot slot
+   */
+  private void unlink(final int slot) {
+    final int b = bucket(keys[slot]);
+    int s = buckets[b];
+    if(s == slot + 1) {
+      buckets[b] = next[slot];
+    } else {
+      while(next[s - 1] != slot + 1) s = next[s - 1];
+      next[s - 1] = next[slot];
+    }
+  }
+
+  /**
+   * Returns the hash bucket of the specified key.
+   * @param key key
+   * @return bucket
+   */
+  private int bucket(final long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) & buckets.length - 1;
+  }
+
+  /**
+   * Returns a key for the specified file id and block.
+   * @param file file id
+   * @param block block number
+   * @return key
+   */
+  private static long key(final int file, final long block) {
+    return (long) file << 32 | block & 0xFFFFFFFFL;
+  }
+}
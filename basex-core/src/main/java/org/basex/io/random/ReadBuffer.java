@@ -0,0 +1,31 @@
+package org.basex.io.random;
+
+import org.basex.io.*;
+
+/**
+ * This class represents a thread-local copy of a block, which allows threads
+ * to read database files in parallel.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+final class ReadBuffer {
+  /** Buffer data. */
+  final byte[] data = new byte[IO.BLOCKSIZE];
+  /** First position (pre value or file offset) covered by the buffer. */
+  long first = -1;
+  /** First position after the buffer. */
+  long last = -1;
+  /** Modification counter of the file at the time the buffer was filled. */
+  int mods = -1;
+
+  /**
+   * Checks if the buffer contains a valid copy of the specified position.
+   * @param p position
+   * @param m current modification counter of the file
+   * @return result of check
+   */
+  boolean contains(final long p, final int m) {
+    return m == mods && p >= first && p < last;
+  }
+}
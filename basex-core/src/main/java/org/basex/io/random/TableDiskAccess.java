@@ -10,13 +10,16 @@ import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 
 /**
  * This class stores the table on disk and reads it block-wise.
  *
- * NOTE: this class is not thread-safe.
+ * Read operations can be performed by concurrent threads: each thread reads entries
+ * from its own copy of the current block. Write operations must not be performed
+ * in parallel with other operations.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Christian Gruen
@@ -25,8 +28,25 @@ import org.basex.util.*;
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
   private final Buffers bm = new Buffers();
+  /** Shared page cache. */
+  private final PageCache cache = PageCache.get();
+  /** File id in the page cache. */
+  private final int id = PageCache.id();
+  /** Thread-local read buffers. */
+  private final ThreadLocal<ReadBuffer> readers = new ThreadLocal<ReadBuffer>() {
+    @Override
+    protected ReadBuffer initialValue() {
+      return new ReadBuffer();
+    }
+  };
+  /** Modification counter (invalidates the read buffers). */
+  private volatile int mods;
   /** File storing all blocks. */
   private final RandomAccessFile file;
+  /** Update journal (can be {@code null}). */
+  private final Journal journal;
+  /** Name of the table file. */
+  private final String name;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
@@ -36,6 +56,12 @@ public final class TableDiskAccess extends TableAccess {
   private int[] fpres;
   /** Page index; will be initialized with the first update. */
   private int[] pages;
+  /** Index of the first directory entry that is stored behind the gap. */
+  private int gap;
+  /** Size of the gap in the directory arrays. */
+  private int gsize;
+  /** Offset that has to be added to all first pre values behind the gap. */
+  private int shift;
 
   /** Page index. */
   private int page = -1;
@@ -56,7 +82,20 @@ public final class TableDiskAccess extends TableAccess {
    * @throws IOException I/O exception
    */
   public TableDiskAccess(final MetaData md, final boolean lock) throws IOException {
+    this(md, lock, null);
+  }
+
+  /**
+   * Constructor.
+   * @param md meta data
+   * @param lock exclusive access
+   * @param jnl update journal (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  public TableDiskAccess(final MetaData md, final boolean lock, final Journal jnl)
+      throws IOException {
     super(md);
+    journal = jnl;
 
     // read meta and index data
     try(final DataInput in = new DataInput(meta.dbfile(DATATBL + 'i'))) {
@@ -83,7 +122,9 @@ public final class TableDiskAccess extends TableAccess {
     }
 
     // initialize data file
-    file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
+    final IOFile tbl = meta.dbfile(DATATBL);
+    name = tbl.name();
+    file = new RandomAccessFile(tbl.file(), "rw");
     if(lock) exclusiveLock();
     else sharedLock();
     if(fl == null) throw new BaseXException(Text.DB_PINNED_X, md.name);
@@ -112,8 +153,10 @@ public final class TableDiskAccess extends TableAccess {
   public synchronized void flush() throws IOException {
     for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
     if(!dirty) return;
+    closeGap();
 
-    try(final DataOutput out = new DataOutput(meta.dbfile(DATATBL + 'i'))) {
+    final ArrayOutput ao = new ArrayOutput();
+    try(final DataOutput out = new DataOutput(ao)) {
       out.writeNum(blocks);
       out.writeNum(used);
 
@@ -125,6 +168,9 @@ public final class TableDiskAccess extends TableAccess {
 
       out.writeLongs(usedPages.toArray());
     }
+    final IOFile index = meta.dbfile(DATATBL + 'i');
+    final byte[] bytes = ao.finish();
+    if(journal == null || !journal.file(index.name(), bytes)) index.write(bytes);
     dirty = false;
   }
 
@@ -132,6 +178,7 @@ public final class TableDiskAccess extends TableAccess {
   public synchronized void close() throws IOException {
     flush();
     file.close();
+    cache.remove(id);
   }
 
   @Override
@@ -183,31 +230,35 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read1(final int pre, final int off) {
+    final ReadBuffer rb = reader(pre);
+    final int o = off + (int) (pre - rb.first << IO.NODEPOWER);
+    final byte[] b = rb.data;
     return b[o] & 0xFF;
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read2(final int pre, final int off) {
+    final ReadBuffer rb = reader(pre);
+    final int o = off + (int) (pre - rb.first << IO.NODEPOWER);
+    final byte[] b = rb.data;
     return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read4(final int pre, final int off) {
+    final ReadBuffer rb = reader(pre);
+    final int o = off + (int) (pre - rb.first << IO.NODEPOWER);
+    final byte[] b = rb.data;
     return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
       ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public long read5(final int pre, final int off) {
+    final ReadBuffer rb = reader(pre);
+    final int o = off + (int) (pre - rb.first << IO.NODEPOWER);
+    final byte[] b = rb.data;
     return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
       ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
   }
@@ -219,6 +270,7 @@ public final class TableDiskAccess extends TableAccess {
     final byte[] b = bf.data;
     b[o] = (byte) v;
     bf.dirty = true;
+    written(pre, o, 1);
   }
 
   @Override
@@ -229,6 +281,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o] = (byte) (v >>> 8);
     b[o + 1] = (byte) v;
     bf.dirty = true;
+    written(pre, o, 2);
   }
 
   @Override
@@ -241,6 +294,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o + 2] = (byte) (v >>> 8);
     b[o + 3] = (byte) v;
     bf.dirty = true;
+    written(pre, o, 4);
   }
 
   @Override
@@ -254,6 +308,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o + 3] = (byte) (v >>> 8);
     b[o + 4] = (byte) v;
     bf.dirty = true;
+    written(pre, o, 5);
   }
 
   @Override
@@ -270,6 +325,7 @@ public final class TableDiskAccess extends TableAccess {
   public void delete(final int pre, final int nr) {
     if(nr == 0) return;
     dirty();
+    closeGap();
 
     // get first block
     cursor(pre);
@@ -377,7 +433,7 @@ public final class TableDiskAccess extends TableAccess {
       bf.dirty = true;
 
       // increment first pre-values of blocks after the last modified block
-      for(int i = page + 1; i < used; ++i) fpres[i] += nr;
+      shift(page + 1, nr);
       // update cached variables (fpre is not changed)
       npre += nr;
       meta.size += nr;
@@ -414,7 +470,7 @@ public final class TableDiskAccess extends TableAccess {
           System.arraycopy(all, all.length - remain, bf.data, 0, remain);
           bf.dirty = true;
           // reduce the pre value, since it will be later incremented with nr
-          fpres[page] -= remain >>> IO.NODEPOWER;
+          fpre(page, fpre(page) - (remain >>> IO.NODEPOWER));
           // go back to the previous block
           readPage(page - 1);
         } else {
@@ -427,39 +483,31 @@ public final class TableDiskAccess extends TableAccess {
       }
     }
 
-    // number of expected blocks: existing blocks + needed block - empty blocks
-    final int exp = blocks + needed - (blocks - used);
-    if(exp > fpres.length) {
-      // resize directory arrays if existing ones are too small
-      final int ns = Math.max(fpres.length << 1, exp);
-      fpres = Arrays.copyOf(fpres, ns);
-      pages = Arrays.copyOf(pages, ns);
-    }
-
     // make place for the blocks where the new entries will be written
-    Array.move(fpres, page + 1, needed, used - page - 1);
-    Array.move(pages, page + 1, needed, used - page - 1);
+    open(page + 1, needed);
 
     // write the all remaining entries
     while(needed-- > 0) {
       freeBlock();
       nrem += write(all, nrem);
-      fpres[page] = fpres[page - 1] + IO.ENTRIES;
+      fpre(page, fpre(page - 1) + IO.ENTRIES);
       pages[page] = (int) bm.current().pos;
     }
 
     // increment all fpre values after the last modified block
-    for(int i = page + 1; i < used; ++i) fpres[i] += nr;
+    shift(page + 1, nr);
 
     meta.size += nr;
 
     // update cached variables
-    fpre = fpres[page];
-    npre = page + 1 < used && fpres[page + 1] < meta.size ? fpres[page + 1] : meta.size;
+    fpre = fpre(page);
+    npre = page + 1 < used && fpre(page + 1) < meta.size ? fpre(page + 1) : meta.size;
   }
 
   @Override
   protected void dirty() {
+    // invalidate read buffers
+    mods++;
     // initialize data structures required for performing updates
     if(fpres == null) {
       final int b = blocks;
@@ -476,6 +524,50 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Returns the read buffer of the current thread, containing the entry for the
+   * specified pre value.
+   * @param pre pre value
+   * @return read buffer
+   */
+  private ReadBuffer reader(final int pre) {
+    final ReadBuffer rb = readers.get();
+    if(!rb.contains(pre, mods)) fill(rb, pre);
+    return rb;
+  }
+
+  /**
+   * Copies the block containing the entry for the specified pre value to the
+   * given read buffer.
+   * @param rb read buffer
+   * @param pre pre value
+   */
+  private synchronized void fill(final ReadBuffer rb, final int pre) {
+    final int m = mods;
+    cursor(pre);
+    System.arraycopy(bm.current().data, 0, rb.data, 0, IO.BLOCKSIZE);
+    rb.first = fpre;
+    rb.last = npre;
+    rb.mods = m;
+  }
+
+  /**
+   * Invalidates the read buffers of all threads after a write operation.
+   * The read buffer of the current thread is updated if it contains the current block.
+   * @param pre pre value
+   * @param o offset of the written bytes in the current block
+   * @param len number of written bytes
+   */
+  private void written(final int pre, final int o, final int len) {
+    final int m = mods;
+    mods = m + 1;
+    final ReadBuffer rb = readers.get();
+    if(rb.contains(pre, m)) {
+      System.arraycopy(bm.current().data, o, rb.data, o, len);
+      rb.mods = m + 1;
+    }
+  }
+
   /**
    * Searches for the block containing the entry for the specified pre value.
    * Reads the block and returns its offset inside the block.
@@ -534,7 +626,7 @@ public final class TableDiskAccess extends TableAccess {
    * @return pre value
    */
   private int page(final int p) {
-    return pages == null ? p : pages[p];
+    return pages == null ? p : pages[p < gap ? p : p + gsize];
   }
 
   /**
@@ -543,7 +635,83 @@ public final class TableDiskAccess extends TableAccess {
    * @return pre value
    */
   private int fpre(final int p) {
-    return fpres == null ? p * IO.ENTRIES : fpres[p];
+    return fpres == null ? p * IO.ENTRIES : p < gap ? fpres[p] : fpres[p + gsize] + shift;
+  }
+
+  /**
+   * Assigns a new first pre value to the specified directory entry.
+   * @param p index of the block
+   * @param v pre value
+   */
+  private void fpre(final int p, final int v) {
+    if(p < gap) fpres[p] = v;
+    else fpres[p + gsize] = v - shift;
+  }
+
+  /**
+   * Adds an offset to the first pre values of all directory entries, starting from the
+   * specified index. As the offset is only recorded for the entries behind the gap,
+   * subsequent inserts at decreasing positions (as they are performed by bulk updates)
+   * only move the entries between two insertion points.
+   * @param p index of the first block
+   * @param nr offset
+   */
+  private void shift(final int p, final int nr) {
+    moveGap(p);
+    shift += nr;
+  }
+
+  /**
+   * Makes room for the specified number of directory entries.
+   * @param p index of the first new entry
+   * @param nr number of entries
+   */
+  private void open(final int p, final int nr) {
+    moveGap(p);
+    if(gsize < nr) {
+      // resize directory arrays if existing ones are too small
+      final int size = used + nr > fpres.length ? Math.max(fpres.length << 1, used + nr) :
+        fpres.length;
+      final int back = used - gap, ng = size - used;
+      final int[] fp = size == fpres.length ? fpres : Arrays.copyOf(fpres, size);
+      final int[] pg = size == pages.length ? pages : Arrays.copyOf(pages, size);
+      System.arraycopy(fpres, gap + gsize, fp, gap + ng, back);
+      System.arraycopy(pages, gap + gsize, pg, gap + ng, back);
+      fpres = fp;
+      pages = pg;
+      gsize = ng;
+    }
+    gap += nr;
+    gsize -= nr;
+  }
+
+  /**
+   * Moves the gap of the directory arrays to the specified index.
+   * @param p new index of the gap
+   */
+  private void moveGap(final int p) {
+    if(gsize != 0 || shift != 0) {
+      final int g = gap, gs = gsize, s = shift;
+      final int[] fp = fpres, pg = pages;
+      for(int i = g - 1; i >= p; i--) {
+        fp[i + gs] = fp[i] - s;
+        pg[i + gs] = pg[i];
+      }
+      for(int i = g; i < p; i++) {
+        fp[i] = fp[i + gs] + s;
+        pg[i] = pg[i + gs];
+      }
+    }
+    gap = p;
+  }
+
+  /**
+   * Closes the gap of the directory arrays.
+   */
+  private void closeGap() {
+    moveGap(used);
+    gsize = 0;
+    shift = 0;
   }
 
   /**
@@ -559,9 +727,11 @@ public final class TableDiskAccess extends TableAccess {
       bf.pos = b;
       if(b >= blocks) {
         blocks = b + 1;
-      } else {
+      } else if(!cache.read(id, b, bf.data) &&
+          (journal == null || !journal.read(name, (long) b << IO.BLOCKPOWER, bf.data))) {
         file.seek(bf.pos * IO.BLOCKSIZE);
         file.readFully(bf.data);
+        cache.write(id, b, bf.data);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -585,8 +755,11 @@ public final class TableDiskAccess extends TableAccess {
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos * IO.BLOCKSIZE);
-    file.write(bf.data);
+    if(journal == null || !journal.write(name, bf.pos << IO.BLOCKPOWER, bf.data)) {
+      file.seek(bf.pos * IO.BLOCKSIZE);
+      file.write(bf.data);
+    }
+    cache.write(id, bf.pos, bf.data);
     bf.dirty = false;
   }
 
@@ -635,6 +808,6 @@ public final class TableDiskAccess extends TableAccess {
    * @return occupied space in number of records
    */
   private int occSpace(final int i) {
-    return (i + 1 < used ? fpres[i + 1] : meta.size) - fpres[i];
+    return (i + 1 < used ? fpre(i + 1) : meta.size) - fpre(i);
   }
 }
@@ -0,0 +1,174 @@
+package org.basex.io.random;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.nio.channels.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.util.*;
+
+/**
+ * This class provides read-only access to a memory-mapped table file.
+ * Entries are directly read from the mapped file, and the class can be accessed
+ * by concurrent readers. The table must be reopened via {@link TableDiskAccess}
+ * before it is updated.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class TableMappedAccess extends TableAccess {
+  /** File storing all blocks. */
+  private final RandomAccessFile file;
+  /** Mapped file. */
+  private final DataMappedAccess map;
+  /** First pre values (ascending order); {@code null} if page index is regular. */
+  private final int[] fpres;
+  /** Page index; {@code null} if page index is regular. */
+  private final int[] pages;
+  /** Number of used blocks. */
+  private final int used;
+
+  /**
+   * Constructor.
+   * @param md meta data
+   * @throws IOException I/O exception
+   */
+  public TableMappedAccess(final MetaData md) throws IOException {
+    super(md);
+
+    // read meta and index data
+    try(final DataInput in = new DataInput(meta.dbfile(DATATBL + 'i'))) {
+      final int b = in.readNum();
+      // check if page index is regular and can be calculated (0: no pages)
+      final int u = in.readNum();
+      if(u == 0 || u == Integer.MAX_VALUE) {
+        used = u == 0 ? 0 : b;
+        fpres = null;
+        pages = null;
+      } else {
+        used = u;
+        fpres = in.readNums();
+        pages = in.readNums();
+      }
+    }
+
+    // map data file and acquire shared lock
+    file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "r");
+    try {
+      if(file.getChannel().tryLock(0, Long.MAX_VALUE, true) == null)
+        throw new BaseXException(Text.DB_PINNED_X, md.name);
+      map = new DataMappedAccess(file.getChannel());
+    } catch(final IOException | OverlappingFileLockException ex) {
+      file.close();
+      if(ex instanceof IOException) throw (IOException) ex;
+      throw new BaseXException(Text.DB_PINNED_X, md.name);
+    }
+  }
+
+  @Override
+  public void flush() { }
+
+  @Override
+  public void close() throws IOException {
+    map.close();
+    file.close();
+  }
+
+  @Override
+  public boolean lock(final boolean lock) {
+    if(lock) throw Util.notExpected("Mapped table cannot be locked exclusively.");
+    return true;
+  }
+
+  @Override
+  public int read1(final int pre, final int off) {
+    return map.read1(offset(pre) + off) & 0xFF;
+  }
+
+  @Override
+  public int read2(final int pre, final int off) {
+    return map.read2(offset(pre) + off);
+  }
+
+  @Override
+  public int read4(final int pre, final int off) {
+    return map.read4(offset(pre) + off);
+  }
+
+  @Override
+  public long read5(final int pre, final int off) {
+    return map.read5(offset(pre) + off);
+  }
+
+  @Override
+  public void write1(final int pre, final int off, final int v) {
+    throw readOnly();
+  }
+
+  @Override
+  public void write2(final int pre, final int off, final int v) {
+    throw readOnly();
+  }
+
+  @Override
+  public void write4(final int pre, final int off, final int v) {
+    throw readOnly();
+  }
+
+  @Override
+  public void write5(final int pre, final int off, final long v) {
+    throw readOnly();
+  }
+
+  @Override
+  protected void dirty() {
+    throw readOnly();
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int pre, final int last) {
+    throw readOnly();
+  }
+
+  @Override
+  public void delete(final int pre, final int nr) {
+    throw readOnly();
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    throw readOnly();
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Returns the file offset of the entry with the specified pre value.
+   * @param pre pre value
+   * @return file offset
+   */
+  private long offset(final int pre) {
+    if(fpres == null) return (long) pre << IO.NODEPOWER;
+
+    // find block containing the entry
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = h + l + 1 >>> 1;
+      if(pre < fpres[m]) h = m - 1;
+      else l = m;
+    }
+    return ((long) pages[l] << IO.BLOCKPOWER) + (pre - fpres[l] << IO.NODEPOWER);
+  }
+
+  /**
+   * Returns an error for write operations.
+   * @return exception
+   */
+  private static RuntimeException readOnly() {
+    return Util.notExpected("Mapped table cannot be updated.");
+  }
+}
@@ -0,0 +1,234 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * This class caches compiled queries, which are shared by all database contexts.
+ * A cached query is reused if the query string, the static context, the user, the options
+ * and the names and types of the bound external variables are identical, if the opened
+ * databases have not been changed, and if they can still be read by the user. The values
+ * of external variables are bound again whenever a cached query is reused. All queries are
+ * discarded if users or permissions are changed. A cached query can only be used by one
+ * query context at a time.
+ *
+ * Queries are only cached if they are non-updating and deterministic, if they have not
+ * been evaluated with an initial context, and if they access no main-memory databases,
+ * external resources or Java modules.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, sorted by their last access. */
+  private final LinkedHashMap<String, Plan> plans = new LinkedHashMap<>(16, 0.75f, true);
+  /** Global options. */
+  private final GlobalOptions gopts;
+
+  /**
+   * Constructor.
+   * @param gopts global options
+   */
+  public QueryCache(final GlobalOptions gopts) {
+    this.gopts = gopts;
+  }
+
+  /**
+   * Returns a key for the specified query, or {@code null} if the query cannot be cached.
+   * @param query query string
+   * @param path file path (may be {@code null})
+   * @param sc static context
+   * @param qc query context
+   * @return key or {@code null}
+   * @throws QueryException query exception
+   */
+  String key(final String query, final String path, final StaticContext sc,
+      final QueryContext qc) throws QueryException {
+
+    final Context ctx = qc.context;
+    if(gopts.get(GlobalOptions.QUERYCACHE) <= 0 || qc.value != null ||
+       ctx.current() != null || sc.elemNS != null || !sc.ns.isEmpty()) return null;
+
+    final TokenBuilder tb = new TokenBuilder(query).add(0).add(String.valueOf(path));
+    tb.add(0).add(sc.baseURI().string()).add(0).add(ctx.user.name);
+    tb.add(0).add(ctx.options.toString());
+
+    // names and types of external bindings: only atomic values are supported.
+    // the values themselves are bound after the lookup
+    final TreeMap<String, Value> bindings = new TreeMap<>();
+    for(final Entry<QNm, Value> entry : qc.bindings.entrySet()) {
+      bindings.put(Token.string(entry.getKey().id()), entry.getValue());
+    }
+    for(final Entry<String, Value> entry : bindings.entrySet()) {
+      final Value value = entry.getValue();
+      for(final Item it : value) {
+        if(!(it.type instanceof AtomType)) return null;
+      }
+      tb.add(0).add(entry.getKey()).add(1).add(value.seqType().toString());
+    }
+    return tb.toString();
+  }
+
+  /**
+   * Returns a cached query for the specified key and removes it from the cache.
+   * @param key key
+   * @param ctx database context
+   * @return query context or {@code null}
+   */
+  QueryContext get(final String key, final Context ctx) {
+    final Plan plan;
+    synchronized(this) {
+      plan = plans.remove(key);
+    }
+    if(plan == null) return null;
+    if(plan.valid(ctx)) return plan.qc;
+    plan.close();
+    return null;
+  }
+
+  /**
+   * Adds a compiled query to the cache.
+   * @param key key
+   * @param qc query context
+   * @return {@code true} if the query was cached
+   */
+  boolean put(final String key, final QueryContext qc) {
+    final Data[] datas = qc.resources.cacheable();
+    if(datas == null) return false;
+
+    final ArrayList<Plan> closed = new ArrayList<>();
+    synchronized(this) {
+      if(plans.containsKey(key)) return false;
+      plans.put(key, new Plan(qc, datas));
+      // remove least recently used queries
+      final int max = gopts.get(GlobalOptions.QUERYCACHE);
+      final Iterator<Plan> iter = plans.values().iterator();
+      while(plans.size() > max && iter.hasNext()) {
+        closed.add(iter.next());
+        iter.remove();
+      }
+    }
+    for(final Plan plan : closed) plan.close();
+    return true;
+  }
+
+  /**
+   * Removes all cached queries that access the specified database.
+   * @param db name of database
+   */
+  public void close(final String db) {
+    final ArrayList<Plan> closed = new ArrayList<>();
+    synchronized(this) {
+      final Iterator<Plan> iter = plans.values().iterator();
+      while(iter.hasNext()) {
+        final Plan plan = iter.next();
+        for(final Data data : plan.datas) {
+          if(data.meta.name.equals(db)) {
+            closed.add(plan);
+            iter.remove();
+            break;
+          }
+        }
+      }
+    }
+    for(final Plan plan : closed) plan.close();
+  }
+
+  /**
+   * Removes all cached queries.
+   */
+  public void close() {
+    final ArrayList<Plan> closed;
+    synchronized(this) {
+      closed = new ArrayList<>(plans.values());
+      plans.clear();
+    }
+    for(final Plan plan : closed) plan.close();
+  }
+
+  /** Compiled query. */
+  private static final class Plan {
+    /** Query context. */
+    final QueryContext qc;
+    /** Opened databases. */
+    final Data[] datas;
+    /** States of the opened databases. */
+    final State[] states;
+
+    /**
+     * Constructor.
+     * @param qc query context
+     * @param datas opened databases
+     */
+    Plan(final QueryContext qc, final Data[] datas) {
+      this.qc = qc;
+      this.datas = datas;
+      final int dl = datas.length;
+      states = new State[dl];
+      for(int d = 0; d < dl; d++) states[d] = new State(datas[d]);
+    }
+
+    /**
+     * Checks if the opened databases have not been changed, and if they can still be
+     * read by the current user.
+     * @param ctx database context
+     * @return result of check
+     */
+    boolean valid(final Context ctx) {
+      final int dl = datas.length;
+      for(int d = 0; d < dl; d++) {
+        final Data data = datas[d];
+        if(!states[d].equals(new State(data)) || !ctx.perm(Perm.READ, data.meta)) return false;
+      }
+      return true;
+    }
+
+    /**
+     * Closes the resources of the query.
+     */
+    void close() {
+      qc.resources.close();
+    }
+  }
+
+  /** State of a database. */
+  private static final class State {
+    /** Timestamp of the last modification. */
+    final long time;
+    /** Number of updates. */
+    final long changes;
+    /** Availability of the indexes. */
+    final int indexes;
+
+    /**
+     * Constructor.
+     * @param data data reference
+     */
+    State(final Data data) {
+      final MetaData meta = data.meta;
+      time = meta.time;
+      changes = meta.changes;
+      indexes = (meta.textindex ? 1 : 0) | (meta.attrindex ? 2 : 0) | (meta.ftxtindex ? 4 : 0) |
+          (meta.uptodate ? 8 : 0) | (meta.trgmindex ? 16 : 0);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if(!(obj instanceof State)) return false;
+      final State s = (State) obj;
+      return time == s.time && changes == s.changes && indexes == s.indexes;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (time ^ changes) * 31 + indexes;
+    }
+  }
+}
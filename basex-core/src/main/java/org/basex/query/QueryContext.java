@@ -50,11 +50,11 @@ public final class QueryContext extends Proc {
   /** The evaluation stack. */
   public final QueryStack stack = new QueryStack();
   /** Static variables. */
-  public final Variables vars = new Variables();
+  public Variables vars = new Variables();
   /** Functions. */
-  public final StaticFuncs funcs = new StaticFuncs();
+  public StaticFuncs funcs = new StaticFuncs();
   /** Externally bound variables. */
-  private final HashMap<QNm, Value> bindings = new HashMap<>();
+  final HashMap<QNm, Value> bindings = new HashMap<>();
 
   /** Parent query context. */
   private final QueryContext qcParent;
@@ -138,6 +138,10 @@ public final class QueryContext extends Proc {
 
   /** Indicates if the query context has been closed. */
   private boolean closed;
+  /** Key for caching the compiled query (may be {@code null}). */
+  private String cacheKey;
+  /** Cached query that is reused by this context (may be {@code null}). */
+  private QueryContext cached;
 
   /**
    * Constructor.
@@ -208,8 +212,30 @@ public final class QueryContext extends Proc {
       throws QueryException {
 
     info.query = query;
+
+    // reuse cached query
+    final QueryCache cache = context.queries;
+    final String key = qcParent == null ? cache.key(query, path, sc, this) : null;
+    if(key != null) {
+      final QueryContext qc = cache.get(key, context);
+      if(qc != null) {
+        cached = qc;
+        root = qc.root;
+        adopt(qc);
+        cacheKey = key;
+        return root;
+      }
+    }
+
     root = new QueryParser(query, path, this, sc).parseMain();
     updating = updating && root.expr.has(Flag.UPD);
+
+    // only cache deterministic queries
+    if(key != null && !updating && ctxItem == null && !root.expr.has(Flag.NDT)) {
+      boolean ndt = false;
+      for(final StaticVar var : vars) ndt |= var.has(Flag.NDT);
+      if(!ndt) cacheKey = key;
+    }
     return root;
   }
 
@@ -237,6 +263,23 @@ public final class QueryContext extends Proc {
     updating = rt.expr.has(Flag.UPD);
   }
 
+  /**
+   * Adopts the compiled functions, static variables and options of the specified context.
+   * The adopted declarations must not be used by other queries at the same time.
+   * @param qc query context
+   */
+  public void adopt(final QueryContext qc) {
+    funcs = qc.funcs;
+    vars = qc.vars;
+    varIDs = qc.varIDs;
+    serialOpts = qc.serialOpts;
+    staticOpts.putAll(qc.staticOpts);
+    for(final String opt : qc.tempOpts) tempOpts.add(opt);
+    for(final String lock : qc.readLocks) readLocks.add(lock);
+    for(final String lock : qc.writeLocks) writeLocks.add(lock);
+    updating = false;
+  }
+
   /**
    * Checks function calls and variable references.
    * @param main main module
@@ -256,6 +299,27 @@ public final class QueryContext extends Proc {
     }
   }
 
+  /**
+   * Compiles all functions and evaluates all static variables of a parsed module.
+   * The resulting declarations can be adopted by other query contexts (see
+   * {@link #adopt(QueryContext)}) if they do not depend on the resources of this context.
+   * @return {@code true} if the declarations can be adopted
+   * @throws QueryException query exception
+   */
+  public boolean compileDecls() throws QueryException {
+    for(final StaticVar var : vars) {
+      if(var.has(Flag.NDT)) return false;
+    }
+    root = null;
+    compile();
+    for(final StaticFunc func : funcs.funcs()) func.compile(this);
+    for(final StaticVar var : vars) {
+      var.compile(this);
+      var.value(this);
+    }
+    return resources.unused() && date == null && dtm == null && time == null && zone == null;
+  }
+
   /**
    * Compiles and optimizes the expression.
    * @throws QueryException query exception
@@ -272,9 +336,16 @@ public final class QueryContext extends Proc {
     }
     // set tail call option after assignment database option
     maxCalls = context.options.get(MainOptions.TAILCALLS);
+    // skip compilation of cached query
+    if(cached != null) {
+      vars.bindExternal(this, bindings, true);
+      info.runtime = true;
+      return;
+    }
 
-    // bind external variables
-    vars.bindExternal(this, bindings);
+    // bind external variables; values of cached queries will be bound again
+    if(cacheKey != null && !vars.independent(bindings.keySet())) cacheKey = null;
+    vars.bindExternal(this, bindings, cacheKey != null);
 
     if(ctxItem != null) {
       // evaluate initial expression
@@ -565,7 +636,16 @@ public final class QueryContext extends Proc {
 
     if(qcParent == null) {
       closed = true;
-      resources.close();
+      // delete temporary files, even if the query will be cached
+      resources.closeTemps();
+      if(cached != null) {
+        // return cached query
+        resources.close();
+        if(!context.queries.put(cacheKey, cached)) cached.resources.close();
+      } else if(cacheKey == null || !info.runtime || date != null || dtm != null ||
+          time != null || zone != null || !context.queries.put(cacheKey, this)) {
+        resources.close();
+      }
     }
 
     // reassign original database options
@@ -799,6 +879,31 @@ public final class QueryContext extends Proc {
     return as;
   }
 
+  /**
+   * Returns a copy of this context, which can be used to evaluate parts of the query
+   * in another thread. Resources, the current focus and all variable bindings are adopted.
+   * The returned context must be closed after use.
+   * @return query context
+   * @throws QueryException query exception
+   */
+  public QueryContext branch() throws QueryException {
+    initDateTime();
+    final QueryContext qc = new QueryContext(this);
+    qc.stack.adopt(stack);
+    qc.value = value;
+    qc.pos = pos;
+    qc.size = size;
+    qc.http = http;
+    qc.collations = collations;
+    qc.ftOpt = ftOpt;
+    qc.maxCalls = maxCalls;
+    qc.date = date;
+    qc.dtm = dtm;
+    qc.time = time;
+    qc.zone = zone;
+    return qc;
+  }
+
   /**
    * Initializes the static date and time context of a query if not done yet.
    * @return self reference
@@ -48,6 +48,8 @@ public final class QueryResources {
   private ModuleLoader modules;
   /** External resources. */
   private final HashMap<Class<? extends DataResources>, DataResources> external = new HashMap<>();
+  /** Temporary resources, which are closed after each evaluation. */
+  private final ArrayList<Closeable> temps = new ArrayList<>(0);
 
   /** Pending output. */
   public final ValueBuilder output = new ValueBuilder();;
@@ -114,6 +116,49 @@ public final class QueryResources {
     if(modules != null) modules.close();
     // close external resources
     for(final DataResources c : external.values()) c.close();
+    closeTemps();
+  }
+
+  /**
+   * Adds a temporary resource, which will be closed after query evaluation.
+   * @param temp temporary resource
+   */
+  public void addTemp(final Closeable temp) {
+    temps.add(temp);
+  }
+
+  /**
+   * Closes all temporary resources.
+   */
+  void closeTemps() {
+    for(final Closeable temp : temps) {
+      try {
+        temp.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    temps.clear();
+  }
+
+  /**
+   * Returns the opened databases if the resources can be kept open along with a
+   * cached query.
+   * @return databases, or {@code null} if main-memory databases, external resources
+   * or Java modules are used
+   */
+  Data[] cacheable() {
+    if(modules != null || !external.isEmpty() || !texts.isEmpty()) return null;
+    for(final Data data : datas) if(data.inMemory()) return null;
+    return datas.toArray(new Data[datas.size()]);
+  }
+
+  /**
+   * Checks if no databases, documents, textual or external resources have been opened.
+   * @return result of check
+   */
+  boolean unused() {
+    return datas.isEmpty() && colls.isEmpty() && external.isEmpty() && texts.isEmpty();
   }
 
   /**
@@ -123,7 +168,8 @@ public final class QueryResources {
    * @return database instance
    * @throws QueryException query exception
    */
-  public Data database(final String name, final InputInfo info) throws QueryException {
+  public synchronized Data database(final String name, final InputInfo info)
+      throws QueryException {
     // check if a database with the same name has already been opened
     for(final Data data : datas) {
       if(data.inMemory()) continue;
@@ -147,7 +193,7 @@ public final class QueryResources {
    * @return document
    * @throws QueryException query exception
    */
-  public DBNode doc(final QueryInput qi, final IO baseIO, final InputInfo info)
+  public synchronized DBNode doc(final QueryInput qi, final IO baseIO, final InputInfo info)
       throws QueryException {
 
     // favor default database
@@ -195,8 +241,8 @@ public final class QueryResources {
    * @return collection
    * @throws QueryException query exception
    */
-  public Value collection(final QueryInput qi, final IO baseIO, final InputInfo info)
-      throws QueryException {
+  public synchronized Value collection(final QueryInput qi, final IO baseIO,
+      final InputInfo info) throws QueryException {
 
     // favor default database
     final Data gd = globalData();
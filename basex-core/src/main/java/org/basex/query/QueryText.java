@@ -768,6 +768,10 @@ public interface QueryText {
   /** Optimization info. */
   String OPTWHERE2 = "rewriting where clause(s)";
   /** Optimization info. */
+  String OPTJOIN = "applying hash join for %";
+  /** Optimization info. */
+  String OPTTOPK = "limiting % to % tuples";
+  /** Optimization info. */
   String OPTPRED = "rewriting % to predicate(s)";
   /** Optimization info. */
   String OPTCAST = "removing redundant % cast.";
@@ -784,6 +788,8 @@ public interface QueryText {
   /** Optimization info. */
   String OPTFTXINDEX = "applying full-text index for %";
   /** Optimization info. */
+  String OPTTRGINDEX = "applying trigram index for %";
+  /** Optimization info. */
   String OPTRNGINDEX = "applying range index for %";
   /** Optimization info. */
   String OPTSRNGINDEX = "applying string range index for %";
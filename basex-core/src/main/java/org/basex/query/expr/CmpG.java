@@ -27,6 +27,9 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 public final class CmpG extends Cmp {
+  /** Maximum timezone offset in seconds. */
+  private static final int MAXZONE = 14 * 60 * 60;
+
   /** Comparators. */
   public enum OpG {
     /** General comparison: less or equal. */
@@ -265,12 +268,44 @@ public final class CmpG extends Cmp {
    * @throws QueryException query exception
    */
   private boolean eval(final Item it1, final Item it2, final Collation cl) throws QueryException {
+    if(comparable(it1, it2)) return op.op.eval(it1, it2, cl, info);
+    throw Err.diffError(info, it1, it2);
+  }
+
+  /**
+   * Checks if this is an equality comparison with the default collation.
+   * @return result of check
+   */
+  public boolean equality() {
+    return op == OpG.EQ && coll == null;
+  }
+
+  /**
+   * Checks if two items are equal, following the rules of general comparisons.
+   * @param it1 first item
+   * @param it2 second item
+   * @param ii input info
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  public static boolean eq(final Item it1, final Item it2, final InputInfo ii)
+      throws QueryException {
+    if(comparable(it1, it2)) return OpV.EQ.eval(it1, it2, null, ii);
+    throw Err.diffError(ii, it1, it2);
+  }
+
+  /**
+   * Checks if two items can be compared by a general comparison.
+   * @param it1 first item
+   * @param it2 second item
+   * @return result of check
+   */
+  private static boolean comparable(final Item it1, final Item it2) {
     final Type t1 = it1.type, t2 = it2.type;
-    if(!(it1 instanceof FItem || it2 instanceof FItem) &&
+    return !(it1 instanceof FItem || it2 instanceof FItem) &&
         (t1 == t2 || t1.isUntyped() || t2.isUntyped() ||
         it1 instanceof ANum && it2 instanceof ANum ||
-        it1 instanceof AStr && it2 instanceof AStr)) return op.op.eval(it1, it2, cl, info);
-    throw Err.diffError(info, it1, it2);
+        it1 instanceof AStr && it2 instanceof AStr);
   }
 
   @Override
@@ -296,6 +331,9 @@ public final class CmpG extends Cmp {
 
   @Override
   public boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    // comparisons with dates and dateTimes can be rewritten for range index access
+    if(exprs[1] instanceof Dat || exprs[1] instanceof Dtm) return dateIndex(ii);
+
     // only equality expressions on default collation can be rewritten
     if(op != OpG.EQ || coll != null) return false;
 
@@ -352,6 +390,31 @@ public final class CmpG extends Cmp {
     return true;
   }
 
+  /**
+   * Rewrites a comparison with a date or dateTime for range index access.
+   * As the index values may have no timezone, the range is extended by the maximum
+   * timezone offset, and the returned candidates are verified by the comparison.
+   * @param ii index info
+   * @return result of check
+   */
+  private boolean dateIndex(final IndexInfo ii) {
+    // typed keys only exist in the value indexes of disk databases
+    if(op == OpG.NE || ii.ic.data.inMemory() || !ii.check(exprs[0], false)) return false;
+
+    final ADate date = (ADate) exprs[1];
+    final double sec = date.utcSeconds();
+    final double min = op == OpG.LT || op == OpG.LE ? Double.NEGATIVE_INFINITY : sec - MAXZONE;
+    final double max = op == OpG.GT || op == OpG.GE ? Double.POSITIVE_INFINITY : sec + MAXZONE;
+    final NumericRange nr = new NumericRange(ii.text, min, max, (AtomType) date.type);
+    ii.costs = ii.ic.data.costs(nr);
+    if(ii.costs == Integer.MAX_VALUE) return false;
+
+    final ParseExpr root = Filter.get(info, new RangeAccess(info, nr, ii.ic),
+        new CmpG(new Context(info), date, op, coll, info));
+    ii.create(root, info, Util.info(OPTRNGINDEX, this), true);
+    return true;
+  }
+
   @Override
   public Expr copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
     return new CmpG(exprs[0].copy(qc, scp, vs), exprs[1].copy(qc, scp, vs), op, coll, info);
@@ -64,6 +64,12 @@ public final class Extension extends Single {
     }
   }
 
+  @Override
+  public boolean has(final Flag flag) {
+    // pragmas change the options of the database context
+    return flag == Flag.MUT || super.has(flag);
+  }
+
   @Override
   public Expr copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
     final Pragma[] prag = pragmas.clone();
@@ -1,6 +1,7 @@
 package org.basex.query.expr;
 
 import org.basex.query.*;
+import org.basex.query.gflwor.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
@@ -102,6 +103,10 @@ public abstract class Filter extends Preds {
 
     // pre-evaluate if root is value and if one single position() or last() function is specified
     final boolean iter = posIterator();
+    // only sort the first tuples of a FLWOR expression
+    if(preds[0] instanceof Pos && root instanceof GFLWOR)
+      ((GFLWOR) root).limit(((Pos) preds[0]).max, qc);
+
     if(preds.length == 1 && (last || pos != null) && root.isValue()) {
       final Value v = (Value) root;
       final long from = last ? v.size() - 1 : pos.min - 1;
@@ -0,0 +1,80 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.node.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * This index class retrieves candidates for substring searches from the trigram index.
+ * The returned text nodes contain all trigrams of the substrings, but they may not
+ * contain the substrings themselves. The results must be verified by the caller.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramAccess extends IndexAccess {
+  /** Substrings. */
+  private final SubstringToken token;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param token substrings
+   * @param ictx index context
+   */
+  public TrigramAccess(final InputInfo info, final SubstringToken token,
+      final IndexContext ictx) {
+    super(ictx, info);
+    this.token = token;
+  }
+
+  @Override
+  public AxisIter iter(final QueryContext qc) {
+    return new AxisIter() {
+      final IndexIterator it = ictx.data.iter(token);
+      @Override
+      public ANode next() {
+        return it.more() ? new DBNode(ictx.data, it.pre(), Data.TEXT) : null;
+      }
+    };
+  }
+
+  @Override
+  public Expr copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
+    return new TrigramAccess(info, token, ictx);
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    addPlan(plan, planElem(DATA, ictx.data.meta.name, TYP, IndexType.TRIGRAM,
+        VAL, substrings()));
+  }
+
+  @Override
+  public String toString() {
+    return new TokenBuilder(DB).add(":trigram(\"").add(ictx.data.meta.name).add('"').
+      add(SEP).add(substrings()).add(')').toString();
+  }
+
+  /**
+   * Returns a string representation of the substrings.
+   * @return string
+   */
+  private byte[] substrings() {
+    final TokenBuilder tb = new TokenBuilder();
+    for(final byte[] t : token.tokens) {
+      if(!tb.isEmpty()) tb.add(SEP);
+      tb.add('"').add(t).add('"');
+    }
+    return tb.finish();
+  }
+}
@@ -386,6 +386,8 @@ public final class FTWords extends FTExpr {
 
   @Override
   public boolean has(final Flag flag) {
+    // tokens and matches are assigned when the expression is evaluated
+    if(flag == Flag.MUT) return true;
     if(occ != null) for(final Expr o : occ) if(o.has(flag)) return true;
     return query.has(flag);
   }
@@ -170,6 +170,8 @@ public final class DynFuncCall extends FuncCall {
   @Override
   public boolean has(final Flag flag) {
     // MIXUPDATES: all function calls may be updating
-    return flag == Flag.UPD ? sc.mixUpdates || updating : super.has(flag);
+    if(flag == Flag.UPD) return sc.mixUpdates || updating;
+    // the invoked function is unknown
+    return flag == Flag.MUT || super.has(flag);
   }
 }
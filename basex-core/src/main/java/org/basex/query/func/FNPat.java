@@ -10,6 +10,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.regex.parse.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
@@ -32,6 +33,8 @@ public final class FNPat extends StandardFunc {
   private static final Pattern SLASH = Pattern.compile("\\$");
   /** Slash pattern. */
   private static final Pattern BSLASH = Pattern.compile("\\\\");
+  /** Characters that can be escaped in regular expressions. */
+  private static final byte[] META = token("\\|.-^?*+{}()[]$");
 
   /** Module prefix. */
   private static final String PREFIX = "fn";
@@ -85,6 +88,23 @@ public final class FNPat extends StandardFunc {
     }
   }
 
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) {
+    // only patterns with literal substrings can be rewritten
+    if(func != Function.MATCHES || !(exprs[1] instanceof Str) ||
+        exprs.length == 3 && !(exprs[2] instanceof Str)) return false;
+
+    final byte[] pat = ((Str) exprs[1]).string();
+    final byte[] mod = exprs.length == 3 ? ((Str) exprs[2]).string() : null;
+    try {
+      // skip invalid patterns
+      RegExParser.parse(pat, mod, sc.xquery3(), info);
+    } catch(final QueryException ex) {
+      return false;
+    }
+    return trigramIndex(ii, substrings(pat, mod));
+  }
+
   /**
    * Evaluates the match function.
    * @param value input value
@@ -244,4 +264,81 @@ public final class FNPat extends StandardFunc {
     }
     return p;
   }
+  /**
+   * Returns literal substrings with at least three bytes that occur in all strings matched
+   * by the specified pattern.
+   * @param pattern pattern
+   * @param mod modifiers (can be {@code null})
+   * @return substrings (empty if the pattern is too complex)
+   */
+  private static byte[][] substrings(final byte[] pattern, final byte[] mod) {
+    final TokenList list = new TokenList();
+    boolean literal = false;
+    if(mod != null) {
+      for(final byte m : mod) {
+        // case-insensitive matching, stripped whitespaces: skip analysis
+        if(m == 'q') literal = true;
+        else if(m != 's' && m != 'm') return list.finish();
+      }
+    }
+    if(literal) {
+      if(pattern.length > 2) list.add(pattern);
+      return list.finish();
+    }
+
+    final TokenBuilder tb = new TokenBuilder();
+    final int pl = pattern.length;
+    for(int p = 0, atom = 0; p < pl; p++) {
+      final byte c = pattern[p];
+      if(c == '(' || c == ')' || c == '|') {
+        // groups and alternatives: skip analysis, discard substrings found so far
+        return new byte[0][];
+      }
+      if(c == '?' || c == '*' || c == '+' || c == '{') {
+        // quantified atom may be omitted or repeated
+        tb.size(atom);
+        add(list, tb);
+        atom = 0;
+        if(c == '{') while(p < pl && pattern[p] != '}') p++;
+        continue;
+      }
+      atom = tb.size();
+      if(c == '\\') {
+        final byte n = ++p < pl ? pattern[p] : 0;
+        if(contains(META, n)) {
+          tb.addByte(n);
+          continue;
+        }
+        // character class escape
+        if(n == 'p' || n == 'P') while(p < pl && pattern[p] != '}') p++;
+      } else if(c == '[') {
+        // character class
+        for(int d = 1; d > 0 && ++p < pl;) {
+          final byte b = pattern[p];
+          if(b == '\\') p++;
+          else if(b == '[') d++;
+          else if(b == ']') d--;
+        }
+      } else if(c != '.' && c != '^' && c != '$') {
+        final int cl = cl(pattern, p);
+        tb.add(pattern, p, p + cl);
+        p += cl - 1;
+        continue;
+      }
+      add(list, tb);
+      atom = 0;
+    }
+    add(list, tb);
+    return list.finish();
+  }
+
+  /**
+   * Adds a substring to the list if it is long enough to be looked up in the index.
+   * @param list list
+   * @param tb substring (will be reset)
+   */
+  private static void add(final TokenList list, final TokenBuilder tb) {
+    if(tb.size() > 2) list.add(tb.toArray());
+    tb.reset();
+  }
 }
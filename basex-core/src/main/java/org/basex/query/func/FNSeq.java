@@ -8,6 +8,7 @@ import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.expr.*;
+import org.basex.query.gflwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
@@ -156,6 +157,12 @@ public final class FNSeq extends StandardFunc {
       return cmpDist(qc);
     }
 
+    // only sort the first tuples of a FLWOR expression
+    if(exprs[0] instanceof GFLWOR) {
+      final long max = max();
+      if(max > 0) ((GFLWOR) exprs[0]).limit(max, qc);
+    }
+
     // all other types will return existing types
     Occ o = Occ.ZERO_MORE;
     // at most one returned item
@@ -168,6 +175,22 @@ public final class FNSeq extends StandardFunc {
     return this;
   }
 
+  /**
+   * Returns the statically known maximum number of items that will be requested
+   * from the first argument.
+   * @return maximum number, or {@code 0} if it is unknown
+   * @throws QueryException query exception
+   */
+  private long max() throws QueryException {
+    if(func == Function.HEAD) return 1;
+    if(func != Function.SUBSEQUENCE || exprs.length < 3 || !(exprs[1] instanceof ANum) ||
+        !(exprs[2] instanceof ANum)) return 0;
+    final double s = ((ANum) exprs[1]).dbl(info), l = ((ANum) exprs[2]).dbl(info);
+    if(Double.isNaN(s) || Double.isNaN(l)) return 0;
+    final double m = (double) StrictMath.round(s) + StrictMath.round(l) - 1;
+    return m < Long.MAX_VALUE ? (long) m : 0;
+  }
+
   /**
    * Pre-evaluates distinct-values() function, utilizing database statistics.
    * @param qc query context
@@ -365,6 +365,15 @@ public final class FNStr extends StandardFunc {
     return Str.get(coll.before(ss, sb, info));
   }
 
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) {
+    // only substring searches with the default collation can be rewritten
+    if(func != Function.CONTAINS || exprs.length != 2 || sc.collation != null ||
+        !(exprs[1] instanceof Str)) return false;
+    final byte[] sub = ((Str) exprs[1]).string();
+    return sub.length > 2 && trigramIndex(ii, sub);
+  }
+
   @Override
   public boolean has(final Flag flag) {
     return flag == Flag.X30 && func == Function.STRING_JOIN && exprs.length == 1 ||
@@ -11,11 +11,14 @@ import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
 import org.basex.io.*;
 import org.basex.io.out.*;
 import org.basex.io.serial.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.Context;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
@@ -127,9 +130,34 @@ public abstract class StandardFunc extends Arr {
     return ao.finish();
   }
 
+  /**
+   * Rewrites a string function for trigram index access. The index returns all text nodes
+   * that contain the trigrams of the specified substrings. The candidates are verified by
+   * applying the function to each node.
+   * @param ii index info
+   * @param substrings substrings that must occur in the string argument
+   * @return result of check
+   */
+  final boolean trigramIndex(final IndexInfo ii, final byte[]... substrings) {
+    if(substrings.length == 0 || !ii.check(exprs[0], IndexType.TRIGRAM)) return false;
+
+    final SubstringToken token = new SubstringToken(substrings);
+    ii.costs = ii.ic.data.costs(token);
+    if(ii.costs == Integer.MAX_VALUE) return false;
+
+    final Expr[] args = exprs.clone();
+    args[0] = new Context(info);
+    final ParseExpr root = Filter.get(info, new TrigramAccess(info, token, ii.ic),
+        func.get(sc, info, args));
+    ii.create(root, info, Util.info(OPTTRGINDEX, this), true);
+    return true;
+  }
+
   @Override
   public boolean has(final Flag flag) {
-    return func.has(flag) || flag != Flag.X30 && flag != Flag.HOF && super.has(flag);
+    // user-supplied functions are unknown
+    return func.has(flag) || flag == Flag.MUT && func.has(Flag.HOF) ||
+        flag != Flag.X30 && flag != Flag.HOF && super.has(flag);
   }
 
   @Override
@@ -1,7 +1,10 @@
 package org.basex.query.gflwor;
 
 import java.util.*;
+import java.util.concurrent.*;
 
+import org.basex.core.*;
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
@@ -25,6 +28,9 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GFLWOR extends ParseExpr {
+  /** Thread pool for the parallel evaluation of for clauses. */
+  private static final ForkJoinPool POOL = new ForkJoinPool();
+
   /** FLWOR clauses. */
   private final LinkedList<Clause> clauses;
   /** Return expression. */
@@ -43,7 +49,10 @@ public final class GFLWOR extends ParseExpr {
   }
 
   @Override
-  public Iter iter(final QueryContext qc) {
+  public Iter iter(final QueryContext qc) throws QueryException {
+    final int tasks = qc.context.options.get(MainOptions.PARALLELFOR);
+    if(tasks > 1 && parallel()) return parallel(qc, tasks).iter();
+
     // Start evaluator, doing nothing, once.
     Eval e = new Eval() {
       /** First-evaluation flag. */
@@ -81,6 +90,144 @@ public final class GFLWOR extends ParseExpr {
     };
   }
 
+  /**
+   * Checks if the iterations of the first clause can be evaluated in parallel.
+   * This is the case if the first clause is a {@code for} clause, if it is only followed by
+   * {@code for}, {@code let} and {@code where} clauses, and if the expression is neither
+   * updating nor nondeterministic. As all tasks evaluate the same expressions, none of them
+   * must change its state during evaluation. Nested expressions are evaluated sequentially.
+   * @return result of check
+   */
+  private boolean parallel() {
+    final Clause fst = clauses.getFirst();
+    return ForkJoinTask.getPool() != POOL && fst instanceof For && !((For) fst).empty &&
+        isFLWR() && !has(Flag.UPD) && !has(Flag.NDT) && !has(Flag.MUT);
+  }
+
+  /**
+   * Evaluates the expression in parallel. The items of the first {@code for} clause are
+   * partitioned into contiguous ranges, which are evaluated by separate tasks.
+   * The results are merged in their original order.
+   * @param qc query context
+   * @param tasks maximum number of tasks
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value parallel(final QueryContext qc, final int tasks) throws QueryException {
+    final Value seq = qc.value(((For) clauses.getFirst()).expr);
+    final long is = seq.size();
+    final int ts = (int) Math.min(tasks, is);
+    if(ts < 2) return range(seq, 0, is, qc, qc);
+
+    final Range[] ranges = new Range[ts];
+    try {
+      for(int t = 0; t < ts; t++) {
+        ranges[t] = new Range(seq, is * t / ts, is * (t + 1) / ts, qc, qc.branch());
+      }
+      POOL.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(ranges);
+        }
+      });
+    } finally {
+      for(final Range r : ranges) {
+        if(r != null) r.wqc.close();
+      }
+    }
+
+    final ValueBuilder vb = new ValueBuilder();
+    for(final Range r : ranges) {
+      if(r.error != null) throw r.error;
+      vb.add(r.result);
+    }
+    return vb.value();
+  }
+
+  /**
+   * Evaluates the expression for a range of items of the first {@code for} clause.
+   * @param seq items of the first clause
+   * @param start first item
+   * @param end last item (exclusive)
+   * @param qc query context
+   * @param wqc query context used for evaluation
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value range(final Value seq, final long start, final long end,
+      final QueryContext qc, final QueryContext wqc) throws QueryException {
+
+    final For fst = (For) clauses.getFirst();
+    Eval e = new Eval() {
+      /** Current position. */
+      private long p = start;
+      @Override
+      public boolean next(final QueryContext q) throws QueryException {
+        if(p == end) return false;
+        final Item it = seq.itemAt(p++);
+        q.set(fst.var, it, info);
+        if(fst.pos != null) q.set(fst.pos, Int.get(p), info);
+        if(fst.score != null) q.set(fst.score, Dbl.get(it.score()), info);
+        return true;
+      }
+    };
+    final ListIterator<Clause> iter = clauses.listIterator(1);
+    while(iter.hasNext()) e = iter.next().eval(e);
+
+    final ValueBuilder vb = new ValueBuilder();
+    while(e.next(wqc)) {
+      qc.checkStop();
+      vb.add(wqc.value(ret));
+    }
+    return vb.value();
+  }
+
+  /** Task for evaluating a range of items of the first {@code for} clause. */
+  private final class Range extends RecursiveAction {
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+    /** Items of the first clause. */
+    private final Value seq;
+    /** First item. */
+    private final long start;
+    /** Last item (exclusive). */
+    private final long end;
+    /** Query context. */
+    private final QueryContext qc;
+    /** Query context of this task. */
+    private final QueryContext wqc;
+    /** Result. */
+    private Value result;
+    /** Query exception. */
+    private QueryException error;
+
+    /**
+     * Constructor.
+     * @param seq items of the first clause
+     * @param start first item
+     * @param end last item (exclusive)
+     * @param qc query context
+     * @param wqc query context of this task
+     */
+    Range(final Value seq, final long start, final long end, final QueryContext qc,
+        final QueryContext wqc) {
+      this.seq = seq;
+      this.start = start;
+      this.end = end;
+      this.qc = qc;
+      this.wqc = wqc;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        result = range(seq, start, end, qc, wqc);
+      } catch(final QueryException ex) {
+        error = ex;
+      }
+    }
+  }
+
   @Override
   public Expr compile(final QueryContext qc, final VarScope scp) throws QueryException {
     int i = 0;
@@ -212,6 +359,12 @@ public final class GFLWOR extends ParseExpr {
 
     mergeWheres();
 
+    // drop tuple limits that are invalid after the rewritings
+    for(final Clause c : clauses) {
+      if(c instanceof OrderBy && (c != clauses.getLast() || !limitable()))
+        ((OrderBy) c).limit = Long.MAX_VALUE;
+    }
+
     size = calcSize();
     if(size == 0 && !has(Flag.NDT) && !has(Flag.UPD)) {
       qc.compInfo(QueryText.OPTWRITE, this);
@@ -229,6 +382,31 @@ public final class GFLWOR extends ParseExpr {
     return this;
   }
 
+  /**
+   * Limits the number of tuples that will be returned by a trailing order by clause.
+   * Called if only the first results of this expression will be requested.
+   * @param max maximum number of requested results
+   * @param qc query context
+   */
+  public void limit(final long max, final QueryContext qc) {
+    if(!limitable()) return;
+    final OrderBy order = (OrderBy) clauses.getLast();
+    if(max < order.limit) {
+      qc.compInfo(QueryText.OPTTOPK, order, max);
+      order.limit = max;
+    }
+  }
+
+  /**
+   * Checks if the last clause is an order by clause, and if each of its tuples
+   * yields at least one result.
+   * @return result of check
+   */
+  private boolean limitable() {
+    return !clauses.isEmpty() && clauses.getLast() instanceof OrderBy &&
+        !ret.seqType().mayBeZero();
+  }
+
   /**
    * Pre-calculates the number of results of this FLWOR expression.
    * @return result size if statically computable, {@code -1} otherwise
@@ -426,7 +604,7 @@ public final class GFLWOR extends ParseExpr {
         if(!curr.skippable(let)) break;
         // insert directly above the highest skippable for or window clause
         // this guarantees that no unnecessary swaps occur
-        if(curr instanceof For || curr instanceof Window) insert = j;
+        if(curr instanceof For || curr instanceof Join || curr instanceof Window) insert = j;
       }
 
       if(insert >= 0) {
@@ -484,7 +662,10 @@ public final class GFLWOR extends ParseExpr {
         final int newPos = insert < 0 ? i : insert;
         for(int b4 = newPos; --b4 >= 0;) {
           final Clause before = clauses.get(b4);
-          if(before instanceof For && ((For) before).toPred(qc, scp, wh.pred)) {
+          if(before instanceof For && join(qc, b4, newPos)) {
+            i--;
+            change = true;
+          } else if(before instanceof For && ((For) before).toPred(qc, scp, wh.pred)) {
             clauses.remove(newPos);
             i--;
             change = true;
@@ -499,6 +680,64 @@ public final class GFLWOR extends ParseExpr {
     return change;
   }
 
+  /**
+   * Tries to rewrite a for clause and a where clause with an equality comparison to a join
+   * clause, which will be evaluated via a hash table. This is possible if:
+   * <ul>
+   *   <li>the for clause is preceded by another for or window clause,</li>
+   *   <li>the for clause declares no positional or score variable,</li>
+   *   <li>one operand of the comparison references the for variable (key), and the
+   *     other one does not (probe), and</li>
+   *   <li>neither the bound expression nor the key references variables of preceding
+   *     clauses.</li>
+   * </ul>
+   * No rewrite takes place if the bound expression may be rewritten for index access.
+   * @param qc query context
+   * @param f position of the for clause
+   * @param w position of the where clause
+   * @return {@code true} if the clauses were rewritten
+   */
+  private boolean join(final QueryContext qc, final int f, final int w) {
+    final For fr = (For) clauses.get(f);
+    final Expr pred = ((Where) clauses.get(w)).pred;
+    if(fr.empty || fr.vars.length != 1 || !(pred instanceof CmpG) || !((CmpG) pred).equality() ||
+        indexed(qc, fr.expr)) return false;
+
+    final Expr[] ops = ((CmpG) pred).exprs;
+    final boolean u1 = ops[0].uses(fr.var), u2 = ops[1].uses(fr.var);
+    if(u1 == u2) return false;
+    final Expr key = u1 ? ops[0] : ops[1], probe = u1 ? ops[1] : ops[0];
+    for(final Expr ex : new Expr[] { fr.expr, key, probe }) {
+      if(ex.has(Flag.NDT) || ex.has(Flag.UPD)) return false;
+    }
+
+    boolean loop = false;
+    for(int c = 0; c < f; c++) {
+      final Clause cl = clauses.get(c);
+      loop |= cl instanceof For || cl instanceof Join || cl instanceof Window;
+      for(final Var v : cl.vars) if(fr.expr.uses(v) || key.uses(v)) return false;
+    }
+    if(!loop) return false;
+
+    qc.compInfo(QueryText.OPTJOIN, fr.var);
+    clauses.set(f, new Join(fr.var, fr.expr, key, probe, u1, fr.info));
+    clauses.remove(w);
+    return true;
+  }
+
+  /**
+   * Checks if the specified expression is a path on a database with value indexes.
+   * @param qc query context
+   * @param expr expression
+   * @return result of check
+   */
+  private static boolean indexed(final QueryContext qc, final Expr expr) {
+    if(!(expr instanceof Path)) return false;
+    final Value v = ((Path) expr).initial(qc);
+    final Data data = v != null ? v.data() : null;
+    return data != null && (data.meta.textindex || data.meta.attrindex);
+  }
+
   /** Merges consecutive {@code where} clauses. */
   private void mergeWheres() {
     Where before = null;
@@ -624,7 +863,8 @@ public final class GFLWOR extends ParseExpr {
     final ListIterator<Clause> iter = clauses.listIterator(idx);
     while(iter.hasPrevious()) {
       final Clause b4 = iter.previous();
-      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where) {
+      if(b4 instanceof For || b4 instanceof Join || b4 instanceof Window ||
+          b4 instanceof Where) {
         iter.next();
         while(iter.hasNext()) {
           iter.next();
@@ -649,8 +889,10 @@ public final class GFLWOR extends ParseExpr {
    * @return result of check
    */
   private boolean isFLWR() {
-    for(final Clause cl : clauses)
-      if(!(cl instanceof For || cl instanceof Let || cl instanceof Where)) return false;
+    for(final Clause cl : clauses) {
+      if(!(cl instanceof For || cl instanceof Join || cl instanceof Let || cl instanceof Where))
+        return false;
+    }
     return true;
   }
 
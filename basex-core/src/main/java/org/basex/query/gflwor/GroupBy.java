@@ -4,12 +4,14 @@ import static org.basex.query.QueryText.*;
 
 import java.util.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.gflwor.GFLWOR.Eval;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
@@ -26,6 +28,9 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GroupBy extends GFLWOR.Clause {
+  /** Number of partitions that are created when groups are spilled to disk. */
+  private static final int PARTS = 16;
+
   /** Grouping specs. */
   private final Spec[] specs;
   /** Non-grouping variable expressions. */
@@ -88,13 +93,26 @@ public final class GroupBy extends GFLWOR.Clause {
     return new Eval() {
       /** Groups to iterate over. */
       private Group[] groups;
+      /** Partitions that have been spilled to disk ({@code null} if nothing was spilled). */
+      private Spill[] parts;
+      /** Current partition. */
+      private int part;
       /** Current position. */
       private int pos;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
         if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
+        while(pos == groups.length) {
+          // build the groups of the next spilled partition
+          if(parts == null || part == parts.length) return false;
+          final Groups grps = new Groups();
+          final Spill sp = parts[part];
+          parts[part++] = null;
+          while(sp.next(qc, nonOcc, preExpr.length)) grps.add(sp.keys, sp.values);
+          groups = grps.finish();
+          pos = 0;
+        }
 
         final Group curr = groups[pos];
         // be nice to the garbage collector
@@ -112,72 +130,79 @@ public final class GroupBy extends GFLWOR.Clause {
       }
 
       /**
-       * Builds up the groups.
+       * Builds up the groups. If their estimated memory exceeds the specified limit,
+       * the groups and all remaining tuples will be spilled to disk, partitioned by the
+       * hash values of their keys.
        * @param qc query context
+       * @return groups
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext qc) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<>();
-        final IntObjMap<Group> map = new IntObjMap<>();
-        final Collation[] colls = new Collation[nonOcc];
-        for(int i = 0, p = 0; i < specs.length; i++)
-          if(!specs[i].occluded) colls[p++] = specs[i].coll;
+        final long max = Spill.max(qc);
+        long mem = max == -1 ? -1 : 0;
+        Groups grps = new Groups();
 
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
+          int p = 0;
           for(final Spec spec : specs) {
             final Item ki = spec.item(qc, info),
                 atom = ki == null ? null : StandardFunc.atom(ki, info);
             if(!spec.occluded) {
               key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash +
-                  (atom == null || spec.coll != null ? 0 : atom.hash(info));
+              mem = Spill.memory(atom, mem);
             }
             qc.set(spec.var, atom == null ? Empty.SEQ : atom, info);
           }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
+          // values of non-grouping variables
+          final Value[] vals = new Value[preExpr.length];
+          for(int j = 0; j < preExpr.length; j++) {
+            vals[j] = preExpr[j].value(qc);
+            mem = Spill.memory(vals[j], mem);
           }
 
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[preExpr.length];
-            for(int i = 0; i < ngs.length; i++) ngs[i] = new ValueBuilder();
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
+          if(parts != null) {
+            if(mem != -1) {
+              parts[part(grps.hash(key))].write(key, vals);
+              continue;
             }
+            // tuple cannot be spilled: read back all partitions
+            for(final Spill sp : parts) {
+              while(sp.next(qc, nonOcc, preExpr.length)) grps.add(sp.keys, sp.values);
+            }
+            parts = null;
+          }
+          grps.add(key, vals);
+
+          if(mem != -1 && mem >= max) {
+            // write groups to disk
+            final ArrayList<Data> datas = new ArrayList<>();
+            parts = new Spill[PARTS];
+            for(int i = 0; i < PARTS; i++) parts[i] = new Spill(datas, qc, info);
+            for(final Group g : grps.finish()) {
+              final Value[] ngv = new Value[g.ngv.length];
+              for(int j = 0; j < ngv.length; j++) ngv[j] = g.ngv[j].value();
+              parts[part(grps.hash(g.key))].write(g.key, ngv);
+            }
+            grps = new Groups();
+            mem = 0;
           }
-
-          // add values of non-grouping variables to the group
-          for(int j = 0; j < preExpr.length; j++) grp.ngv[j].add(preExpr[j].value(qc));
         }
-
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[grps.size()]);
+        return grps.finish();
       }
     };
   }
 
+  /**
+   * Returns the partition for the specified hash value.
+   * @param hash hash value
+   * @return partition
+   */
+  private static int part(final int hash) {
+    return (hash ^ hash >>> 16) & PARTS - 1;
+  }
+
   /**
    * Checks two keys for equality.
    * @param its1 first keys
@@ -387,6 +412,96 @@ public final class GroupBy extends GFLWOR.Clause {
     }
   }
 
+  /** Hash table, storing the groups in the order of their creation. */
+  private final class Groups {
+    /** Groups. */
+    private final ArrayList<Group> list = new ArrayList<>();
+    /** Groups, indexed by the hash values of their keys. */
+    private final IntObjMap<Group> map = new IntObjMap<>();
+    /** Collations of the non-occluded grouping specs. */
+    private final Collation[] colls = new Collation[nonOcc];
+
+    /**
+     * Constructor.
+     */
+    Groups() {
+      for(int i = 0, p = 0; i < specs.length; i++) {
+        if(!specs[i].occluded) colls[p++] = specs[i].coll;
+      }
+    }
+
+    /**
+     * Adds the values of a tuple to the group with the specified key.
+     * @param key grouping key
+     * @param vals values of non-grouping variables
+     * @throws QueryException query exception
+     */
+    void add(final Item[] key, final Value[] vals) throws QueryException {
+      // find the group for this key
+      final int hash = hash(key);
+      final Group fst = map.get(hash);
+      Group grp = null;
+      for(Group g = fst; g != null; g = g.next) {
+        if(eq(key, g.key, colls)) {
+          grp = g;
+          break;
+        }
+      }
+
+      if(grp == null) {
+        // new group, add it to the list
+        final ValueBuilder[] ngs = new ValueBuilder[vals.length];
+        for(int i = 0; i < ngs.length; i++) ngs[i] = new ValueBuilder();
+        grp = new Group(key, ngs);
+        list.add(grp);
+
+        // insert the group into the hash table
+        if(fst == null) {
+          map.put(hash, grp);
+        } else {
+          grp.next = fst.next;
+          fst.next = grp;
+        }
+      }
+
+      // add values of non-grouping variables to the group
+      for(int j = 0; j < vals.length; j++) grp.ngv[j].add(vals[j]);
+    }
+
+    /**
+     * Computes the hash value of a key. Strings that are compared by a collation are
+     * hashed by their collation keys.
+     * @param key grouping key
+     * @return hash value
+     * @throws QueryException query exception
+     */
+    int hash(final Item[] key) throws QueryException {
+      int hash = 1;
+      for(int i = 0; i < key.length; i++) {
+        final Item it = key[i];
+        hash = 31 * hash + (it == null ? 0 : colls[i] != null && it.type.isStringOrUntyped() ?
+          colls[i].hash(it.string(info)) : it.hash(info));
+      }
+      return hash;
+    }
+
+    /**
+     * Returns the number of groups.
+     * @return number of groups
+     */
+    int size() {
+      return list.size();
+    }
+
+    /**
+     * Returns all groups.
+     * @return groups
+     */
+    Group[] finish() {
+      return list.toArray(new Group[list.size()]);
+    }
+  }
+
   /**
    * A group of tuples of post-grouping variables.
    *
@@ -0,0 +1,400 @@
+package org.basex.query.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.gflwor.GFLWOR.Eval;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.query.value.type.SeqType.Occ;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * FLWOR {@code for} clause, followed by a {@code where} clause with an equality comparison
+ * ({@code for $var in expr where key = probe}). The items of the bound expression do not
+ * depend on the preceding clauses. They are indexed by their keys in a hash table when the
+ * clause is evaluated for the first time, and the table is then probed for each incoming tuple.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends GFLWOR.Clause {
+  /** Item variable. */
+  final Var var;
+  /** Bound expression. */
+  Expr expr;
+  /** Key expression (references the item variable). */
+  Expr key;
+  /** Probe expression. */
+  Expr probe;
+  /** Indicates if the key is the first operand of the comparison. */
+  final boolean first;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr bound expression
+   * @param key key expression
+   * @param probe probe expression
+   * @param first indicates if the key is the first operand of the comparison
+   * @param info input info
+   */
+  public Join(final Var var, final Expr expr, final Expr key, final Expr probe,
+      final boolean first, final InputInfo info) {
+    super(info, var);
+    this.var = var;
+    this.expr = expr;
+    this.key = key;
+    this.probe = probe;
+    this.first = first;
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Hash table (created with the first incoming tuple). */
+      private Table table;
+      /** Items matching the current tuple. */
+      private Iter iter;
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        while(true) {
+          final Item it = iter == null ? null : iter.next();
+          if(it != null) {
+            qc.set(var, it, info);
+            return true;
+          }
+          if(!sub.next(qc)) return false;
+          if(table == null) table = new Table(qc);
+          iter = table.probe(qc);
+        }
+      }
+    };
+  }
+
+  @Override
+  public Join compile(final QueryContext qc, final VarScope scp) throws QueryException {
+    expr = expr.compile(qc, scp);
+    key = key.compile(qc, scp);
+    probe = probe.compile(qc, scp);
+    return optimize(qc, scp);
+  }
+
+  @Override
+  public Join optimize(final QueryContext qc, final VarScope scp) throws QueryException {
+    seqType = SeqType.get(expr.seqType().type, Occ.ONE);
+    var.refineType(seqType, qc, info);
+    size = 1;
+    var.size = size;
+    return this;
+  }
+
+  @Override
+  public boolean has(final Flag flag) {
+    return expr.has(flag) || key.has(flag) || probe.has(flag);
+  }
+
+  @Override
+  public boolean removable(final Var v) {
+    return expr.removable(v) && key.removable(v) && probe.removable(v);
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    // the key expression is evaluated for each item of the bound expression
+    return expr.count(v).plus(key.count(v).times(2)).plus(probe.count(v));
+  }
+
+  @Override
+  public Join inline(final QueryContext qc, final VarScope scp, final Var v, final Expr ex)
+      throws QueryException {
+
+    final Expr e = expr.inline(qc, scp, v, ex), k = key.inline(qc, scp, v, ex);
+    final Expr p = probe.inline(qc, scp, v, ex);
+    if(e == null && k == null && p == null) return null;
+    if(e != null) expr = e;
+    if(k != null) key = k;
+    if(p != null) probe = p;
+    return compile(qc, scp);
+  }
+
+  @Override
+  public Join copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
+    final Expr e = expr.copy(qc, scp, vs), p = probe.copy(qc, scp, vs);
+    final Var v = scp.newCopyOf(qc, var);
+    vs.put(var.id, v);
+    return new Join(v, e, key.copy(qc, scp, vs), p, first, info);
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return expr.accept(visitor) && probe.accept(visitor) && visitor.declared(var) &&
+        key.accept(visitor);
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, key, probe);
+  }
+
+  @Override
+  void calcSize(final long[] minMax) {
+    final long sz = expr.size();
+    minMax[0] = 0;
+    if(sz < 0) {
+      minMax[1] = -1;
+    } else if(minMax[1] > 0) {
+      minMax[1] *= sz;
+    }
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + key.exprSize() + probe.exprSize();
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    final FElem e = planElem();
+    var.plan(e);
+    expr.plan(e);
+    final FElem w = new FElem(WHERE);
+    (first ? key : probe).plan(w);
+    (first ? probe : key).plan(w);
+    e.add(w);
+    plan.add(e);
+  }
+
+  @Override
+  public String toString() {
+    return FOR + ' ' + var + ' ' + IN + ' ' + expr + ' ' + WHERE + ' ' +
+        (first ? key : probe) + " = " + (first ? probe : key);
+  }
+
+  /** Hash table, storing the items of the bound expression by their keys. */
+  private final class Table {
+    /** Items of the bound expression. */
+    private final Value items;
+    /** Keys. */
+    private final ArrayList<Item> keys = new ArrayList<>();
+    /** Item positions of the keys. */
+    private final IntList ids = new IntList();
+    /** Keys with string values and untyped keys, indexed by their string values. */
+    private final TokenObjMap<IntList> strings = new TokenObjMap<>();
+    /** Numeric keys and untyped keys, indexed by their numeric values. */
+    private final TokenObjMap<IntList> numbers = new TokenObjMap<>();
+    /** String key (not untyped). */
+    private Item string;
+    /** Numeric key. */
+    private Item number;
+    /** Indicates if the keys contain floats. */
+    private boolean floats;
+    /** Indicates if the keys contain integers, decimals or numeric untyped values. */
+    private boolean decimals;
+    /** Untyped key that cannot be cast to a number. */
+    private Item invalid;
+    /** Indicates if keys of other types exist (if yes, all keys are compared one by one). */
+    private boolean other;
+
+    /**
+     * Constructor, evaluating the bound expression and its keys.
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    Table(final QueryContext qc) throws QueryException {
+      items = qc.value(expr);
+      final int is = (int) items.size();
+      for(int i = 0; i < is; i++) {
+        qc.set(var, items.itemAt(i), info);
+        final Iter ir = qc.iter(key);
+        for(Item it; (it = ir.next()) != null;) add(it, i);
+      }
+    }
+
+    /**
+     * Adds a key.
+     * @param it key
+     * @param i item position
+     * @throws QueryException query exception
+     */
+    private void add(final Item it, final int i) throws QueryException {
+      final int k = keys.size();
+      keys.add(it);
+      ids.add(i);
+      if(it instanceof FItem) {
+        other = true;
+      } else if(it.type.isUntyped()) {
+        final byte[] s = it.string(info);
+        put(strings, s, k);
+        final double d = number(s);
+        if(!Double.isNaN(d)) {
+          put(numbers, token(d), k);
+          decimals = true;
+        } else if(!Token.eq(Token.trim(s), Token.NAN)) invalid = it;
+      } else if(it instanceof AStr) {
+        put(strings, it.string(info), k);
+        string = it;
+      } else if(it instanceof ANum) {
+        put(numbers, token(it.dbl(info)), k);
+        number = it;
+        if(it.type == AtomType.FLT) floats = true;
+        else if(it.type != AtomType.DBL) decimals = true;
+      } else {
+        other = true;
+      }
+    }
+
+    /**
+     * Returns all items whose keys match the current probe values.
+     * @param qc query context
+     * @return items
+     * @throws QueryException query exception
+     */
+    Iter probe(final QueryContext qc) throws QueryException {
+      final IntList list = new IntList();
+      final Iter ir = qc.iter(probe);
+      for(Item it; (it = ir.next()) != null;) {
+        qc.checkStop();
+        if(other || !(it.type.isUntyped() || it instanceof AStr || it instanceof ANum)) {
+          // compare with all keys
+          final int ks = keys.size();
+          for(int k = 0; k < ks; k++) match(k, it, list);
+        } else if(it.type.isUntyped()) {
+          final byte[] s = it.string(info);
+          match(strings.get(s), it, list);
+          if(number != null) match(token(Dbl.parse(s, info)), floats, it, list);
+        } else if(it instanceof AStr) {
+          // raise error if the keys contain numbers
+          if(number != null) eq(number, it);
+          match(strings.get(it.string(info)), it, list);
+        } else {
+          // raise error if the keys contain strings or invalid untyped values
+          if(string != null) eq(string, it);
+          if(invalid != null) eq(invalid, it);
+          final Type t = it.type;
+          match(token(it.dbl(info)), t == AtomType.FLT ? decimals : t != AtomType.DBL && floats,
+              it, list);
+        }
+      }
+
+      // return distinct items in their original order
+      final int[] pos = list.sort().toArray();
+      return new Iter() {
+        /** Current position. */
+        private int p;
+        @Override
+        public Item next() {
+          while(p < pos.length) {
+            final int i = pos[p++];
+            if(p == 1 || pos[p - 2] != i) return items.itemAt(i);
+          }
+          return null;
+        }
+      };
+    }
+
+    /**
+     * Adds the positions of all items whose numeric keys are equal to the probe value.
+     * Floats are compared with integers, decimals and untyped values by their float values.
+     * In this case, the hash keys may differ, and all keys will be compared.
+     * @param num hash key of the probe value
+     * @param all compare all keys
+     * @param it probe value
+     * @param list item positions
+     * @throws QueryException query exception
+     */
+    private void match(final byte[] num, final boolean all, final Item it, final IntList list)
+        throws QueryException {
+      if(all) {
+        final int ks = keys.size();
+        for(int k = 0; k < ks; k++) match(k, it, list);
+      } else {
+        match(numbers.get(num), it, list);
+      }
+    }
+
+    /**
+     * Adds the positions of all items whose keys are equal to the probe value.
+     * @param ks positions of the keys to be checked (may be {@code null})
+     * @param it probe value
+     * @param list item positions
+     * @throws QueryException query exception
+     */
+    private void match(final IntList ks, final Item it, final IntList list)
+        throws QueryException {
+      if(ks == null) return;
+      final int kl = ks.size();
+      for(int k = 0; k < kl; k++) match(ks.get(k), it, list);
+    }
+
+    /**
+     * Adds the position of the specified item if its key is equal to the probe value.
+     * @param k position of the key
+     * @param it probe value
+     * @param list item positions
+     * @throws QueryException query exception
+     */
+    private void match(final int k, final Item it, final IntList list) throws QueryException {
+      if(eq(keys.get(k), it)) list.add(ids.get(k));
+    }
+
+    /**
+     * Compares a key with a probe value, preserving the order of the original operands.
+     * @param k key
+     * @param it probe value
+     * @return result of check
+     * @throws QueryException query exception
+     */
+    private boolean eq(final Item k, final Item it) throws QueryException {
+      return first ? CmpG.eq(k, it, info) : CmpG.eq(it, k, info);
+    }
+  }
+
+  /**
+   * Adds a key position to the specified map.
+   * @param map map
+   * @param key key
+   * @param k position of the key
+   */
+  private static void put(final TokenObjMap<IntList> map, final byte[] key, final int k) {
+    IntList list = map.get(key);
+    if(list == null) {
+      list = new IntList(1);
+      map.put(key, list);
+    }
+    list.add(k);
+  }
+
+  /**
+   * Returns the numeric value of the specified untyped value.
+   * @param value value
+   * @return numeric value, or {@link Double#NaN} if the value cannot be converted
+   */
+  private static double number(final byte[] value) {
+    final double d = Token.toDouble(value);
+    if(!Double.isNaN(d)) return d;
+    final byte[] v = Token.trim(value);
+    return Token.eq(v, Token.INF) ? Double.POSITIVE_INFINITY :
+      Token.eq(v, Token.NINF) ? Double.NEGATIVE_INFINITY : Double.NaN;
+  }
+
+  /**
+   * Returns a hash key for the specified number.
+   * @param d number
+   * @return key
+   */
+  private static byte[] token(final double d) {
+    // positive and negative zero are equal
+    return Token.token(d == 0 ? 0 : d);
+  }
+}
@@ -5,6 +5,7 @@ import static org.basex.query.QueryText.*;
 import java.util.*;
 import java.util.List;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.gflwor.GFLWOR.Eval;
@@ -28,6 +29,8 @@ public final class OrderBy extends GFLWOR.Clause {
   private VarRef[] refs;
   /** Sort keys. */
   private final Key[] keys;
+  /** Maximum number of tuples to be returned ({@link Long#MAX_VALUE}: all tuples). */
+  long limit = Long.MAX_VALUE;
 
   /**
    * Constructor.
@@ -46,13 +49,21 @@ public final class OrderBy extends GFLWOR.Clause {
     return new Eval() {
       /** Sorted output tuples. */
       private Value[][] tpls;
+      /** Sort keys of the tuples. */
+      private Item[][] tkeys;
       /** Permutation of the values. */
       private Integer[] perm;
+      /** Sorted runs that have been spilled to disk ({@code null} if nothing was spilled). */
+      private PriorityQueue<Run> runs;
       /** Current position. */
       int pos;
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
+        if(tpls == null) {
+          if(limit == Long.MAX_VALUE) sort(qc);
+          else top(qc);
+        }
+        if(runs != null) return merge(qc);
         if(pos == tpls.length) return false;
         final int p = perm[pos++];
         final Value[] tuple = tpls[p];
@@ -63,26 +74,116 @@ public final class OrderBy extends GFLWOR.Clause {
       }
 
       /**
-       * Caches and sorts all incoming tuples.
+       * Caches and sorts all incoming tuples. If the estimated memory of the tuples exceeds
+       * the specified limit, sorted runs will be spilled to disk.
        * @param qc query context
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext qc) throws QueryException {
+        final long max = Spill.max(qc);
+        final ArrayList<Data> datas = new ArrayList<>();
+        ArrayList<Spill> spills = null;
+        long mem = max == -1 ? -1 : 0;
+
         // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+        final List<Value[]> tuples = new ArrayList<>();
         while(sub.next(qc)) {
           final Item[] key = new Item[keys.length];
-          for(int i = 0; i < keys.length; i++)
+          for(int i = 0; i < keys.length; i++) {
             key[i] = keys[i].expr.item(qc, keys[i].info);
+            mem = Spill.memory(key[i], mem);
+          }
           tuples.add(key);
 
           final Value[] vals = new Value[refs.length];
-          for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(qc);
+          for(int i = 0; i < refs.length; i++) {
+            vals[i] = refs[i].value(qc);
+            mem = Spill.memory(vals[i], mem);
+          }
           tuples.add(vals);
+
+          if(mem != -1 && mem >= max) {
+            // write sorted run to disk
+            sort(tuples);
+            final Spill sp = new Spill(datas, qc, info);
+            final int tl = tpls.length;
+            for(int t = 0; t < tl; t++) {
+              final int p = perm[t];
+              sp.write((Item[]) tuples.get(p << 1), tpls[p]);
+            }
+            if(spills == null) spills = new ArrayList<>();
+            spills.add(sp);
+            tuples.clear();
+            mem = 0;
+          }
         }
+        sort(tuples);
+
+        if(spills != null) {
+          // merge spilled runs and remaining tuples
+          runs = new PriorityQueue<>(spills.size() + 1);
+          int r = 0;
+          for(final Spill sp : spills) new Run(r++, sp).next(qc);
+          new Run(r, null).next(qc);
+        }
+      }
 
+      /**
+       * Caches the first tuples in sort order. A bounded heap is used, which stores the
+       * last of the currently cached tuples at its root.
+       * @param qc query context
+       * @throws QueryException evaluation exception
+       */
+      private void top(final QueryContext qc) throws QueryException {
+        final int kl = keys.length;
+        final MinHeap<Item[], Value[]> heap = new MinHeap<>(
+            (int) Math.min(limit + 1, Array.CAPACITY), new Comparator<Item[]>() {
+          @Override
+          public int compare(final Item[] a, final Item[] b) {
+            try {
+              final int c = OrderBy.this.compare(b, a);
+              // tuples are stable: the last incoming tuple will be removed first
+              return c != 0 ? c : Long.signum(((Int) b[kl]).itr() - ((Int) a[kl]).itr());
+            } catch(final QueryException ex) {
+              throw new QueryRTException(ex);
+            }
+          }
+        });
+
+        try {
+          for(long t = 0; sub.next(qc); t++) {
+            // the position of the tuple is stored after the sort keys
+            final Item[] key = new Item[kl + 1];
+            for(int i = 0; i < kl; i++) key[i] = keys[i].expr.item(qc, keys[i].info);
+            key[kl] = Int.get(t);
+
+            final Value[] vals = new Value[refs.length];
+            for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(qc);
+            heap.insert(key, vals);
+            if(heap.size() > limit) heap.removeMin();
+          }
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
+
+        final int len = heap.size();
+        perm = new Integer[len];
+        tpls = new Value[len][];
+        for(int i = len; --i >= 0;) {
+          perm[i] = i;
+          tpls[i] = heap.removeMin();
+        }
+      }
+
+      /**
+       * Sorts the specified tuples.
+       * @param tuples keys and values
+       * @throws QueryException evaluation exception
+       */
+      private void sort(final List<Value[]> tuples) throws QueryException {
         final int len = tuples.size() >>> 1;
         final Item[][] ks = new Item[len][];
+        tkeys = ks;
         perm = new Integer[len];
         tpls = new Value[len][];
         for(int i = 0; i < len; i++) {
@@ -90,28 +191,12 @@ public final class OrderBy extends GFLWOR.Clause {
           tpls[i] = tuples.get(i << 1 | 1);
           ks[i] = (Item[]) tuples.get(i << 1);
         }
-        // be nice to the garbage collector
-        tuples = null;
         try {
           Arrays.sort(perm, new Comparator<Integer>() {
             @Override
             public int compare(final Integer x, final Integer y) {
               try {
-                final Item[] a = ks[x], b = ks[y];
-                for(int k = 0; k < keys.length; k++) {
-                  final Key or = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    throw Err.castError(or.info, n, m.type);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : or.least ? -1 : 1
-                      : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
-                  if(c != 0) return or.desc ? -c : c;
-                }
-                return 0;
+                return OrderBy.this.compare(ks[x], ks[y]);
               } catch(final QueryException ex) {
                 throw new QueryRTException(ex);
               }
@@ -121,9 +206,108 @@ public final class OrderBy extends GFLWOR.Clause {
           throw ex.getCause();
         }
       }
+
+      /**
+       * Binds the next tuple of the merged runs.
+       * @param qc query context
+       * @return {@code true} if a tuple was found
+       * @throws QueryException evaluation exception
+       */
+      private boolean merge(final QueryContext qc) throws QueryException {
+        final Run run;
+        try {
+          run = runs.poll();
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
+        if(run == null) return false;
+        for(int i = 0; i < refs.length; i++) qc.set(refs[i].var, run.vals[i], info);
+        run.next(qc);
+        return true;
+      }
+
+      /** Sorted run. */
+      final class Run implements Comparable<Run> {
+        /** Index of the run (used to keep the order stable). */
+        private final int index;
+        /** Spilled tuples ({@code null} if tuples are stored in main memory). */
+        private final Spill spill;
+        /** Keys of the current tuple. */
+        Item[] key;
+        /** Values of the current tuple. */
+        Value[] vals;
+
+        /**
+         * Constructor.
+         * @param index index of the run
+         * @param spill spilled tuples (may be {@code null})
+         */
+        Run(final int index, final Spill spill) {
+          this.index = index;
+          this.spill = spill;
+        }
+
+        /**
+         * Reads the next tuple and adds the run to the queue if a tuple was found.
+         * @param qc query context
+         * @throws QueryException evaluation exception
+         */
+        void next(final QueryContext qc) throws QueryException {
+          if(spill != null) {
+            if(!spill.next(qc, keys.length, refs.length)) return;
+            key = spill.keys;
+            vals = spill.values;
+          } else {
+            if(pos == tpls.length) return;
+            final int p = perm[pos++];
+            key = tkeys[p];
+            vals = tpls[p];
+            tpls[p] = null;
+          }
+          try {
+            runs.add(this);
+          } catch(final QueryRTException ex) {
+            throw ex.getCause();
+          }
+        }
+
+        @Override
+        public int compareTo(final Run run) {
+          try {
+            final int c = compare(key, run.key);
+            return c != 0 ? c : index - run.index;
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        }
+      }
     };
   }
 
+  /**
+   * Compares the sort keys of two tuples.
+   * @param a keys of the first tuple
+   * @param b keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  int compare(final Item[] a, final Item[] b) throws QueryException {
+    for(int k = 0; k < keys.length; k++) {
+      final Key or = keys[k];
+      Item m = a[k], n = b[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = null;
+      if(n == Dbl.NAN || n == Flt.NAN) n = null;
+      if(m != null && n != null && !m.comparable(n))
+        throw Err.castError(or.info, n, m.type);
+
+      final int c = m == null
+          ? n == null ? 0                 : or.least ? -1 : 1
+          : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
+      if(c != 0) return or.desc ? -c : c;
+    }
+    return 0;
+  }
+
   @Override
   public void plan(final FElem plan) {
     final FElem e = planElem();
@@ -176,7 +360,10 @@ public final class OrderBy extends GFLWOR.Clause {
 
   @Override
   public OrderBy copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
-    return new OrderBy(Arr.copyAll(qc, scp, vs, refs), Arr.copyAll(qc, scp, vs, keys), info);
+    final OrderBy ob = new OrderBy(Arr.copyAll(qc, scp, vs, refs),
+        Arr.copyAll(qc, scp, vs, keys), info);
+    ob.limit = limit;
+    return ob;
   }
 
   @Override
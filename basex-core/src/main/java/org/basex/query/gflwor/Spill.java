@@ -0,0 +1,247 @@
+package org.basex.query.gflwor;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Temporary file, which is used by FLWOR clauses to spill tuples to disk.
+ * Tuples consist of single items (keys) and values. Database nodes are stored as
+ * references, and atomic items are stored by their type and string value.
+ * All other items (e.g. constructed nodes or function items) cannot be spilled.
+ * Files are registered with the query resources, which delete them after evaluation.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+final class Spill implements Closeable {
+  /** Tag for an empty item. */
+  private static final int EMPTY = 0;
+  /** Tag for a database node. */
+  private static final int NODE = 1;
+  /** Tag for a double or float. */
+  private static final int NUMBER = 2;
+  /** Tag for other atomic items. */
+  private static final int ATOMIC = 3;
+  /** Estimated main memory of an object without its contents (bytes). */
+  private static final int OBJECT = 32;
+
+  /** Database references (shared by all files of a clause). */
+  private final ArrayList<Data> datas;
+  /** Input info. */
+  private final InputInfo info;
+  /** Temporary file. */
+  private final IOFile file;
+  /** Output stream ({@code null} after all tuples have been written). */
+  private DataOutput out;
+  /** Input stream ({@code null} if not opened yet). */
+  private DataInput in;
+  /** Number of remaining tuples. */
+  private int size;
+
+  /** Keys of the current tuple. */
+  Item[] keys;
+  /** Values of the current tuple. */
+  Value[] values;
+
+  /**
+   * Constructor, creating a new temporary file.
+   * @param datas database references
+   * @param qc query context
+   * @param info input info
+   * @throws QueryException query exception
+   */
+  Spill(final ArrayList<Data> datas, final QueryContext qc, final InputInfo info)
+      throws QueryException {
+    this.datas = datas;
+    this.info = info;
+    try {
+      file = new IOFile(File.createTempFile(Util.className(Spill.class), IO.BASEXSUFFIX));
+      qc.resources.addTemp(this);
+      out = new DataOutput(file);
+    } catch(final IOException ex) {
+      throw Err.IOERR.get(info, ex);
+    }
+  }
+
+  /**
+   * Returns the maximum main memory for tuples that are kept before they are spilled.
+   * @param qc query context
+   * @return number of bytes, or {@code -1} if tuples will not be spilled
+   */
+  static long max(final QueryContext qc) {
+    final long max = (long) qc.context.options.get(MainOptions.SPILLSIZE) << 10;
+    return max > 0 ? max : -1;
+  }
+
+  /**
+   * Adds the estimated main memory of a value to the specified number of bytes.
+   * Strings are measured by their length; all other items and values are estimated by
+   * a constant size.
+   * @param value value (may be {@code null})
+   * @param mem number of bytes ({@code -1}: tuples will not be spilled)
+   * @return new number of bytes, or {@code -1} if the value cannot be spilled to disk
+   */
+  static long memory(final Value value, final long mem) {
+    if(mem == -1) return -1;
+    long m = mem + OBJECT;
+    if(value != null) {
+      for(final Item it : value) {
+        if(it instanceof DBNode) {
+          m += OBJECT;
+        } else if(it instanceof ANode || it instanceof FItem || it.type == AtomType.QNM ||
+            it.type == AtomType.NOT) {
+          return -1;
+        } else {
+          m += OBJECT;
+          if(it instanceof Str) m += ((Str) it).string().length;
+          else if(it instanceof Atm) m += ((Atm) it).string(null).length;
+        }
+      }
+    }
+    return m;
+  }
+
+  /**
+   * Writes a tuple.
+   * @param ks keys
+   * @param vs values
+   * @throws QueryException query exception
+   */
+  void write(final Item[] ks, final Value[] vs) throws QueryException {
+    try {
+      for(final Item it : ks) write(it);
+      for(final Value v : vs) {
+        final long s = v.size();
+        out.writeNum((int) s);
+        for(int i = 0; i < s; i++) write(v.itemAt(i));
+      }
+      size++;
+    } catch(final IOException ex) {
+      throw Err.IOERR.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads the next tuple and assigns it to {@link #keys} and {@link #values}.
+   * The file will be deleted after the last tuple has been read.
+   * @param qc query context
+   * @param kl number of keys
+   * @param vl number of values
+   * @return {@code true} if a tuple was read
+   * @throws QueryException query exception
+   */
+  boolean next(final QueryContext qc, final int kl, final int vl) throws QueryException {
+    try {
+      if(out != null) {
+        out.close();
+        out = null;
+      }
+      if(size == 0) {
+        close();
+        return false;
+      }
+      if(in == null) in = new DataInput(file);
+      keys = new Item[kl];
+      for(int k = 0; k < kl; k++) keys[k] = read(qc);
+      values = new Value[vl];
+      for(int v = 0; v < vl; v++) {
+        final int s = in.readNum();
+        final ValueBuilder vb = new ValueBuilder(s);
+        for(int i = 0; i < s; i++) vb.add(read(qc));
+        values[v] = vb.value();
+      }
+      size--;
+      return true;
+    } catch(final IOException ex) {
+      throw Err.IOERR.get(info, ex);
+    }
+  }
+
+  /**
+   * Closes and deletes the file.
+   */
+  @Override
+  public void close() {
+    try {
+      if(out != null) out.close();
+      if(in != null) in.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    out = null;
+    in = null;
+    size = 0;
+    file.delete();
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Writes an item.
+   * @param it item (may be {@code null})
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private void write(final Item it) throws IOException, QueryException {
+    if(it == null) {
+      out.write1(EMPTY);
+    } else if(it instanceof DBNode) {
+      final DBNode node = (DBNode) it;
+      int d = datas.indexOf(node.data);
+      if(d == -1) {
+        d = datas.size();
+        datas.add(node.data);
+      }
+      out.write1(NODE);
+      out.writeNum(d);
+      out.writeNum(node.pre);
+    } else if(it instanceof Dbl || it instanceof Flt) {
+      out.write1(NUMBER);
+      out.writeBool(it instanceof Dbl);
+      out.writeDouble(it.dbl(info));
+    } else {
+      out.write1(ATOMIC);
+      out.write1(it.typeId().asByte());
+      out.writeToken(it.string(info));
+    }
+  }
+
+  /**
+   * Reads an item.
+   * @param qc query context
+   * @return item (may be {@code null})
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private Item read(final QueryContext qc) throws IOException, QueryException {
+    switch(in.read()) {
+    case EMPTY:
+      return null;
+    case NODE:
+      final Data data = datas.get(in.readNum());
+      return new DBNode(data, in.readNum());
+    case NUMBER:
+      final boolean dbl = in.readBool();
+      final double d = in.readDouble();
+      return dbl ? Dbl.get(d) : Flt.get((float) d);
+    default:
+      final Type type = Type.ID.getType((byte) in.read());
+      return (Item) type.cast(Str.get(in.readToken()), qc, null, info);
+    }
+  }
+}
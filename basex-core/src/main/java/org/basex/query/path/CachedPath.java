@@ -21,8 +21,6 @@ import org.basex.util.hash.*;
 final class CachedPath extends AxisPath {
   /** Flag for result caching. */
   private boolean cache;
-  /** Cached result. */
-  private NodeSeqBuilder citer;
 
   /**
    * Constructor.
@@ -48,7 +46,7 @@ final class CachedPath extends AxisPath {
        * - the code is called for the first time
        * - the value has changed and the underlying node is not the same
        */
-      citer = new NodeSeqBuilder().check();
+      final NodeSeqBuilder citer = new NodeSeqBuilder().check();
       if(r != null) {
         final Iter ir = qc.iter(r);
         for(Item it; (it = ir.next()) != null;) {
@@ -196,7 +196,7 @@ public abstract class Path extends ParseExpr {
    * @param qc query context (may be @code null)
    * @return root
    */
-  protected final Value initial(final QueryContext qc) {
+  public final Value initial(final QueryContext qc) {
     // current context value
     final Value value = qc != null ? qc.value : null;
     // no root or context expression: return context
@@ -117,6 +117,15 @@ public abstract class Step extends Preds {
   @Override
   public abstract Step copy(QueryContext ctx, VarScope scp, IntObjMap<Var> vs);
 
+  /**
+   * Checks if this step has the specified axis.
+   * @param ax axis to be checked
+   * @return result of check
+   */
+  public final boolean axis(final Axis ax) {
+    return axis == ax;
+  }
+
   /**
    * Checks if this is a simple axis without predicates.
    * @param ax axis to be checked
@@ -110,7 +110,7 @@ public abstract class ContextModifier {
     int i = 0;
     try {
       for(final Data data : datas) {
-        if(!data.startUpdate()) throw BXDB_OPENED.get(null, data.meta.name);
+        if(!data.startUpdate(true)) throw BXDB_OPENED.get(null, data.meta.name);
         i++;
       }
       // apply node and database update
@@ -67,6 +67,7 @@ public final class DBOptimize extends DBUpdate {
     options.assign(MainOptions.TEXTINDEX, meta.createtext);
     options.assign(MainOptions.ATTRINDEX, meta.createattr);
     options.assign(MainOptions.FTINDEX,   meta.createftxt);
+    options.assign(MainOptions.TRIGRAMINDEX, meta.createtrgm);
     options.assign(MainOptions.UPDINDEX,  meta.updindex);
     options.assign(opts);
 
@@ -74,12 +75,16 @@ public final class DBOptimize extends DBUpdate {
     meta.createtext = opts.get(MainOptions.TEXTINDEX);
     meta.createattr = opts.get(MainOptions.ATTRINDEX);
     meta.createftxt = opts.get(MainOptions.FTINDEX);
+    meta.createtrgm = opts.get(MainOptions.TRIGRAMINDEX);
     meta.updindex = opts.get(MainOptions.UPDINDEX);
 
     // check if indexing options have changed
     final int mc = opts.get(MainOptions.MAXCATS);
     final int ml = opts.get(MainOptions.MAXLEN);
-    final boolean rebuild = mc != meta.maxcats || ml != meta.maxlen;
+    final String ti = opts.get(MainOptions.TEXTINCLUDE);
+    final String ai = opts.get(MainOptions.ATTRINCLUDE);
+    final boolean rebuild = mc != meta.maxcats || ml != meta.maxlen ||
+        !ti.equals(meta.textinclude) || !ai.equals(meta.attrinclude);
 
     // check if fulltext indexing options have changed
     final boolean st = opts.get(MainOptions.STEMMING);
@@ -97,6 +102,8 @@ public final class DBOptimize extends DBUpdate {
     meta.stopwords  = sw;
     meta.maxcats    = mc;
     meta.maxlen     = ml;
+    meta.textinclude = ti;
+    meta.attrinclude = ai;
 
     try {
       if(all) OptimizeAll.optimizeAll(data, qc.context, null);
@@ -101,8 +101,9 @@ public abstract class NameUpdate extends Update implements Comparable<NameUpdate
   static void close(final String name, final QueryContext qc, final InputInfo info)
       throws QueryException {
 
-    // close data instance in query processor
+    // close data instance in query processor and cached queries
     qc.resources.remove(name);
+    qc.context.queries.close(name);
     // check if database is stilled pinned by another process
     if(qc.context.pinned(name)) throw BXDB_OPENED.get(info, name);
   }
@@ -148,6 +148,16 @@ public final class Collation {
     return coll.compare(string(string), string(compare));
   }
 
+  /**
+   * Returns a hash value for the specified string. Strings that are equal
+   * according to this collation have the same hash value.
+   * @param string string
+   * @return hash value
+   */
+  public int hash(final byte[] string) {
+    return Arrays.hashCode(coll.getCollationKey(string(string)).toByteArray());
+  }
+
   /**
    * Checks if a string is contained in another.
    * @param string string
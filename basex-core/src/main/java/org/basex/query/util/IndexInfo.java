@@ -1,6 +1,8 @@
 package org.basex.query.util;
 
 import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.path.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -65,6 +67,16 @@ public final class IndexInfo {
    * @return location step, or {@code null}
    */
   public boolean check(final Expr ex, final boolean ft) {
+    return check(ex, ft ? IndexType.FULLTEXT : IndexType.TEXT);
+  }
+
+  /**
+   * Checks if the specified expression can be rewritten for index access.
+   * @param ex expression (must be {@link Context} or {@link AxisPath})
+   * @param type index type ({@link IndexType#TEXT} also covers attribute index access)
+   * @return result of check
+   */
+  public boolean check(final Expr ex, final IndexType type) {
     orig = ex;
 
     // context reference: work with index step
@@ -92,16 +104,82 @@ public final class IndexInfo {
     }
 
     // check for full-text index access
-    if(ft) {
+    if(type == IndexType.FULLTEXT) {
       fulltext = (elem || s.test.type == NodeType.TXT) && data.meta.ftxtindex;
       return fulltext;
     }
+    // check for trigram index access (candidates are single text nodes)
+    if(type == IndexType.TRIGRAM) {
+      text = data.meta.trgmindex && single(ex, s);
+      return text;
+    }
     // check for text or attribute index access
-    text = (elem || s.test.type == NodeType.TXT) && data.meta.textindex;
-    attr = !text && s.test.type == NodeType.ATT && data.meta.attrindex;
+    text = (elem || s.test.type == NodeType.TXT) && data.meta.textindex &&
+        indexed(data.meta.names(true), elem ? s : parent(ex));
+    attr = !text && s.test.type == NodeType.ATT && data.meta.attrindex &&
+        indexed(data.meta.names(false), s);
     return text || attr;
   }
 
+  /**
+   * Checks if the specified expression yields at most one text node for each context node.
+   * This is the case for text nodes, for elements that have no other children than
+   * text nodes, and for the text children of such elements.
+   * @param ex expression
+   * @param s last step of the expression
+   * @return result of check
+   */
+  private boolean single(final Expr ex, final Step s) {
+    final Step el;
+    if(ex instanceof Context) {
+      if(s.test.type == NodeType.TXT) return true;
+      el = s;
+    } else {
+      if(((AxisPath) ex).steps.length != 1 || s.test.type != NodeType.TXT ||
+          !s.axis(Axis.CHILD)) return false;
+      el = step;
+    }
+    // adjacent text nodes are merged, so the elements may only have text children
+    final Data data = ic.data;
+    if(el.test.type != NodeType.ELM || el.test.kind != Kind.NAME || !data.meta.uptodate ||
+        data.nspaces.size() != 0) return false;
+    final int id = data.elmindex.id(el.test.name.local());
+    for(final PathNode node : data.paths.desc(id, Data.ELEM)) {
+      for(final PathNode child : node.children) {
+        if(child.kind != Data.TEXT && child.kind != Data.ATTR) return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the step that addresses the parent elements of the requested text nodes.
+   * @param ex expression
+   * @return step, or {@code null} if the parent elements are unknown
+   */
+  private Step parent(final Expr ex) {
+    if(ex instanceof Context) return null;
+    final AxisPath path = (AxisPath) ex;
+    final int sl = path.steps.length;
+    if(!path.step(sl - 1).axis(Axis.CHILD)) return null;
+    final Step par = sl > 1 ? path.step(sl - 2) : step;
+    return par.test.type == NodeType.ELM ? par : null;
+  }
+
+  /**
+   * Checks if the values of the nodes addressed by the specified step are indexed.
+   * @param names names of the indexed elements or attributes
+   * @param st step with the name test of the elements or attributes
+   * @return result of check
+   */
+  private static boolean indexed(final IndexNames names, final Step st) {
+    if(names.all()) return true;
+    if(st == null) return false;
+    final Test test = st.test;
+    return (test.kind == Kind.NAME || test.kind == Kind.URI_NAME) &&
+        names.contains(test.name.local());
+  }
+
   /**
    * Creates an index expression with an inverted axis path.
    * @param root new root expression
@@ -26,6 +26,8 @@ public abstract class ADate extends ADateDur {
   static final long MIN_YEAR = -MAX_YEAR;
   /** Constant for counting negative years (divisible by 400). */
   private static final long ADD_NEG = (MAX_YEAR / 400 + 1) * 400;
+  /** Day count of the first day of the year 1970. */
+  private static final BigDecimal EPOCH_DAYS = days(1970 + ADD_NEG, 0, 0);
 
   /** Pattern for two digits. */
   static final String DD = "(\\d{2})";
@@ -409,6 +411,19 @@ public abstract class ADate extends ADateDur {
         BigDecimal.valueOf(Math.max(0, hou) * 3600 + Math.max(0, min) * 60 - z * 60));
   }
 
+  /**
+   * Returns the seconds since 1970-01-01. In contrast to {@link #seconds()}, the implicit
+   * timezone is ignored: if no timezone is specified, UTC is assumed. The result can be used
+   * for index keys that do not depend on the timezone of the current system.
+   * @return seconds
+   */
+  public final double utcSeconds() {
+    final int z = zon == Short.MAX_VALUE ? 0 : zon;
+    return (sec == null ? BigDecimal.ZERO : sec).add(
+        BigDecimal.valueOf(Math.max(0, hou) * 3600 + Math.max(0, min) * 60 - z * 60)).add(
+        days().subtract(EPOCH_DAYS).multiply(DAYSECONDS)).doubleValue();
+  }
+
   /**
    * Returns a day count.
    * @return days
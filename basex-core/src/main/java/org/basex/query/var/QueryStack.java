@@ -62,6 +62,16 @@ public final class QueryStack {
     }
   }
 
+  /**
+   * Adopts the variable bindings of the specified stack.
+   * @param qs query stack
+   */
+  public void adopt(final QueryStack qs) {
+    stack = qs.stack.clone();
+    fp = qs.fp;
+    sl = qs.sl;
+  }
+
   /**
    * Ensures that the query stack has at least the given size.
    * @param newSize required size of the stack
@@ -31,6 +31,8 @@ public final class StaticVar extends StaticDecl {
 
   /** Bound value. */
   Value val;
+  /** Flag for values that may be bound again after compilation. */
+  boolean rebind;
 
   /**
    * Constructor for a variable declared in a query.
@@ -85,7 +87,7 @@ public final class StaticVar extends StaticDecl {
    * @return value of this variable
    * @throws QueryException query exception
    */
-  public Value value(final QueryContext qc) throws QueryException {
+  public synchronized Value value(final QueryContext qc) throws QueryException {
     if(dontEnter) throw circVarError(this);
     if(lazy) {
       if(!compiled) throw Util.notExpected(this + " was not compiled.");
@@ -129,7 +131,7 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   public void bind(final Value value, final QueryContext qc) throws QueryException {
-    if(!external || compiled) return;
+    if(!external || compiled && !rebind) return;
     bind(declType == null || declType.instance(value) ? value : declType.cast(value, qc, sc, info));
   }
 
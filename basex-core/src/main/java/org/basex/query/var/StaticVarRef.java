@@ -45,7 +45,8 @@ public final class StaticVarRef extends ParseExpr {
   public Expr compile(final QueryContext qc, final VarScope o) throws QueryException {
     var.compile(qc);
     seqType = var.seqType();
-    return var.val != null ? var.val : this;
+    // values that may be bound again are not inlined
+    return var.val != null && !var.rebind ? var.val : this;
   }
 
   @Override
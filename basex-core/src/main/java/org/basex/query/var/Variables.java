@@ -8,6 +8,7 @@ import java.util.Map.Entry;
 import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
@@ -116,15 +117,61 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
    * Binds all external variables.
    * @param qc query context
    * @param bindings variable bindings
+   * @param rebind allow new values to be bound after compilation
    * @throws QueryException query exception
    */
-  public void bindExternal(final QueryContext qc, final HashMap<QNm, Value> bindings)
-      throws QueryException {
+  public void bindExternal(final QueryContext qc, final HashMap<QNm, Value> bindings,
+      final boolean rebind) throws QueryException {
 
     for(final Entry<QNm, Value> entry : bindings.entrySet()) {
       final VarEntry ve = vars.get(entry.getKey());
-      if(ve != null) ve.var.bind(entry.getValue(), qc);
+      if(ve != null) {
+        ve.var.rebind |= rebind;
+        ve.var.bind(entry.getValue(), qc);
+      }
+    }
+  }
+
+  /**
+   * Checks if no other static variable depends on the specified external variables.
+   * Only then, new values can be bound to the variables of a compiled query.
+   * @param names names of the bound variables
+   * @return result of check
+   */
+  public boolean independent(final Set<QNm> names) {
+    final HashSet<StaticVar> bound = new HashSet<>();
+    for(final QNm name : names) {
+      final VarEntry ve = vars.get(name);
+      if(ve != null) bound.add(ve.var);
+    }
+    if(bound.isEmpty()) return true;
+
+    final HashSet<StaticFunc> funcs = new HashSet<>();
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        // all other variables will be checked by the enclosing loop
+        return !bound.contains(var);
+      }
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        final StaticFunc func = call.func();
+        return func == null || !funcs.add(func) || func.visit(this);
+      }
+      @Override
+      public boolean inlineFunc(final Scope sub) {
+        return sub.visit(this);
+      }
+      @Override
+      public boolean dynFuncCall(final DynFuncCall call) {
+        // the called function is unknown
+        return false;
+      }
+    };
+    for(final VarEntry ve : vars.values()) {
+      if(!bound.contains(ve.var) && !ve.var.visit(visitor)) return false;
     }
+    return true;
   }
 
   @Override
@@ -0,0 +1,180 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class buffers the incoming data of a client session. While a session is idle, the
+ * {@link ClientSelector} reads all available bytes without blocking until a complete
+ * request has arrived. Afterwards, the buffered bytes are returned by this stream, followed
+ * by the bytes of the blocking socket stream.
+ *
+ * Requests with streamed input (such as {@link ServerCmd#ADD}) may be arbitrarily large.
+ * They are processed as soon as their name argument has arrived and the buffer has reached
+ * {@link #MAX} bytes.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+final class ClientInput extends InputStream {
+  /** Maximum number of buffered bytes of streamed inputs and of login data. */
+  static final int MAX = 1 << 16;
+
+  /** Socket input stream. */
+  private final InputStream input;
+  /** Buffer. */
+  private byte[] buffer = new byte[IO.BLOCKSIZE];
+  /** Current buffer position. */
+  private int pos;
+  /** Number of buffered bytes. */
+  private int size;
+  /** End of the current request. */
+  private int end;
+
+  /**
+   * Constructor.
+   * @param input socket input stream
+   */
+  ClientInput(final InputStream input) {
+    this.input = input;
+  }
+
+  /**
+   * Reads all bytes that are available without blocking.
+   * @param channel socket channel (must be in non-blocking mode)
+   * @return {@code false} if the end of the stream has been reached
+   * @throws IOException I/O exception
+   */
+  boolean fill(final SocketChannel channel) throws IOException {
+    // move remaining bytes to the beginning of the buffer
+    if(pos > 0) {
+      System.arraycopy(buffer, pos, buffer, 0, size - pos);
+      size -= pos;
+      end = Math.max(0, end - pos);
+      pos = 0;
+    }
+    while(true) {
+      if(size == buffer.length) buffer = Arrays.copyOf(buffer, Array.newSize(size));
+      final int r = channel.read(ByteBuffer.wrap(buffer, size, buffer.length - size));
+      if(r == -1) return false;
+      if(r == 0) return true;
+      size += r;
+    }
+  }
+
+  /**
+   * Checks if a complete request has been buffered, or if the buffered part of a streamed
+   * input is large enough to be processed.
+   * @param login login data is expected
+   * @return result of check
+   */
+  boolean ready(final boolean login) {
+    int e = pos;
+    if(login) {
+      e = strings(e, 2);
+    } else if(e < size) {
+      final ServerCmd sc = ServerCmd.get(buffer[e] & 0xFF);
+      if(sc == ServerCmd.COMMAND) {
+        e = strings(e, 1);
+      } else if(sc == ServerCmd.BIND) {
+        e = strings(e + 1, 4);
+      } else if(sc == ServerCmd.CONTEXT) {
+        e = strings(e + 1, 3);
+      } else if(sc == ServerCmd.CREATE || sc == ServerCmd.ADD ||
+          sc == ServerCmd.REPLACE || sc == ServerCmd.STORE) {
+        e = stream(strings(e + 1, 1));
+      } else if(sc == ServerCmd.BATCH) {
+        e = stream(e + 1);
+      } else if(sc == ServerCmd.EVAL) {
+        e = bindings(strings(e + 1, 1));
+      } else if(sc == ServerCmd.WATCH) {
+        // the first request is followed by a handshake for the event socket
+        e++;
+      } else {
+        e = strings(e + 1, 1);
+      }
+    } else {
+      e = -1;
+    }
+    if(e == -1) return false;
+    end = e;
+    return true;
+  }
+
+  /**
+   * Checks if the number of buffered bytes exceeds the maximum size of login data.
+   * @return result of check
+   */
+  boolean exceeded() {
+    return size - pos > MAX;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return pos < size ? buffer[pos++] & 0xFF : input.read();
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if(pos == size) return input.read(b, off, len);
+    // return bytes up to the end of the current request
+    final int n = Math.min(len, (pos < end ? end : size) - pos);
+    System.arraycopy(buffer, pos, b, off, n);
+    pos += n;
+    if(pos == size) {
+      pos = 0;
+      size = 0;
+      end = 0;
+      if(buffer.length > IO.BLOCKSIZE) buffer = new byte[IO.BLOCKSIZE];
+    }
+    return n;
+  }
+
+  /**
+   * Skips the specified number of zero-terminated strings.
+   * @param p start position ({@code -1} if the request is incomplete)
+   * @param n number of strings
+   * @return position after the strings, or {@code -1} if the request is incomplete
+   */
+  private int strings(final int p, final int n) {
+    if(p == -1) return -1;
+    int s = p, c = n;
+    while(c > 0 && s < size) {
+      if(buffer[s++] == 0) c--;
+    }
+    return c == 0 ? s : -1;
+  }
+
+  /**
+   * Skips variable bindings, which are terminated by an empty name.
+   * @param p start position ({@code -1} if the request is incomplete)
+   * @return position after the bindings, or {@code -1} if the request is incomplete
+   */
+  private int bindings(final int p) {
+    int s = p;
+    while(s != -1 && s < size && buffer[s] != 0) s = strings(s, 3);
+    return s == -1 || s == size ? -1 : s + 1;
+  }
+
+  /**
+   * Skips an encoded input stream, which is terminated by an unescaped zero byte.
+   * @param p start position ({@code -1} if the request is incomplete)
+   * @return position after the stream, {@link #size} if the buffered part of the stream is
+   *   large enough to be processed, or {@code -1} if the request is incomplete
+   */
+  private int stream(final int p) {
+    if(p == -1) return -1;
+    int s = p;
+    while(s < size) {
+      final byte b = buffer[s++];
+      if(b == 0) return s;
+      if(b == (byte) 0xFF) s++;
+    }
+    return size - pos > MAX ? size : -1;
+  }
+}
@@ -5,7 +5,9 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.*;
 import org.basex.core.*;
@@ -19,14 +21,19 @@ import org.basex.util.list.*;
 
 /**
  * Server-side client session in the client-server architecture.
+ * Requests are processed by the worker threads of the {@link ClientSelector} as soon as
+ * they have been completely received.
  *
  * @author BaseX Team 2005-14, BSD License
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread {
-  /** Timer for authentication time out. */
-  public final Timer auth = new Timer();
+public final class ClientListener implements Runnable {
+  /** Session id counter. */
+  private static final AtomicLong IDS = new AtomicLong();
+
+  /** Authentication timeout task (may be {@code null}). */
+  public TimerTask auth;
   /** Timestamp of last interaction. */
   public long last;
 
@@ -40,6 +47,14 @@ public final class ClientListener extends Thread {
   private final BaseXServer server;
   /** Socket reference. */
   private final Socket socket;
+  /** Selector for idle sessions. */
+  private final ClientSelector selector;
+  /** Buffered socket input. */
+  private final ClientInput input;
+  /** Session id. */
+  private final long sid = IDS.incrementAndGet();
+  /** Timestamp for authentication. */
+  private final String ts = Long.toString(System.nanoTime());
 
   /** Socket for events. */
   private Socket esocket;
@@ -55,110 +70,79 @@ public final class ClientListener extends Thread {
   private Command command;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
-  private boolean running;
+  /** Indicates if the session is running. */
+  private volatile boolean running;
+  /** Indicates if the session has been authenticated. */
+  private boolean authenticated;
 
   /**
    * Constructor.
-   * @param socket socket
+   * @param socket socket (must have been created by a socket channel)
    * @param context database context
    * @param server server reference
+   * @param selector selector for idle sessions
    */
-  public ClientListener(final Socket socket, final Context context, final BaseXServer server) {
+  public ClientListener(final Socket socket, final Context context, final BaseXServer server,
+      final ClientSelector selector) {
     this.context = new Context(context, this);
     this.socket = socket;
     this.server = server;
+    this.selector = selector;
+    input = new ClientInput(Channels.newInputStream(socket.getChannel()));
     last = System.currentTimeMillis();
-    setDaemon(true);
   }
 
+  /**
+   * Starts the session: sends the timestamp for authentication and registers the session
+   * with the selector, which waits for the login data.
+   */
+  public void start() {
+    try {
+      // send {TIMESTAMP}0
+      out = PrintOutput.get(socket.getOutputStream());
+      out.print(ts);
+      send(true);
+      selector.park(this);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      closed();
+    }
+  }
+
+  /**
+   * Processes all requests that have been completely received. Afterwards, the session
+   * will be registered as idle session.
+   */
   @Override
   public void run() {
-    if(!authenticate()) return;
+    if(!authenticated) {
+      if(!authenticate()) return;
+      authenticated = true;
+    }
 
     try {
       while(running) {
         command = null;
-        String cmd;
-        final ServerCmd sc;
+        // wait for new requests in the selector thread
+        if(!in.buffered() && !input.ready(false)) {
+          selector.park(this);
+          return;
+        }
+        final int b;
         try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            quit();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.time();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.WATCH) {
-            watch();
-          } else if(sc == ServerCmd.UNWATCH) {
-            unwatch();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
+          b = in.read();
         } catch(final IOException ex) {
           // this exception may be thrown if a session is stopped
           quit();
           break;
         }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = new CommandParser(cmd, context).parseSingle();
-          log(command, null);
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(cmd, null);
-          log(msg, false);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.writeString(msg);
-          // send 1 to mark error
-          send(false);
-          continue;
-        }
-
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new EncodingOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          ok = false;
-          info = ex.getMessage();
-          if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
-        }
-
-        // send 0 to mark end of result
-        out.write(0);
-        // send info
-        info(info, ok);
-
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
+        if(b == -1) {
+          // end of stream: exit session
           quit();
+          break;
         }
+        last = System.currentTimeMillis();
+        if(!process(b)) break;
       }
     } catch(final IOException ex) {
       log(ex, false);
@@ -174,16 +158,10 @@ public final class ClientListener extends Thread {
    */
   private boolean authenticate() {
     try {
-      final String ts = Long.toString(System.nanoTime());
       final byte[] address = socket.getInetAddress().getAddress();
 
-      // send {TIMESTAMP}0
-      out = PrintOutput.get(socket.getOutputStream());
-      out.print(ts);
-      send(true);
-
       // evaluate login data
-      in = new BufferInput(socket.getInputStream());
+      in = new BufferInput(input);
       // receive {USER}0{PASSWORD}0
       final String us = in.readString();
       final String pw = in.readString();
@@ -226,6 +204,22 @@ public final class ClientListener extends Thread {
     }
   }
 
+  /**
+   * Closes a session whose connection has been closed by the client.
+   */
+  void closed() {
+    if(authenticated) {
+      quit();
+    } else {
+      server.remove(this);
+      try {
+        socket.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+
   /**
    * Exits the session.
    */
@@ -255,6 +249,40 @@ public final class ClientListener extends Thread {
     }
   }
 
+  /**
+   * Returns the id of this session.
+   * @return id
+   */
+  public long getId() {
+    return sid;
+  }
+
+  /**
+   * Returns the channel of the client socket.
+   * @return channel
+   */
+  SocketChannel channel() {
+    return socket.getChannel();
+  }
+
+  /**
+   * Reads all data from the socket channel that is available without blocking.
+   * @return {@code false} if the connection has been closed, or if too much login data
+   *   has been sent
+   * @throws IOException I/O exception
+   */
+  boolean receive() throws IOException {
+    return input.fill(socket.getChannel()) && (authenticated || !input.exceeded());
+  }
+
+  /**
+   * Checks if the next request has been completely received.
+   * @return result of check
+   */
+  boolean ready() {
+    return input.ready(!authenticated);
+  }
+
   /**
    * Returns the context of this session.
    * @return user reference
@@ -307,6 +335,111 @@ public final class ClientListener extends Thread {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Processes a single request.
+   * @param b first byte of the request
+   * @return {@code false} if the session has been closed
+   * @throws IOException I/O exception
+   */
+  private boolean process(final int b) throws IOException {
+    final ServerCmd sc = ServerCmd.get(b);
+    if(sc == ServerCmd.BATCH) return batch();
+
+    perf.time();
+    String cmd = null;
+    try {
+      if(sc == ServerCmd.CREATE) {
+        create();
+      } else if(sc == ServerCmd.ADD) {
+        add();
+      } else if(sc == ServerCmd.WATCH) {
+        watch();
+      } else if(sc == ServerCmd.UNWATCH) {
+        unwatch();
+      } else if(sc == ServerCmd.REPLACE) {
+        replace();
+      } else if(sc == ServerCmd.STORE) {
+        store();
+      } else if(sc == ServerCmd.EVAL) {
+        eval();
+      } else if(sc != ServerCmd.COMMAND) {
+        query(sc);
+      } else {
+        // database command
+        cmd = new ByteList().add(b).add(in.readBytes()).toString();
+      }
+    } catch(final IOException ex) {
+      // this exception may be thrown if a session is stopped
+      quit();
+      return false;
+    }
+    if(sc != ServerCmd.COMMAND) return true;
+
+    // parse input and create command instance
+    try {
+      command = new CommandParser(cmd, context).parseSingle();
+      log(command, null);
+    } catch(final QueryException ex) {
+      // log invalid command
+      final String msg = ex.getMessage();
+      log(cmd, null);
+      log(msg, false);
+      // send 0 to mark end of potential result
+      out.write(0);
+      // send {INFO}0
+      out.writeString(msg);
+      // send 1 to mark error
+      send(false);
+      return true;
+    }
+
+    // execute command and send {RESULT}
+    boolean ok = true;
+    String info;
+    try {
+      // run command
+      command.execute(context, new EncodingOutput(out));
+      info = command.info();
+    } catch(final BaseXException ex) {
+      ok = false;
+      info = ex.getMessage();
+      if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
+    }
+
+    // send 0 to mark end of result
+    out.write(0);
+    // send info
+    info(info, ok);
+
+    // stop console
+    if(command instanceof Exit) {
+      command = null;
+      quit();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Processes a batch of requests: {requests}0. The requests are decoded and processed
+   * while they are received, and their responses are returned in the same order.
+   * @return {@code false} if the session has been closed
+   * @throws IOException I/O exception
+   */
+  private boolean batch() throws IOException {
+    final BufferInput input = in;
+    in = new BufferInput(new DecodingInput(input));
+    try {
+      for(int b; (b = in.read()) != -1;) {
+        command = null;
+        if(!process(b)) return false;
+      }
+      return true;
+    } finally {
+      in = input;
+    }
+  }
+
   /**
    * Returns error feedback.
    * @param info error string
@@ -399,7 +532,7 @@ public final class ClientListener extends Thread {
     // initialize server-based event handling
     if(!events) {
       out.writeString(Integer.toString(context.globalopts.get(GlobalOptions.EVENTPORT)));
-      out.writeString(Long.toString(getId()));
+      out.writeString(Long.toString(sid));
       out.flush();
       events = true;
     }
@@ -523,6 +656,46 @@ public final class ClientListener extends Thread {
     out.flush();
   }
 
+  /**
+   * Evaluates a query with the specified bindings and closes it.
+   * @throws IOException I/O exception
+   */
+  private void eval() throws IOException {
+    final String query = in.readString();
+    // bindings are terminated by an empty name
+    final StringList bindings = new StringList();
+    for(String name; !(name = in.readString()).isEmpty();) {
+      bindings.add(name).add(in.readString()).add(in.readString());
+    }
+
+    String err = null;
+    try {
+      final ServerQuery qp = new ServerQuery(query, context);
+      final int bs = bindings.size();
+      for(int b = 0; b < bs; b += 3) {
+        qp.bind(bindings.get(b), bindings.get(b + 1), bindings.get(b + 2));
+      }
+      qp.execute(false, out, true, false);
+      // send 0 as end marker and 0 as success flag
+      out.write(0);
+      out.write(0);
+      // write log file
+      log(ServerCmd.EVAL + " " + query, true);
+    } catch(final Throwable ex) {
+      // log exception (static or runtime)
+      err = Util.message(ex);
+      log(ServerCmd.EVAL + " " + query, null);
+      log(err, false);
+    }
+    if(err != null) {
+      // send 0 as end marker, 1 as error flag, and {MSG}0
+      out.write(0);
+      out.write(1);
+      out.writeString(err);
+    }
+    out.flush();
+  }
+
   /**
    * Sends a success flag to the client (0: true, 1: false).
    * @param ok success flag
@@ -0,0 +1,161 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class multiplexes the client sessions of the database server.
+ * New and idle sessions are registered with a single selector thread, which reads the
+ * incoming data without blocking. As soon as the login data or a request has been
+ * completely received, the session is switched back to blocking mode and processed by a
+ * bounded pool of worker threads. The session returns to the selector when all received
+ * requests have been processed. Idle connections and clients that send incomplete
+ * requests will thus not occupy any worker threads.
+ * The client-server protocol remains unchanged.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector extends Thread {
+  /** Worker threads. */
+  private final ThreadPoolExecutor workers;
+  /** Selector. */
+  private final Selector selector;
+  /** Sessions to be registered with the selector. */
+  private final ConcurrentLinkedQueue<ClientListener> idle = new ConcurrentLinkedQueue<>();
+  /** Indicates if the selector is running. */
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   * @param gopts global options
+   * @throws IOException I/O exception
+   */
+  public ClientSelector(final GlobalOptions gopts) throws IOException {
+    super(Util.className(ClientSelector.class));
+    setDaemon(true);
+    selector = Selector.open();
+
+    final int threads = Math.max(1, gopts.get(GlobalOptions.SERVERTHREADS));
+    workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+          /** Number of created threads. */
+          private int count;
+          @Override
+          public synchronized Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, Util.className(ClientListener.class) + '-' + ++count);
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    workers.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Processes the requests of the specified session in a worker thread.
+   * @param client client session
+   */
+  private void execute(final ClientListener client) {
+    try {
+      workers.execute(client);
+    } catch(final RejectedExecutionException ex) {
+      // selector has been closed
+      client.quit();
+    }
+  }
+
+  /**
+   * Registers an idle session. It will be processed again as soon as the next request has
+   * been received.
+   * @param client client session
+   */
+  void park(final ClientListener client) {
+    idle.add(client);
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<ClientListener> ready = new ArrayList<>();
+    final ArrayList<ClientListener> closed = new ArrayList<>();
+    while(running) {
+      try {
+        // wakeups are cleared by selectNow(): only block if no sessions are waiting
+        if(idle.isEmpty()) selector.select();
+        else selector.selectNow();
+        // register idle sessions
+        for(ClientListener cl; (cl = idle.poll()) != null;) {
+          final SocketChannel ch = cl.channel();
+          try {
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ, cl);
+          } catch(final ClosedChannelException ex) {
+            // session has been closed in the meantime
+            Util.debug(ex);
+          }
+        }
+        // read new data, deregister sessions with complete requests or closed connections;
+        // repeat until all cancelled keys have been removed
+        while(!selector.selectedKeys().isEmpty()) {
+          final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while(keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            final ClientListener cl = (ClientListener) key.attachment();
+            boolean ok;
+            try {
+              ok = cl.receive();
+            } catch(final IOException ex) {
+              Util.debug(ex);
+              ok = false;
+            }
+            if(!ok) {
+              key.cancel();
+              closed.add(cl);
+            } else if(cl.ready()) {
+              key.cancel();
+              ready.add(cl);
+            }
+          }
+          selector.selectNow();
+        }
+        for(final ClientListener cl : closed) cl.closed();
+        closed.clear();
+        // switch sessions to blocking mode and pass them on to the workers
+        for(final ClientListener cl : ready) {
+          try {
+            cl.channel().configureBlocking(true);
+            execute(cl);
+          } catch(final IOException ex) {
+            Util.debug(ex);
+            cl.quit();
+          }
+        }
+        ready.clear();
+      } catch(final ClosedSelectorException ex) {
+        break;
+      } catch(final IOException ex) {
+        Util.errln(ex);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Stops the selector and the worker threads.
+   */
+  public void close() {
+    running = false;
+    workers.shutdown();
+    try {
+      selector.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+}
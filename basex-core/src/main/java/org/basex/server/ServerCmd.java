@@ -37,6 +37,10 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context item: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for processing a sequence of requests: {requests}0. */
+  BATCH(15),
+  /** Code for evaluating and closing a query: {query}0({name}0{val}0{type}0)*0. */
+  EVAL(16),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
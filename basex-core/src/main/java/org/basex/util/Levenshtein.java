@@ -53,18 +53,32 @@ public final class Levenshtein {
    * @return true if the arrays are similar
    */
   public boolean similar(final byte[] token, final byte[] sub, final int err) {
+    return prefix(token, sub, err) == -1;
+  }
+
+  /**
+   * Compares two character arrays for similarity. If the arrays are not similar, the length
+   * of the prefix of the first token is returned that suffices to reject the comparison.
+   * All tokens with the same prefix and byte length will be rejected as well, and can be
+   * skipped when traversing a sorted token list.
+   * @param token token to be compared
+   * @param sub second token to be compared
+   * @param err number of allowed errors; dynamic calculation if value is 0
+   * @return {@code -1} if the arrays are similar, or prefix length
+   */
+  public int prefix(final byte[] token, final byte[] sub, final int err) {
     int sl = 0;
     for(int s = 0; s < sub.length; s += cl(sub, s)) ++sl;
     int tl = 0;
     for(int t = 0; t < token.length; t += cl(token, t)) ++tl;
-    if(tl == 0) return false;
+    if(tl == 0) return token.length;
 
     // use exact search for too short and too long values
-    if(sl < 4 || tl > MAX || sl > MAX) return sl == tl && same(token, sub);
+    if(sl < 4 || tl > MAX || sl > MAX) return sl == tl && same(token, sub) ? -1 : token.length;
 
     // skip different tokens with too different lengths
     final int k = err == 0 ? Math.max(1, sl >> 2) : err;
-    return Math.abs(sl - tl) <= k && ls(token, tl, sub, sl, k);
+    return Math.abs(sl - tl) <= k ? ls(token, tl, sub, sl, k) : token.length;
   }
 
   /**
@@ -74,9 +88,9 @@ public final class Levenshtein {
    * @param sb sub token to be compared
    * @param sl string length
    * @param k maximum number of accepted errors
-   * @return true if the arrays are similar
+   * @return {@code -1} if the arrays are similar, or prefix length
    */
-  private boolean ls(final byte[] tk, final int tl, final byte[] sb, final int sl, final int k) {
+  private int ls(final byte[] tk, final int tl, final byte[] sb, final int sl, final int k) {
     int[][] m = matrix;
     if(m == null) {
       m = new int[MAX + 2][MAX + 2];
@@ -87,6 +101,8 @@ public final class Levenshtein {
       matrix = m;
     }
 
+    // prefixes can only be returned for single-byte characters
+    boolean ascii = ascii(sb);
     int e2 = -1, f2 = -1;
     for(int t = 0; t < tl; t += cl(tk, t)) {
       final int e = norm(lc(cp(tk, t)));
@@ -99,10 +115,11 @@ public final class Levenshtein {
         d = Math.min(d, c);
         f2 = f;
       }
-      if(d > k) return false;
+      ascii &= tk[t] >= 0;
+      if(d > k) return ascii ? t + 1 : tk.length;
       e2 = e;
     }
-    return m[tl][sl] <= k;
+    return m[tl][sl] <= k ? -1 : tk.length;
   }
 
   /**
@@ -129,6 +129,71 @@ public final class AddDeleteTest extends SandboxTest {
     assertEquals(NFLDR, docs());
   }
 
+  /**
+   * Adds a folder with parallel parsing, and compares the result with sequential parsing.
+   * @throws BaseXException exception
+   */
+  @Test
+  public void addFolderParallel() throws BaseXException {
+    final String query = "string-join(for $d in db:open('" + NAME + "') " +
+        "return db:path($d) || serialize($d))";
+    new Add("", FLDR).execute(context);
+    final String expected = new XQuery(query).execute(context);
+
+    new Set(MainOptions.PARSETHREADS, 2).execute(context);
+    try {
+      new CreateDB(NAME).execute(context);
+      new Add("", FLDR).execute(context);
+      assertEquals(NFLDR, docs());
+      assertEquals(expected, new XQuery(query).execute(context));
+    } finally {
+      new Set(MainOptions.PARSETHREADS, 0).execute(context);
+    }
+  }
+
+  /**
+   * Adds large documents and single files with multiple threads.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void addLargeParallel() throws IOException {
+    final IOFile dir = new IOFile(Prop.TMP, NAME);
+    dir.md();
+    final IOFile large = new IOFile(dir, "b.xml");
+    try {
+      new IOFile(dir, "a.xml").write(Token.token("<a/>"));
+      new IOFile(dir, "c.xml").write(Token.token("<c/>"));
+      final TokenBuilder tb = new TokenBuilder("<b>");
+      int n = 0;
+      for(; tb.size() <= DirParser.MAXSIZE; n++) tb.add("<x>text</x>");
+      large.write(tb.add("</b>").finish());
+
+      final String query = "string-join(for $d in db:open('" + NAME + "') " +
+          "return db:path($d) || count($d//x))";
+      new Add("", dir.path()).execute(context);
+      final String expected = new XQuery(query).execute(context);
+
+      new Set(MainOptions.PARSETHREADS, 2).execute(context);
+      try {
+        new CreateDB(NAME).execute(context);
+        new Add("", dir.path()).execute(context);
+        assertEquals(3, docs());
+        assertEquals(expected, new XQuery(query).execute(context));
+
+        new CreateDB(NAME).execute(context);
+        new Add("", large.path()).execute(context);
+        new Add("", FILE).execute(context);
+        assertEquals(2, docs());
+        assertEquals(Integer.toString(n), new XQuery(
+            "count(db:open('" + NAME + "', 'b.xml')//x)").execute(context));
+      } finally {
+        new Set(MainOptions.PARSETHREADS, 0).execute(context);
+      }
+    } finally {
+      assertTrue(dir.delete());
+    }
+  }
+
   /**
    * Adds/deletes with target.
    * @throws BaseXException exception
@@ -239,6 +304,10 @@ public final class AddDeleteTest extends SandboxTest {
     new Add("x", "<x").execute(context);
     new Add("x", CORRUPT).execute(context);
     assertEquals(0, context.data().resources.docs("").size());
+    new Set(MainOptions.PARSETHREADS, 2).execute(context);
+    new Add("x", CORRUPT).execute(context);
+    assertEquals(0, context.data().resources.docs("").size());
+    new Set(MainOptions.PARSETHREADS, 0).execute(context);
     new Set(MainOptions.SKIPCORRUPT, false).execute(context);
 
     try {
@@ -109,6 +109,41 @@ public final class CsvParserTest extends SandboxTest {
     assertEquals("0", new XQuery("count(//Name)").execute(context));
   }
 
+  /**
+   * Adds CSV files with quotes, whitespaces and additional columns.
+   * @throws Exception exception
+   */
+  @Test
+  public void entries() throws Exception {
+    write("A,B\n\"a\"\"b\",\" c \"\n d ,e,f\n");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<csv><record><A>a\"b</A><B> c </B></record>"
+        + "<record><A> d </A><B>e</B><entry>f</entry></record></csv>",
+        new XQuery(".").execute(context).replaceAll("\\s*\n\\s*", ""));
+    assertEquals("true", new XQuery("deep-equal(., csv:parse(file:read-text('" + TEMP +
+        "'), map { 'header': true() }))").execute(context));
+  }
+
+  /**
+   * Adds a CSV file in the attributes format.
+   * @throws Exception exception
+   */
+  @Test
+  public void attributes() throws Exception {
+    final CsvParserOptions copts = new CsvParserOptions();
+    copts.set(CsvOptions.HEADER, true);
+    copts.set(CsvOptions.FORMAT, CsvOptions.CsvFormat.ATTRIBUTES);
+    new Set(MainOptions.CSVPARSER, copts).execute(context);
+
+    write("A B,\n1,2,3\n");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<csv><record><entry name=\"A B\">1</entry><entry name=\"\">2</entry>"
+        + "<entry>3</entry></record></csv>",
+        new XQuery(".").execute(context).replaceAll("\\s*\n\\s*", ""));
+    assertEquals("true", new XQuery("deep-equal(., csv:parse(file:read-text('" + TEMP +
+        "'), map { 'header': true(), 'format': 'attributes' }))").execute(context));
+  }
+
   /**
    * Writes the specified test file.
    * @param data data to write
@@ -0,0 +1,101 @@
+package org.basex.build;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.build.JsonOptions.JsonFormat;
+import org.basex.build.JsonOptions.JsonSpec;
+import org.basex.core.*;
+import org.basex.core.MainOptions.MainParser;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * JSON Parser Test.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class JsonParserTest extends SandboxTest {
+  /** Temporary JSON file. */
+  private static final String TEMP = Prop.TMP + NAME + IO.JSONSUFFIX;
+  /** JSON input. */
+  private static final String JSON = "{ \"a\": [ 1, true, null, \"x\", { \"b c\": [] } ], " +
+      "\"\": \"\" }";
+
+  /**
+   * Creates the initial database.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void before() throws Exception {
+    new Set(MainOptions.PARSER, MainParser.JSON).execute(context);
+    new IOFile(TEMP).write(token(JSON));
+  }
+
+  /**
+   * Removes the temporary JSON file.
+   */
+  @AfterClass
+  public static void after() {
+    new IOFile(TEMP).delete();
+  }
+
+  /**
+   * Drops the database.
+   * @throws BaseXException exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Compares streamed documents with the results of the JSON converters.
+   * @throws Exception exception
+   */
+  @Test
+  public void formats() throws Exception {
+    for(final JsonFormat format : new JsonFormat[] { JsonFormat.DIRECT, JsonFormat.ATTRIBUTES,
+        JsonFormat.JSONML }) {
+      for(final boolean merge : new boolean[] { false, true }) {
+        final JsonParserOptions jopts = new JsonParserOptions();
+        jopts.set(JsonOptions.FORMAT, format);
+        jopts.set(JsonOptions.MERGE, merge);
+        final String json = format == JsonFormat.JSONML ?
+            "[\"a\", { \"b\": \"c\" }, \"d\", [\"e\"]]" : JSON;
+        new IOFile(TEMP).write(token(json));
+        new Set(MainOptions.JSONPARSER, jopts).execute(context);
+        new CreateDB(NAME, TEMP).execute(context);
+
+        final String query = "json:parse('" + json.replace("'", "''") + "', " +
+            "map { 'format': '" + format + "', 'merge': " + merge + "() })";
+        assertEquals(new XQuery(query).execute(context), new XQuery(".").execute(context));
+      }
+    }
+  }
+
+  /**
+   * Checks errors.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void error() throws IOException {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonOptions.SPEC, JsonSpec.RFC4627);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+    new IOFile(TEMP).write(token("{ \"a\":\n[ 1, tru ] }"));
+    try {
+      new CreateDB(NAME, TEMP).execute(context);
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("(2:6)"));
+    }
+  }
+}
@@ -96,7 +96,7 @@ public class CommandLockingTest extends SandboxTest {
     ckDBs(new List(NAME), false, NAME_LIST);
     ckDBs(new Open(NAME), false, NAME_CTX);
     ckDBs(new Optimize(), true, CTX_LIST);
-    ckDBs(new OptimizeAll(), true, CTX_LIST);
+    ckDBs(new OptimizeAll(), false, CTX_LIST);
     ckDBs(new Password(NAME), true, ADMIN_LIST);
     ckDBs(new Rename(FILE, FILE), true, CTX_LIST);
     ckDBs(new Replace(FILE, FILE), true, CTX_LIST);
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 import java.lang.reflect.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -328,6 +329,120 @@ public final class DiskTableTest extends SandboxTest {
     assertEntrysEqual(nodes, 2 * nodes, size - nodes);
   }
 
+  /**
+   * Inserts entries at the start, middle and end of pages, at decreasing positions.
+   * The first pre values behind the insertion points are updated lazily.
+   * Entries cannot be inserted before the first entry.
+   */
+  @Test
+  public void insertDecreasing() {
+    final ArrayList<byte[]> ref = reference();
+    int id = 0;
+    for(int p = blocks - 1; p >= 0; p--) {
+      for(final int pre : new int[] { p * nodes + nodes - 1, p * nodes + nodes / 2, p * nodes }) {
+        if(pre > 0 && pre < ref.size()) insert(pre, ++id % 3 + 1, id, ref);
+      }
+    }
+    assertEntries(ref);
+    closeAndReload();
+    assertEntries(ref);
+  }
+
+  /**
+   * Moves the gap of the page directory back and forth.
+   */
+  @Test
+  public void moveGap() {
+    final ArrayList<byte[]> ref = reference();
+    int id = 0;
+    for(int i = 0; i < 20; i++) {
+      // alternate between inserts at the end, at the start and in the middle of the table
+      final int pre = i % 3 == 0 ? ref.size() : i % 3 == 1 ? 1 : ref.size() / 2;
+      insert(pre, i % 2 == 0 ? 1 : nodes, ++id, ref);
+      insert(ref.size() - 1, 2, ++id, ref);
+      assertEntries(ref);
+    }
+    closeAndReload();
+    assertEntries(ref);
+  }
+
+  /**
+   * Inserts and deletes entries at random positions, and closes and reopens the table.
+   */
+  @Test
+  public void insertDelete() {
+    final ArrayList<byte[]> ref = reference();
+    final Random rnd = new Random(0);
+    int id = 0;
+    for(int i = 0; i < 200; i++) {
+      final int pre = rnd.nextInt(ref.size()) + 1;
+      if(rnd.nextInt(3) == 0 && pre < ref.size()) {
+        final int nr = Math.min(ref.size() - pre, rnd.nextInt(nodes * 2) + 1);
+        tda.delete(pre, nr);
+        ref.subList(pre, pre + nr).clear();
+      } else {
+        insert(pre, rnd.nextInt(nodes * 2) + 1, ++id, ref);
+      }
+      if(i % 20 == 0) assertEntries(ref);
+      if(i % 50 == 0) closeAndReload();
+    }
+    assertEntries(ref);
+    closeAndReload();
+    assertEntries(ref);
+  }
+
+  /**
+   * Returns the initial entries.
+   * @return entries
+   */
+  private ArrayList<byte[]> reference() {
+    final int nl = 1 << IO.NODEPOWER;
+    final ArrayList<byte[]> ref = new ArrayList<>(size);
+    for(int i = 0; i < size; i++) ref.add(Arrays.copyOfRange(storage, i * nl, i * nl + nl));
+    return ref;
+  }
+
+  /**
+   * Inserts entries into the table and the reference list.
+   * @param pre pre value
+   * @param count number of entries
+   * @param id id of the inserted entries
+   * @param ref reference list
+   */
+  private void insert(final int pre, final int count, final int id,
+      final ArrayList<byte[]> ref) {
+    final int nl = 1 << IO.NODEPOWER;
+    final byte[] entries = new byte[count * nl];
+    for(int i = 0; i < entries.length; i++) entries[i] = (byte) (id * 31 + i);
+    tda.insert(pre, entries);
+    for(int c = 0; c < count; c++) {
+      ref.add(pre + c, Arrays.copyOfRange(entries, c * nl, c * nl + nl));
+    }
+  }
+
+  /**
+   * Compares the table with the reference entries, in forward and backward order.
+   * @param ref reference entries
+   */
+  private void assertEntries(final ArrayList<byte[]> ref) {
+    final int rs = ref.size();
+    assertEquals(rs, tdaSize());
+    for(int pre = 0; pre < rs; pre++) assertEntry(pre, ref);
+    for(int pre = rs - 1; pre >= 0; pre -= nodes / 3) assertEntry(pre, ref);
+  }
+
+  /**
+   * Compares a single table entry with the reference entry.
+   * @param pre pre value
+   * @param ref reference entries
+   */
+  private void assertEntry(final int pre, final ArrayList<byte[]> ref) {
+    final byte[] entry = ref.get(pre);
+    for(int o = 0; o < entry.length; o++) {
+      assertEquals("Entry " + pre + ", byte " + o, entry[o], (byte) tda.read1(pre, o));
+    }
+  }
+
   /**
    * Asserts that the chosen entries are inserted by a test case.
    * @param startNum first entry
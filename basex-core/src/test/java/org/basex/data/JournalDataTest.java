@@ -0,0 +1,92 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates and recovery when using disk storage with an update journal
+ * ({@link DiskData}).
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public class JournalDataTest extends MemDataTest {
+  /** Test database name. */
+  private final String dbname = Util.className(JournalDataTest.class);
+  /** Name of the recovered database. */
+  private final String recovered = dbname + "Recovered";
+
+  @Override
+  @Before
+  public void setUp() throws BaseXException {
+    new Set(MainOptions.JOURNAL, true).execute(context);
+    new CreateDB(dbname, XMLSTR).execute(context);
+  }
+
+  /**
+   * Clean up method; executed after each test; drops the database.
+   * @throws BaseXException the database cannot be dropped
+   */
+  @After
+  public void cleanUp() throws BaseXException {
+    new Set(MainOptions.JOURNAL, false).execute(context);
+    new DropDB(dbname).execute(context);
+    new DropDB(recovered).execute(context);
+  }
+
+  /**
+   * Replays the journal of a database that has not been closed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void recover() throws IOException {
+    new XQuery("for $i in 1 to 1000 return insert node <d>{ $i }</d> into /a").execute(context);
+    new XQuery("replace value of node /a/b with 'test2'").execute(context);
+    new XQuery("delete node /a/d[. < 100]").execute(context);
+    final String expected = new XQuery("/").execute(context);
+
+    // simulate a crash: copy the files of the opened database
+    final IOFile source = context.globalopts.dbpath(dbname);
+    final IOFile target = context.globalopts.dbpath(recovered);
+    assertTrue(MetaData.file(source, DataText.DATAJNL).exists());
+    assertTrue(target.md());
+    for(final IOFile file : source.children()) file.copyTo(new IOFile(target, file.name()));
+
+    new Open(recovered).execute(context);
+    assertEquals(expected, new XQuery("/").execute(context));
+    assertFalse(MetaData.file(target, DataText.DATAJNL).exists());
+    assertFalse(context.data().meta.corrupt);
+
+    // journal is removed when the database is closed
+    new Open(dbname).execute(context);
+    new Close().execute(context);
+    assertFalse(MetaData.file(source, DataText.DATAJNL).exists());
+  }
+
+  /**
+   * Checks that an update is rejected if its changes cannot be written to the journal.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void failure() throws IOException {
+    // a directory with the name of the journal prevents the journal from being opened
+    final IOFile jnl = MetaData.file(context.globalopts.dbpath(dbname), DataText.DATAJNL);
+    assertTrue(jnl.md());
+    try {
+      new XQuery("insert node <d/> into /a").execute(context);
+      fail("Update was acknowledged.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getCause() instanceof IOException);
+    } finally {
+      jnl.delete();
+    }
+  }
+}
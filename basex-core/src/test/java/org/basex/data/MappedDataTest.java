@@ -0,0 +1,57 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates when using memory-mapped disk storage ({@link DiskData}).
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public class MappedDataTest extends MemDataTest {
+  /** Test database name. */
+  private final String dbname = Util.className(MappedDataTest.class);
+
+  @Override
+  @Before
+  public void setUp() throws BaseXException {
+    new CreateDB(dbname, XMLSTR).execute(context);
+    new Close().execute(context);
+    new Set(MainOptions.MMAP, true).execute(context);
+    new Open(dbname).execute(context);
+  }
+
+  /**
+   * Clean up method; executed after each test; drops the database.
+   * @throws BaseXException the database cannot be dropped
+   */
+  @After
+  public void cleanUp() throws BaseXException {
+    new Set(MainOptions.MMAP, false).execute(context);
+    new DropDB(dbname).execute(context);
+  }
+
+  /**
+   * Checks that the database files are unmapped before the database is updated.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void unmap() throws IOException {
+    // mapped regions of the current process are only listed on Linux
+    final Path maps = Paths.get("/proc/self/maps");
+    if(!Files.exists(maps)) return;
+    final String dir = context.globalopts.dbpath(dbname).file().getCanonicalPath();
+    assertTrue(new String(Files.readAllBytes(maps)).contains(dir));
+    new XQuery("insert node <x/> into /a").execute(context);
+    assertFalse(new String(Files.readAllBytes(maps)).contains(dir));
+  }
+}
@@ -0,0 +1,116 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for incremental updates of the full-text index.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class FTIndexUpdateTest extends SandboxTest {
+  /** Query for creating the input document. */
+  private static final String INPUT = "<x>{ for $i in 1 to 2000 return " +
+    "<a>w{ $i mod 13 } w{ $i mod 5 } v{ $i }</a> }</x>";
+  /** Query for serializing all index entries. */
+  private static final String ENTRIES = "string-join(ft:tokens('" + NAME + "') ! " +
+    "(. || @count), ',')";
+  /** Query for accessing the index. */
+  private static final String QUERY = "string-join((" +
+    "ft:search('" + NAME + "', ('w2', 'x1'), map { 'mode': 'all words' }), " +
+    "//a[text() contains text 'w1 w3' any word], //a[text() contains text 'v1.*' " +
+    "using wildcards], //a[text() contains text 'x22' using fuzzy]) ! " +
+    "string(db:node-pre(.)), ',')";
+
+  /**
+   * Initializes the test.
+   * @throws BaseXException exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(MainOptions.FTINDEX, true).execute(context);
+    new Set(MainOptions.UPDINDEX, true).execute(context);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.FTINDEX, false).execute(context);
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException exception
+   */
+  @Before
+  public void create() throws BaseXException {
+    new CreateDB(NAME, new XQuery(INPUT).execute(context)).execute(context);
+  }
+
+  /**
+   * Updates the index with small updates.
+   * @throws BaseXException exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    check("insert node <a>x1 w2</a> into /x");
+    check("for $a in //a[position() mod 7 = 0] return insert node <a>x1 x22 w2</a> after $a");
+    check("for $a in //a[position() mod 3 = 0] return delete node $a");
+    check("for $t in //a[position() mod 11 = 0]/text() return " +
+        "replace value of node $t with 'x1 w2 v17'");
+    check("for $a in //a[position() mod 10 = 0] return replace node $a with <a>w3 x1</a>");
+
+    // updates are persistent
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    check("delete node //a[1]");
+  }
+
+  /**
+   * Merges a large number of updates into the main index.
+   * @throws BaseXException exception
+   */
+  @Test
+  public void merge() throws BaseXException {
+    final IOFile delta = new IOFile(context.globalopts.dbpath(NAME),
+        DataText.DATAFTX + 'd' + IO.BASEXSUFFIX);
+    new XQuery("for $a in //a[position() mod 2 = 0] return insert node <a>x1 w2</a> " +
+        "before $a").execute(context);
+    final long length = delta.length();
+    new XQuery("for $a in //a return insert node <a>x22 x1 w3</a> into $a").execute(context);
+    // updates have been merged into the main index
+    assertTrue(delta.length() < length);
+    check("delete node //a[1]");
+  }
+
+  /**
+   * Performs an update and compares the index entries and query results with the ones of
+   * a newly created index.
+   * @param update update query
+   * @throws BaseXException exception
+   */
+  private static void check(final String update) throws BaseXException {
+    new XQuery(update).execute(context);
+    assertTrue(context.data().meta.ftxtindex);
+    final String entries = new XQuery(ENTRIES).execute(context);
+    final String result = new XQuery(QUERY).execute(context);
+
+    new OptimizeAll().execute(context);
+    assertEquals(new XQuery(ENTRIES).execute(context), entries);
+    assertEquals(new XQuery(QUERY).execute(context), result);
+  }
+}
@@ -0,0 +1,85 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link IndexBuilders}.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuildersTest extends SandboxTest {
+  /** Query for creating the input document. */
+  private static final String INPUT = "<x>{ for $i in 1 to 20000 return " +
+    "<a b='{ $i mod 7 }'>{ $i mod 13 } w{ $i mod 5 } w{ $i mod 3 }</a> }</x>";
+  /** Query for serializing all index entries. */
+  private static final String ENTRIES = "string-join((" +
+    "index:texts('" + NAME + "'), index:attributes('" + NAME + "'), " +
+    "ft:tokens('" + NAME + "')) ! (. || @count), ',')";
+  /** Query for accessing the indexes. */
+  private static final String QUERY = "string-join((//a[text() = '3'], //a[@b = '1'], " +
+    "//a[text() contains text 'w2 w1' all words]) ! string(db:node-pre(.)), ',')";
+
+  /**
+   * Initializes the test.
+   * @throws BaseXException exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(MainOptions.FTINDEX, true).execute(context);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.FTINDEX, false).execute(context);
+    new Set(MainOptions.INDEXTHREADS, 1).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, 0).execute(context);
+    new Set(MainOptions.FTINDEXSPLITSIZE, 0).execute(context);
+  }
+
+  /**
+   * Compares indexes that have been built in parallel with sequentially built indexes.
+   * @throws BaseXException exception
+   */
+  @Test
+  public void parallel() throws BaseXException {
+    final String[] expected = build(1, 0);
+    assertArrayEquals(expected, build(4, 0));
+    assertArrayEquals(expected, build(4, 10000));
+    assertArrayEquals(expected, build(2, 10000));
+  }
+
+  /**
+   * Builds a database and its indexes, and returns the index entries and a query result.
+   * @param threads number of threads
+   * @param split split size
+   * @return index entries and query result
+   * @throws BaseXException exception
+   */
+  private static String[] build(final int threads, final int split) throws BaseXException {
+    new Set(MainOptions.INDEXTHREADS, threads).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, split).execute(context);
+    new Set(MainOptions.FTINDEXSPLITSIZE, split).execute(context);
+    new CreateDB(NAME, new XQuery(INPUT).execute(context)).execute(context);
+    final String[] result = { new XQuery(ENTRIES).execute(context),
+        new XQuery(QUERY).execute(context) };
+    // rebuild indexes of the opened database
+    new OptimizeAll().execute(context);
+    new CreateIndex(CmdIndex.FULLTEXT).execute(context);
+    assertEquals(result[0], new XQuery(ENTRIES).execute(context));
+    return result;
+  }
+}
@@ -0,0 +1,143 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.query.expr.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for text and attribute indexes that are restricted to specific names.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexIncludeTest extends IndexQueryTest {
+  /** Query for creating the input document. */
+  private static final String INPUT = "<x>{ for $i in 1 to 1000 return " +
+    "<a id='{ $i }' key='{ $i }'><b>{ $i }</b><c>{ $i }</c><d>{ $i mod 10 }</d></a> }</x>";
+
+  /**
+   * Constructor.
+   */
+  public IndexIncludeTest() {
+    super(INPUT, ValueAccess.class);
+  }
+
+  /**
+   * Initializes the test.
+   * @throws BaseXException exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(MainOptions.TEXTINCLUDE, "b, d").execute(context);
+    new Set(MainOptions.ATTRINCLUDE, "id").execute(context);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new Set(MainOptions.TEXTINCLUDE, "").execute(context);
+    new Set(MainOptions.ATTRINCLUDE, "").execute(context);
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Checks that only predicates on indexed names are rewritten.
+   * @throws Exception exception
+   */
+  @Test
+  public void queries() throws Exception {
+    check("//a[b = '12']", true);
+    check("//a[b/text() = '12']", true);
+    check("//b[text() = '12']", true);
+    check("//a[d = '3']", true);
+    check("//a[@id = '12']", true);
+    check("//a[c = '12']", false);
+    check("//c[text() = '12']", false);
+    check("//a[@key = '12']", false);
+    check("//text()[. = '12']", false);
+    check("//a[.//text() = '12']", false);
+  }
+
+  /**
+   * Checks that the indexes only contain the values of the specified names.
+   * @throws Exception exception
+   */
+  @Test
+  public void entries() throws Exception {
+    assertEquals("b", query("distinct-values(db:text('" + NAME + "', '12')/../name())"));
+    assertEquals("id", query("distinct-values(db:attribute('" + NAME + "', '12')/name())"));
+  }
+
+  /**
+   * Checks that restricted indexes are updated incrementally.
+   * @throws Exception exception
+   */
+  @Test
+  public void update() throws Exception {
+    new Set(MainOptions.UPDINDEX, true).execute(context);
+    create();
+    final String text = "db:text('" + NAME + "', '%')/../name()";
+    final String attr = "db:attribute('" + NAME + "', '%')/name()";
+    query("insert node <a id='1001' key='k1001'><b>1001</b><c>c1001</c></a> into /x");
+    assertTrue(context.data().meta.textindex);
+    assertTrue(context.data().meta.attrindex);
+    assertEquals("b", query(text.replace("%", "1001")));
+    assertEquals("id", query(attr.replace("%", "1001")));
+    assertEquals("", query(text.replace("%", "c1001")));
+    assertEquals("", query(attr.replace("%", "k1001")));
+
+    // replaced values
+    query("replace value of node /x/a[@id = '1001']/b with 'b1001'");
+    query("replace value of node /x/a[@id = '1001']/c with 'c1002'");
+    assertEquals("b", query(text.replace("%", "b1001")));
+    assertEquals("", query(text.replace("%", "c1002")));
+
+    // renamed elements and attributes
+    query("rename node /x/a[@id = '1001']/b as 'c'");
+    query("rename node /x/a[@id = '1001']/c[2] as 'd'");
+    assertEquals("", query(text.replace("%", "b1001")));
+    assertEquals("d", query(text.replace("%", "c1002")));
+    query("rename node /x/a[@id = '1001']/@id as 'ref'");
+    query("rename node /x/a[@ref = '1001']/@key as 'id'");
+    assertEquals("", query(attr.replace("%", "1001")));
+    assertEquals("id", query(attr.replace("%", "k1001")));
+
+    // deleted nodes
+    query("delete node /x/a[@id = 'k1001']");
+    assertEquals("", query(text.replace("%", "c1002")));
+    assertEquals("", query(attr.replace("%", "k1001")));
+    assertEquals("b", query(text.replace("%", "12")));
+    assertEquals("id", query(attr.replace("%", "12")));
+  }
+
+  /**
+   * Checks that the indexed names can be changed by optimizations.
+   * @throws Exception exception
+   */
+  @Test
+  public void optimize() throws Exception {
+    query("db:optimize('" + NAME + "', false(), map { 'textinclude': 'c' })");
+    assertEquals("c", context.data().meta.textinclude);
+    check("//a[c = '12']", true);
+    check("//a[b = '12']", false);
+  }
+
+  /**
+   * Checks if the specified query is rewritten for index access and returns results.
+   * @param query query
+   * @param index expected index access
+   * @throws Exception exception
+   */
+  private void check(final String query, final boolean index) throws Exception {
+    assertEquals(query, index, indexed(query));
+    assertFalse(query, pres(query).isEmpty());
+  }
+}
@@ -0,0 +1,106 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class contains methods for testing if queries are rewritten for index access.
+ * A test database is created from the result of an input query before each test.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public abstract class IndexQueryTest extends SandboxTest {
+  /** Query for creating the input document. */
+  private final String input;
+  /** Expected index access expression. */
+  private final Class<? extends IndexAccess> access;
+
+  /**
+   * Constructor.
+   * @param input query for creating the input document
+   * @param access expected index access expression
+   */
+  IndexQueryTest(final String input, final Class<? extends IndexAccess> access) {
+    this.input = input;
+    this.access = access;
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void dropDB() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException exception
+   */
+  @Before
+  public void create() throws BaseXException {
+    new CreateDB(NAME, query(input)).execute(context);
+  }
+
+  /**
+   * Returns the results of the specified queries.
+   * @param index indicates if the index is expected to be used
+   * @param queries queries
+   * @return results
+   * @throws Exception exception
+   */
+  final String[] results(final boolean index, final String... queries) throws Exception {
+    final int ql = queries.length;
+    final String[] results = new String[ql];
+    for(int q = 0; q < ql; q++) {
+      assertEquals(queries[q], index, indexed(queries[q]));
+      results[q] = pres(queries[q]);
+    }
+    return results;
+  }
+
+  /**
+   * Checks if the specified query is rewritten for index access.
+   * @param query query
+   * @return result of check
+   * @throws Exception exception
+   */
+  final boolean indexed(final String query) throws Exception {
+    final QueryProcessor qp = new QueryProcessor(query, context);
+    try {
+      qp.compile();
+      return qp.plan().serialize().toString().contains(Util.className(access));
+    } finally {
+      qp.close();
+    }
+  }
+
+  /**
+   * Returns the pre values of the nodes returned by the specified query.
+   * @param query query
+   * @return comma-separated pre values
+   * @throws BaseXException exception
+   */
+  static String pres(final String query) throws BaseXException {
+    return query("string-join(" + query + " ! string(db:node-pre(.)), ',')");
+  }
+
+  /**
+   * Runs the specified query.
+   * @param query query
+   * @return result
+   * @throws BaseXException exception
+   */
+  static String query(final String query) throws BaseXException {
+    return new XQuery(query).execute(context);
+  }
+}
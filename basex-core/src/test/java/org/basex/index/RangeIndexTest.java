@@ -0,0 +1,153 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.io.*;
+import org.basex.query.expr.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for numeric, date and dateTime range queries on the value indexes.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class RangeIndexTest extends IndexQueryTest {
+  /** Query for creating the input document. */
+  private static final String INPUT = "<x>{ for $i in 1 to 5000 return <order " +
+    "date='{ xs:date('2000-01-01') + xs:dayTimeDuration('P' || $i mod 900 || 'D') }' " +
+    "time='{ xs:dateTime('2020-01-01T00:00:00') + xs:dayTimeDuration('PT' || $i * 37 || 'S') " +
+    "}{ ('', 'Z', '+02:00')[$i mod 3 + 1] }'><price>{ $i mod 100 div 4 }</price>" +
+    "<day>{ if($i mod 7) then xs:date('2010-06-01') + xs:dayTimeDuration('P' || $i mod 30 " +
+    "|| 'D') else 'unknown' }</day></order> }</x>";
+  /** Queries that can be rewritten for index access. */
+  private static final String[] QUERIES = {
+    "//order[@date > xs:date('2002-01-01')]",
+    "//order[@date >= xs:date('2002-01-01')]",
+    "//order[@date = xs:date('2002-01-01')]",
+    "//order[@date < xs:date('2000-02-01Z')]",
+    "//order[@date <= xs:date('2000-02-01-10:00')]",
+    "//order[@time > xs:dateTime('2020-01-02T12:00:00Z')]",
+    "//order[@time <= xs:dateTime('2020-01-01T06:00:00')]",
+    "for $o in //order where $o/@date > xs:date('2002-06-01') return $o",
+    "//order[price >= 10 and price <= 12]",
+  };
+
+  /**
+   * Constructor.
+   */
+  public RangeIndexTest() {
+    super(INPUT, RangeAccess.class);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, 0).execute(context);
+    new Set(MainOptions.MAINMEM, false).execute(context);
+  }
+
+  /**
+   * Compares the results of index-based queries with sequential evaluation.
+   * @throws Exception exception
+   */
+  @Test
+  public void queries() throws Exception {
+    final String[] results = results(true, QUERIES);
+    new DropIndex(CmdIndex.TEXT).execute(context);
+    new DropIndex(CmdIndex.ATTRIBUTE).execute(context);
+    assertArrayEquals(results, results(false, QUERIES));
+  }
+
+  /**
+   * Checks which comparisons are rewritten, and that invalid values are ignored.
+   * @throws Exception exception
+   */
+  @Test
+  public void invalid() throws Exception {
+    assertFalse(indexed("//order[@date != xs:date('2002-01-01')]"));
+    assertFalse(indexed("//order[@date > xs:gYear('2002')]"));
+    // values that are no dates are ignored by the index
+    assertTrue(indexed("//order[day > xs:date('2010-06-20')]"));
+    assertEquals("1423", query("count(//order[day > xs:date('2010-06-20')])"));
+  }
+
+  /**
+   * Checks that indexes built with partial index structures yield the same results.
+   * @throws Exception exception
+   */
+  @Test
+  public void splits() throws Exception {
+    final String[] results = results(true, QUERIES);
+    new Set(MainOptions.INDEXSPLITSIZE, 1000).execute(context);
+    new CreateIndex(CmdIndex.TEXT).execute(context);
+    new CreateIndex(CmdIndex.ATTRIBUTE).execute(context);
+    assertArrayEquals(results, results(true, QUERIES));
+    new Set(MainOptions.INDEXSPLITSIZE, 0).execute(context);
+  }
+
+  /**
+   * Checks updatable indexes: date comparisons are evaluated sequentially.
+   * @throws Exception exception
+   */
+  @Test
+  public void updindex() throws Exception {
+    final String[] results = results(true, QUERIES);
+    new Set(MainOptions.UPDINDEX, true).execute(context);
+    create();
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+    final int ql = QUERIES.length;
+    for(int q = 0; q < ql; q++) {
+      final String query = QUERIES[q];
+      assertEquals(query, query.contains("price"), indexed(query));
+      assertEquals(query, results[q], pres(query));
+    }
+  }
+
+  /**
+   * Checks main-memory databases: date comparisons are evaluated sequentially.
+   * @throws Exception exception
+   */
+  @Test
+  public void mainmem() throws Exception {
+    final String[] results = results(true, QUERIES);
+    new Set(MainOptions.MAINMEM, true).execute(context);
+    create();
+    new Set(MainOptions.MAINMEM, false).execute(context);
+    final int ql = QUERIES.length;
+    for(int q = 0; q < ql; q++) {
+      final String query = QUERIES[q];
+      assertFalse(query, indexed(query));
+      assertEquals(query, results[q], pres(query));
+    }
+  }
+
+  /**
+   * Checks date comparisons on documents that are opened via {@code fn:doc}.
+   * @throws Exception exception
+   */
+  @Test
+  public void doc() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "d.xml");
+    file.write(Token.token("<x><e d='2020-06-01'/><e d='2019-06-01'/></x>"));
+    try {
+      for(final String op : new String[] { ">", ">=", "=" }) {
+        final String date = op.equals("=") ? "2020-06-01" : "2020-01-01";
+        assertEquals(op, "1", query("count(doc('" + file.path() + "')//e[@d " + op +
+            " xs:date('" + date + "')])"));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package org.basex.index;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the trigram index.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramIndexTest extends IndexQueryTest {
+  /** Query for creating the input document. */
+  private static final String INPUT = "<x>{ for $i in 1 to 20000 return " +
+    "<a>text{ $i } ünï{ $i mod 17 } bl.ah{ $i * 7 }</a> }</x>";
+  /** Queries that can be rewritten for index access. */
+  private static final String[] QUERIES = {
+    "//a[contains(text(), '1234')]",
+    "//a[contains(., 'xt99')]",
+    "//a[contains(., 'ünï1 ')]",
+    "//text()[contains(., '42 ')]",
+    "//a[matches(text(), 'xt123.*bl')]",
+    "//a[matches(., 'xt12\\d ün')]",
+    "//a[matches(., 't1[0-2]? ünï1+ bl')]",
+    "//a[matches(., 'bl.ah', 'q')]",
+    "//a[matches(., 'bl\\.ah\\d{2}5$', 's')]",
+  };
+
+  /**
+   * Constructor.
+   */
+  public TrigramIndexTest() {
+    super(INPUT, TrigramAccess.class);
+  }
+
+  /**
+   * Initializes the test.
+   * @throws BaseXException exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(MainOptions.TRIGRAMINDEX, true).execute(context);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new Set(MainOptions.TRIGRAMINDEX, false).execute(context);
+    new Set(MainOptions.INDEXTHREADS, 1).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, 0).execute(context);
+  }
+
+  /**
+   * Compares the results of index-based queries with sequential evaluation.
+   * @throws Exception exception
+   */
+  @Test
+  public void queries() throws Exception {
+    final String[] results = results(true, QUERIES);
+    new DropIndex(CmdIndex.TRIGRAM).execute(context);
+    assertArrayEquals(results, results(false, QUERIES));
+  }
+
+  /**
+   * Checks that queries are not rewritten if the pattern is too complex.
+   * @throws Exception exception
+   */
+  @Test
+  public void complex() throws Exception {
+    assertFalse(indexed("//a[matches(., '(text12)|bla')]"));
+    assertFalse(indexed("//a[matches(., 'TEXT12', 'i')]"));
+    assertFalse(indexed("//a[matches(., 'xt1?2?3?')]"));
+    assertFalse(indexed("//a[contains(., 'xt')]"));
+  }
+
+  /**
+   * Checks that elements with several text nodes are not rewritten for index access.
+   * The documents are added and optimized, as this does not reset the leaf flags.
+   * @throws Exception exception
+   */
+  @Test
+  public void mixed() throws Exception {
+    new CreateDB(NAME).execute(context);
+    new Add("a.xml", "<a>abc<!--c-->def</a>").execute(context);
+    new Add("b.xml", "<a>xyz<?pi p?>uvw</a>").execute(context);
+    new Optimize().execute(context);
+
+    assertFalse(indexed("//a[contains(., 'cde')]"));
+    assertEquals("1", query("count(//a[contains(., 'cde')])"));
+    assertFalse(indexed("//a[matches(., 'zuv')]"));
+    assertEquals("1", query("count(//a[matches(., 'zuv')])"));
+    assertTrue(indexed("//text()[contains(., 'def')]"));
+    assertEquals("1", query("count(//text()[contains(., 'def')])"));
+
+    // the text nodes of a single element must be passed on to the function as sequence
+    final QueryProcessor qp = new QueryProcessor("//a[contains(text(), 'cde')]", context);
+    try {
+      qp.value();
+      fail("Error expected.");
+    } catch(final QueryException ex) {
+      assertEquals("XPTY0004", string(ex.qname().local()));
+    } finally {
+      qp.close();
+    }
+  }
+
+  /**
+   * Checks that the index is invalidated by updates and rebuilt by optimizations.
+   * @throws Exception exception
+   */
+  @Test
+  public void update() throws Exception {
+    query("insert node <a>text1234 new</a> into /x");
+    assertFalse(context.data().meta.trgmindex);
+    final String[] results = results(false, QUERIES);
+    new Optimize().execute(context);
+    assertTrue(context.data().meta.trgmindex);
+    assertArrayEquals(results, results(true, QUERIES));
+  }
+
+  /**
+   * Compares indexes that have been built in parallel and with partial index structures.
+   * @throws Exception exception
+   */
+  @Test
+  public void parallel() throws Exception {
+    final String[] results = results(true, QUERIES);
+    final String info = new InfoIndex(CmdIndex.TRIGRAM).execute(context);
+    new Set(MainOptions.INDEXTHREADS, 4).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, 2000).execute(context);
+    new CreateIndex(CmdIndex.TRIGRAM).execute(context);
+    assertEquals(info, new InfoIndex(CmdIndex.TRIGRAM).execute(context));
+    assertArrayEquals(results, results(true, QUERIES));
+  }
+}
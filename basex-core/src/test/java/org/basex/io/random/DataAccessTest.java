@@ -3,6 +3,7 @@ package org.basex.io.random;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
@@ -218,6 +219,29 @@ public class DataAccessTest {
     assertEquals(STR, Token.string(da.readBytes(bytes.length)));
   }
 
+  /** Test method for {@link DataAccess#peekNum(long)}. */
+  @Test
+  public final void testPeekNum() {
+    final long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length +
+        INT_BIN.length;
+    da.cursor(0);
+    assertEquals(CINT5, da.peekNum(off));
+    assertEquals(CINT4, da.peekNum(off + CINT5_BIN.length));
+    // cursor is not changed
+    assertEquals(0L, da.cursor());
+  }
+
+  /** Test method for {@link DataAccess#peekToken(long)}. */
+  @Test
+  public final void testPeekToken() {
+    assertEquals(STR, Token.string(da.peekToken(0L)));
+    assertEquals(STR, Token.string(da.peekToken(BLOCK_BOUNDARY_POS)));
+
+    // updates are visible to subsequent read operations
+    da.writeToken(BLOCK_BOUNDARY_POS, Token.token(STR_LONG));
+    assertEquals(STR_LONG, Token.string(da.peekToken(BLOCK_BOUNDARY_POS)));
+  }
+
   /** Test method for {@link DataAccess#cursor(long)}. */
   @Test
   public final void testCursorLong() {
@@ -268,6 +292,33 @@ public class DataAccessTest {
     assertContent(pos, INT_BIN);
   }
 
+  /**
+   * Checks that the bytes after the end of a partially read block are zeroed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void testPartialBlock() throws IOException {
+    // the full blocks occupy all buffers, and the last block is partially read
+    final IOFile tmp = new IOFile(Prop.TMP, "partial" + IO.BASEXSUFFIX);
+    final int blocks = 32, size = blocks * IO.BLOCKSIZE + 1;
+    final byte[] data = new byte[size];
+    Arrays.fill(data, (byte) 0x55);
+    tmp.write(data);
+    final DataAccess access = new DataAccess(tmp);
+    try {
+      for(int b = 0; b <= blocks; b++) access.read1((long) b * IO.BLOCKSIZE);
+      // extend the file: the bytes in between must be zero
+      access.write4(size + 10L, INT);
+      access.close();
+      final byte[] written = tmp.read();
+      assertEquals(size + 14, written.length);
+      for(int p = size; p < size + 10; p++) assertEquals(0, written[p]);
+    } finally {
+      access.close();
+      tmp.delete();
+    }
+  }
+
   /**
    * Test method for {@link DataAccess#write4(int)}.
    * @throws IOException I/O exception
@@ -0,0 +1,98 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.io.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link PageCache}.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCacheTest {
+  /** Cache instance. */
+  private final PageCache cache = PageCache.get();
+
+  /** Resets the cache. */
+  @After
+  public void tearDown() {
+    cache.size(0);
+    cache.size(32);
+  }
+
+  /** Cached pages are returned until they are evicted. */
+  @Test
+  public void readWrite() {
+    cache.size(1);
+    final int id = PageCache.id();
+    final int pages = (1 << 20) / IO.BLOCKSIZE;
+    for(int p = 0; p < pages; p++) cache.write(id, p, page(p));
+
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    for(int p = 0; p < pages; p++) {
+      assertTrue(cache.read(id, p, data));
+      assertArrayEquals(page(p), data);
+    }
+    assertFalse(cache.read(id, pages, data));
+    assertFalse(cache.read(PageCache.id(), 0, data));
+
+    // frequently accessed pages survive a scan over other pages
+    for(int i = 0; i < 4; i++) cache.read(id, 0, data);
+    for(int p = pages; p < pages << 1; p++) cache.write(id, p, page(p));
+    assertTrue(cache.read(id, 0, data));
+    assertArrayEquals(page(0), data);
+  }
+
+  /** Updated pages replace cached ones. */
+  @Test
+  public void update() {
+    final int id = PageCache.id();
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    cache.write(id, 1, page(1));
+    cache.write(id, 1, page(2));
+    assertTrue(cache.read(id, 1, data));
+    assertArrayEquals(page(2), data);
+  }
+
+  /** Pages of a closed file are discarded. */
+  @Test
+  public void remove() {
+    final int id1 = PageCache.id(), id2 = PageCache.id();
+    for(int p = 0; p < 100; p++) {
+      cache.write(id1, p, page(p));
+      cache.write(id2, p, page(p + 1));
+    }
+    cache.remove(id1);
+
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    for(int p = 0; p < 100; p++) {
+      assertFalse(cache.read(id1, p, data));
+      assertTrue(cache.read(id2, p, data));
+      assertArrayEquals(page(p + 1), data);
+    }
+  }
+
+  /** A cache with size 0 stores no pages. */
+  @Test
+  public void disabled() {
+    cache.size(0);
+    final int id = PageCache.id();
+    cache.write(id, 0, page(0));
+    assertFalse(cache.read(id, 0, new byte[IO.BLOCKSIZE]));
+  }
+
+  /**
+   * Returns a page filled with the specified value.
+   * @param v value
+   * @return page
+   */
+  private static byte[] page(final int v) {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    Arrays.fill(data, (byte) v);
+    return data;
+  }
+}
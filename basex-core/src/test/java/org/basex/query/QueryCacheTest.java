@@ -0,0 +1,163 @@
+package org.basex.query;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for caching compiled queries.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /**
+   * Enables the query cache.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void start() throws Exception {
+    context.globalopts.set(GlobalOptions.QUERYCACHE, 4);
+    new CreateDB(NAME, "<x><a>1</a></x>").execute(context);
+    new Close().execute(context);
+  }
+
+  /**
+   * Disables the query cache.
+   * @throws Exception exception
+   */
+  @AfterClass
+  public static void stop() throws Exception {
+    new DropDB(NAME).execute(context);
+    context.globalopts.set(GlobalOptions.QUERYCACHE, 0);
+  }
+
+  /**
+   * Tests the reuse of queries with different bindings.
+   * @throws Exception exception
+   */
+  @Test
+  public void bind() throws Exception {
+    final String query = "declare variable $v external; $v * 2";
+    for(int i = 0; i < 4; i++) {
+      final int v = i % 2 + 1;
+      assertEquals(String.valueOf(v * 2), run(query, v));
+    }
+  }
+
+  /**
+   * Tests the reuse of queries with variables and functions that depend on bound values.
+   * @throws Exception exception
+   */
+  @Test
+  public void bindDependent() throws Exception {
+    final String[] queries = {
+      "declare variable $v external; declare variable $w := $v * 2; $w",
+      "declare variable $v external; declare function local:f() { $v * 2 }; local:f()",
+      "declare variable $v as xs:double external; $v * 2",
+      "declare variable $v external; declare variable $w := function() { $v * 2 }; $w()",
+    };
+    for(final String query : queries) {
+      for(int i = 0; i < 4; i++) {
+        final int v = i % 2 + 1;
+        assertEquals(String.valueOf(v * 2), run(query, v));
+      }
+    }
+  }
+
+  /**
+   * Tests the invalidation of queries after updates.
+   * @throws Exception exception
+   */
+  @Test
+  public void update() throws Exception {
+    final String query = "count(db:open('" + NAME + "')//a)";
+    assertEquals("1", run(query, null));
+    assertEquals("1", run(query, null));
+    new XQuery("insert node <a/> into db:open('" + NAME + "')/x").execute(context);
+    assertEquals("2", run(query, null));
+    // cached queries must not block commands that require exclusive access
+    new AlterDB(NAME, NAME + '2').execute(context);
+    new AlterDB(NAME + '2', NAME).execute(context);
+    assertEquals("2", run(query, null));
+  }
+
+  /**
+   * Tests the invalidation of queries after permissions have been revoked.
+   * @throws Exception exception
+   */
+  @Test
+  public void perm() throws Exception {
+    new CreateUser(NAME, Token.md5(NAME)).execute(context);
+    try {
+      new Grant(Perm.READ, NAME).execute(context);
+      final Context ctx = new Context(context, null);
+      ctx.user = context.users.get(NAME);
+      final String query = "count(db:open('" + NAME + "')//a) > 0";
+
+      // global permission
+      assertEquals("true", run(query, null, ctx));
+      assertEquals("true", run(query, null, ctx));
+      new Grant(Perm.NONE, NAME).execute(context);
+      denied(query, ctx);
+
+      // local permission
+      new Grant(Perm.READ, NAME).execute(context);
+      assertEquals("true", run(query, null, ctx));
+      assertEquals("true", run(query, null, ctx));
+      new Grant(Perm.NONE, NAME, NAME).execute(context);
+      denied(query, ctx);
+    } finally {
+      new DropUser(NAME).execute(context);
+    }
+  }
+
+  /**
+   * Checks that the specified query is rejected.
+   * @param query query string
+   * @param ctx database context
+   */
+  private static void denied(final String query, final Context ctx) {
+    try {
+      run(query, null, ctx);
+      fail("Permission error expected.");
+    } catch(final Exception ex) {
+      assertTrue(ex instanceof QueryException);
+    }
+  }
+
+  /**
+   * Runs a query.
+   * @param query query string
+   * @param value value to be bound to {@code $v} (may be {@code null})
+   * @return result
+   * @throws Exception exception
+   */
+  private static String run(final String query, final Object value) throws Exception {
+    return run(query, value, context);
+  }
+
+  /**
+   * Runs a query.
+   * @param query query string
+   * @param value value to be bound to {@code $v} (may be {@code null})
+   * @param ctx database context
+   * @return result
+   * @throws Exception exception
+   */
+  private static String run(final String query, final Object value, final Context ctx)
+      throws Exception {
+    final QueryProcessor qp = new QueryProcessor(query, ctx);
+    try {
+      if(value != null) qp.bind("v", value);
+      return qp.value().serialize().toString();
+    } finally {
+      qp.close();
+    }
+  }
+}
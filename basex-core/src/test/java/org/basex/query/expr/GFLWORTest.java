@@ -2,6 +2,8 @@ package org.basex.query.expr;
 
 import static org.junit.Assert.*;
 
+import org.basex.core.*;
+import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.util.*;
 import org.basex.util.*;
@@ -28,6 +30,161 @@ public final class GFLWORTest extends AdvancedQueryTest {
     query("let $i := 1 group by $i, $i return $i", "1");
   }
 
+  /** Tests the parallel evaluation of for clauses. */
+  @Test
+  public void parallelTest() {
+    context.options.set(MainOptions.PARALLELFOR, 4);
+    try {
+      query("for $i at $p in 1 to 10 let $j := $i * $i where $j mod 2 = 0 return $p",
+          "2 4 6 8 10");
+      query("let $x := 10 for $i in (1, 2, 3) return $i + $x", "11 12 13");
+      query("declare variable $v := sum(1 to 10); for $i in 1 to 5 return $i * $v",
+          "55 110 165 220 275");
+      query("for $i in 1 to 1000 return $i[. = (1, 500, 1000)]", "1 500 1000");
+      query("for $i in 1 to 2 return for $j in 1 to 2 return $i * $j", "1 2 2 4");
+      error("for $i in 1 to 10 return if($i = 7) then xs:integer('x' || $i) else $i",
+          Err.FUNCAST);
+    } finally {
+      context.options.set(MainOptions.PARALLELFOR, 0);
+    }
+    query("(# db:parallelfor 3 #) { string-join(for $i in 1 to 6 return <a>{ $i }</a>) }",
+        "123456");
+  }
+
+  /** Tests the parallel evaluation of for clauses with expressions that change their state. */
+  @Test
+  public void parallelStateTest() {
+    final String doc = "let $d := <a>{ for $i in 1 to 100 return <b><c>{ $i }</c></b> }</a> ";
+    context.options.set(MainOptions.PARALLELFOR, 4);
+    try {
+      // paths with cached results
+      query(doc + "return sum(for $i in 1 to 2000 return count($d//c/..))", "200000");
+      // full-text expressions
+      query(doc + "return count(for $i in 1 to 2000 return $d//c[text() contains text 'x'])",
+          "0");
+      query(doc + "return count(for $i in 1 to 200 return $d//c[text() contains text {" +
+          "string($i mod 100 + 1) }])", "200");
+      // pragmas
+      query("count(for $i in 1 to 200 return (# db:chop false #) { $i })", "200");
+      assertTrue(context.options.get(MainOptions.CHOP));
+    } finally {
+      context.options.set(MainOptions.PARALLELFOR, 0);
+    }
+  }
+
+  /** Tests the rewriting of equi-joins to hash joins. */
+  @Test
+  public void joinTest() {
+    query("for $a in 1 to 5 for $b in (5, 4, 3, 2, 1, 3) where $b = $a return $a || $b",
+        "11 22 33 33 44 55");
+    query("for $a in (1, 2.0, 3) for $b in (1, 2, 2, 3.0, xs:float(3)) where $a = $b " +
+        "return $a || ':' || $b", "1:1 2:2 2:2 3:3 3:3");
+    query("for $a in (1, 2, 3) for $b in ('1', '2.0', '3e0') ! xs:untypedAtomic(.) " +
+        "where $a = $b return $a", "1 2 3");
+    query("for $a in (<a><k>1</k><k>2</k></a>, <a><k>3</k></a>) " +
+        "for $b in (<b k='2'/>, <b k='1'/>, <b k='3'/>) where $a/k = $b/@k " +
+        "return string($b/@k)", "2 1 3");
+    query("for $a in (xs:date('2000-01-01'), xs:date('2001-01-01')) " +
+        "for $b in (xs:date('2001-01-01'), xs:date('2002-01-01')) " +
+        "where $a = $b return string($b)", "2001-01-01");
+    query("for $a in 1 to 3 let $c := $a * 2 for $b in 1 to 10 where $b = $c return $b",
+        "2 4 6");
+    // floats are compared with decimals and untyped values by their float values
+    query("for $a in (0.1, 16777217) for $b in (xs:float(0.1), xs:float(16777217)) " +
+        "where $a = $b return $a || '=' || $b", "0.1=0.1");
+    query("for $a in (0.1, 16777217) for $b in (xs:float(0.1), xs:float(16777217)) " +
+        "where $b = $a return $a || '=' || $b", "0.1=0.1 16777217=1.6777216E7");
+    query("for $a in ('0.1', '2') ! xs:untypedAtomic(.) for $b in (xs:float(0.1), 2) " +
+        "where $a = $b return $a || '=' || $b", "0.1=0.1 2=2");
+    query("for $a in (xs:float(0.1), 2) for $b in ('0.1', '2') ! xs:untypedAtomic(.) " +
+        "where $a = $b return $a || '=' || $b", "0.1=0.1 2=2");
+    error("for $a in (1, 2) for $b in ('x', 1) where $b = $a return $b", Err.CMPTYPES);
+    error("for $a in (1, 2) for $b in (<x>1</x>, <x>x</x>) where $a = $b return $a",
+        Err.FUNCAST);
+  }
+
+  /** Tests the spilling of sorted tuples to disk. */
+  @Test
+  public void orderSpillTest() {
+    context.options.set(MainOptions.SPILLSIZE, 1);
+    try {
+      query("for $i in 1 to 9 order by $i mod 3, $i descending return $i",
+          "9 6 3 7 4 1 8 5 2");
+      query("for $i in (3, 0, 1, 2, -1, 2) let $k := if($i = 0) then () else " +
+          "if($i < 0) then xs:double('NaN') else $i order by $k empty greatest return $i",
+          "1 2 2 3 0 -1");
+      query("for $s in ('b', 'a', 'c') let $d := xs:date('2000-01-0' || " +
+          "string-length($s)) order by $s descending return $d || $s",
+          "2000-01-01c 2000-01-01b 2000-01-01a");
+      query("for $i in 1 to 5 let $n := <n>{ $i }</n> order by -$i return $n/text()",
+          "54321");
+      error("for $i in (1, 2, 3, 'a') order by $i return $i", Err.INVCASTEX);
+    } finally {
+      context.options.set(MainOptions.SPILLSIZE, 0);
+    }
+  }
+
+  /** Tests the sorting of the first tuples of order by clauses. */
+  @Test
+  public void orderTopTest() {
+    query("(for $i in 1 to 1000 order by $i mod 10 descending, $i return $i)" +
+        "[position() <= 3]", "9 19 29");
+    query("(for $i in 1 to 1000 order by $i mod 3 return $i)[2]", "6");
+    query("subsequence(for $i in 1 to 10 order by $i mod 2 return $i, 4, 3)", "8 10 1");
+    query("subsequence(for $i in 1 to 10 order by -$i return $i, -2, 5)", "10 9");
+    query("head(for $i in 1 to 10 order by $i mod 5 return $i)", "5");
+    query("(for $i in 1 to 10 order by -$i return ($i, $i))[position() < 4]", "10 10 9");
+    query("(for $i in 1 to 10 order by -$i return $i[. < 5])[position() < 3]", "4 3");
+  }
+
+  /** Tests grouping with collations and the spilling of groups to disk. */
+  @Test
+  public void groupSpillTest() {
+    final String coll = "declare default collation " +
+        "'http://basex.org/collation?lang=en;strength=primary'; ";
+    query(coll + "for $s in ('a', 'B', 'A', 'b', 'c') let $t := $s group by $s " +
+        "return count($t)", "2 2 1");
+    context.options.set(MainOptions.SPILLSIZE, 1);
+    try {
+      query("for $i in 1 to 20 group by $k := $i mod 7 order by $k return sum($i)",
+          "21 24 27 30 33 36 39");
+      query(coll + "for $s in ('a', 'B', 'A', 'b', 'c') let $t := $s group by $s " +
+          "order by $s return string-join($t)", "aA Bb c");
+      query("for $i in 1 to 10 let $n := <n>{ $i }</n> group by $k := $i mod 2 " +
+          "order by $k return string-join($n)", "246810 13579");
+    } finally {
+      context.options.set(MainOptions.SPILLSIZE, 0);
+    }
+  }
+
+  /**
+   * Checks that spilled tuples are deleted if the evaluation is stopped early.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void spillCloseTest() throws QueryException {
+    final IOFile tmp = new IOFile(System.getProperty("java.io.tmpdir"));
+    final String regex = "Spill.*\\" + IO.BASEXSUFFIX;
+    final int files = tmp.children(regex).length;
+    context.options.set(MainOptions.SPILLSIZE, 1);
+    try {
+      for(final String query : new String[] {
+        "for $i in 1 to 10 order by -$i return $i",
+        "for $i in 1 to 20 group by $k := $i mod 7 return $k" }) {
+        final QueryProcessor qp = new QueryProcessor(query, context);
+        try {
+          assertNotNull(qp.iter().next());
+          assertTrue(tmp.children(regex).length > files);
+        } finally {
+          qp.close();
+        }
+        assertEquals(files, tmp.children(regex).length);
+      }
+    } finally {
+      context.options.set(MainOptions.SPILLSIZE, 0);
+    }
+  }
+
   /**
    * Runs an updating query and matches the result of the second query
    * against the expected output.
@@ -94,6 +94,15 @@ public final class FNDbTest extends AdvancedQueryTest {
     query(_DB_OPEN_ID.args(NAME, 0) + "//title/text()", "XML");
     error(_DB_OPEN_ID.args(NAME, -1), Err.BXDB_RANGE);
     error(_DB_OPEN_ID.args(NAME, Integer.MAX_VALUE), Err.BXDB_RANGE);
+
+    // access nodes after updates
+    final String id = query(_DB_NODE_ID.args("(//li)[1]"));
+    query("delete node (//li)[1]");
+    query("for $n in //*[position() mod 2 = 0] return (insert node <a><b/>x</a> before $n, " +
+        "delete node $n/node()[1])");
+    query("every $n in " + _DB_OPEN.args(NAME) + "//node() satisfies " +
+        _DB_OPEN_ID.args(NAME, _DB_NODE_ID.args("$n")) + " is $n", "true");
+    error(_DB_OPEN_ID.args(NAME, Integer.parseInt(id)), Err.BXDB_RANGE);
   }
 
   /**
@@ -405,7 +414,7 @@ public final class FNDbTest extends AdvancedQueryTest {
         query(_DB_CREATE.args(NAME, "()", "()", " map { '" + k + "':" + v + "() }"));
       }
     }
-    final String[] sopt = { "language", "stopwords" };
+    final String[] sopt = { "language", "stopwords", "textinclude", "attrinclude" };
     for(final String k : sopt) {
       query(_DB_CREATE.args(NAME, "()", "()", " map { '" + k + "':'' }"));
     }
@@ -535,7 +544,7 @@ public final class FNDbTest extends AdvancedQueryTest {
         query(_DB_OPTIMIZE.args(NAME, "false()", " map { '" + k + "':=" + v + "() }"));
       }
     }
-    final String[] sopt = { "language", "stopwords" };
+    final String[] sopt = { "language", "stopwords", "textinclude", "attrinclude" };
     for(final String k : sopt) {
       query(_DB_OPTIMIZE.args(NAME, "false()", " map { '" + k + "':='' }"));
     }
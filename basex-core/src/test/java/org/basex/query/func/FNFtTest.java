@@ -33,6 +33,30 @@ public final class FNFtTest extends AdvancedQueryTest {
     new CreateIndex(CmdIndex.FULLTEXT).execute(context);
   }
 
+  /**
+   * Test method.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void fuzzy() throws BaseXException {
+    final String[][] tests = {
+      { "0", "Azzignments", "Assignments" }, { "0", "Azzzgnments", "" },
+      { "1", "Azzignments", "" }, { "1", "Bssignments", "Assignments" },
+      { "2", "Azzignments", "Assignments" }, { "2", "Bzzignments", "" },
+      { "3", "Bzzignments", "Assignments" }, { "3", "Assign", "" },
+    };
+    try {
+      for(final String[] test : tests) {
+        new Set(MainOptions.LSERROR, Integer.parseInt(test[0])).execute(context);
+        final String map = " map { 'fuzzy': true() }";
+        query(_FT_SEARCH.args(NAME, test[1], map), test[2]);
+        query(_FT_CONTAINS.args("Assignments", test[1], map), !test[2].isEmpty());
+      }
+    } finally {
+      new Set(MainOptions.LSERROR, 0).execute(context);
+    }
+  }
+
   /**
    * Test method.
    */
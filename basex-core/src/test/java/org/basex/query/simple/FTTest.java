@@ -208,6 +208,20 @@ public final class FTTest extends QueryTest {
       { "FTFuzzy 1", nodes(7, 9, 11), "//*[text() contains text 'Database' using fuzzy]" },
       { "FTFuzzy 2", nodes(7, 9, 11), "//*[text() contains text 'Databaze' using fuzzy]" },
       { "FTFuzzy 3", empty(), "//*[text() contains text 'Databasing' using fuzzy]" },
+      { "FTFuzzy 4", nodes(7, 9, 11), "declare option db:lserror '1'; " +
+        "//*[text() contains text 'Xatabases' using fuzzy]" },
+      { "FTFuzzy 5", empty(), "declare option db:lserror '1'; " +
+        "//*[text() contains text 'XXtabases' using fuzzy]" },
+      { "FTFuzzy 6", nodes(7, 9, 11), "declare option db:lserror '2'; " +
+        "//*[text() contains text 'XXtabases' using fuzzy]" },
+      { "FTFuzzy 7", empty(), "declare option db:lserror '2'; " +
+        "//*[text() contains text 'XXXabases' using fuzzy]" },
+      { "FTFuzzy 8", nodes(7, 9, 11), "declare option db:lserror '3'; " +
+        "//*[text() contains text 'XXXabases' using fuzzy]" },
+      { "FTFuzzy 9", nodes(7, 9, 11), "declare option db:lserror '3'; " +
+        "//*[text() contains text 'databXXXs' using fuzzy]" },
+      { "FTFuzzy 10", empty(), "declare option db:lserror '3'; " +
+        "//*[text() contains text 'dta' using fuzzy]" },
 
       { "FTAnyAllOption 1", nodes(3, 5, 7, 9, 11),
         "/fttest/co/w[text() contains text 'xml' any]" },
@@ -0,0 +1,116 @@
+package org.basex.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.in.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests batches of client requests.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientBatchTest extends SandboxTest {
+  /** Server reference. */
+  private static BaseXServer server;
+  /** Client session. */
+  private ClientSession session;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    stopServer(server);
+  }
+
+  /**
+   * Starts a session.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void startSession() throws IOException {
+    session = createClient();
+  }
+
+  /**
+   * Stops the session.
+   * @throws IOException I/O exception
+   */
+  @After
+  public void stopSession() throws IOException {
+    session.execute(new DropDB(NAME));
+    session.close();
+  }
+
+  /**
+   * Runs a batch of requests.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void run() throws IOException {
+    final ClientBatch batch = session.batch();
+    batch.execute("create db " + NAME).add("a.xml", new ArrayInput("<a>1</a>"));
+    batch.query("declare variable $x external; sum(//a) * $x").bind("x", 2, "xs:integer");
+    batch.query("count(//a)");
+    final String[] results = batch.run();
+    assertEquals(4, results.length);
+    assertEquals("2", results[2]);
+    assertEquals("1", results[3]);
+    assertEquals(0, batch.size());
+  }
+
+  /**
+   * Checks that the first error is reported after all requests have been processed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void error() throws IOException {
+    final ClientBatch batch = session.batch();
+    batch.execute("create db " + NAME).query("error()").add("a.xml", new ArrayInput("<a/>"));
+    try {
+      batch.run();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage().startsWith("Request 2:"));
+    }
+    assertEquals(0, batch.size());
+    assertEquals("1", session.execute("xquery count(db:open('" + NAME + "'))"));
+  }
+
+  /**
+   * Runs a batch with many requests and large responses.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void large() throws IOException {
+    final ClientBatch batch = session.batch();
+    batch.execute("create db " + NAME);
+    final int n = 1000;
+    for(int i = 0; i < n; i++) {
+      batch.add(i + ".xml", new ArrayInput("<a>" + i + "</a>"));
+      batch.query("declare variable $i external; string-join((1 to 1000) ! $i)").bind("i", i);
+    }
+    final String[] results = batch.run();
+    assertEquals(2 * n + 1, results.length);
+    assertEquals(String.valueOf(n), session.execute("xquery count(db:open('" + NAME + "'))"));
+  }
+}
@@ -0,0 +1,228 @@
+package org.basex.server;
+
+import static org.basex.core.Text.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the multiplexing of client sessions.
+ * The server is started with two worker threads.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelectorTest extends SandboxTest {
+  /** Number of idle connections. */
+  private static final int IDLE = 50;
+  /** Server reference. */
+  private static BaseXServer server;
+  /** Raw client connections. */
+  private final ArrayList<Socket> sockets = new ArrayList<>();
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    final Context ctx = new Context();
+    ctx.globalopts.set(GlobalOptions.SERVERTHREADS, 2);
+    ctx.globalopts.set(GlobalOptions.DBPATH, sandbox().path());
+    final PrintStream out = System.out;
+    try {
+      System.setOut(NULL);
+      server = new BaseXServer(ctx, "-z", "-p9999", "-e9998");
+    } finally {
+      System.setOut(out);
+    }
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    stopServer(server);
+  }
+
+  /**
+   * Closes the raw client connections.
+   * @throws IOException I/O exception
+   */
+  @After
+  public void close() throws IOException {
+    for(final Socket s : sockets) s.close();
+    sockets.clear();
+  }
+
+  /**
+   * Checks that idle connections and incomplete logins do not block other clients.
+   * @throws Exception exception
+   */
+  @Test
+  public void idle() throws Exception {
+    for(int i = 0; i < IDLE; i++) {
+      final Socket s = connect();
+      // half of the connections send incomplete login data
+      if(i % 2 == 0) send(s, S_ADMIN);
+    }
+    assertEquals("2", active("xquery 1 + 1"));
+  }
+
+  /**
+   * Checks that incomplete requests of authenticated clients do not block other clients.
+   * @throws Exception exception
+   */
+  @Test
+  public void partial() throws Exception {
+    final ArrayList<Socket> clients = new ArrayList<>();
+    for(int i = 0; i < IDLE; i++) {
+      final Socket s = login();
+      send(s, "xquery " + i);
+      clients.add(s);
+    }
+    assertEquals("2", active("xquery 1 + 1"));
+
+    // complete requests
+    int i = 0;
+    for(final Socket s : clients) {
+      send(s, " + 1\0");
+      assertEquals(Integer.toString(++i), result(s));
+    }
+  }
+
+  /**
+   * Checks that pipelined requests are processed in the correct order, including a final
+   * request that has been sent in several chunks.
+   * @throws Exception exception
+   */
+  @Test
+  public void pipelined() throws Exception {
+    final Socket s = login();
+    send(s, "xquery 1\0xquery 2\0xquery");
+    assertEquals("1", result(s));
+    assertEquals("2", result(s));
+    assertEquals("3", active("xquery 3"));
+    send(s, " 4");
+    send(s, "\0");
+    assertEquals("4", result(s));
+  }
+
+  /**
+   * Checks that connections with too much login data are closed.
+   * @throws Exception exception
+   */
+  @Test
+  public void large() throws Exception {
+    final Socket s = connect();
+    s.setSoTimeout(10000);
+    string(s);
+    final byte[] data = new byte[ClientInput.MAX + 1];
+    Arrays.fill(data, (byte) 'a');
+    s.getOutputStream().write(data);
+    s.getOutputStream().flush();
+    assertEquals(-1, s.getInputStream().read());
+  }
+
+  /**
+   * Runs a command with a new client session. The command must not take longer than
+   * 10 seconds.
+   * @param command command
+   * @return result
+   * @throws Exception exception
+   */
+  private static String active(final String command) throws Exception {
+    final ExecutorService es = Executors.newSingleThreadExecutor();
+    try {
+      return es.submit(new Callable<String>() {
+        @Override
+        public String call() throws IOException {
+          final ClientSession cs = createClient();
+          try {
+            return cs.execute(command);
+          } finally {
+            cs.close();
+          }
+        }
+      }).get(10, TimeUnit.SECONDS);
+    } finally {
+      es.shutdownNow();
+    }
+  }
+
+  /**
+   * Opens a connection.
+   * @return socket
+   * @throws IOException I/O exception
+   */
+  private Socket connect() throws IOException {
+    final Socket s = new Socket(S_LOCALHOST, 9999);
+    sockets.add(s);
+    return s;
+  }
+
+  /**
+   * Opens a connection and authenticates the admin user.
+   * @return socket
+   * @throws IOException I/O exception
+   */
+  private Socket login() throws IOException {
+    final Socket s = connect();
+    s.setSoTimeout(10000);
+    final String ts = string(s);
+    send(s, S_ADMIN + '\0' + Token.md5(Token.md5(S_ADMIN) + ts) + '\0');
+    assertEquals(0, s.getInputStream().read());
+    return s;
+  }
+
+  /**
+   * Reads the result of a command and checks that it was successful.
+   * @param s socket
+   * @return result
+   * @throws IOException I/O exception
+   */
+  private static String result(final Socket s) throws IOException {
+    final String result = string(s);
+    string(s);
+    assertEquals(0, s.getInputStream().read());
+    return result;
+  }
+
+  /**
+   * Reads a zero-terminated string.
+   * @param s socket
+   * @return string
+   * @throws IOException I/O exception
+   */
+  private static String string(final Socket s) throws IOException {
+    final InputStream is = s.getInputStream();
+    final ByteList bl = new ByteList();
+    for(int b; (b = is.read()) > 0;) bl.add(b);
+    return bl.toString();
+  }
+
+  /**
+   * Sends a string.
+   * @param s socket
+   * @param string string
+   * @throws IOException I/O exception
+   */
+  private static void send(final Socket s, final String string) throws IOException {
+    final OutputStream os = s.getOutputStream();
+    os.write(Token.token(string));
+    os.flush();
+  }
+}
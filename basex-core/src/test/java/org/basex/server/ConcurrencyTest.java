@@ -68,30 +68,71 @@ public final class ConcurrencyTest extends SandboxTest {
     for(final QueryClient c : cl) c.session.close();
   }
 
+  /**
+   * Updates the database while it is optimized.
+   * @throws Exception exception
+   */
+  @Test
+  public void optimizeAll() throws Exception {
+    sess.execute(new Close());
+    final ClientSession opt = createClient();
+    final IOException[] error = { null };
+    final Thread th = new Thread() {
+      @Override
+      public void run() {
+        try {
+          opt.execute(new Open(NAME));
+          opt.execute(new OptimizeAll());
+        } catch(final IOException ex) {
+          error[0] = ex;
+        }
+      }
+    };
+    th.start();
+    final QueryClient[] cl = new QueryClient[5];
+    for(int i = 0; i < cl.length; ++i) {
+      cl[i] = new QueryClient(i);
+      cl[i].query = "insert node <test>optimize" + i + "</test> into db:open('" + NAME + "')/*";
+    }
+    for(final QueryClient c : cl) c.start();
+    for(final QueryClient c : cl) c.join();
+    for(final QueryClient c : cl) c.session.close();
+    th.join();
+    opt.close();
+    if(error[0] != null) fail(Util.message(error[0]));
+
+    // check contents and text index
+    assertEquals("5", sess.query("count(db:open('" + NAME + "')//test)").execute());
+    for(int i = 0; i < cl.length; ++i) {
+      assertEquals("test", sess.query("db:text('" + NAME + "', 'optimize" + i + "')/../name()").
+          execute());
+    }
+  }
+
   /** Single client. */
   static class QueryClient extends Thread {
     /** Client session. */
     ClientSession session;
-    /** Query number. */
-    final int number;
+    /** Query. */
+    String query;
 
     /**
      * Default constructor.
      * @param nr query number
      */
     QueryClient(final int nr) {
-      number = nr;
       try {
         session = createClient();
       } catch(final IOException ex) {
         fail(Util.message(ex));
       }
+      query = QUERIES[nr % QUERIES.length];
     }
 
     @Override
     public void run() {
       try {
-        session.query(QUERIES[number % QUERIES.length]).execute();
+        session.query(query).execute();
       } catch(final IOException ex) {
         fail(Util.message(ex));
       }
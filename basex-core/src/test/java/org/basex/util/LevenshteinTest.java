@@ -0,0 +1,120 @@
+package org.basex.util;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * Levenshtein tests.
+ *
+ * @author BaseX Team 2005-14, BSD License
+ * @author Christian Gruen
+ */
+public final class LevenshteinTest {
+  /** Levenshtein instance. */
+  private final Levenshtein ls = new Levenshtein();
+
+  /** Tests the similarity of tokens. */
+  @Test
+  public void similar() {
+    assertTrue(similar("house", "house", 0));
+    assertTrue(similar("House", "hoUse", 1));
+    assertTrue(similar("houses", "house", 1));
+    assertTrue(similar("hosue", "house", 1));
+    assertTrue(similar("hose", "house", 0));
+    assertFalse(similar("hse", "house", 1));
+    assertTrue(similar("horse", "house", 0));
+    assertFalse(similar("mice", "house", 0));
+    assertTrue(similar("xxuse", "house", 2));
+    assertFalse(similar("xxuse", "house", 1));
+    // short tokens are compared exactly
+    assertTrue(similar("abc", "abc", 2));
+    assertFalse(similar("abd", "abc", 2));
+    assertFalse(similar("", "house", 5));
+  }
+
+  /** Tests the returned prefix lengths. */
+  @Test
+  public void prefix() {
+    assertEquals(-1, prefix("house", "house", 1));
+    assertEquals(-1, prefix("xouse", "house", 1));
+    assertEquals(2, prefix("xxuse", "house", 1));
+    assertEquals(3, prefix("xxxse", "house", 2));
+    assertEquals(2, prefix("abcdef", "xyzdef", 1));
+    // no prefix for tokens with different lengths or for short tokens
+    assertEquals(9, prefix("houseboat", "house", 1));
+    assertEquals(3, prefix("abd", "abc", 1));
+    assertEquals(0, prefix("", "house", 1));
+    // no prefix for multi-byte characters
+    assertEquals(token("xääse").length, prefix("xääse", "house", 1));
+  }
+
+  /**
+   * Checks that all tokens with a returned prefix are rejected. All tokens of a given length
+   * over a small alphabet are compared with each other.
+   */
+  @Test
+  public void prefixes() {
+    for(int l = 4; l <= 6; l++) {
+      final TokenList tokens = new TokenList();
+      tokens(new byte[l], 0, tokens);
+      final byte[][] tks = tokens.toArray();
+      for(int k = 1; k <= 3; k++) {
+        for(final byte[] sub : tks) {
+          for(int t = 0; t < tks.length; t++) {
+            final int p = ls.prefix(tks[t], sub, k);
+            assertEquals(p == -1, ls.similar(tks[t], sub, k));
+            if(p == -1 || p == tks[t].length) continue;
+            // skip the tokens that start with the returned prefix
+            final byte[] prefix = subtoken(tks[t], 0, p);
+            for(int u = t; u < tks.length && startsWith(tks[u], prefix); u++) {
+              assertFalse(string(tks[u]) + '/' + string(sub),
+                  ls.similar(tks[u], sub, k));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates all tokens of the specified length over a sorted alphabet.
+   * @param token token
+   * @param pos current position
+   * @param tokens sorted tokens
+   */
+  private static void tokens(final byte[] token, final int pos, final TokenList tokens) {
+    if(pos == token.length) {
+      tokens.add(token.clone());
+    } else {
+      for(final byte b : token("abc")) {
+        token[pos] = b;
+        tokens(token, pos + 1, tokens);
+      }
+    }
+  }
+
+  /**
+   * Checks if two strings are similar.
+   * @param token token
+   * @param sub sub token
+   * @param err allowed errors
+   * @return result of check
+   */
+  private boolean similar(final String token, final String sub, final int err) {
+    return ls.similar(token(token), token(sub), err);
+  }
+
+  /**
+   * Returns the prefix length for two strings.
+   * @param token token
+   * @param sub sub token
+   * @param err allowed errors
+   * @return prefix length, or {@code -1}
+   */
+  private int prefix(final String token, final String sub, final int err) {
+    return ls.prefix(token(token), token(sub), err);
+  }
+}